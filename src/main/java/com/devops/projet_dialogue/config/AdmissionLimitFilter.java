@@ -0,0 +1,112 @@
+package com.devops.projet_dialogue.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite le nombre de requêtes traitées en même temps (threads virtuels).
+ *
+ * Avec des threads virtuels, Tomcat ne borne plus la concurrence : des milliers de
+ * requêtes se disputeraient les quelques connexions du pool JDBC. Au-delà de la limite,
+ * une requête attend son tour (file équitable, le thread virtuel est simplement suspendu),
+ * puis reçoit 503 + Retry-After si le délai est dépassé.
+ *
+ * Les fichiers servis (GET /uploads/…, ressources statiques), le WebSocket et l'actuator
+ * n'utilisent pas la base et ne sont pas limités. L'envoi d'une photo (POST
+ * /conversation/{id}/photo) enregistre la photo et le message : il est limité comme
+ * les autres requêtes.
+ */
+public class AdmissionLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    // Fichiers servis : seul le préfixe /uploads/ est exclu, pas les envois de photos
+    private static final List<String> EXCLUDED_PREFIXES =
+            List.of("/uploads/", "/css/", "/js/", "/images/", "/actuator/");
+
+    // Handshake WebSocket (WebSocketConfig) : ce chemin exactement, pas /ws…
+    private static final String WEBSOCKET_ENDPOINT = "/ws";
+
+    private final int limit;
+    private final long timeoutNanos;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdmissionLimitFilter(int limit, Duration timeout) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("La limite de requêtes simultanées doit être positive");
+        }
+        this.limit = limit;
+        this.timeoutNanos = timeout.toNanos();
+        this.permits = new Semaphore(limit, true);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            rejected.incrementAndGet();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        // Flux SSE : seul le premier passage (rejeu depuis la base) occupe une place
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(WEBSOCKET_ENDPOINT)) {
+            return true;
+        }
+        for (String prefix : EXCLUDED_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("http.admission.in-flight", permits, p -> limit - p.availablePermits())
+                .description("Requêtes en cours de traitement")
+                .register(registry);
+        Gauge.builder("http.admission.waiting", permits, Semaphore::getQueueLength)
+                .description("Requêtes en attente d'une place")
+                .register(registry);
+        FunctionCounter.builder("http.admission.rejected", rejected, AtomicLong::get)
+                .description("Requêtes refusées (503) faute de place dans le délai")
+                .register(registry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.devops.projet_dialogue.config;
+
+import com.devops.projet_dialogue.storage.InMemoryPhotoStorage;
+import com.devops.projet_dialogue.storage.LocalPhotoStorage;
+import com.devops.projet_dialogue.storage.PhotoStorage;
+import com.devops.projet_dialogue.storage.S3PhotoStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Emplacement des fichiers des photos (app.photos.storage.type) :
+ * - local : dossier sur le disque de l'instance (par défaut, dossier uploads) ;
+ * - memory : en mémoire, pour les tests ;
+ * - s3 : bucket compatible S3 (AWS, MinIO…), partagé entre plusieurs instances.
+ */
+@Configuration
+public class PhotoStorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.photos.storage.type", havingValue = "local", matchIfMissing = true)
+    public PhotoStorage localPhotoStorage(@Value("${app.photos.storage.local.root:uploads}") String root) {
+        return new LocalPhotoStorage(Paths.get(root));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.photos.storage.type", havingValue = "memory")
+    public PhotoStorage inMemoryPhotoStorage() {
+        return new InMemoryPhotoStorage();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.photos.storage.type", havingValue = "s3")
+    public PhotoStorage s3PhotoStorage(S3AsyncClient s3Client,
+                                       @Value("${app.photos.storage.s3.bucket}") String bucket) {
+        return new S3PhotoStorage(s3Client, bucket);
+    }
+
+    /**
+     * Client S3 asynchrone. Au-delà du seuil, un objet est envoyé en plusieurs parties
+     * en parallèle ; endpoint et style de chemin permettent de viser MinIO.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.photos.storage.type", havingValue = "s3")
+    public S3AsyncClient s3Client(@Value("${app.photos.storage.s3.endpoint:}") String endpoint,
+                                  @Value("${app.photos.storage.s3.region:us-east-1}") String region,
+                                  @Value("${app.photos.storage.s3.access-key:}") String accessKey,
+                                  @Value("${app.photos.storage.s3.secret-key:}") String secretKey,
+                                  @Value("${app.photos.storage.s3.path-style:false}") boolean pathStyle,
+                                  @Value("${app.photos.storage.s3.multipart-threshold:8MB}") DataSize multipartThreshold,
+                                  @Value("${app.photos.storage.s3.part-size:5MB}") DataSize partSize) {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials(accessKey, secretKey))
+                .forcePathStyle(pathStyle)
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(multipartThreshold.toBytes())
+                        .minimumPartSizeInBytes(partSize.toBytes())
+                        .build());
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    // Sans clés explicites : variables d'environnement, profil AWS ou rôle de l'instance
+    private static AwsCredentialsProvider credentials(String accessKey, String secretKey) {
+        if (StringUtils.hasText(accessKey)) {
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+        return DefaultCredentialsProvider.create();
+    }
+}
@@ -0,0 +1,12 @@
+package com.devops.projet_dialogue.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tâches planifiées (@Scheduled), par exemple la maintenance des partitions de messages.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,46 @@
+package com.devops.projet_dialogue.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Mode threads virtuels (spring.threads.virtual.enabled=true, profil prod) : Spring Boot
+ * exécute alors les requêtes Tomcat et les tâches asynchrones sur des threads virtuels.
+ *
+ * Le nombre de requêtes simultanées est limité d'après la taille du pool de connexions
+ * (AdmissionLimitFilter), pour que la concurrence reste au niveau de ce que la base absorbe.
+ * Le filtre passe avant Spring Security, dont la connexion et le chargement de l'utilisateur
+ * lisent aussi la base.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    // Taille par défaut du pool Hikari
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public AdmissionLimitFilter admissionLimitFilter(DataSource dataSource,
+                                                     @Value("${app.concurrency.requests-per-connection:2}") int requestsPerConnection,
+                                                     @Value("${app.concurrency.admission-timeout:2s}") Duration timeout) {
+        int poolSize = dataSource instanceof HikariDataSource hikari
+                ? hikari.getMaximumPoolSize()
+                : DEFAULT_POOL_SIZE;
+        return new AdmissionLimitFilter(poolSize * requestsPerConnection, timeout);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionLimitFilter> admissionLimitFilterRegistration(AdmissionLimitFilter filter) {
+        FilterRegistrationBean<AdmissionLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,44 @@
+package com.devops.projet_dialogue.config;
+
+import com.devops.projet_dialogue.security.WebSocketSecurityInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+/**
+ * WebSocket / STOMP : les nouveaux messages sont poussés sur
+ * /topic/conversations/{id} aux participants qui ont la conversation ouverte.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    /** Préfixe des topics de conversation */
+    public static final String CONVERSATION_TOPIC = "/topic/conversations/";
+
+    private final WebSocketSecurityInterceptor securityInterceptor;
+
+    public WebSocketConfig(WebSocketSecurityInterceptor securityInterceptor) {
+        this.securityInterceptor = securityInterceptor;
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Handshake HTTP authentifié par la session (même origine uniquement)
+        registry.addEndpoint("/ws");
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        // Broker en mémoire : suffisant pour une seule instance de l'application
+        registry.enableSimpleBroker("/topic");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(securityInterceptor);
+    }
+}
@@ -2,7 +2,7 @@ package com.devops.projet_dialogue.controller;
 
 import com.devops.projet_dialogue.dto.RegisterRequest;
 import com.devops.projet_dialogue.model.User;
-import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -13,12 +13,12 @@ import org.springframework.web.bind.annotation.*;
 @Controller
 public class AuthController {
 
-    private final UserRepository userRepository;
+    private final UserService userService;
     private final PasswordEncoder passwordEncoder;
 
-    public AuthController(UserRepository userRepository,
+    public AuthController(UserService userService,
                           PasswordEncoder passwordEncoder) {
-        this.userRepository = userRepository;
+        this.userService = userService;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -50,7 +50,7 @@ public class AuthController {
         }
 
         // Vérifier que le username n'existe pas déjà
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (userService.existsByUsername(request.getUsername())) {
             model.addAttribute("errorMessage", "Ce nom d'utilisateur est déjà pris.");
             return "register";
         }
@@ -61,7 +61,8 @@ public class AuthController {
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRole("ROLE_USER");
 
-        userRepository.save(user);
+        // Passe par UserService pour invalider le cache des utilisateurs
+        userService.save(user);
 
         // Redirection vers le login après inscription réussie
         return "redirect:/login?registered";
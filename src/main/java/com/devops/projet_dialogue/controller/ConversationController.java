@@ -1,15 +1,13 @@
 package com.devops.projet_dialogue.controller;
 
-import com.devops.projet_dialogue.exception.UserNotFoundException;
-import com.devops.projet_dialogue.model.Conversation;
-import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.security.CurrentUser;
+import com.devops.projet_dialogue.security.UserSnapshot;
 import com.devops.projet_dialogue.service.ConversationService;
-import com.devops.projet_dialogue.service.UserService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 
 @Controller
@@ -17,25 +15,18 @@ import java.util.List;
 public class ConversationController {
 
     private final ConversationService conversationService;
-    private final UserService userService;
 
-    public ConversationController(ConversationService conversationService,
-                                  UserService userService) {
+    public ConversationController(ConversationService conversationService) {
         this.conversationService = conversationService;
-        this.userService = userService;
     }
 
     /**
      * Liste des conversations de l'utilisateur connecté
      */
     @GetMapping
-    public String listConversations(Model model, Principal principal) {
-        // Récupérer l'utilisateur connecté
-        User currentUser = userService.findByUsername(principal.getName())
-                .orElseThrow(() -> new UserNotFoundException(principal.getName()));
-
-        // Récupérer toutes ses conversations
-        List<Conversation> conversations = conversationService.findAllForUser(currentUser.getId());
+    public String listConversations(Model model, @CurrentUser UserSnapshot currentUser) {
+        // Récupérer toutes les conversations de l'utilisateur connecté
+        List<ConversationView> conversations = conversationService.findAllForUser(currentUser.id());
 
         model.addAttribute("conversations", conversations);
         model.addAttribute("currentUser", currentUser);
@@ -47,18 +38,14 @@ public class ConversationController {
      * Ouvrir une conversation avec un utilisateur (ou la créer si elle n'existe pas)
      */
     @GetMapping("/with/{userId}")
-    public String openConversation(@PathVariable Long userId, Principal principal) {
-        // Récupérer l'utilisateur connecté
-        User currentUser = userService.findByUsername(principal.getName())
-                .orElseThrow(() -> new UserNotFoundException(principal.getName()));
-
+    public String openConversation(@PathVariable Long userId, @CurrentUser UserSnapshot currentUser) {
         // Créer ou récupérer la conversation
-        Conversation conversation = conversationService.getOrCreate(
-                currentUser.getId(),
+        Long conversationId = conversationService.getOrCreate(
+                currentUser.id(),
                 userId
         );
 
         // Rediriger vers la page de la conversation
-        return "redirect:/conversation/" + conversation.getId();
+        return "redirect:/conversation/" + conversationId;
     }
 }
\ No newline at end of file
@@ -1,17 +1,17 @@
 package com.devops.projet_dialogue.controller;
 
-import com.devops.projet_dialogue.exception.UserNotFoundException;
-import com.devops.projet_dialogue.model.Conversation;
-import com.devops.projet_dialogue.model.Photo;
-import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.dto.GalleryPhotoView;
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.security.CurrentUser;
+import com.devops.projet_dialogue.security.UserSnapshot;
+import com.devops.projet_dialogue.service.ConversationMembershipCache;
 import com.devops.projet_dialogue.service.ConversationService;
 import com.devops.projet_dialogue.service.MessageService;
-import com.devops.projet_dialogue.service.UserService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 
 @Controller
@@ -20,38 +20,35 @@ public class GalleryController {
 
     private final ConversationService conversationService;
     private final MessageService messageService;
-    private final UserService userService;
+    private final ConversationMembershipCache membershipCache;
 
     public GalleryController(ConversationService conversationService,
                              MessageService messageService,
-                             UserService userService) {
+                             ConversationMembershipCache membershipCache) {
         this.conversationService = conversationService;
         this.messageService = messageService;
-        this.userService = userService;
+        this.membershipCache = membershipCache;
     }
 
     /**
      * Affiche la galerie de photos d'une conversation
      */
     @GetMapping("/{id}/gallery")
-    public String gallery(@PathVariable Long id, Model model, Principal principal) {
-        // Récupérer l'utilisateur connecté
-        User currentUser = userService.findByUsername(principal.getName())
-                .orElseThrow(() -> new UserNotFoundException(principal.getName()));
-
-        // Récupérer la conversation
-        Conversation conv = conversationService.findById(id);
-
-        // Vérifier que l'utilisateur participe à la conversation
-        if (!isUserParticipant(conv, currentUser)) {
+    public String gallery(@PathVariable Long id, Model model, @CurrentUser UserSnapshot currentUser) {
+        // Vérifier que l'utilisateur participe à la conversation (sans requête)
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
             return "redirect:/conversations";
         }
 
+        // Récupérer la conversation
+        ConversationView conv = conversationService.findById(id);
+
         // Déterminer l'autre utilisateur
-        User otherUser = getOtherUser(conv, currentUser);
+        UserSummary otherUser = getOtherUser(conv, currentUser);
 
         // Charger les photos
-        List<Photo> photos = messageService.listPhotos(id);
+        // Bornées par la date de création de la conversation (partitions mensuelles)
+        List<GalleryPhotoView> photos = messageService.listPhotos(id, conv.createdAt());
 
         // Ajouter les attributs au modèle
         model.addAttribute("conversation", conv);
@@ -61,20 +58,12 @@ public class GalleryController {
         return "gallery";
     }
 
-    /**
-     * Vérifie si l'utilisateur participe à la conversation
-     */
-    private boolean isUserParticipant(Conversation conversation, User user) {
-        return conversation.getUser1().getId().equals(user.getId()) ||
-                conversation.getUser2().getId().equals(user.getId());
-    }
-
     /**
      * Retourne l'autre utilisateur de la conversation
      */
-    private User getOtherUser(Conversation conversation, User currentUser) {
-        return conversation.getUser1().getId().equals(currentUser.getId())
-                ? conversation.getUser2()
-                : conversation.getUser1();
+    private UserSummary getOtherUser(ConversationView conversation, UserSnapshot currentUser) {
+        return conversation.user1().id().equals(currentUser.id())
+                ? conversation.user2()
+                : conversation.user1();
     }
 }
\ No newline at end of file
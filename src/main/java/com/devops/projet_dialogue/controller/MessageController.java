@@ -1,16 +1,31 @@
 package com.devops.projet_dialogue.controller;
 
-import com.devops.projet_dialogue.model.Conversation;
-import com.devops.projet_dialogue.model.Message;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.dto.MessageCursor;
+import com.devops.projet_dialogue.dto.MessagePage;
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.exception.MessageQueueFullException;
+import com.devops.projet_dialogue.exception.PhotoTooLargeException;
 import com.devops.projet_dialogue.model.Photo;
 import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.security.CurrentUser;
+import com.devops.projet_dialogue.security.UserSnapshot;
 import com.devops.projet_dialogue.service.*;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.security.Principal;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -22,62 +37,149 @@ public class MessageController {
     private final MessageService messageService;
     private final UserService userService;
     private final PhotoService photoService;
+    private final MessageEventStream eventStream;
+    private final ConversationMembershipCache membershipCache;
+    private final ObjectProvider<MessageGroupCommitter> groupCommitter;
 
     public MessageController(ConversationService conversationService,
                              MessageService messageService,
                              UserService userService,
-                             PhotoService photoService) {
+                             PhotoService photoService,
+                             MessageEventStream eventStream,
+                             ConversationMembershipCache membershipCache,
+                             ObjectProvider<MessageGroupCommitter> groupCommitter) {
         this.conversationService = conversationService;
         this.messageService = messageService;
         this.userService = userService;
         this.photoService = photoService;
+        this.eventStream = eventStream;
+        this.membershipCache = membershipCache;
+        this.groupCommitter = groupCommitter;
     }
 
     /**
-     * Afficher une conversation avec ses messages
+     * Gestion des erreurs de conversion de type (ex: curseur invalide)
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleTypeMismatch() {
+        return "error-400";
+    }
+
+    /**
+     * Afficher une conversation avec ses messages les plus récents
      */
     @GetMapping("/{id}")
-    public String viewConversation(@PathVariable Long id, Model model, Principal principal) {
+    public String viewConversation(@PathVariable Long id,
+                                   Model model,
+                                   @CurrentUser(required = false) UserSnapshot currentUser) {
         // Vérifier l'authentification
-        if (principal == null) {
-            return "redirect:/login";
-        }
-
-        // Récupérer l'utilisateur courant
-        User currentUser = userService.findByUsername(principal.getName()).orElse(null);
         if (currentUser == null) {
             return "redirect:/login";
         }
 
-        // Récupérer la conversation
-        Conversation conv = conversationService.findById(id);
-        if (conv == null) {
+        // Sécurité : vérifier que l'utilisateur participe à la conversation (sans requête)
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
             return "redirect:/conversations";
         }
 
-        // Sécurité : vérifier que l'utilisateur participe à la conversation
-        if (!conv.getUser1().getUsername().equals(currentUser.getUsername()) &&
-                !conv.getUser2().getUsername().equals(currentUser.getUsername())) {
-            return "redirect:/conversations";
-        }
+        // Récupérer la conversation
+        ConversationView conv = conversationService.findById(id);
 
         // Trouver l'autre utilisateur de la conversation
-        User otherUser = conv.getUser1().getUsername().equals(currentUser.getUsername())
-                ? conv.getUser2()
-                : conv.getUser1();
+        UserSummary otherUser = conv.user1().id().equals(currentUser.id())
+                ? conv.user2()
+                : conv.user1();
 
-        // Récupérer les messages
-        List<Message> messages = messageService.listMessages(id);
+        // Récupérer la page la plus récente des messages
+        MessagePage page = messageService.listMessages(id);
 
         // Ajouter les attributs au modèle
         model.addAttribute("conversation", conv);
-        model.addAttribute("messages", messages);
+        model.addAttribute("conversationId", id);
+        model.addAttribute("messages", page.messages());
+        model.addAttribute("olderCursor", page.olderCursor());
         model.addAttribute("currentUser", currentUser);
         model.addAttribute("otherUser", otherUser);
 
         return "conversation";
     }
 
+    /**
+     * Charger la page de messages précédant le curseur (bouton "messages précédents").
+     * Retourne uniquement le fragment HTML des bulles, inséré en haut de la conversation.
+     */
+    @GetMapping("/{id}/messages")
+    public String olderMessages(@PathVariable Long id,
+                                @RequestParam MessageCursor before,
+                                Model model,
+                                @CurrentUser(required = false) UserSnapshot currentUser) {
+        // Vérifier l'authentification
+        if (currentUser == null) {
+            return "redirect:/login";
+        }
+
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
+            return "redirect:/conversations";
+        }
+
+        MessagePage page = messageService.listMessagesBefore(id, before);
+
+        model.addAttribute("conversationId", id);
+        model.addAttribute("messages", page.messages());
+        model.addAttribute("olderCursor", page.olderCursor());
+        model.addAttribute("currentUser", currentUser);
+
+        return "fragments/messages :: page";
+    }
+
+    /**
+     * Messages postérieurs à l'id donné, en JSON (clients qui interrogent périodiquement).
+     * Des messages déjà reçus peuvent revenir (recouvrement) : le client les écarte par id.
+     * Répond 204 sans corps quand rien n'a changé.
+     */
+    @GetMapping(value = "/{id}/messages/since", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<List<MessageView>> messagesSince(@PathVariable Long id,
+                                                           @RequestParam long after,
+                                                           @CurrentUser(required = false) UserSnapshot currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<MessageView> messages = messageService.listMessagesSince(id, after);
+        if (messages.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(messages);
+    }
+
+    /**
+     * Flux Server-Sent Events des nouveaux messages de la conversation.
+     * Les messages d'id supérieur à lastId (ou à l'en-tête Last-Event-ID envoyé
+     * par le navigateur à la reconnexion) sont d'abord rejoués.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable Long id,
+                                             @RequestParam(required = false) Long lastId,
+                                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                             @CurrentUser(required = false) UserSnapshot currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Long resumeFrom = lastEventId != null ? lastEventId : lastId;
+        return ResponseEntity.ok(eventStream.subscribe(id, resumeFrom));
+    }
+
     /**
      * Envoi d'un message (texte et/ou photo)
      */
@@ -85,18 +187,20 @@ public class MessageController {
     public String sendMessage(@PathVariable Long id,
                               @RequestParam(required = false) String text,
                               @RequestParam(required = false) MultipartFile image,
-                              Principal principal) {
+                              @CurrentUser(required = false) UserSnapshot currentUser) {
         // Vérifier l'authentification
-        if (principal == null) {
+        if (currentUser == null) {
             return "redirect:/login";
         }
 
-        // Récupérer l'utilisateur courant
-        User sender = userService.findByUsername(principal.getName()).orElse(null);
-        if (sender == null) {
-            return "redirect:/login";
+        // Sécurité : seuls les participants peuvent écrire dans la conversation
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
+            return "redirect:/conversations";
         }
 
+        // Expéditeur rattaché par référence, sans relire l'utilisateur
+        User sender = userService.getReference(currentUser.id());
+
         Photo savedPhoto = null;
 
         // Gérer la photo si présente
@@ -111,8 +215,119 @@ public class MessageController {
         }
 
         // Envoyer le message (texte et/ou photo)
-        messageService.sendMessage(id, sender, text, savedPhoto);
+        send(id, sender, text, savedPhoto);
 
         return "redirect:/conversation/" + id;
     }
-}
\ No newline at end of file
+
+    /**
+     * Envoi groupé de messages texte (intégrations) : le corps est un tableau JSON de textes,
+     * enregistrés en une transaction. Répond 201 avec les messages créés, dans l'ordre.
+     */
+    @PostMapping(value = "/{id}/messages", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<List<MessageView>> sendMessages(@PathVariable Long id,
+                                                          @RequestBody List<String> texts,
+                                                          @CurrentUser(required = false) UserSnapshot currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (texts.size() > MessageService.BULK_MAX_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        User sender = userService.getReference(currentUser.id());
+
+        List<MessageView> sent;
+        try {
+            sent = messageService.sendMessages(id, sender, texts).stream().map(MessageView::of).toList();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(sent);
+    }
+
+    /**
+     * Envoi d'une photo en flux : le corps de la requête est l'image elle-même,
+     * écrite directement dans le dossier uploads (pas de fichier multipart intermédiaire).
+     */
+    @PostMapping("/{id}/photo")
+    @ResponseBody
+    public ResponseEntity<Void> sendPhoto(@PathVariable Long id,
+                                          @RequestParam(required = false) String text,
+                                          @RequestParam(required = false) String filename,
+                                          HttpServletRequest request,
+                                          @CurrentUser(required = false) UserSnapshot currentUser) throws IOException {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (!membershipCache.isParticipant(id, currentUser.id())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        // Taille annoncée trop grande : refus avant toute lecture du corps
+        if (request.getContentLengthLong() > photoService.getMaxSize()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        User sender = userService.getReference(currentUser.id());
+
+        Photo savedPhoto;
+        try {
+            savedPhoto = photoService.savePhoto(request.getInputStream(), filename, sender);
+        } catch (PhotoTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+
+        // Le message revient à l'expéditeur par le topic ou le flux SSE
+        try {
+            send(id, sender, text, savedPhoto);
+        } catch (MessageQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    /**
+     * Enregistre un message : par la file d'écriture groupée si elle est activée
+     * (app.messages.write-behind.enabled), sinon dans sa propre transaction.
+     * File pleine : la photo déjà enregistrée n'est rattachée à aucun message, elle est libérée.
+     */
+    private void send(Long id, User sender, String text, Photo photo) {
+        try {
+            MessageGroupCommitter committer = groupCommitter.getIfAvailable();
+            if (committer != null) {
+                committer.send(id, sender, text, photo);
+            } else {
+                messageService.sendMessage(id, sender, text, photo);
+            }
+        } catch (MessageQueueFullException e) {
+            if (photo != null) {
+                release(photo);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Supprime une photo restée sans message (ligne et fichier s'il n'est plus partagé).
+     */
+    private void release(Photo photo) {
+        try {
+            photoService.deletePhoto(photo);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erreur lors de la suppression de la photo: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.devops.projet_dialogue.controller;
+
+import com.devops.projet_dialogue.service.PhotoFileService;
+import com.devops.projet_dialogue.service.PhotoFileService.PhotoFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service des fichiers du dossier uploads (photos et miniatures).
+ *
+ * Gère les requêtes partielles (Range), les ETag forts et If-None-Match ; les octets
+ * sont envoyés par sendfile quand c'est possible, sinon recopiés (PhotoFileService).
+ * Seuls les fichiers nommés d'après leur contenu sont mis en cache sans revalidation.
+ */
+@Controller
+public class PhotoFileController {
+
+    // Fichiers jamais réécrits (nom dérivé du contenu) : cache permanent, propre à l'utilisateur connecté
+    private static final String CACHE_CONTROL_IMMUTABLE =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable().getHeaderValue();
+
+    // Autres fichiers (anciens noms) : revalidés par ETag à chaque utilisation
+    private static final String CACHE_CONTROL_REVALIDATE = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final PhotoFileService photoFileService;
+
+    public PhotoFileController(PhotoFileService photoFileService) {
+        this.photoFileService = photoFileService;
+    }
+
+    /**
+     * Envoie un fichier, entier ou partiel (GET et HEAD)
+     */
+    @GetMapping("/uploads/{*path}")
+    public void serve(@PathVariable String path,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+
+        Optional<PhotoFile> found = photoFileService.find(path);
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        PhotoFile file = found.get();
+
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                file.contentAddressed() ? CACHE_CONTROL_IMMUTABLE : CACHE_CONTROL_REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Copie déjà en cache côté client
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), file.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = file.size();
+        long start = 0;
+        long end = length - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), file.etag())) {
+            List<HttpRange> ranges = parseRanges(range);
+            // Plusieurs plages (multipart/byteranges) : le fichier entier est envoyé
+            if (ranges.size() == 1) {
+                HttpRange requested = ranges.get(0);
+                try {
+                    start = requested.getRangeStart(length);
+                    end = requested.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType(file.mediaType().toString());
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+        photoFileService.transfer(file, start, end, request, response.getOutputStream());
+    }
+
+    // En-tête Range mal formé : ignoré, le fichier entier est envoyé
+    private static List<HttpRange> parseRanges(String header) {
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * If-None-Match : comparaison faible, liste d'ETag ou "*".
+     */
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Range : la plage n'est servie que si le client a la même version (comparaison forte).
+     * Une date n'est pas prise en compte : le fichier entier est renvoyé.
+     */
+    private static boolean ifRangeMatches(String header, String etag) {
+        return header == null || header.trim().equals(etag);
+    }
+}
@@ -1,9 +1,15 @@
 package com.devops.projet_dialogue.controller;
 
+import com.devops.projet_dialogue.dto.UserPage;
+import com.devops.projet_dialogue.dto.UserSummary;
 import com.devops.projet_dialogue.model.User;
-import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.security.CurrentUser;
 import com.devops.projet_dialogue.security.CustomUserDetails;
+import com.devops.projet_dialogue.security.UserSnapshot;
+import com.devops.projet_dialogue.service.UserService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -11,20 +17,21 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/user")
 public class UserController {
 
-    private final UserRepository userRepository;
+    private final UserService userService;
 
-    public UserController(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserController(UserService userService) {
+        this.userService = userService;
     }
 
     /**
@@ -51,10 +58,11 @@ public class UserController {
     }
 
     /**
-     * Liste de tous les utilisateurs (sauf l'utilisateur connecté)
+     * Annuaire des utilisateurs (sauf l'utilisateur connecté), page par page
      */
     @GetMapping
-    public String listUsers(Model model, Authentication auth) {
+    public String listUsers(@RequestParam(required = false) String after,
+                            Model model, Authentication auth) {
         // Vérifier l'authentification
         if (auth == null || auth.getPrincipal() == null) {
             return "redirect:/login";
@@ -64,13 +72,12 @@ public class UserController {
             CustomUserDetails currentUser = (CustomUserDetails) auth.getPrincipal();
             Long currentUserId = currentUser.getUser().getId();
 
-            // Récupérer tous les utilisateurs sauf l'utilisateur connecté
-            List<User> users = userRepository.findAll()
-                    .stream()
-                    .filter(u -> u.getId() != null && !u.getId().equals(currentUserId))
-                    .collect(Collectors.toList());
+            // Une page d'utilisateurs, l'utilisateur connecté étant exclu en base
+            UserPage page = userService.directory(currentUserId, after);
 
-            model.addAttribute("users", users);
+            model.addAttribute("users", page.users());
+            model.addAttribute("nextCursor", page.nextCursor());
+            model.addAttribute("firstPage", after == null || after.isEmpty());
             model.addAttribute("currentUserId", currentUserId);
 
             return "users/list";
@@ -80,6 +87,21 @@ public class UserController {
         }
     }
 
+    /**
+     * Recherche d'utilisateurs pour la saisie semi-automatique (JSON) :
+     * usernames commençant par q, ou le contenant si contains=true
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<List<UserSummary>> searchUsers(@RequestParam(defaultValue = "") String q,
+                                                         @RequestParam(defaultValue = "false") boolean contains,
+                                                         @CurrentUser(required = false) UserSnapshot currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(userService.search(q, contains, currentUser.id()));
+    }
+
     /**
      * Voir le profil d'un autre utilisateur
      */
@@ -100,7 +122,7 @@ public class UserController {
             }
 
             // Rechercher l'utilisateur cible
-            User target = userRepository.findById(id).orElse(null);
+            User target = userService.findById(id).orElse(null);
 
             if (target == null) {
                 return "redirect:/user?notfound";
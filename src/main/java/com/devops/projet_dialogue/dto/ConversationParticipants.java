@@ -0,0 +1,18 @@
+package com.devops.projet_dialogue.dto;
+
+/**
+ * Ids des deux participants d'une conversation (contrôle d'accès).
+ */
+public record ConversationParticipants(long user1Id, long user2Id) {
+
+    public boolean includes(Long userId) {
+        return userId != null && (userId == user1Id || userId == user2Id);
+    }
+
+    /**
+     * Id de l'autre participant.
+     */
+    public long otherThan(long userId) {
+        return userId == user1Id ? user2Id : user1Id;
+    }
+}
@@ -0,0 +1,39 @@
+package com.devops.projet_dialogue.dto;
+
+import com.devops.projet_dialogue.model.Conversation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vue en lecture seule d'une conversation, de ses deux participants et de son activité.
+ *
+ * @param lastMessageAt      date du dernier message, ou null si la conversation est vide
+ * @param lastMessagePreview début du dernier message (tronqué), ou null
+ */
+public record ConversationView(Long id, UserSummary user1, UserSummary user2, LocalDateTime createdAt,
+                               LocalDateTime lastMessageAt, String lastMessagePreview, long messageCount) {
+
+    /**
+     * Constructeur à plat utilisé par les requêtes JPQL (SELECT new ...).
+     */
+    public ConversationView(Long id,
+                            Long user1Id, String user1Username,
+                            Long user2Id, String user2Username,
+                            LocalDateTime createdAt,
+                            LocalDateTime lastMessageAt, String lastMessagePreview, long messageCount) {
+        this(id, new UserSummary(user1Id, user1Username), new UserSummary(user2Id, user2Username), createdAt,
+                lastMessageAt, lastMessagePreview, messageCount);
+    }
+
+    public static ConversationView of(Conversation conversation) {
+        return new ConversationView(
+                conversation.getId(),
+                UserSummary.of(conversation.getUser1()),
+                UserSummary.of(conversation.getUser2()),
+                conversation.getCreatedAt(),
+                conversation.getLastMessageAt(),
+                conversation.getLastMessagePreview(),
+                conversation.getMessageCount()
+        );
+    }
+}
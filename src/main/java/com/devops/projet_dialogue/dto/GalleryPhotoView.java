@@ -0,0 +1,11 @@
+package com.devops.projet_dialogue.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vue en lecture seule d'une photo de la galerie, avec le nom de son auteur.
+ * thumbnailUrl (grande miniature) reste null tant qu'elle n'est pas générée.
+ */
+public record GalleryPhotoView(Long id, String url, String thumbnailUrl, String originalFilename,
+                               String authorUsername, LocalDateTime createdAt) {
+}
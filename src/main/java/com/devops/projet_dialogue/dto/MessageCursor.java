@@ -0,0 +1,43 @@
+package com.devops.projet_dialogue.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position dans l'historique d'une conversation (pagination par clé, sans OFFSET).
+ * Le couple (createdAt, id) identifie un message de façon unique et suit l'ordre d'affichage.
+ */
+public record MessageCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '_';
+
+    public static MessageCursor of(MessageView message) {
+        return new MessageCursor(message.createdAt(), message.id());
+    }
+
+    /**
+     * Reconstruit un curseur à partir de sa forme texte (paramètre de requête).
+     * Utilisé aussi par Spring pour convertir un @RequestParam.
+     */
+    public static MessageCursor valueOf(String token) {
+        int separator = token == null ? -1 : token.lastIndexOf(SEPARATOR);
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Curseur invalide : " + token);
+        }
+        try {
+            return new MessageCursor(
+                    LocalDateTime.parse(token.substring(0, separator)),
+                    Long.valueOf(token.substring(separator + 1))
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur invalide : " + token, e);
+        }
+    }
+
+    /**
+     * Forme texte du curseur, à passer dans l'URL "charger les messages précédents".
+     */
+    public String encode() {
+        return createdAt.toString() + SEPARATOR + id;
+    }
+}
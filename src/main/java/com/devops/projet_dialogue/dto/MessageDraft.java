@@ -0,0 +1,10 @@
+package com.devops.projet_dialogue.dto;
+
+import com.devops.projet_dialogue.model.Photo;
+import com.devops.projet_dialogue.model.User;
+
+/**
+ * Message à enregistrer, en attente dans la file d'écriture groupée (MessageGroupCommitter).
+ */
+public record MessageDraft(Long conversationId, User sender, String text, Photo photo) {
+}
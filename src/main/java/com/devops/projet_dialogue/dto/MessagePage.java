@@ -0,0 +1,16 @@
+package com.devops.projet_dialogue.dto;
+
+import java.util.List;
+
+/**
+ * Une page de l'historique d'une conversation.
+ *
+ * @param messages    messages de la page, du plus ancien au plus récent
+ * @param olderCursor curseur vers la page précédente, ou null si la page contient le début de l'historique
+ */
+public record MessagePage(List<MessageView> messages, MessageCursor olderCursor) {
+
+    public boolean hasOlder() {
+        return olderCursor != null;
+    }
+}
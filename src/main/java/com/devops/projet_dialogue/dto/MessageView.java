@@ -0,0 +1,25 @@
+package com.devops.projet_dialogue.dto;
+
+import com.devops.projet_dialogue.model.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vue en lecture seule d'un message, lue directement par MessageRepository
+ * (aucune entité gérée par Hibernate pour l'affichage d'une conversation).
+ * photoThumbnailUrl reste null tant que la miniature de la photo n'est pas générée.
+ */
+public record MessageView(Long id, Long senderId, String text, String photoUrl, String photoThumbnailUrl,
+                          LocalDateTime createdAt) {
+
+    public static MessageView of(Message message) {
+        return new MessageView(
+                message.getId(),
+                message.getSender().getId(),
+                message.getText(),
+                message.getPhoto() != null ? message.getPhoto().getUrl() : null,
+                message.getPhoto() != null ? message.getPhoto().getThumbnailUrl() : null,
+                message.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.devops.projet_dialogue.dto;
+
+import java.util.List;
+
+/**
+ * Une page de l'annuaire des utilisateurs.
+ *
+ * @param users      utilisateurs de la page, par ordre alphabétique
+ * @param nextCursor username à passer pour charger la page suivante, ou null si c'est la dernière
+ */
+public record UserPage(List<UserSummary> users, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
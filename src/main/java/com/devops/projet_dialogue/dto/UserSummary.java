@@ -0,0 +1,13 @@
+package com.devops.projet_dialogue.dto;
+
+import com.devops.projet_dialogue.model.User;
+
+/**
+ * Vue minimale d'un utilisateur (affichage uniquement).
+ */
+public record UserSummary(Long id, String username) {
+
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getUsername());
+    }
+}
@@ -0,0 +1,15 @@
+package com.devops.projet_dialogue.event;
+
+import java.util.List;
+
+/**
+ * Abonné aux nouveaux messages, appelé par MessageEventBus après la validation des
+ * transactions, hors du thread de la requête.
+ *
+ * Les messages arrivent par lots, dans l'ordre d'enregistrement ; un même abonné
+ * n'est jamais appelé par deux threads à la fois.
+ */
+public interface MessageEventSubscriber {
+
+    void onMessages(List<MessageSentEvent> events);
+}
@@ -0,0 +1,11 @@
+package com.devops.projet_dialogue.event;
+
+import com.devops.projet_dialogue.dto.MessageView;
+
+/**
+ * Publié par MessageService après l'enregistrement d'un message.
+ * MessageTailCache le reçoit une fois la transaction validée ; les autres abonnés
+ * (WebSocket, SSE) passent par MessageEventBus, hors du thread de la requête.
+ */
+public record MessageSentEvent(Long conversationId, MessageView message) {
+}
@@ -0,0 +1,8 @@
+package com.devops.projet_dialogue.event;
+
+/**
+ * Publié par PhotoService après l'enregistrement d'une photo.
+ * ThumbnailService en génère les miniatures une fois la transaction validée.
+ */
+public record PhotoUploadedEvent(Long photoId, String filename, String contentHash) {
+}
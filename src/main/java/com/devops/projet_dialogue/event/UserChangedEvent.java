@@ -0,0 +1,10 @@
+package com.devops.projet_dialogue.event;
+
+import com.devops.projet_dialogue.security.UserSnapshot;
+
+/**
+ * Publié par UserService après la modification d'un utilisateur, pour que
+ * les copies conservées en session (UserSnapshot) soient remplacées.
+ */
+public record UserChangedEvent(UserSnapshot user) {
+}
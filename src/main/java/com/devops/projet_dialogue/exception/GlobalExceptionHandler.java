@@ -1,5 +1,8 @@
 package com.devops.projet_dialogue.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -26,6 +29,20 @@ public class GlobalExceptionHandler {
         return "error";
     }
 
+    /**
+     * Gère le refus d'un envoi quand la file d'écriture des messages est pleine (503)
+     */
+    @ExceptionHandler(MessageQueueFullException.class)
+    public String handleMessageQueueFullException(MessageQueueFullException e, Model model,
+                                                  HttpServletResponse response) {
+        logger.warn("Envoi refusé : {}", e.getMessage());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        model.addAttribute("errorTitle", "Service surchargé");
+        model.addAttribute("errorMessage", e.getMessage());
+        return "error";
+    }
+
     /**
      * Gère toutes les RuntimeException génériques
      */
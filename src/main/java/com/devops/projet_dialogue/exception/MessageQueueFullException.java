@@ -0,0 +1,11 @@
+package com.devops.projet_dialogue.exception;
+
+/**
+ * Exception levée lorsque la file d'écriture des messages reste pleine au-delà du délai d'attente
+ */
+public class MessageQueueFullException extends RuntimeException {
+
+    public MessageQueueFullException() {
+        super("Trop de messages en cours d'envoi, veuillez réessayer dans un instant.");
+    }
+}
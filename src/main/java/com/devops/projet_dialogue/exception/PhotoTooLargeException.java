@@ -0,0 +1,11 @@
+package com.devops.projet_dialogue.exception;
+
+/**
+ * Exception levée lorsqu'une photo dépasse la taille maximale autorisée
+ */
+public class PhotoTooLargeException extends RuntimeException {
+
+    public PhotoTooLargeException(long maxSize) {
+        super("La photo dépasse la taille maximale autorisée (" + maxSize / (1024 * 1024) + " Mo)");
+    }
+}
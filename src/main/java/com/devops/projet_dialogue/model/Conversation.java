@@ -1,29 +1,60 @@
 package com.devops.projet_dialogue.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
 @Table(name = "conversations",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user1_id", "user2_id"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user1_id", "user2_id"}),
+        indexes = {
+                // Boîte de réception : conversations d'un participant par activité récente
+                // (une branche par colonne, voir ConversationRepositoryImpl.findAllForUser)
+                @Index(name = "idx_conversations_user1_activity", columnList = "user1_id, last_message_at, created_at"),
+                @Index(name = "idx_conversations_user2_activity", columnList = "user2_id, last_message_at, created_at")
+        })
 public class Conversation {
 
+    /** Longueur maximale de l'aperçu du dernier message */
+    public static final int PREVIEW_LENGTH = 100;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    // Participants chargés à la demande (voir les entity graphs de ConversationRepository)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user1_id")
     private User user1;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user2_id")
     private User user2;
 
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Résumé d'activité, tenu à jour par MessageService.sendMessage
+    // (une seule requête UPDATE par message, voir ConversationRepository.recordMessage)
+    private Long lastMessageId;
+
+    private LocalDateTime lastMessageAt;
+
+    @Column(length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long messageCount;
+
+    // false pour les conversations antérieures au résumé d'activité, jusqu'à leur passage
+    // dans ConversationActivityBackfill ; les nouvelles conversations le tiennent à jour dès le départ
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean activityBackfilled = true;
+
     // --- GETTERS & SETTERS ---
 
     public Long getId() { return id; }
@@ -38,11 +69,26 @@ public class Conversation {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public Long getLastMessageId() { return lastMessageId; }
+    public void setLastMessageId(Long lastMessageId) { this.lastMessageId = lastMessageId; }
+
+    public LocalDateTime getLastMessageAt() { return lastMessageAt; }
+    public void setLastMessageAt(LocalDateTime lastMessageAt) { this.lastMessageAt = lastMessageAt; }
+
+    public String getLastMessagePreview() { return lastMessagePreview; }
+    public void setLastMessagePreview(String lastMessagePreview) { this.lastMessagePreview = lastMessagePreview; }
+
+    public long getMessageCount() { return messageCount; }
+    public void setMessageCount(long messageCount) { this.messageCount = messageCount; }
+
+    public boolean isActivityBackfilled() { return activityBackfilled; }
+    public void setActivityBackfilled(boolean activityBackfilled) { this.activityBackfilled = activityBackfilled; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Conversation c)) return false;
-        return Objects.equals(id, c.id);
+        return Objects.equals(getId(), c.getId());
     }
 
     @Override
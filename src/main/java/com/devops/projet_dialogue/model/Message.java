@@ -5,20 +5,38 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages",
+        indexes = {
+                @Index(name = "idx_messages_conversation_created",
+                        columnList = "conversation_id, created_at, id"),
+                @Index(name = "idx_messages_conversation_id",
+                        columnList = "conversation_id, id")
+        })
 public class Message {
 
+    /** Ids réservés par appel à la séquence (optimiseur pooled, voir MessageSequenceAlignment) */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Séquence plutôt qu'IDENTITY : les ids sont connus avant l'INSERT,
+    // Hibernate peut donc regrouper les insertions (hibernate.jdbc.batch_size).
+    // Les ids ne suivent pas l'ordre des validations (un bloc par instance) : les reprises
+    // par id relisent un recouvrement (MessageService.RESUME_OVERLAP)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @ManyToOne(optional = false)
+    // Associations chargées à la demande : les requêtes de MessageRepository
+    // précisent ce qu'elles ramènent (JOIN FETCH / entity graph)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Conversation conversation;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private User sender;
 
-    @OneToOne
+    // Une photo par message : contrainte unique en base, sauf sur la table partitionnée
+    // (MessagePartitioning) où seul l'envoi la garantit (une photo créée par envoi)
+    @OneToOne(fetch = FetchType.LAZY)
     private Photo photo;  // optionnel
 
     @Column(columnDefinition = "TEXT")
@@ -50,7 +68,7 @@ public class Message {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Message m)) return false;
-        return Objects.equals(id, m.id);
+        return Objects.equals(getId(), m.getId());
     }
 
     @Override
@@ -5,7 +5,8 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "photos")
+@Table(name = "photos",
+        indexes = @Index(name = "idx_photos_content_hash", columnList = "content_hash"))
 public class Photo {
 
     @Id
@@ -19,12 +20,22 @@ public class Photo {
     // Nom original du fichier envoyé par l’utilisateur
     private String originalFilename;
 
+    // Empreinte SHA-256 du contenu (nom du fichier stocké) ; null pour les photos plus anciennes
+    @Column(length = 64)
+    private String contentHash;
+
     // URL publique d’accès à la photo
     @Column(nullable = false)
     private String url;
 
+    // Miniatures générées après l'envoi (null tant qu'elles n'existent pas, voir ThumbnailService)
+    // Petite : bulles de conversation ; grande : grille de la galerie
+    private String thumbnailUrl;
+
+    private String largeThumbnailUrl;
+
     // L'auteur de la photo
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
 
@@ -67,6 +78,14 @@ public class Photo {
         this.originalFilename = originalFilename;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -75,6 +94,22 @@ public class Photo {
         this.url = url;
     }
 
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getLargeThumbnailUrl() {
+        return largeThumbnailUrl;
+    }
+
+    public void setLargeThumbnailUrl(String largeThumbnailUrl) {
+        this.largeThumbnailUrl = largeThumbnailUrl;
+    }
+
     public User getAuthor() {
         return author;
     }
@@ -95,7 +130,7 @@ public class Photo {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Photo photo)) return false;
-        return Objects.equals(id, photo.id);
+        return Objects.equals(getId(), photo.getId());
     }
 
     @Override
@@ -0,0 +1,35 @@
+package com.devops.projet_dialogue.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contenu stocké, partagé par les photos de même empreinte (Photo.contentHash).
+ *
+ * La ligne sert de verrou commun à toutes les instances : l'ajout d'une référence et la
+ * suppression de la dernière sont sérialisés par SELECT ... FOR UPDATE (PhotoContentLock).
+ * Elle n'est jamais supprimée.
+ */
+@Entity
+@Table(name = "photo_contents")
+public class PhotoContent {
+
+    // Empreinte SHA-256 du contenu
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    // ========= CONSTRUCTEURS =========
+
+    public PhotoContent() {
+    }
+
+    public PhotoContent(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    // ========= GETTERS =========
+
+    public String getContentHash() {
+        return contentHash;
+    }
+}
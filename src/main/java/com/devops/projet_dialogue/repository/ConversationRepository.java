@@ -1,25 +1,131 @@
 package com.devops.projet_dialogue.repository;
 
+import com.devops.projet_dialogue.dto.ConversationParticipants;
+import com.devops.projet_dialogue.dto.ConversationView;
 import com.devops.projet_dialogue.model.Conversation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+public interface ConversationRepository extends JpaRepository<Conversation, Long>, ConversationRepositoryCustom {
 
+    /**
+     * Conversation avec ses deux participants, en une seule requête.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"user1", "user2"})
+    Optional<Conversation> findById(Long id);
+
+    /**
+     * Conversation entre deux participants, quel que soit l'ordre des ids.
+     */
+    default Optional<Conversation> findByUsers(Long userA, Long userB) {
+        return findByParticipants(Math.min(userA, userB), Math.max(userA, userB));
+    }
+
+    /**
+     * Conversation entre deux participants dans l'ordre canonique (user1Id <= user2Id) :
+     * une seule recherche dans l'index unique (user1_id, user2_id).
+     */
+    @EntityGraph(attributePaths = {"user1", "user2"})
     @Query("""
-        SELECT c FROM Conversation c 
-        WHERE (c.user1.id = :userA AND c.user2.id = :userB)
-           OR (c.user1.id = :userB AND c.user2.id = :userA)
+        SELECT c FROM Conversation c
+        WHERE c.user1.id = :user1Id AND c.user2.id = :user2Id
     """)
-    Optional<Conversation> findByUsers(Long userA, Long userB);
+    Optional<Conversation> findByParticipants(Long user1Id, Long user2Id);
 
+    /**
+     * Ids des participants, lus dans la seule table conversations (sans jointure).
+     */
     @Query("""
-        SELECT c FROM Conversation c
-        WHERE c.user1.id = :userId OR c.user2.id = :userId
-        ORDER BY c.createdAt DESC
+        SELECT new com.devops.projet_dialogue.dto.ConversationParticipants(c.user1.id, c.user2.id)
+        FROM Conversation c
+        WHERE c.id = :id
     """)
-    List<Conversation> findAllForUser(Long userId);
+    Optional<ConversationParticipants> findParticipants(Long id);
+
+    /**
+     * Vue d'une conversation et de ses participants (affichage).
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.ConversationView(
+                   c.id, u1.id, u1.username, u2.id, u2.username, c.createdAt,
+                   c.lastMessageAt, c.lastMessagePreview, c.messageCount)
+        FROM Conversation c
+        JOIN c.user1 u1
+        JOIN c.user2 u2
+        WHERE c.id = :id
+    """)
+    Optional<ConversationView> findViewById(Long id);
+
+    /**
+     * Met à jour le résumé d'activité après l'enregistrement d'un message.
+     * Une seule requête UPDATE : le verrou de ligne sérialise les envois concurrents,
+     * le compteur est incrémenté en base et le dernier message ne régresse jamais.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Conversation c
+        SET c.messageCount = c.messageCount + 1,
+            c.lastMessageAt = CASE WHEN c.lastMessageId IS NULL OR c.lastMessageId < :messageId
+                                   THEN :createdAt ELSE c.lastMessageAt END,
+            c.lastMessagePreview = CASE WHEN c.lastMessageId IS NULL OR c.lastMessageId < :messageId
+                                        THEN :preview ELSE c.lastMessagePreview END,
+            c.lastMessageId = CASE WHEN c.lastMessageId IS NULL OR c.lastMessageId < :messageId
+                                   THEN :messageId ELSE c.lastMessageId END
+        WHERE c.id = :conversationId
+    """)
+    int recordMessage(Long conversationId, Long messageId, LocalDateTime createdAt, String preview);
+
+    /**
+     * Variante de recordMessage pour un lot de messages : le compteur augmente de count,
+     * le dernier message du lot devient l'aperçu.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Conversation c
+        SET c.messageCount = c.messageCount + :count,
+            c.lastMessageAt = CASE WHEN c.lastMessageId IS NULL OR c.lastMessageId < :messageId
+                                   THEN :createdAt ELSE c.lastMessageAt END,
+            c.lastMessagePreview = CASE WHEN c.lastMessageId IS NULL OR c.lastMessageId < :messageId
+                                        THEN :preview ELSE c.lastMessagePreview END,
+            c.lastMessageId = CASE WHEN c.lastMessageId IS NULL OR c.lastMessageId < :messageId
+                                   THEN :messageId ELSE c.lastMessageId END
+        WHERE c.id = :conversationId
+    """)
+    int recordMessages(Long conversationId, long count, Long messageId, LocalDateTime createdAt, String preview);
+
+    /**
+     * Conversations dont le résumé d'activité reste à calculer (ConversationActivityBackfill),
+     * par ordre d'id, verrouillées jusqu'à la fin de la transaction : un envoi concurrent
+     * attend pour mettre à jour le résumé, et son message s'ajoute au compte calculé.
+     */
+    @Query(value = """
+        SELECT * FROM conversations
+        WHERE activity_backfilled = FALSE AND id > :afterId
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE
+    """, nativeQuery = true)
+    List<Conversation> findPendingActivityBackfill(Long afterId, int limit);
+
+    /**
+     * Remet dans l'ordre canonique (user1_id < user2_id) les conversations créées avant
+     * son introduction, sauf si la paire existe déjà dans les deux sens.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE conversations
+        SET user1_id = user2_id, user2_id = user1_id
+        WHERE user1_id > user2_id
+          AND NOT EXISTS (SELECT 1 FROM conversations o
+                          WHERE o.user1_id = conversations.user2_id
+                            AND o.user2_id = conversations.user1_id)
+    """, nativeQuery = true)
+    int normalizeParticipantOrder();
 }
@@ -0,0 +1,24 @@
+package com.devops.projet_dialogue.repository;
+
+import com.devops.projet_dialogue.dto.ConversationView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Requêtes de ConversationRepository écrites en SQL natif.
+ */
+public interface ConversationRepositoryCustom {
+
+    /**
+     * Id de la conversation entre deux participants, créée si elle n'existe pas encore.
+     * Les participants doivent être dans l'ordre canonique (user1Id <= user2Id).
+     */
+    Long findOrCreateId(Long user1Id, Long user2Id, LocalDateTime createdAt);
+
+    /**
+     * Boîte de réception : au plus limit conversations de l'utilisateur, la plus récemment
+     * active en premier, les conversations sans message à la fin (par date de création).
+     */
+    List<ConversationView> findAllForUser(Long userId, int limit);
+}
@@ -0,0 +1,143 @@
+package com.devops.projet_dialogue.repository;
+
+import com.devops.projet_dialogue.dto.ConversationView;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Get-or-create atomique, sans aller-retour "lecture puis insertion".
+ *
+ * Sur PostgreSQL, une seule requête : INSERT ... ON CONFLICT DO NOTHING RETURNING,
+ * complétée par la lecture de la ligne existante. Sur les autres bases (H2 en test),
+ * lecture puis insertion, la contrainte unique (user1_id, user2_id) départageant
+ * les créations concurrentes.
+ *
+ * Boîte de réception en une requête bornée : un filtre "user1 OU user2" ne peut suivre aucun
+ * index, d'où une branche par colonne et par présence d'un message, chacune lue dans l'ordre
+ * de son index ((user1_id | user2_id, last_message_at, created_at)) et limitée ; l'union de
+ * ces branches (au plus 4 x limit lignes) est triée puis limitée.
+ */
+class ConversationRepositoryImpl implements ConversationRepositoryCustom {
+
+    private static final String UPSERT_POSTGRES = """
+        WITH created AS (
+            INSERT INTO conversations (user1_id, user2_id, created_at, message_count, activity_backfilled)
+            VALUES (?, ?, ?, 0, TRUE)
+            ON CONFLICT (user1_id, user2_id) DO NOTHING
+            RETURNING id
+        )
+        SELECT id FROM created
+        UNION ALL
+        SELECT id FROM conversations WHERE user1_id = ? AND user2_id = ?
+        """;
+
+    private static final String INSERT = """
+        INSERT INTO conversations (user1_id, user2_id, created_at, message_count, activity_backfilled)
+        VALUES (?, ?, ?, 0, TRUE)
+        """;
+
+    private static final String SELECT_ID =
+            "SELECT id FROM conversations WHERE user1_id = ? AND user2_id = ?";
+
+    // Branche de la boîte de réception : conversations où l'utilisateur est dans la colonne
+    // donnée, avec (last_message_at IS NOT NULL) ou sans message
+    private static final String INBOX_BRANCH = """
+        (SELECT c.id, c.user1_id, u1.username AS user1_username, c.user2_id, u2.username AS user2_username,
+                c.created_at, c.last_message_at, c.last_message_preview, c.message_count
+         FROM conversations c
+         JOIN users u1 ON u1.id = c.user1_id
+         JOIN users u2 ON u2.id = c.user2_id
+         WHERE %s AND c.last_message_at %s
+         ORDER BY %s c.created_at DESC
+         LIMIT :limit)
+        """;
+
+    private static final String ACTIVE = "IS NOT NULL";
+    private static final String EMPTY = "IS NULL";
+    private static final String BY_ACTIVITY = "c.last_message_at DESC,";
+
+    // La conversation avec soi-même n'est lue que dans la branche user1
+    private static final String AS_USER1 = "c.user1_id = :userId";
+    private static final String AS_USER2 = "c.user2_id = :userId AND c.user1_id <> :userId";
+
+    // NULLS LAST explicite : PostgreSQL place les NULL en tête d'un tri DESC, H2 à la fin
+    private static final String INBOX = "SELECT * FROM ("
+            + INBOX_BRANCH.formatted(AS_USER1, ACTIVE, BY_ACTIVITY) + " UNION ALL "
+            + INBOX_BRANCH.formatted(AS_USER2, ACTIVE, BY_ACTIVITY) + " UNION ALL "
+            + INBOX_BRANCH.formatted(AS_USER1, EMPTY, "") + " UNION ALL "
+            + INBOX_BRANCH.formatted(AS_USER2, EMPTY, "") + """
+        ) inbox
+        ORDER BY last_message_at DESC NULLS LAST, created_at DESC
+        LIMIT :limit
+        """;
+
+    private static final RowMapper<ConversationView> INBOX_ROW = (rs, row) -> new ConversationView(
+            rs.getLong("id"),
+            rs.getLong("user1_id"), rs.getString("user1_username"),
+            rs.getLong("user2_id"), rs.getString("user2_username"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("last_message_at", LocalDateTime.class),
+            rs.getString("last_message_preview"),
+            rs.getLong("message_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    ConversationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public Long findOrCreateId(Long user1Id, Long user2Id, LocalDateTime createdAt) {
+        if (isPostgres()) {
+            List<Long> ids = jdbcTemplate.queryForList(UPSERT_POSTGRES, Long.class,
+                    user1Id, user2Id, createdAt, user1Id, user2Id);
+            if (!ids.isEmpty()) {
+                return ids.get(0);
+            }
+            // Créée par une transaction validée après le début de la requête,
+            // donc invisible dans son instantané : une nouvelle lecture la trouve
+            return findId(user1Id, user2Id);
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_ID, Long.class, user1Id, user2Id);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        try {
+            jdbcTemplate.update(INSERT, user1Id, user2Id, createdAt);
+        } catch (DuplicateKeyException e) {
+            // Créée entre-temps par une requête concurrente
+        }
+        return findId(user1Id, user2Id);
+    }
+
+    @Override
+    public List<ConversationView> findAllForUser(Long userId, int limit) {
+        return namedJdbcTemplate.query(INBOX, Map.of("userId", userId, "limit", limit), INBOX_ROW);
+    }
+
+    private Long findId(Long user1Id, Long user2Id) {
+        return jdbcTemplate.queryForObject(SELECT_ID, Long.class, user1Id, user2Id);
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+}
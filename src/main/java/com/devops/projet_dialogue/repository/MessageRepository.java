@@ -1,22 +1,115 @@
 package com.devops.projet_dialogue.repository;
 
 
+import com.devops.projet_dialogue.dto.GalleryPhotoView;
+import com.devops.projet_dialogue.dto.MessageView;
 import com.devops.projet_dialogue.model.Message;
-import com.devops.projet_dialogue.model.Photo;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    List<Message> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
+    /**
+     * Derniers messages d'une conversation, du plus récent au plus ancien.
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.MessageView(m.id, m.sender.id, m.text, p.url, p.thumbnailUrl, m.createdAt)
+        FROM Message m
+        LEFT JOIN m.photo p
+        WHERE m.conversation.id = :conversationId
+        ORDER BY m.createdAt DESC, m.id DESC
+    """)
+    List<MessageView> findLatestInConversation(Long conversationId, Limit limit);
+
+    /**
+     * Messages strictement antérieurs au curseur (createdAt, id), du plus récent au plus ancien.
+     * Pagination par clé : le coût ne dépend pas de la profondeur dans l'historique.
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.MessageView(m.id, m.sender.id, m.text, p.url, p.thumbnailUrl, m.createdAt)
+        FROM Message m
+        LEFT JOIN m.photo p
+        WHERE m.conversation.id = :conversationId
+          AND (m.createdAt < :createdAt
+               OR (m.createdAt = :createdAt AND m.id < :id))
+        ORDER BY m.createdAt DESC, m.id DESC
+    """)
+    List<MessageView> findInConversationBefore(Long conversationId, LocalDateTime createdAt, Long id, Limit limit);
 
+    /**
+     * Messages d'id supérieur à l'id donné, du plus ancien au plus récent
+     * (reprise quand le message du curseur n'existe plus, voir findInConversationResuming).
+     */
     @Query("""
-        SELECT m.photo FROM Message m
+        SELECT new com.devops.projet_dialogue.dto.MessageView(m.id, m.sender.id, m.text, p.url, p.thumbnailUrl, m.createdAt)
+        FROM Message m
+        LEFT JOIN m.photo p
         WHERE m.conversation.id = :conversationId
-          AND m.photo IS NOT NULL
+          AND m.id > :afterId
+        ORDER BY m.id ASC
+    """)
+    List<MessageView> findInConversationAfter(Long conversationId, Long afterId, Limit limit);
+
+    /**
+     * Date de création d'un message de la conversation.
+     */
+    @Query("SELECT m.createdAt FROM Message m WHERE m.conversation.id = :conversationId AND m.id = :id")
+    Optional<LocalDateTime> findCreatedAt(Long conversationId, Long id);
+
+    /**
+     * Messages créés depuis since, sauf celui d'id excludedId, du plus ancien au plus récent.
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.MessageView(m.id, m.sender.id, m.text, p.url, p.thumbnailUrl, m.createdAt)
+        FROM Message m
+        LEFT JOIN m.photo p
+        WHERE m.conversation.id = :conversationId
+          AND m.createdAt >= :since
+          AND m.id <> :excludedId
+        ORDER BY m.createdAt ASC, m.id ASC
+    """)
+    List<MessageView> findInConversationFrom(Long conversationId, LocalDateTime since, Long excludedId, Limit limit);
+
+    /**
+     * Messages à renvoyer à un client dont le dernier message reçu est afterId (reprise d'un
+     * flux, interrogation périodique). L'ordre des ids n'est pas celui des validations (blocs
+     * d'ids par instance, transactions concurrentes) : tous les messages créés depuis le
+     * curseur, moins la marge overlap, sont relus. Le client écarte ceux qu'il a déjà (par id).
+     */
+    default List<MessageView> findInConversationResuming(Long conversationId, Long afterId, Duration overlap,
+                                                         Limit limit) {
+        return findCreatedAt(conversationId, afterId)
+                .map(createdAt -> findInConversationFrom(conversationId, createdAt.minus(overlap), afterId, limit))
+                .orElseGet(() -> findInConversationAfter(conversationId, afterId, limit));
+    }
+
+    long countByConversationId(Long conversationId);
+
+    /**
+     * Photos d'une conversation envoyées depuis since, avec le nom de leur auteur, en une
+     * seule requête (la borne permet d'écarter les partitions mensuelles antérieures).
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.GalleryPhotoView(
+                   p.id, p.url, p.largeThumbnailUrl, p.originalFilename, a.username, p.createdAt)
+        FROM Message m
+        JOIN m.photo p
+        JOIN p.author a
+        WHERE m.conversation.id = :conversationId
+          AND m.createdAt >= :since
         ORDER BY m.createdAt ASC
     """)
-    List<Photo> findPhotosInConversation(Long conversationId);
+    List<GalleryPhotoView> findPhotosInConversation(Long conversationId, LocalDateTime since);
+
+    /**
+     * Conversations dans lesquelles une photo a été envoyée.
+     */
+    @Query("SELECT DISTINCT m.conversation.id FROM Message m WHERE m.photo.id = :photoId")
+    List<Long> findConversationIdsByPhotoId(Long photoId);
 }
@@ -0,0 +1,28 @@
+package com.devops.projet_dialogue.repository;
+
+import com.devops.projet_dialogue.model.PhotoContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface PhotoContentRepository extends JpaRepository<PhotoContent, String> {
+
+    /**
+     * Crée la ligne d'un contenu (contrainte de clé primaire en cas de création concurrente).
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO photo_contents (content_hash) VALUES (:contentHash)", nativeQuery = true)
+    int insert(String contentHash);
+
+    /**
+     * Verrouille la ligne du contenu jusqu'à la fin de la transaction. Requête native :
+     * FOR UPDATE est accepté par PostgreSQL comme par H2 (pas FOR NO KEY UPDATE).
+     */
+    @Query(value = "SELECT content_hash FROM photo_contents WHERE content_hash = :contentHash FOR UPDATE",
+            nativeQuery = true)
+    Optional<String> lock(String contentHash);
+}
@@ -1,8 +1,63 @@
 package com.devops.projet_dialogue.repository;
 
 import com.devops.projet_dialogue.model.Photo;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface PhotoRepository extends JpaRepository<Photo, Long> {
-}
 
+    /**
+     * Nombre de photos partageant le même contenu (références vers un même fichier).
+     */
+    long countByContentHash(String contentHash);
+
+    /**
+     * Une photo de même contenu dont les miniatures sont déjà générées.
+     */
+    Optional<Photo> findFirstByContentHashAndThumbnailUrlIsNotNull(String contentHash);
+
+    /**
+     * Enregistre les miniatures générées en arrière-plan (sans recharger la photo).
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE Photo p
+        SET p.thumbnailUrl = :thumbnailUrl,
+            p.largeThumbnailUrl = :largeThumbnailUrl
+        WHERE p.id = :id
+    """)
+    int recordThumbnails(Long id, String thumbnailUrl, String largeThumbnailUrl);
+
+    /**
+     * Photos enregistrées à plat (avant la répartition en sous-dossiers), par id croissant.
+     */
+    @Query("""
+        SELECT p FROM Photo p
+        WHERE p.id > :afterId
+          AND p.filename NOT LIKE '%/%'
+        ORDER BY p.id
+    """)
+    List<Photo> findFlatAfter(Long afterId, Limit limit);
+
+    /**
+     * Enregistre les nouveaux chemins d'une photo déplacée dans la répartition.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE Photo p
+        SET p.filename = :filename,
+            p.url = :url,
+            p.thumbnailUrl = :thumbnailUrl,
+            p.largeThumbnailUrl = :largeThumbnailUrl
+        WHERE p.id = :id
+    """)
+    int relocate(Long id, String filename, String url, String thumbnailUrl, String largeThumbnailUrl);
+}
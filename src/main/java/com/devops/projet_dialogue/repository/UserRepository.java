@@ -1,8 +1,12 @@
 package com.devops.projet_dialogue.repository;
 
+import com.devops.projet_dialogue.dto.UserSummary;
 import com.devops.projet_dialogue.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,5 +14,49 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
+
+    /**
+     * Première page de l'annuaire : utilisateurs par ordre alphabétique, sauf l'appelant.
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.UserSummary(u.id, u.username)
+        FROM User u
+        WHERE u.id <> :excludedId
+        ORDER BY u.username ASC
+    """)
+    List<UserSummary> findDirectory(Long excludedId, Limit limit);
+
+    /**
+     * Page suivante de l'annuaire : utilisateurs dont le username suit le curseur.
+     * Pagination par clé sur l'index unique du username, sans OFFSET.
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.UserSummary(u.id, u.username)
+        FROM User u
+        WHERE u.id <> :excludedId
+          AND u.username > :afterUsername
+        ORDER BY u.username ASC
+    """)
+    List<UserSummary> findDirectoryAfter(Long excludedId, String afterUsername, Limit limit);
+
+    /**
+     * Tous les utilisateurs, id et username uniquement (chargement de UsernameIndex).
+     */
+    @Query("SELECT new com.devops.projet_dialogue.dto.UserSummary(u.id, u.username) FROM User u")
+    List<UserSummary> findAllSummaries();
+
+    /**
+     * Utilisateurs dont le username en minuscules correspond au motif LIKE (caractère
+     * d'échappement '\'), sauf l'appelant. Sur PostgreSQL, servi par l'index trigramme
+     * idx_users_username_trgm, y compris pour une recherche par sous-chaîne ('%...%').
+     */
+    @Query("""
+        SELECT new com.devops.projet_dialogue.dto.UserSummary(u.id, u.username)
+        FROM User u
+        WHERE u.id <> :excludedId
+          AND LOWER(u.username) LIKE :pattern ESCAPE '\\'
+        ORDER BY u.username ASC
+    """)
+    List<UserSummary> searchByUsername(Long excludedId, String pattern, Limit limit);
 }
 
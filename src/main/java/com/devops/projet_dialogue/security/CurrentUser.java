@@ -0,0 +1,23 @@
+package com.devops.projet_dialogue.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injecte l'utilisateur connecté (UserSnapshot) dans un paramètre de contrôleur.
+ * Voir CurrentUserArgumentResolver.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    /**
+     * Si true, un utilisateur authentifié introuvable en base lève UserNotFoundException ;
+     * sinon le paramètre vaut null (comme pour une requête anonyme).
+     */
+    boolean required() default true;
+}
@@ -0,0 +1,156 @@
+package com.devops.projet_dialogue.security;
+
+import com.devops.projet_dialogue.event.UserChangedEvent;
+import com.devops.projet_dialogue.exception.UserNotFoundException;
+import com.devops.projet_dialogue.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Résout les paramètres @CurrentUser à partir du contexte de sécurité.
+ *
+ * Après un login par formulaire, le principal (CustomUserDetails) porte déjà l'utilisateur :
+ * aucune requête SQL. Pour les autres types d'authentification, l'utilisateur est lu
+ * une fois par requête HTTP via UserService.
+ *
+ * Quand un utilisateur est modifié (UserChangedEvent, après validation de la transaction),
+ * sa nouvelle copie remplace celle conservée dans les sessions ouvertes. Une copie qui n'a
+ * pas été lue depuis la durée d'inactivité d'une session n'intéresse plus aucune session
+ * ouverte avant la modification : elle est retirée. Au-delà de maxEntries copies, les moins
+ * récemment lues sont retirées.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+    // UserService est résolu à la demande : il n'est utile qu'en l'absence de CustomUserDetails
+    private final ObjectProvider<UserService> userService;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    // Copies à jour des utilisateurs modifiés, par id
+    private final Map<Long, Refreshed> refreshed = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CurrentUserArgumentResolver(ObjectProvider<UserService> userService,
+                                       @Value("${app.users.session-refresh.max-entries:10000}") int maxEntries,
+                                       @Value("${server.servlet.session.timeout:30m}") Duration sessionTimeout) {
+        this(userService, maxEntries, sessionTimeout, System::nanoTime);
+    }
+
+    CurrentUserArgumentResolver(ObjectProvider<UserService> userService, int maxEntries,
+                                Duration sessionTimeout, LongSupplier ticker) {
+        this.userService = userService;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = sessionTimeout.toNanos();
+        this.ticker = ticker;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && UserSnapshot.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter,
+                                  ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+
+        UserSnapshot user = (UserSnapshot) webRequest.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (user == null) {
+            user = resolve(auth);
+            if (user != null) {
+                webRequest.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+
+        CurrentUser annotation = parameter.getParameterAnnotation(CurrentUser.class);
+        if (user == null && annotation != null && annotation.required()) {
+            throw new UserNotFoundException(auth.getName());
+        }
+        return user;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        refreshed.put(event.user().id(), new Refreshed(event.user(), ticker.getAsLong()));
+        trim();
+    }
+
+    /**
+     * Nombre de copies à jour conservées.
+     */
+    int refreshedCount() {
+        return refreshed.size();
+    }
+
+    private UserSnapshot resolve(Authentication auth) {
+        if (auth.getPrincipal() instanceof CustomUserDetails details) {
+            UserSnapshot snapshot = details.getSnapshot();
+            Refreshed entry = refreshed.get(snapshot.id());
+            if (entry == null) {
+                return snapshot;
+            }
+            entry.lastRead = ticker.getAsLong();
+            return entry.user;
+        }
+        return userService.getObject()
+                .findByUsername(auth.getName())
+                .map(UserSnapshot::of)
+                .orElse(null);
+    }
+
+    /**
+     * Retire les copies expirées puis, si besoin, les moins récemment lues.
+     */
+    private void trim() {
+        long now = ticker.getAsLong();
+        refreshed.entrySet().removeIf(e -> now - e.getValue().lastRead > ttlNanos);
+        int excess = refreshed.size() - maxEntries;
+        if (excess > 0) {
+            refreshed.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().lastRead))
+                    .limit(excess)
+                    .toList()
+                    .forEach(e -> refreshed.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private static final class Refreshed {
+
+        private final UserSnapshot user;
+        private volatile long lastRead;
+
+        Refreshed(UserSnapshot user, long lastRead) {
+            this.user = user;
+            this.lastRead = lastRead;
+        }
+    }
+}
@@ -12,9 +12,11 @@ import java.util.List;
 public class CustomUserDetails implements UserDetails {
 
     private final User user;
+    private final UserSnapshot snapshot;
 
     public CustomUserDetails(User user) {
         this.user = user;
+        this.snapshot = UserSnapshot.of(user);
     }
 
     @Override
@@ -56,5 +58,12 @@ public class CustomUserDetails implements UserDetails {
     public User getUser() {
         return user;
     }
+
+    /**
+     * Copie immuable de l'utilisateur, prise au moment du login.
+     */
+    public UserSnapshot getSnapshot() {
+        return snapshot;
+    }
 }
 
@@ -1,7 +1,7 @@
 package com.devops.projet_dialogue.security;
 
 import com.devops.projet_dialogue.model.User;
-import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.service.UserService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,16 +10,17 @@ import org.springframework.stereotype.Service;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserService userService;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public CustomUserDetailsService(UserService userService) {
+        this.userService = userService;
     }
 
     @Override
     public CustomUserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository
-                .findByUsername(username)
+        // Lecture en base, hors cache : le mot de passe vérifié est toujours le dernier enregistré
+        User user = userService
+                .findForAuthentication(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé : " + username));
 
         return new CustomUserDetails(user);
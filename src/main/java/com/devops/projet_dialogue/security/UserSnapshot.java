@@ -0,0 +1,16 @@
+package com.devops.projet_dialogue.security;
+
+import com.devops.projet_dialogue.model.User;
+
+import java.io.Serializable;
+
+/**
+ * Copie immuable de l'utilisateur connecté (id, nom, rôle), conservée en session
+ * avec l'authentification : les contrôleurs l'obtiennent sans requête SQL.
+ */
+public record UserSnapshot(Long id, String username, String role) implements Serializable {
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getUsername(), user.getRole());
+    }
+}
@@ -0,0 +1,90 @@
+package com.devops.projet_dialogue.security;
+
+import com.devops.projet_dialogue.config.WebSocketConfig;
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.service.ConversationMembershipCache;
+import com.devops.projet_dialogue.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Contrôle des trames STOMP entrantes.
+ *
+ * - seuls les participants d'une conversation peuvent s'abonner à son topic
+ *   (ConversationMembershipCache, sans requête une fois la conversation en cache) ;
+ * - les clients ne publient rien : l'envoi passe par POST /conversation/{id}/send.
+ */
+@Component
+public class WebSocketSecurityInterceptor implements ChannelInterceptor {
+
+    private final ConversationMembershipCache membershipCache;
+
+    // UserService est résolu à la demande : il n'est utile qu'en l'absence de CustomUserDetails
+    private final ObjectProvider<UserService> userService;
+
+    public WebSocketSecurityInterceptor(ConversationMembershipCache membershipCache,
+                                        ObjectProvider<UserService> userService) {
+        this.membershipCache = membershipCache;
+        this.userService = userService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        StompCommand command = accessor.getCommand();
+
+        if (StompCommand.SEND.equals(command)) {
+            throw new AccessDeniedException("Publication directe interdite");
+        }
+
+        if (StompCommand.SUBSCRIBE.equals(command)) {
+            checkSubscription(accessor.getDestination(), accessor.getUser());
+        }
+
+        return message;
+    }
+
+    private void checkSubscription(String destination, Principal principal) {
+        if (principal == null) {
+            throw new AccessDeniedException("Utilisateur non authentifié");
+        }
+        if (destination == null || !destination.startsWith(WebSocketConfig.CONVERSATION_TOPIC)) {
+            throw new AccessDeniedException("Destination inconnue : " + destination);
+        }
+
+        Long conversationId;
+        try {
+            conversationId = Long.valueOf(destination.substring(WebSocketConfig.CONVERSATION_TOPIC.length()));
+        } catch (NumberFormatException e) {
+            throw new AccessDeniedException("Destination inconnue : " + destination);
+        }
+
+        Long userId = userId(principal);
+        if (userId == null || !membershipCache.isParticipant(conversationId, userId)) {
+            throw new AccessDeniedException("Accès refusé à la conversation " + conversationId);
+        }
+    }
+
+    /**
+     * Id de l'utilisateur connecté : porté par le principal après un login par formulaire,
+     * sinon lu à partir de son nom.
+     */
+    private Long userId(Principal principal) {
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof CustomUserDetails details) {
+            return details.getSnapshot().id();
+        }
+        return userService.getObject()
+                .findByUsername(principal.getName())
+                .map(User::getId)
+                .orElse(null);
+    }
+}
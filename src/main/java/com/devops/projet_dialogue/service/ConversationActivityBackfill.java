@@ -0,0 +1,120 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.model.Conversation;
+import com.devops.projet_dialogue.repository.ConversationRepository;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migration ponctuelle : calcule en arrière-plan le résumé d'activité (dernier message,
+ * nombre de messages) des conversations antérieures à son introduction, par lots.
+ *
+ * Chaque lot est une transaction qui verrouille ses conversations : un envoi concurrent
+ * attend la fin du lot, puis ajoute son message au résumé calculé (voir
+ * ConversationRepository.findPendingActivityBackfill). L'aperçu suit la même règle
+ * que les envois (MessageService.preview). Sans effet une fois toutes les conversations traitées.
+ */
+@Component
+public class ConversationActivityBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationActivityBackfill.class);
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pause;
+
+    private volatile boolean stopped;
+    private volatile Thread worker;
+
+    public ConversationActivityBackfill(ConversationRepository conversationRepository,
+                                        MessageRepository messageRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${app.conversations.activity-backfill.batch-size:200}") int batchSize,
+                                        @Value("${app.conversations.activity-backfill.pause:100ms}") Duration pause) {
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(this::backfill, "conversation-activity-backfill");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Traite toutes les conversations en attente, lot par lot, et retourne leur nombre.
+     */
+    int backfill() {
+        int updated = 0;
+        long afterId = 0;
+        try {
+            while (!stopped) {
+                long from = afterId;
+                List<Long> batch = transactionTemplate.execute(status -> backfillBatch(from));
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                updated += batch.size();
+                afterId = batch.get(batch.size() - 1);
+                logger.info("Résumé d'activité initialisé pour {} conversation(s)", updated);
+
+                // Pause entre deux lots : la migration ne monopolise pas la base
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("Initialisation du résumé d'activité interrompue : {}", e.getMessage());
+        }
+        return updated;
+    }
+
+    private List<Long> backfillBatch(long afterId) {
+        List<Conversation> batch = conversationRepository.findPendingActivityBackfill(afterId, batchSize);
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Conversation conversation : batch) {
+            // Valeurs absolues : un envoi validé avant le verrou a pu compter son message seul
+            List<MessageView> latest = messageRepository.findLatestInConversation(conversation.getId(), Limit.of(1));
+            if (!latest.isEmpty()) {
+                MessageView last = latest.get(0);
+                conversation.setMessageCount(messageRepository.countByConversationId(conversation.getId()));
+                conversation.setLastMessageId(last.id());
+                conversation.setLastMessageAt(last.createdAt());
+                conversation.setLastMessagePreview(MessageService.preview(last.text(), last.photoUrl() != null));
+            }
+            conversation.setActivityBackfilled(true);
+            ids.add(conversation.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,156 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.ConversationParticipants;
+import com.devops.projet_dialogue.repository.ConversationRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache des participants de chaque conversation, pour autoriser l'accès
+ * aux messages, à la galerie et à l'envoi sans lire la base.
+ *
+ * Les participants d'une conversation ne changent jamais : une entrée est chargée
+ * une fois puis n'est plus invalidée. Les entrées sont rangées dans un seul tableau
+ * de long (adressage ouvert, trois cases par conversation : id, user1, user2),
+ * sans objet alloué par entrée. Au-delà de maxEntries, le cache est vidé.
+ */
+@Component
+public class ConversationMembershipCache implements MeterBinder {
+
+    // Case libre : les ids de conversation générés commencent à 1
+    private static final long EMPTY = 0L;
+    private static final int SLOT = 3;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConversationRepository conversationRepository;
+    private final int maxEntries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] table = new long[INITIAL_CAPACITY * SLOT];
+    private int size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ConversationMembershipCache(ConversationRepository conversationRepository,
+                                       @Value("${app.conversations.membership-cache.max-entries:100000}") int maxEntries) {
+        this.conversationRepository = conversationRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Participants de la conversation, chargés depuis la base au premier accès
+     * (vide si la conversation n'existe pas ; l'absence n'est pas mise en cache).
+     */
+    public Optional<ConversationParticipants> participants(Long conversationId) {
+        ConversationParticipants cached = lookup(conversationId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        Optional<ConversationParticipants> loaded = conversationRepository.findParticipants(conversationId);
+        loaded.ifPresent(participants -> store(conversationId, participants));
+        return loaded;
+    }
+
+    /**
+     * Vérifie si l'utilisateur participe à la conversation (faux si elle n'existe pas).
+     */
+    public boolean isParticipant(Long conversationId, Long userId) {
+        return participants(conversationId)
+                .map(participants -> participants.includes(userId))
+                .orElse(false);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tag("cache", "conversation-membership").tag("result", "hit")
+                .description("Contrôles d'accès servis par le cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tag("cache", "conversation-membership").tag("result", "miss")
+                .description("Contrôles d'accès chargés depuis la base")
+                .register(registry);
+        Gauge.builder("cache.size", this, ConversationMembershipCache::size)
+                .tag("cache", "conversation-membership")
+                .description("Nombre de conversations en cache")
+                .register(registry);
+    }
+
+    private ConversationParticipants lookup(long conversationId) {
+        lock.readLock().lock();
+        try {
+            int slot = find(table, conversationId);
+            return table[slot] == EMPTY
+                    ? null
+                    : new ConversationParticipants(table[slot + 1], table[slot + 2]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void store(long conversationId, ConversationParticipants participants) {
+        lock.writeLock().lock();
+        try {
+            if (table[find(table, conversationId)] != EMPTY) {
+                return; // chargée en parallèle par une autre requête
+            }
+            if (size >= maxEntries) {
+                table = new long[INITIAL_CAPACITY * SLOT];
+                size = 0;
+            } else if ((size + 1) * 2 > table.length / SLOT) {
+                table = resize(table);
+            }
+            int slot = find(table, conversationId);
+            table[slot] = conversationId;
+            table[slot + 1] = participants.user1Id();
+            table[slot + 2] = participants.user2Id();
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index de la case contenant la clé, ou de la case libre où l'insérer.
+     */
+    private static int find(long[] table, long key) {
+        int mask = table.length / SLOT - 1;
+        int index = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (table[index * SLOT] != EMPTY && table[index * SLOT] != key) {
+            index = (index + 1) & mask;
+        }
+        return index * SLOT;
+    }
+
+    private static long[] resize(long[] table) {
+        long[] resized = new long[table.length * 2];
+        for (int slot = 0; slot < table.length; slot += SLOT) {
+            if (table[slot] != EMPTY) {
+                int target = find(resized, table[slot]);
+                System.arraycopy(table, slot, resized, target, SLOT);
+            }
+        }
+        return resized;
+    }
+}
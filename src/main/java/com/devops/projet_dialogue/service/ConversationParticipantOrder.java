@@ -0,0 +1,35 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.repository.ConversationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Au démarrage, remet dans l'ordre canonique (plus petit id en user1) les conversations
+ * créées avant son introduction, pour que ConversationService.getOrCreate les retrouve.
+ * Sans effet une fois la base à jour.
+ */
+@Component
+public class ConversationParticipantOrder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationParticipantOrder.class);
+
+    private final ConversationRepository conversationRepository;
+
+    public ConversationParticipantOrder(ConversationRepository conversationRepository) {
+        this.conversationRepository = conversationRepository;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int updated = conversationRepository.normalizeParticipantOrder();
+        if (updated > 0) {
+            logger.info("Participants remis dans l'ordre canonique pour {} conversation(s)", updated);
+        }
+    }
+}
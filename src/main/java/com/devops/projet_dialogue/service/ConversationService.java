@@ -1,10 +1,11 @@
 package com.devops.projet_dialogue.service;
 
-import com.devops.projet_dialogue.model.Conversation;
-import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.exception.UserNotFoundException;
 import com.devops.projet_dialogue.repository.ConversationRepository;
-import com.devops.projet_dialogue.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,40 +13,39 @@ import java.util.List;
 @Service
 public class ConversationService {
 
+    /** Nombre maximal de conversations affichées dans la boîte de réception */
+    public static final int INBOX_SIZE = 100;
+
     private final ConversationRepository conversationRepository;
-    private final UserRepository userRepository;
 
-    public ConversationService(ConversationRepository conversationRepository,
-                               UserRepository userRepository) {
+    public ConversationService(ConversationRepository conversationRepository) {
         this.conversationRepository = conversationRepository;
-        this.userRepository = userRepository;
     }
 
-    public Conversation getOrCreate(Long userAId, Long userBId) {
-
-        // Vérifier si la conversation existe déjà
-        return conversationRepository.findByUsers(userAId, userBId)
-                .orElseGet(() -> {
-                    User userA = userRepository.findById(userAId)
-                            .orElseThrow();
-                    User userB = userRepository.findById(userBId)
-                            .orElseThrow();
-
-                    Conversation c = new Conversation();
-                    c.setUser1(userA);
-                    c.setUser2(userB);
-                    c.setCreatedAt(LocalDateTime.now());
-
-                    return conversationRepository.save(c);
-                });
+    /**
+     * Id de la conversation entre deux utilisateurs, créée si elle n'existe pas.
+     * Les participants sont stockés dans l'ordre canonique (plus petit id en user1),
+     * si bien qu'une paire n'a qu'une seule ligne, quel que soit l'utilisateur qui l'ouvre.
+     */
+    public Long getOrCreate(Long userAId, Long userBId) {
+        Long user1Id = Math.min(userAId, userBId);
+        Long user2Id = Math.max(userAId, userBId);
+        try {
+            return conversationRepository.findOrCreateId(user1Id, user2Id, LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            // Clé étrangère violée : l'un des participants n'existe pas
+            throw new UserNotFoundException("Utilisateur non trouvé", e);
+        }
     }
 
-    public List<Conversation> findAllForUser(Long userId) {
-        return conversationRepository.findAllForUser(userId);
+    @Transactional(readOnly = true)
+    public List<ConversationView> findAllForUser(Long userId) {
+        return conversationRepository.findAllForUser(userId, INBOX_SIZE);
     }
 
-    public Conversation findById(Long id) {
-        return conversationRepository.findById(id)
+    @Transactional(readOnly = true)
+    public ConversationView findById(Long id) {
+        return conversationRepository.findViewById(id)
                 .orElseThrow(() -> new RuntimeException("Conversation non trouvée"));
     }
 }
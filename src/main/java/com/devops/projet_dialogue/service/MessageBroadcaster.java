@@ -0,0 +1,29 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.config.WebSocketConfig;
+import com.devops.projet_dialogue.event.MessageEventSubscriber;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Pousse chaque nouveau message sur le topic STOMP de sa conversation (via MessageEventBus).
+ */
+@Component
+public class MessageBroadcaster implements MessageEventSubscriber {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    public MessageBroadcaster(SimpMessageSendingOperations messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void onMessages(List<MessageSentEvent> events) {
+        for (MessageSentEvent event : events) {
+            messagingTemplate.convertAndSend(WebSocketConfig.CONVERSATION_TOPIC + event.conversationId(), event.message());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.event.MessageEventSubscriber;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Distribution des nouveaux messages aux abonnés (WebSocket, SSE…) hors du chemin de la
+ * requête d'envoi : l'événement est mis en file après la validation de la transaction,
+ * puis un thread de distribution le transmet aux abonnés, par lots.
+ *
+ * - File bornée : si elle reste pleine au-delà du délai d'attente, l'événement est
+ *   refusé, compté dans messages.events.rejected. Les abonnés ne sont jamais appelés par
+ *   le thread de la requête.
+ * - Chaque abonné a sa propre file de lots et son propre thread (ordre conservé pour lui) ;
+ *   le thread de distribution n'attend aucun abonné. Un abonné dont la file est pleine
+ *   (il ne suit pas) perd le lot, compté dans messages.events.dropped ; les clients
+ *   rattrapent par leur reprise (Last-Event-ID, rechargement).
+ * - À l'arrêt, les événements en file sont tous distribués avant la fermeture : le thread
+ *   de distribution attend alors la place dans la file de chaque abonné, et l'arrêt attend
+ *   que chaque abonné ait vidé la sienne.
+ */
+@Component
+public class MessageEventBus implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageEventBus.class);
+
+    // Attente d'un événement par le thread de distribution, avant de revérifier l'arrêt
+    private static final long POLL_MILLIS = 100;
+
+    private static final int DEFAULT_SUBSCRIBER_QUEUE_CAPACITY = 1000;
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long enqueueTimeoutNanos;
+    private final List<Lane> lanes;
+    private final Thread dispatcher;
+
+    // Publication (lecture) et arrêt (écriture) : aucun événement n'entre en file après l'arrêt
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Autowired
+    public MessageEventBus(List<MessageEventSubscriber> subscribers,
+                           @Value("${app.messages.events.queue-capacity:10000}") int queueCapacity,
+                           @Value("${app.messages.events.batch-size:100}") int batchSize,
+                           @Value("${app.messages.events.enqueue-timeout:50ms}") Duration enqueueTimeout,
+                           @Value("${app.messages.events.subscriber-queue-capacity:1000}") int subscriberQueueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        List<Lane> created = new ArrayList<>(subscribers.size());
+        for (int i = 0; i < subscribers.size(); i++) {
+            created.add(new Lane(subscribers.get(i), subscriberQueueCapacity, "message-events-" + (i + 1)));
+        }
+        this.lanes = List.copyOf(created);
+        this.dispatcher = new Thread(this::dispatchLoop, "message-events-dispatcher");
+    }
+
+    MessageEventBus(List<MessageEventSubscriber> subscribers, int queueCapacity, int batchSize,
+                    Duration enqueueTimeout) {
+        this(subscribers, queueCapacity, batchSize, enqueueTimeout, DEFAULT_SUBSCRIBER_QUEUE_CAPACITY);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+        dispatcher.start();
+    }
+
+    /**
+     * Arrêt : plus aucun événement n'entre en file, ceux qui y sont encore sont transmis
+     * aux abonnés, qui vident ensuite leur propre file. Sans délai maximal : rien n'est perdu.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        if (dispatcher.getState() == Thread.State.NEW) {
+            // Jamais démarré : les threads vident les files comme après un démarrage
+            start();
+        }
+        dispatcher.join();
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+        for (Lane lane : lanes) {
+            lane.thread.join();
+        }
+    }
+
+    // Après la validation : un envoi annulé n'est jamais diffusé
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        publish(event);
+    }
+
+    /**
+     * Met l'événement en file ; si la file reste pleine (ou après l'arrêt), il est refusé.
+     * Le message est enregistré : les clients le rattrapent par leur reprise.
+     */
+    public void publish(MessageSentEvent event) {
+        published.incrementAndGet();
+        lifecycle.readLock().lock();
+        try {
+            if (running && queue.offer(new Pending(event, System.nanoTime()), enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        rejected.incrementAndGet();
+        logger.warn("Message {} non distribué : file pleine ou bus arrêté", event.message().id());
+    }
+
+    private void dispatchLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                // Seul le drapeau running décide de l'arrêt : la file est vidée avant
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Le lot est confié à la file de chaque abonné : sans attente en marche, en attendant
+    // la place pendant l'arrêt (aucune perte)
+    private void dispatch(List<Pending> batch) {
+        List<MessageSentEvent> events = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            events.add(pending.event());
+        }
+        List<MessageSentEvent> shared = List.copyOf(events);
+        for (Lane lane : lanes) {
+            if (!running) {
+                lane.put(shared);
+            } else if (!lane.queue.offer(shared)) {
+                dropped.addAndGet(shared.size());
+                logger.warn("{} ne suit pas : {} message(s) non distribué(s)",
+                        lane.subscriber.getClass().getSimpleName(), shared.size());
+            }
+        }
+        batches.incrementAndGet();
+        dispatched.addAndGet(shared.size());
+    }
+
+    // Un abonné en échec n'empêche pas la distribution aux autres
+    private void deliver(MessageEventSubscriber subscriber, List<MessageSentEvent> events) {
+        try {
+            subscriber.onMessages(events);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            logger.warn("Distribution de {} message(s) à {} impossible : {}",
+                    events.size(), subscriber.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Nombre d'événements en attente de distribution.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Âge de l'événement le plus ancien encore en file, en secondes (0 si la file est vide).
+     */
+    public double lagSeconds() {
+        Pending oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAt()) / 1e9;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("messages.events.queue.depth", this, MessageEventBus::queueDepth)
+                .description("Nouveaux messages en attente de distribution")
+                .register(registry);
+        Gauge.builder("messages.events.lag", this, MessageEventBus::lagSeconds)
+                .baseUnit("seconds")
+                .description("Attente du plus ancien message en file")
+                .register(registry);
+        FunctionCounter.builder("messages.events.published", published, AtomicLong::get)
+                .description("Messages publiés sur le bus")
+                .register(registry);
+        FunctionCounter.builder("messages.events.dispatched", dispatched, AtomicLong::get)
+                .description("Messages distribués aux abonnés")
+                .register(registry);
+        FunctionCounter.builder("messages.events.batches", batches, AtomicLong::get)
+                .description("Lots distribués par le thread de distribution")
+                .register(registry);
+        FunctionCounter.builder("messages.events.rejected", rejected, AtomicLong::get)
+                .description("Messages non distribués, file pleine ou bus arrêté")
+                .register(registry);
+        FunctionCounter.builder("messages.events.failures", failures, AtomicLong::get)
+                .description("Distributions en échec chez un abonné")
+                .register(registry);
+        FunctionCounter.builder("messages.events.dropped", dropped, AtomicLong::get)
+                .description("Messages non distribués à un abonné qui ne suit pas (file pleine)")
+                .register(registry);
+    }
+
+    private record Pending(MessageSentEvent event, long enqueuedAt) {
+    }
+
+    /**
+     * File de lots d'un abonné, vidée par son propre thread.
+     */
+    private final class Lane {
+
+        private final MessageEventSubscriber subscriber;
+        private final BlockingQueue<List<MessageSentEvent>> queue;
+        private final Thread thread;
+        private volatile boolean open = true;
+
+        Lane(MessageEventSubscriber subscriber, int capacity, String threadName) {
+            this.subscriber = subscriber;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            // Pas un démon : l'arrêt attend que la file soit vidée
+            this.thread = new Thread(this::run, threadName);
+        }
+
+        private void run() {
+            while (open || !queue.isEmpty()) {
+                try {
+                    List<MessageSentEvent> events = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (events != null) {
+                        deliver(subscriber, events);
+                    }
+                } catch (InterruptedException e) {
+                    // Seul le drapeau open décide de l'arrêt : la file est vidée avant
+                }
+            }
+        }
+
+        // Attend la place dans la file ; une interruption ne fait pas perdre le lot
+        void put(List<MessageSentEvent> events) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(events);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void close() {
+            open = false;
+        }
+    }
+}
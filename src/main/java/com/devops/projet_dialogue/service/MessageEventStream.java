@@ -0,0 +1,257 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageEventSubscriber;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Flux Server-Sent Events des nouveaux messages, par conversation
+ * (alternative au WebSocket pour les clients derrière un proxy qui le bloque).
+ *
+ * Les émetteurs sont asynchrones : aucun thread Tomcat n'est retenu par un abonné inactif.
+ * L'envoi aux abonnés se fait hors du thread qui a enregistré le message (MessageEventBus).
+ * Un commentaire est envoyé périodiquement sur chaque flux, pour que les proxys ne coupent
+ * pas une connexion restée silencieuse.
+ *
+ * L'écriture sur la connexion est bloquante : chaque abonné a sa propre file d'envoi, vidée
+ * par un thread d'envoi, et un client lent ne retarde que lui-même. Un abonné dont la file
+ * est pleine est fermé ; le navigateur se reconnecte avec Last-Event-ID et reçoit ce qu'il
+ * a manqué (ou "resync").
+ */
+@Component
+public class MessageEventStream implements MessageEventSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageEventStream.class);
+
+    // Au-delà d'une page de retard, le client recharge la conversation (pagination /messages)
+    // au lieu de recevoir tout l'historique manqué sur le flux
+    static final int REPLAY_MAX = MessageService.PAGE_SIZE;
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final MessageRepository messageRepository;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final Executor executor;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MessageEventStream(MessageRepository messageRepository,
+                              @Value("${app.messages.sse.timeout:30m}") Duration timeout,
+                              @Value("${app.messages.sse.queue-capacity:256}") int queueCapacity,
+                              @Value("${app.messages.sse.send-threads:4}") int sendThreads,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(messageRepository, timeout.toMillis(), queueCapacity, sendExecutor(sendThreads, virtualThreads));
+    }
+
+    MessageEventStream(MessageRepository messageRepository, long timeoutMillis) {
+        this(messageRepository, timeoutMillis, DEFAULT_QUEUE_CAPACITY, Runnable::run);
+    }
+
+    MessageEventStream(MessageRepository messageRepository, long timeoutMillis, int queueCapacity, Executor executor) {
+        this.messageRepository = messageRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.executor = executor;
+    }
+
+    // Threads virtuels : un par envoi en cours ; sinon un pool fixe (une tâche au plus par abonné)
+    private static Executor sendExecutor(int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("sse-");
+            taskExecutor.setVirtualThreads(true);
+            return taskExecutor;
+        }
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setThreadNamePrefix("sse-");
+        taskExecutor.initialize();
+        return taskExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor taskExecutor) {
+            taskExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Ouvre un flux sur la conversation. Si lastId est fourni, les messages
+     * enregistrés depuis sont renvoyés avant les nouveaux (au plus REPLAY_MAX ; au-delà,
+     * un événement "resync" demande au client de recharger la conversation).
+     */
+    public SseEmitter subscribe(Long conversationId, Long lastId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(conversationId, emitter, queueCapacity);
+
+        // Enregistrer avant de rejouer : un message peut arriver deux fois (le client
+        // ignore les ids déjà reçus) mais aucun n'est perdu entre les deux étapes
+        subscribers.compute(conversationId, (id, set) -> {
+            Set<Subscriber> result = set != null ? set : ConcurrentHashMap.<Subscriber>newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        Runnable unregister = () -> remove(subscriber);
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(unregister);
+        emitter.onError(e -> unregister.run());
+
+        if (lastId != null) {
+            replay(subscriber, lastId);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onMessages(List<MessageSentEvent> events) {
+        for (MessageSentEvent event : events) {
+            Set<Subscriber> set = subscribers.get(event.conversationId());
+            if (set == null) {
+                continue;
+            }
+            for (Subscriber subscriber : set) {
+                enqueue(subscriber, messageEvent(event.message()));
+            }
+        }
+    }
+
+    /**
+     * Nombre d'abonnés ouverts sur une conversation.
+     */
+    public int subscriberCount(Long conversationId) {
+        Set<Subscriber> set = subscribers.get(conversationId);
+        return set == null ? 0 : set.size();
+    }
+
+    /**
+     * Commentaire SSE envoyé à tous les abonnés, ignoré par le navigateur.
+     */
+    @Scheduled(fixedRateString = "${app.messages.sse.heartbeat:15s}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber ->
+                enqueue(subscriber, SseEmitter.event().comment("ping"))));
+    }
+
+    /**
+     * Ajoute l'événement à la file de l'abonné et planifie son envoi. File pleine : le client
+     * ne suit pas, son flux est fermé (il se reconnecte et reprend après le dernier id reçu).
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            logger.debug("Abonné SSE de la conversation {} en retard : flux fermé", subscriber.conversationId);
+            remove(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Un seul envoi en cours par abonné : l'ordre des événements est conservé
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                if (!send(subscriber.emitter, event)) {
+                    remove(subscriber);
+                    subscriber.queue.clear();
+                }
+            }
+            subscriber.sending.set(false);
+            // Événement ajouté après la dernière lecture : reprendre s'il n'a pas été planifié
+        } while (!subscriber.queue.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void replay(Subscriber subscriber, Long lastId) {
+        // Une page au plus, lue avant que l'émetteur ne soit rendu (et tenu en mémoire) :
+        // SseEmitter garde ces envois en attente, le thread de la requête ne bloque pas
+        // Avec recouvrement : le navigateur ignore les messages déjà affichés
+        List<MessageView> missed = messageRepository.findInConversationResuming(subscriber.conversationId, lastId,
+                MessageService.RESUME_OVERLAP, Limit.of(REPLAY_MAX + 1));
+        if (missed.size() > REPLAY_MAX) {
+            if (!send(subscriber.emitter, SseEmitter.event().name("resync").data(""))) {
+                remove(subscriber);
+            }
+            return;
+        }
+        for (MessageView message : missed) {
+            if (!send(subscriber.emitter, messageEvent(message))) {
+                remove(subscriber);
+                return;
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder messageEvent(MessageView message) {
+        return SseEmitter.event()
+                .id(String.valueOf(message.id()))
+                .name("message")
+                .data(message, MediaType.APPLICATION_JSON);
+    }
+
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté
+            logger.debug("Envoi SSE impossible : {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.conversationId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Flux ouvert : émetteur et file des événements à lui envoyer.
+     */
+    private static final class Subscriber {
+
+        private final Long conversationId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+
+        // Envoi planifié ou en cours
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(Long conversationId, SseEmitter emitter, int queueCapacity) {
+            this.conversationId = conversationId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageDraft;
+import com.devops.projet_dialogue.exception.MessageQueueFullException;
+import com.devops.projet_dialogue.model.Message;
+import com.devops.projet_dialogue.model.Photo;
+import com.devops.projet_dialogue.model.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Écriture groupée des messages (app.messages.write-behind.enabled=true) : les envois sont
+ * mis en file et un seul thread les enregistre par groupes, une transaction (et une
+ * synchronisation disque) pour tout le groupe au lieu d'une par message.
+ *
+ * Un groupe est validé dès qu'il atteint max-batch messages ou que son premier message
+ * attend depuis max-delay. L'expéditeur attend la validation de son message : la
+ * confirmation reste celle d'un message enregistré en base.
+ *
+ * - File bornée : si elle reste pleine au-delà de enqueue-timeout, l'envoi est refusé
+ *   (MessageQueueFullException, réponse 503).
+ * - Groupe en échec : chaque message est réessayé seul, l'erreur ne concerne que le sien.
+ * - À l'arrêt, la file est entièrement enregistrée ; les envois suivants passent en direct.
+ */
+@Component
+@ConditionalOnProperty(name = "app.messages.write-behind.enabled", havingValue = "true")
+public class MessageGroupCommitter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageGroupCommitter.class);
+
+    // Attente d'un message par le thread d'écriture, avant de revérifier l'arrêt
+    private static final long POLL_MILLIS = 100;
+
+    private final MessageService messageService;
+    private final ConversationMembershipCache membershipCache;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutNanos;
+    private final Thread writer;
+
+    // Mise en file (lecture) et arrêt (écriture) : aucun envoi n'entre en file après l'arrêt
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public MessageGroupCommitter(MessageService messageService,
+                                 ConversationMembershipCache membershipCache,
+                                 @Value("${app.messages.write-behind.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${app.messages.write-behind.max-batch:500}") int maxBatch,
+                                 @Value("${app.messages.write-behind.max-delay:5ms}") Duration maxDelay,
+                                 @Value("${app.messages.write-behind.enqueue-timeout:100ms}") Duration enqueueTimeout) {
+        this.messageService = messageService;
+        this.membershipCache = membershipCache;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.writer = new Thread(this::writeLoop, "message-group-commit");
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Arrêt : plus aucun envoi n'entre en file, ceux qui y sont encore sont enregistrés.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        if (writer.isAlive()) {
+            writer.join();
+        } else {
+            // Jamais démarré : la file est enregistrée ici
+            List<Pending> group = new ArrayList<>(maxBatch);
+            while (queue.drainTo(group, maxBatch) > 0) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Envoie un message et attend sa validation (même contrat que MessageService.sendMessage).
+     */
+    public Message send(Long conversationId, User sender, String text, Photo photo) {
+        try {
+            return submit(conversationId, sender, text, photo).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Met le message en file ; le résultat est complété une fois son groupe validé.
+     */
+    public CompletableFuture<Message> submit(Long conversationId, User sender, String text, Photo photo) {
+        // Contrôle d'accès avant la mise en file : un refus ne fait pas échouer le groupe
+        if (!membershipCache.isParticipant(conversationId, sender.getId())) {
+            throw new RuntimeException("Accès refusé à la conversation");
+        }
+        Pending pending = new Pending(new MessageDraft(conversationId, sender, text, photo),
+                new CompletableFuture<>(), System.nanoTime());
+
+        lifecycle.readLock().lock();
+        try {
+            if (running) {
+                if (queue.offer(pending, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    return pending.result();
+                }
+                rejected.incrementAndGet();
+                throw new MessageQueueFullException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            throw new MessageQueueFullException();
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        // Arrêt en cours : enregistrement direct
+        return CompletableFuture.completedFuture(messageService.sendMessage(conversationId, sender, text, photo));
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            Pending first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Seul le drapeau running décide de l'arrêt : la file est vidée avant
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            group.add(first);
+            gather(group);
+            commit(group);
+            group.clear();
+        }
+    }
+
+    /**
+     * Complète le groupe jusqu'à maxBatch messages ou jusqu'à maxDelay après le premier.
+     */
+    private void gather(List<Pending> group) {
+        long deadline = group.get(0).enqueuedAt() + maxDelayNanos;
+        while (group.size() < maxBatch) {
+            queue.drainTo(group, maxBatch - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxBatch || remaining <= 0 || !running) {
+                return;
+            }
+            try {
+                Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                group.add(next);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        List<MessageDraft> drafts = new ArrayList<>(group.size());
+        for (Pending pending : group) {
+            drafts.add(pending.draft());
+        }
+        try {
+            List<Message> saved = messageService.sendMessageGroup(drafts);
+            commits.incrementAndGet();
+            committed.addAndGet(saved.size());
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).result().complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Groupe de {} message(s) annulé, enregistrement un par un : {}", group.size(), e.getMessage());
+            for (Pending pending : group) {
+                commitAlone(pending);
+            }
+        }
+    }
+
+    private void commitAlone(Pending pending) {
+        MessageDraft draft = pending.draft();
+        try {
+            Message saved = messageService.sendMessage(draft.conversationId(), draft.sender(), draft.text(), draft.photo());
+            commits.incrementAndGet();
+            committed.incrementAndGet();
+            pending.result().complete(saved);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Nombre de messages en attente d'enregistrement.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Attente du plus ancien message encore en file, en secondes (0 si la file est vide).
+     */
+    public double lagSeconds() {
+        Pending oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAt()) / 1e9;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("messages.write-behind.queue.depth", this, MessageGroupCommitter::queueDepth)
+                .description("Messages en attente d'enregistrement groupé")
+                .register(registry);
+        Gauge.builder("messages.write-behind.lag", this, MessageGroupCommitter::lagSeconds)
+                .baseUnit("seconds")
+                .description("Attente du plus ancien message en file")
+                .register(registry);
+        FunctionCounter.builder("messages.write-behind.commits", commits, AtomicLong::get)
+                .description("Transactions validées par le thread d'écriture")
+                .register(registry);
+        FunctionCounter.builder("messages.write-behind.committed", committed, AtomicLong::get)
+                .description("Messages enregistrés par le thread d'écriture")
+                .register(registry);
+        FunctionCounter.builder("messages.write-behind.rejected", rejected, AtomicLong::get)
+                .description("Envois refusés, file pleine")
+                .register(registry);
+        FunctionCounter.builder("messages.write-behind.failures", failures, AtomicLong::get)
+                .description("Messages en échec après nouvel essai individuel")
+                .register(registry);
+    }
+
+    private record Pending(MessageDraft draft, CompletableFuture<Message> result, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,346 @@
+package com.devops.projet_dialogue.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partitionnement mensuel de la table messages sur created_at (PostgreSQL uniquement,
+ * app.messages.partitioning.enabled=true).
+ *
+ * - Au démarrage, avant l'ouverture du serveur web, une table messages ordinaire est
+ *   convertie : elle devient la partition messages_legacy (tout l'historique, mois courant
+ *   compris), sans copie des lignes. Sa clé primaire (id, created_at) et la vérification
+ *   des bornes imposent un parcours de la table, une seule fois.
+ * - Les partitions mensuelles suivantes, jusqu'à months-ahead mois après le mois courant,
+ *   sont créées à l'avance, au démarrage puis chaque nuit. Pas de partition DEFAULT (elle
+ *   empêcherait de rattacher ensuite le mois qu'elle contient) : la jauge
+ *   messages.partitions.months-ahead donne les mois encore couverts, à surveiller (à 0,
+ *   les insertions échouent).
+ * - Un index BRIN sur created_at sert les parcours par période, pour un coût minime
+ *   (les lignes arrivent dans l'ordre chronologique).
+ * - L'unicité de photo_id (@OneToOne) ne peut pas être portée par la table partitionnée (un
+ *   index unique doit contenir created_at) : elle ne subsiste que dans messages_legacy. Un
+ *   index ordinaire sur photo_id la remplace pour les recherches ; l'unicité est garantie
+ *   par l'application (PhotoService crée une photo par envoi, jamais rattachée deux fois).
+ * - Les partitions plus anciennes que retention-months sont détachées (CONCURRENTLY,
+ *   PostgreSQL 14+) puis déplacées dans le schéma d'archive, sans bloquer les écritures.
+ *   Un détachement interrompu est terminé (FINALIZE) au passage suivant.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "app.messages.partitioning.enabled", havingValue = "true")
+public class MessagePartitioning implements InitializingBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitioning.class);
+
+    static final String LEGACY_PARTITION = "messages_legacy";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Borne haute d'une partition, telle que la rend pg_get_expr : ... TO ('2025-12-01 00:00:00')
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4})-(\\d{2})-01");
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    // Attente maximale d'un verrou par la maintenance : elle abandonne (et réessaiera)
+    // plutôt que de faire patienter les écritures derrière elle
+    private static final String LOCK_TIMEOUT = "5s";
+
+    // Index ordinaires et clés étrangères de la table à convertir (les index uniques sans
+    // created_at, comme celui de photo_id, ne peuvent pas exister sur la table partitionnée :
+    // voir PHOTO_INDEX)
+    private static final String FIND_INDEXES = """
+        SELECT i.relname, pg_get_indexdef(i.oid)
+        FROM pg_index x
+        JOIN pg_class i ON i.oid = x.indexrelid
+        WHERE x.indrelid = 'messages'::regclass AND NOT x.indisunique
+        """;
+
+    // Recherche des messages d'une photo (ThumbnailService, à chaque miniature) sur toutes les
+    // partitions ; construit une fois sur messages_legacy (son index unique ne peut pas servir)
+    private static final String PHOTO_INDEX = "CREATE INDEX IF NOT EXISTS idx_messages_photo_id ON messages (photo_id)";
+
+    private static final String FIND_FOREIGN_KEYS = """
+        SELECT conname, pg_get_constraintdef(oid)
+        FROM pg_constraint
+        WHERE conrelid = 'messages'::regclass AND contype = 'f'
+        """;
+
+    private static final String FIND_PARTITIONS = """
+        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'messages'::regclass
+        ORDER BY c.relname
+        """;
+
+    private static final String FIND_LEGACY_BOUND = """
+        SELECT pg_get_expr(c.relpartbound, c.oid)
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'messages'::regclass AND c.relname = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String archiveSchema;
+
+    private volatile boolean postgres;
+
+    // Fin (exclue) de la dernière partition, relue après chaque création de partitions
+    private volatile YearMonth coveredUntil;
+
+    @Autowired
+    public MessagePartitioning(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.messages.partitioning.months-ahead:3}") int monthsAhead,
+                               @Value("${app.messages.partitioning.retention-months:0}") int retentionMonths,
+                               @Value("${app.messages.partitioning.archive-schema:archive}") String archiveSchema) {
+        if (!IDENTIFIER.matcher(archiveSchema).matches()) {
+            throw new IllegalArgumentException("Nom de schéma d'archive invalide : " + archiveSchema);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Boolean isPostgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        postgres = Boolean.TRUE.equals(isPostgres);
+        if (!postgres) {
+            logger.info("Partitionnement des messages ignoré : base autre que PostgreSQL");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        if (!isPartitioned()) {
+            convert(current);
+        } else {
+            // Table convertie avant l'ajout de l'index : il est créé sur toutes les partitions
+            jdbcTemplate.execute(PHOTO_INDEX);
+        }
+        ensurePartitions(current);
+        refreshCoverage();
+    }
+
+    /**
+     * Maintenance quotidienne : partitions à venir, puis archivage selon la rétention.
+     * Un échec (verrou non obtenu à temps…) est réessayé la nuit suivante.
+     */
+    @Scheduled(cron = "${app.messages.partitioning.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!postgres) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        try {
+            ensurePartitions(current);
+            if (retentionMonths > 0) {
+                archivePartitionsBefore(current.minusMonths(retentionMonths));
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Maintenance des partitions de messages interrompue : {}", e.getMessage());
+        }
+        try {
+            refreshCoverage();
+        } catch (DataAccessException e) {
+            logger.warn("Lecture des partitions de messages impossible : {}", e.getMessage());
+        }
+        if (monthsCovered() <= 1) {
+            logger.warn("Partitions de messages créées jusqu'à {} seulement", coveredUntil);
+        }
+    }
+
+    boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = 'messages'::regclass", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Convertit la table messages en table partitionnée, en une transaction : la table actuelle
+     * devient la partition messages_legacy, index et clés étrangères sont recréés sur la table
+     * partitionnée (les index existants de messages_legacy y sont rattachés, pas reconstruits).
+     * La borne haute de messages_legacy dépasse le dernier created_at, au plus tôt le premier
+     * du mois suivant : les lignes déjà écrites ce mois-ci y restent, et ATTACH n'échoue pas.
+     */
+    private void convert(YearMonth current) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE messages IN ACCESS EXCLUSIVE MODE");
+            Timestamp latest = jdbcTemplate.queryForObject("SELECT max(created_at) FROM messages", Timestamp.class);
+            YearMonth end = current.plusMonths(1);
+            if (latest != null && !YearMonth.from(latest.toLocalDateTime()).isBefore(end)) {
+                end = YearMonth.from(latest.toLocalDateTime()).plusMonths(1);
+            }
+            List<String[]> indexes = jdbcTemplate.query(FIND_INDEXES,
+                    (rs, row) -> new String[]{rs.getString(1), rs.getString(2)});
+            List<String[]> foreignKeys = jdbcTemplate.query(FIND_FOREIGN_KEYS,
+                    (rs, row) -> new String[]{rs.getString(1), rs.getString(2)});
+
+            jdbcTemplate.execute("ALTER TABLE messages RENAME TO " + LEGACY_PARTITION);
+            for (String[] index : indexes) {
+                jdbcTemplate.execute("ALTER INDEX " + index[0] + " RENAME TO " + legacyName(index[0]));
+            }
+
+            jdbcTemplate.execute("CREATE TABLE messages (LIKE " + LEGACY_PARTITION + " INCLUDING DEFAULTS)"
+                    + " PARTITION BY RANGE (created_at)");
+            // La clé primaire d'une table partitionnée contient la clé de partitionnement
+            jdbcTemplate.execute("ALTER TABLE messages ADD PRIMARY KEY (id, created_at)");
+            jdbcTemplate.execute("ALTER TABLE messages ATTACH PARTITION " + LEGACY_PARTITION
+                    + " FOR VALUES FROM (MINVALUE) TO ('" + end.atDay(1) + "')");
+
+            // Définitions lues avant le renommage : elles désignent la nouvelle table messages
+            for (String[] index : indexes) {
+                jdbcTemplate.execute(index[1]);
+            }
+            for (String[] foreignKey : foreignKeys) {
+                jdbcTemplate.execute("ALTER TABLE messages ADD CONSTRAINT " + foreignKey[0] + " " + foreignKey[1]);
+            }
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_messages_created_brin ON messages USING brin (created_at)");
+            jdbcTemplate.execute(PHOTO_INDEX);
+        });
+        logger.info("Table messages partitionnée par mois ; historique dans la partition {}", LEGACY_PARTITION);
+    }
+
+    private static String legacyName(String name) {
+        String renamed = name + "_legacy";
+        // Identifiants PostgreSQL limités à 63 octets
+        return renamed.length() <= 63 ? renamed : renamed.substring(renamed.length() - 63);
+    }
+
+    /**
+     * Crée les partitions manquantes du mois donné et des monthsAhead mois suivants, à partir
+     * de la fin de messages_legacy tant qu'elle couvre ces mois.
+     * Chaque table est créée à part puis rattachée (ATTACH PARTITION ne bloque pas les
+     * écritures, contrairement à CREATE TABLE ... PARTITION OF).
+     */
+    public void ensurePartitions(YearMonth from) {
+        YearMonth last = from.plusMonths(monthsAhead);
+        YearMonth legacyEnd = legacyEnd();
+        YearMonth first = legacyEnd != null && legacyEnd.isAfter(from) ? legacyEnd : from;
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            YearMonth partition = month;
+            String name = partitionName(partition);
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+            if (Boolean.TRUE.equals(exists)) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+                jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE messages INCLUDING DEFAULTS)");
+                jdbcTemplate.execute("ALTER TABLE messages ATTACH PARTITION " + name
+                        + " FOR VALUES FROM ('" + partition.atDay(1) + "') TO ('" + partition.plusMonths(1).atDay(1) + "')");
+            });
+            logger.info("Partition {} créée", name);
+        }
+    }
+
+    /**
+     * Détache les partitions entièrement antérieures au mois donné et les déplace dans le
+     * schéma d'archive (toujours interrogeables, hors de la table messages).
+     * Un détachement resté en attente (arrêt pendant DETACH ... CONCURRENTLY) est terminé.
+     * Retourne les noms des partitions archivées.
+     */
+    public List<String> archivePartitionsBefore(YearMonth cutoff) {
+        List<String> archived = new ArrayList<>();
+        for (Partition partition : findPartitions()) {
+            YearMonth end = upperBound(partition.bound());
+            if (!partition.detachPending() && (end == null || end.isAfter(cutoff))) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+            // Hors transaction (exigé par CONCURRENTLY) : insertions et lectures continuent.
+            // Sans FINALIZE, une partition restée en attente ferait échouer chaque passage.
+            jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partition.name()
+                    + (partition.detachPending() ? " FINALIZE" : " CONCURRENTLY"));
+            jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA " + archiveSchema);
+            archived.add(partition.name());
+            logger.info("Partition {} archivée dans le schéma {}", partition.name(), archiveSchema);
+        }
+        return archived;
+    }
+
+    /**
+     * Mois couverts par une partition à partir du mois courant (0 : les insertions échouent),
+     * NaN tant que les partitions n'ont pas été lues.
+     */
+    public double monthsCovered() {
+        YearMonth end = coveredUntil;
+        return end == null ? Double.NaN : YearMonth.now().until(end, ChronoUnit.MONTHS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("messages.partitions.months-ahead", this, MessagePartitioning::monthsCovered)
+                .description("Mois couverts par une partition de messages, à partir du mois courant")
+                .register(registry);
+    }
+
+    private void refreshCoverage() {
+        YearMonth end = null;
+        for (Partition partition : findPartitions()) {
+            YearMonth upper = upperBound(partition.bound());
+            if (upper != null && (end == null || upper.isAfter(end))) {
+                end = upper;
+            }
+        }
+        coveredUntil = end;
+    }
+
+    private List<Partition> findPartitions() {
+        return jdbcTemplate.query(FIND_PARTITIONS,
+                (rs, row) -> new Partition(rs.getString(1), rs.getString(2), rs.getBoolean(3)));
+    }
+
+    private record Partition(String name, String bound, boolean detachPending) {
+    }
+
+    /**
+     * Mois qui suit messages_legacy (sa borne haute), ou null si elle n'est plus rattachée.
+     */
+    private YearMonth legacyEnd() {
+        List<String> bounds = jdbcTemplate.queryForList(FIND_LEGACY_BOUND, String.class, LEGACY_PARTITION);
+        return bounds.isEmpty() ? null : upperBound(bounds.get(0));
+    }
+
+    private static YearMonth upperBound(String partitionBound) {
+        Matcher upper = UPPER_BOUND.matcher(partitionBound);
+        if (!upper.find()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(upper.group(1)), Integer.parseInt(upper.group(2)));
+    }
+
+    static String partitionName(YearMonth month) {
+        return "messages_p" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,54 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sur PostgreSQL uniquement, place la séquence messages_seq au-delà des ids attribués par
+ * l'ancienne colonne IDENTITY, pour que les nouveaux ids ne percutent pas les messages existants.
+ * Sans effet une fois la séquence en avance (ou sur H2 en test, où la base est recréée).
+ *
+ * Exécuté à la création du bean, après la mise à jour du schéma par Hibernate et avant
+ * l'ouverture du serveur web : aucun message ne peut être enregistré avant l'alignement.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class MessageSequenceAlignment implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSequenceAlignment.class);
+
+    // Optimiseur pooled : nextval rend la borne haute du bloc suivant (valeur + allocationSize),
+    // il suffit donc que la séquence soit au moins au plus grand id existant
+    private static final String ALIGN = """
+        SELECT setval('messages_seq', m.max_id)
+        FROM (SELECT MAX(id) AS max_id FROM messages) m, messages_seq s
+        WHERE m.max_id IS NOT NULL
+          AND (m.max_id > s.last_value OR NOT s.is_called)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MessageSequenceAlignment(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        if (!Boolean.TRUE.equals(postgres)) {
+            return;
+        }
+        Long aligned = jdbcTemplate.query(ALIGN, rs -> rs.next() ? rs.getLong(1) : null);
+        if (aligned != null) {
+            logger.info("Séquence messages_seq alignée sur l'id {} (blocs de {})",
+                    aligned, Message.ID_ALLOCATION_SIZE);
+        }
+    }
+}
@@ -1,29 +1,78 @@
 package com.devops.projet_dialogue.service;
 
+import com.devops.projet_dialogue.dto.GalleryPhotoView;
+import com.devops.projet_dialogue.dto.MessageCursor;
+import com.devops.projet_dialogue.dto.MessageDraft;
+import com.devops.projet_dialogue.dto.MessagePage;
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageSentEvent;
 import com.devops.projet_dialogue.model.*;
 import com.devops.projet_dialogue.repository.MessageRepository;
 import com.devops.projet_dialogue.repository.ConversationRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class MessageService {
 
+    /** Nombre de messages chargés par page d'historique */
+    public static final int PAGE_SIZE = 50;
+
+    /** Nombre maximal de messages enregistrés par un envoi groupé */
+    public static final int BULK_MAX_SIZE = 500;
+
+    /**
+     * Recouvrement relu derrière le curseur d'une reprise par id : un message d'id inférieur
+     * peut être validé après un message d'id supérieur (durée d'une transaction, horloges).
+     */
+    public static final Duration RESUME_OVERLAP = Duration.ofSeconds(10);
+
+    // Marge sur la date de création d'une conversation (horloges décalées entre serveurs)
+    private static final Duration CLOCK_SKEW_MARGIN = Duration.ofDays(1);
+
     private final MessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
+    private final MessageTailCache tailCache;
+    private final ConversationMembershipCache membershipCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public MessageService(MessageRepository messageRepository,
-                          ConversationRepository conversationRepository) {
+                          ConversationRepository conversationRepository,
+                          MessageTailCache tailCache,
+                          ConversationMembershipCache membershipCache,
+                          ApplicationEventPublisher eventPublisher) {
         this.messageRepository = messageRepository;
         this.conversationRepository = conversationRepository;
+        this.tailCache = tailCache;
+        this.membershipCache = membershipCache;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Enregistre un message et met à jour le résumé d'activité de la conversation
+     * dans la même transaction. Les abonnés (cache, WebSocket, SSE) sont notifiés après validation.
+     * La photo doit venir d'être enregistrée pour cet envoi : elle n'appartient qu'à un message
+     * (unicité non vérifiée par la base quand la table est partitionnée).
+     */
+    @Transactional
     public Message sendMessage(Long conversationId, User sender, String text, Photo photo) {
 
-        Conversation conv = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new RuntimeException("Conversation non trouvée"));
+        // Contrôle via le cache des participants : la conversation n'est pas lue,
+        // le message y est rattaché par une simple référence
+        if (!membershipCache.isParticipant(conversationId, sender.getId())) {
+            throw new RuntimeException("Accès refusé à la conversation");
+        }
+        Conversation conv = conversationRepository.getReferenceById(conversationId);
 
         Message msg = new Message();
         msg.setConversation(conv);
@@ -32,14 +81,177 @@ public class MessageService {
         msg.setPhoto(photo);
         msg.setCreatedAt(LocalDateTime.now());
 
-        return messageRepository.save(msg);
+        Message saved = messageRepository.save(msg);
+
+        conversationRepository.recordMessage(conversationId, saved.getId(), saved.getCreatedAt(), preview(text, photo));
+
+        // Cache des derniers messages et diffusion aux participants (WebSocket, SSE)
+        eventPublisher.publishEvent(new MessageSentEvent(conversationId, MessageView.of(saved)));
+
+        return saved;
+    }
+
+    /**
+     * Envoi groupé (intégrations) : enregistre jusqu'à BULK_MAX_SIZE messages texte en une
+     * transaction. Les ids venant de la séquence, les INSERT partent par lots JDBC
+     * (hibernate.jdbc.batch_size) ; le résumé de la conversation est mis à jour une seule fois.
+     */
+    @Transactional
+    public List<Message> sendMessages(Long conversationId, User sender, List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        if (texts.size() > BULK_MAX_SIZE) {
+            throw new IllegalArgumentException("Au plus " + BULK_MAX_SIZE + " messages par envoi");
+        }
+        if (texts.stream().anyMatch(text -> text == null || text.isBlank())) {
+            throw new IllegalArgumentException("Message vide");
+        }
+        if (!membershipCache.isParticipant(conversationId, sender.getId())) {
+            throw new RuntimeException("Accès refusé à la conversation");
+        }
+        Conversation conv = conversationRepository.getReferenceById(conversationId);
+
+        // Même horodatage pour tout le lot : l'ordre est donné par les ids (croissants)
+        LocalDateTime now = LocalDateTime.now();
+        List<Message> messages = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            Message msg = new Message();
+            msg.setConversation(conv);
+            msg.setSender(sender);
+            msg.setText(text);
+            msg.setCreatedAt(now);
+            messages.add(msg);
+        }
+
+        List<Message> saved = messageRepository.saveAll(messages);
+
+        Message last = saved.get(saved.size() - 1);
+        conversationRepository.recordMessages(conversationId, saved.size(), last.getId(), last.getCreatedAt(),
+                preview(last.getText(), null));
+
+        for (Message msg : saved) {
+            eventPublisher.publishEvent(new MessageSentEvent(conversationId, MessageView.of(msg)));
+        }
+
+        return saved;
+    }
+
+    /**
+     * Enregistre en une transaction un groupe de messages de plusieurs expéditeurs et
+     * conversations (MessageGroupCommitter, qui a vérifié les participants à la mise en file).
+     * Retourne les messages enregistrés dans l'ordre des brouillons.
+     */
+    @Transactional
+    public List<Message> sendMessageGroup(List<MessageDraft> drafts) {
+        List<Message> messages = new ArrayList<>(drafts.size());
+        for (MessageDraft draft : drafts) {
+            Message msg = new Message();
+            msg.setConversation(conversationRepository.getReferenceById(draft.conversationId()));
+            msg.setSender(draft.sender());
+            msg.setText(draft.text());
+            msg.setPhoto(draft.photo());
+            msg.setCreatedAt(LocalDateTime.now());
+            messages.add(msg);
+        }
+
+        List<Message> saved = messageRepository.saveAll(messages);
+
+        // Une mise à jour du résumé par conversation, dans l'ordre des ids (verrous pris
+        // toujours dans le même ordre) ; le dernier message du groupe devient l'aperçu
+        Map<Long, List<Message>> byConversation = new TreeMap<>();
+        for (int i = 0; i < saved.size(); i++) {
+            byConversation.computeIfAbsent(drafts.get(i).conversationId(), id -> new ArrayList<>()).add(saved.get(i));
+        }
+        byConversation.forEach((conversationId, sent) -> {
+            Message last = sent.get(sent.size() - 1);
+            conversationRepository.recordMessages(conversationId, sent.size(), last.getId(), last.getCreatedAt(),
+                    preview(last.getText(), last.getPhoto()));
+        });
+
+        for (int i = 0; i < saved.size(); i++) {
+            eventPublisher.publishEvent(new MessageSentEvent(drafts.get(i).conversationId(), MessageView.of(saved.get(i))));
+        }
+
+        return saved;
+    }
+
+    /**
+     * Page la plus récente de la conversation (les PAGE_SIZE derniers messages).
+     * Servie par le cache des derniers messages quand la conversation y est présente.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage listMessages(Long conversationId) {
+        return tailCache.get(conversationId).orElseGet(() -> {
+            long stamp = tailCache.stamp(conversationId);
+            MessagePage page = toPage(
+                    messageRepository.findLatestInConversation(conversationId, Limit.of(PAGE_SIZE + 1)));
+            tailCache.put(conversationId, page, stamp);
+            return page;
+        });
+    }
+
+    /**
+     * Page de messages précédant le curseur donné.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage listMessagesBefore(Long conversationId, MessageCursor cursor) {
+        return toPage(messageRepository.findInConversationBefore(
+                conversationId, cursor.createdAt(), cursor.id(), Limit.of(PAGE_SIZE + 1)));
     }
 
-    public List<Message> listMessages(Long conversationId) {
-        return messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId);
+    /**
+     * Messages enregistrés après le message d'id donné (clients qui interrogent périodiquement),
+     * avec le recouvrement RESUME_OVERLAP : des messages déjà reçus peuvent être renvoyés.
+     * Si le cache sait qu'aucun message n'est plus récent, la base n'est pas interrogée.
+     */
+    @Transactional(readOnly = true)
+    public List<MessageView> listMessagesSince(Long conversationId, long afterId) {
+        if (tailCache.nothingNewAfter(conversationId, afterId, RESUME_OVERLAP)) {
+            return List.of();
+        }
+        return messageRepository.findInConversationResuming(conversationId, afterId, RESUME_OVERLAP,
+                Limit.of(PAGE_SIZE));
     }
 
-    public List<Photo> listPhotos(Long conversationId) {
-        return messageRepository.findPhotosInConversation(conversationId);
+    /**
+     * Photos d'une conversation créée à conversationCreatedAt : aucun de ses messages n'est
+     * antérieur, la recherche se limite donc aux partitions mensuelles à partir de cette date.
+     */
+    @Transactional(readOnly = true)
+    public List<GalleryPhotoView> listPhotos(Long conversationId, LocalDateTime conversationCreatedAt) {
+        return messageRepository.findPhotosInConversation(conversationId,
+                conversationCreatedAt.minus(CLOCK_SKEW_MARGIN));
+    }
+
+    /**
+     * Aperçu affiché dans la boîte de réception : début du texte, ou "Photo".
+     */
+    static String preview(String text, Photo photo) {
+        return preview(text, photo != null);
+    }
+
+    static String preview(String text, boolean hasPhoto) {
+        if (text == null || text.isBlank()) {
+            return hasPhoto ? "Photo" : null;
+        }
+        String trimmed = text.strip();
+        return trimmed.length() <= Conversation.PREVIEW_LENGTH
+                ? trimmed
+                : trimmed.substring(0, Conversation.PREVIEW_LENGTH - 1) + "…";
+    }
+
+    /**
+     * Construit une page à partir de messages triés du plus récent au plus ancien.
+     * Un message de plus que PAGE_SIZE est demandé pour savoir s'il existe une page précédente.
+     */
+    private MessagePage toPage(List<MessageView> newestFirst) {
+        boolean hasOlder = newestFirst.size() > PAGE_SIZE;
+
+        List<MessageView> messages = new ArrayList<>(newestFirst.subList(0, Math.min(PAGE_SIZE, newestFirst.size())));
+        Collections.reverse(messages);
+
+        MessageCursor olderCursor = hasOlder ? MessageCursor.of(messages.get(0)) : null;
+        return new MessagePage(messages, olderCursor);
     }
 }
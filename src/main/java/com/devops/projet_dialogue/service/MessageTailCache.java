@@ -0,0 +1,251 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageCursor;
+import com.devops.projet_dialogue.dto.MessagePage;
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache mémoire des derniers messages de chaque conversation.
+ *
+ * Chaque conversation garde ses PAGE_SIZE derniers messages dans un buffer circulaire,
+ * et les conversations les moins récemment lues sont évincées (LRU) au-delà de
+ * maxConversations. Chaque nouveau message y est ajouté après validation (write-through),
+ * ce qui permet de servir la première page d'une conversation active sans requête SQL.
+ *
+ * Il permet aussi de répondre "rien de nouveau" sans lire la base aux clients qui
+ * interrogent périodiquement une conversation en cache (voir nothingNewAfter).
+ */
+@Component
+public class MessageTailCache implements MeterBinder {
+
+    private static final int STAMP_STRIPES = 64;
+
+    private final int maxConversations;
+    private final Map<Long, Tail> tails;
+
+    // Compteurs d'écriture par conversation (répartis en bandes) pour détecter
+    // un envoi concurrent pendant le chargement d'une page depuis la base
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public MessageTailCache(@Value("${app.messages.tail-cache.max-conversations:1000}") int maxConversations) {
+        this.maxConversations = maxConversations;
+        this.tails = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tail> eldest) {
+                if (size() > MessageTailCache.this.maxConversations) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Première page de la conversation si elle est en cache.
+     */
+    public Optional<MessagePage> get(Long conversationId) {
+        Tail tail;
+        synchronized (tails) {
+            tail = tails.get(conversationId);
+        }
+        if (tail == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(tail.toPage());
+    }
+
+    /**
+     * Jeton à prendre avant de lire la base, puis à passer à {@link #put}.
+     */
+    public long stamp(Long conversationId) {
+        return writeStamps.get(stripe(conversationId));
+    }
+
+    /**
+     * Met en cache une première page lue en base. Ignoré si un message a été
+     * envoyé dans la conversation depuis la prise du jeton (la page serait périmée).
+     */
+    public void put(Long conversationId, MessagePage page, long stamp) {
+        Tail tail = new Tail(MessageService.PAGE_SIZE, page);
+        synchronized (tails) {
+            if (writeStamps.get(stripe(conversationId)) == stamp) {
+                tails.put(conversationId, tail);
+            }
+        }
+    }
+
+    /**
+     * Vrai si la conversation est en cache, que le message messageId est le dernier ajouté
+     * et qu'aucun autre n'a été créé moins de overlap avant lui (validations dans le désordre) :
+     * un client qui a reçu ce message n'a rien de nouveau à lire. Faux si le cache ne sait pas.
+     */
+    public boolean nothingNewAfter(Long conversationId, long messageId, Duration overlap) {
+        Tail tail;
+        synchronized (tails) {
+            tail = tails.get(conversationId);
+        }
+        return tail != null && tail.endsWith(messageId, overlap);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        append(event.conversationId(), event.message());
+    }
+
+    /**
+     * Ajoute un message qui vient d'être enregistré (write-through).
+     * Les conversations absentes du cache ne sont pas chargées.
+     */
+    public void append(Long conversationId, MessageView message) {
+        Tail tail;
+        synchronized (tails) {
+            writeStamps.incrementAndGet(stripe(conversationId));
+            tail = tails.get(conversationId);
+        }
+        if (tail != null) {
+            tail.append(message);
+        }
+    }
+
+    public void evict(Long conversationId) {
+        synchronized (tails) {
+            writeStamps.incrementAndGet(stripe(conversationId));
+            tails.remove(conversationId);
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (tails) {
+            size = tails.size();
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tag("cache", "message-tail").tag("result", "hit")
+                .description("Lectures de la première page servies par le cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tag("cache", "message-tail").tag("result", "miss")
+                .description("Lectures de la première page chargées depuis la base")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", "message-tail")
+                .description("Conversations évincées du cache (LRU)")
+                .register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.stats().size())
+                .tag("cache", "message-tail")
+                .description("Nombre de conversations en cache")
+                .register(registry);
+    }
+
+    private static int stripe(Long conversationId) {
+        return (int) (conversationId & (STAMP_STRIPES - 1));
+    }
+
+    /**
+     * Compteurs du cache.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    /**
+     * Buffer circulaire des derniers messages d'une conversation, du plus ancien au plus récent.
+     */
+    private static final class Tail {
+
+        private final MessageView[] ring;
+        private int start;
+        private int size;
+        private boolean hasOlder;
+
+        Tail(int capacity, MessagePage page) {
+            this.ring = new MessageView[capacity];
+            for (MessageView message : page.messages()) {
+                append(message);
+            }
+            this.hasOlder |= page.hasOlder();
+        }
+
+        synchronized void append(MessageView message) {
+            // Déjà présent si la page a été lue en base après la validation du message
+            if (message.id() != null && contains(message.id())) {
+                return;
+            }
+            if (size < ring.length) {
+                ring[(start + size) % ring.length] = message;
+                size++;
+            } else {
+                // Buffer plein : le plus ancien message est écrasé
+                ring[start] = message;
+                start = (start + 1) % ring.length;
+                hasOlder = true;
+            }
+        }
+
+        private boolean contains(Long id) {
+            for (int i = 0; i < size; i++) {
+                if (id.equals(ring[(start + i) % ring.length].id())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized boolean endsWith(long messageId, Duration overlap) {
+            if (size == 0) {
+                return false;
+            }
+            MessageView last = ring[(start + size - 1) % ring.length];
+            if (last.id() == null || last.id() != messageId) {
+                return false;
+            }
+            LocalDateTime since = last.createdAt().minus(overlap);
+            for (int i = 0; i < size - 1; i++) {
+                if (!ring[(start + i) % ring.length].createdAt().isBefore(since)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized MessagePage toPage() {
+            List<MessageView> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                messages.add(ring[(start + i) % ring.length]);
+            }
+            MessageCursor olderCursor = hasOlder && !messages.isEmpty()
+                    ? MessageCursor.of(messages.get(0))
+                    : null;
+            return new MessagePage(messages, olderCursor);
+        }
+    }
+}
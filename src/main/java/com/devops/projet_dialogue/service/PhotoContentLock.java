@@ -0,0 +1,66 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.repository.PhotoContentRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Verrou d'un contenu de photo partagé entre instances : ligne photo_contents verrouillée
+ * (SELECT ... FOR UPDATE) le temps d'une transaction.
+ *
+ * Les écritures sur les photos faites par l'action rejoignent cette transaction : une
+ * référence enregistrée sous le verrou est visible de la prochaine instance qui le prend.
+ * Une exception de l'action annule la transaction.
+ */
+@Component
+public class PhotoContentLock {
+
+    private final PhotoContentRepository photoContentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoContentLock(PhotoContentRepository photoContentRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.photoContentRepository = photoContentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Exécute l'action sous le verrou du contenu, dans une transaction.
+     */
+    public <T> T call(String contentHash, Action<T> action) throws IOException {
+        // Ligne créée hors de la transaction : un conflit n'annule que l'insertion
+        if (!photoContentRepository.existsById(contentHash)) {
+            try {
+                photoContentRepository.insert(contentHash);
+            } catch (DataIntegrityViolationException e) {
+                // Créée entre-temps par une autre requête
+            }
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                photoContentRepository.lock(contentHash)
+                        .orElseThrow(() -> new IllegalStateException("Contenu introuvable : " + contentHash));
+                try {
+                    return action.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Action exécutée sous le verrou.
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,159 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.storage.PhotoStorage;
+import com.devops.projet_dialogue.storage.PhotoStorage.StoredObject;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Accès aux fichiers des photos (PhotoStorage) pour PhotoFileController.
+ *
+ * Pour un fichier local, les octets sont envoyés par sendfile quand le connecteur Tomcat
+ * le permet (copie noyau, sans passer par la JVM), sinon recopiés dans la réponse par un
+ * tampon de la JVM. Pour un stockage distant, la plage demandée est lue en flux et recopiée.
+ *
+ * Seuls les fichiers nommés d'après leur empreinte (photos et miniatures de PhotoService)
+ * sont signalés comme immuables : un autre nom peut désigner un contenu remplacé.
+ *
+ * Une URL antérieure à la répartition en sous-dossiers (UploadLayout) reste valide :
+ * le fichier est cherché à son nouvel emplacement.
+ */
+@Service
+public class PhotoFileService {
+
+    // Attributs de requête du connecteur Tomcat (org.apache.coyote.Constants)
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // En dessous, une écriture directe coûte moins qu'un sendfile (seuil du DefaultServlet de Tomcat)
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    // Nom dérivé du contenu (PhotoService) : l'empreinte sert d'ETag
+    private static final Pattern CONTENT_HASH_NAME = Pattern.compile("^([0-9a-f]{64})\\.[a-z0-9]+$");
+
+    private final PhotoStorage storage;
+    private final UploadLayout layout;
+
+    public PhotoFileService(PhotoStorage storage, UploadLayout layout) {
+        this.storage = storage;
+        this.layout = layout;
+    }
+
+    /**
+     * Fichier correspondant au chemin demandé, s'il existe dans le stockage.
+     * Les chemins sortant du stockage et les fichiers cachés (écritures en cours) sont ignorés.
+     */
+    public Optional<PhotoFile> find(String relativePath) throws IOException {
+        String key = key(relativePath);
+        if (key == null) {
+            return Optional.empty();
+        }
+        Optional<StoredObject> found = PhotoStorage.await(storage.head(key));
+        if (found.isEmpty()) {
+            // Ancienne URL : fichier déplacé dans la répartition
+            String relocated = layout.relocate(key);
+            if (relocated.equals(key)) {
+                return Optional.empty();
+            }
+            found = PhotoStorage.await(storage.head(relocated));
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+        }
+
+        StoredObject object = found.get();
+        String name = object.key().substring(object.key().lastIndexOf('/') + 1);
+        var hashName = CONTENT_HASH_NAME.matcher(name);
+        // Fichiers jamais réécrits : la taille et la date suffisent à identifier le contenu
+        String etag = hashName.matches()
+                ? "\"" + hashName.group(1) + "\""
+                : "\"" + Long.toHexString(object.size()) + "-"
+                  + Long.toHexString(object.lastModified().toEpochMilli()) + "\"";
+        MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        Path path = storage.localPath(object.key()).orElse(null);
+        return Optional.of(new PhotoFile(object.key(), path, object.size(), etag, mediaType, hashName.matches()));
+    }
+
+    /**
+     * Clé de stockage d'un chemin demandé, ou null s'il est vide, contient un segment
+     * vide ou caché (., .., .upload-…) ou un antislash.
+     */
+    private static String key(String relativePath) {
+        if (relativePath == null) {
+            return null;
+        }
+        String key = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+        if (key.isBlank() || key.indexOf('\\') >= 0) {
+            return null;
+        }
+        for (String segment : key.split("/", -1)) {
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Envoie les octets [start, end] du fichier. Content-Length doit déjà être positionné.
+     */
+    public void transfer(PhotoFile file, long start, long end,
+                         HttpServletRequest request, OutputStream out) throws IOException {
+        if (file.path() == null) {
+            // Stockage distant : copie du flux de la plage demandée
+            Optional<InputStream> content = PhotoStorage.await(storage.stream(file.key(), start, end));
+            if (content.isEmpty()) {
+                throw new NoSuchFileException(file.key());
+            }
+            try (InputStream in = content.get()) {
+                in.transferTo(out);
+            }
+            return;
+        }
+        long count = end - start + 1;
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // Envoi par Tomcat après le retour du contrôleur, rien n'est écrit ici
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.path().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        // Sans sendfile : transferTo vers un canal qui n'est pas un fichier ni une socket,
+        // les octets passent par un tampon de la JVM (pas de copie noyau)
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end - position + 1, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Fichier servi : clé, chemin local (null pour un stockage distant), taille, ETag fort, type MIME
+     * et nom dérivé du contenu (jamais réécrit).
+     */
+    public record PhotoFile(String key, Path path, long size, String etag, MediaType mediaType,
+                            boolean contentAddressed) {
+    }
+}
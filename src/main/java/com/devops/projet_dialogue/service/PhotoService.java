@@ -1,34 +1,113 @@
 package com.devops.projet_dialogue.service;
 
+import com.devops.projet_dialogue.event.PhotoUploadedEvent;
+import com.devops.projet_dialogue.exception.PhotoTooLargeException;
 import com.devops.projet_dialogue.model.Photo;
 import com.devops.projet_dialogue.model.User;
 import com.devops.projet_dialogue.repository.PhotoRepository;
+import com.devops.projet_dialogue.storage.PhotoStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Stockage des photos par contenu : chaque fichier est nommé d'après l'empreinte SHA-256
+ * de ses octets, calculée pendant l'écriture sur disque. Un même contenu envoyé plusieurs
+ * fois n'est stocké qu'une fois et partagé par plusieurs lignes Photo (même contentHash) ;
+ * le fichier n'est supprimé qu'avec la dernière d'entre elles.
+ *
+ * Le stockage pouvant être partagé entre instances (S3), l'enregistrement d'une référence et
+ * la suppression de la dernière sont sérialisés par un verrou en base (PhotoContentLock). La
+ * référence est enregistrée avant le dépôt du fichier, qui se fait hors du verrou : une
+ * suppression qui prend le verrou ensuite la voit et garde le fichier.
+ *
+ * L'envoi en flux (savePhoto(InputStream, ...)) écrit le corps de la requête directement
+ * dans un fichier temporaire du stockage, par blocs de taille fixe : le type est déterminé d'après les
+ * premiers octets et l'envoi est interrompu dès qu'il dépasse la taille maximale.
+ *
+ * Les fichiers sont répartis en sous-dossiers d'après leur nom (UploadLayout) ; le nom
+ * enregistré sur la photo est leur clé dans le stockage (PhotoStorage, ex: ab/cd/abcd….jpg).
+ */
 @Service
 public class PhotoService {
 
+    private static final int LOCK_STRIPES = 64;
+
+    // Taille des blocs lus et écrits : seule mémoire utilisée par un envoi
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long DEFAULT_MAX_SIZE = DataSize.ofMegabytes(10).toBytes();
+
+    // Extension des fichiers stockés selon le type MIME déclaré : formats matriciels seulement,
+    // les mêmes que ceux reconnus par l'envoi en flux (sniffExtension)
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "image/bmp", "bmp"
+    );
+
     private final PhotoRepository photoRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    // Chemin où stocker les fichiers (ex: project/uploads)
-    private final Path uploadDir = Paths.get("uploads");
+    // Emplacement des fichiers (dossier local, S3…)
+    private final PhotoStorage storage;
 
-    public PhotoService(PhotoRepository photoRepository) {
-        this.photoRepository = photoRepository;
+    // Taille maximale d'une photo, en octets
+    private final long maxSize;
 
-        try {
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Impossible de créer le dossier 'uploads'", e);
+    private final UploadLayout layout;
+
+    // Verrou en base par empreinte, commun à toutes les instances
+    private final PhotoContentLock contentLock;
+
+    // Photos antérieures au stockage par contenu (fichier propre à la photo) : sérialise
+    // leur suppression et leur déplacement dans cette instance
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    @Autowired
+    public PhotoService(PhotoRepository photoRepository,
+                        ApplicationEventPublisher eventPublisher,
+                        PhotoStorage storage,
+                        @Value("${app.photos.max-size:10MB}") DataSize maxSize,
+                        UploadLayout layout,
+                        PhotoContentLock contentLock) {
+        this(photoRepository, eventPublisher, storage, maxSize.toBytes(), layout, contentLock);
+    }
+
+    PhotoService(PhotoRepository photoRepository, ApplicationEventPublisher eventPublisher, PhotoStorage storage,
+                 PhotoContentLock contentLock) {
+        this(photoRepository, eventPublisher, storage, DEFAULT_MAX_SIZE, new UploadLayout(0), contentLock);
+    }
+
+    PhotoService(PhotoRepository photoRepository, ApplicationEventPublisher eventPublisher,
+                 PhotoStorage storage, long maxSize, UploadLayout layout, PhotoContentLock contentLock) {
+        this.photoRepository = photoRepository;
+        this.eventPublisher = eventPublisher;
+        this.storage = storage;
+        this.maxSize = maxSize;
+        this.layout = layout;
+        this.contentLock = contentLock;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
         }
     }
 
@@ -41,29 +120,273 @@ public class PhotoService {
             throw new IllegalArgumentException("Le fichier est vide.");
         }
 
-        // Vérification du type MIME
-        if (!Objects.requireNonNull(file.getContentType()).startsWith("image/")) {
+        // Vérification du type MIME : SVG et autres types servis tels quels refusés
+        String extension = file.getContentType() == null
+                ? null : EXTENSIONS.get(file.getContentType().toLowerCase(Locale.ROOT));
+        if (extension == null) {
             throw new IllegalArgumentException("Le fichier n'est pas une image.");
         }
 
-        // Nom unique pour éviter les collisions
-        String uniqueName = UUID.randomUUID() + "_" + file.getOriginalFilename();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = file.getInputStream()) {
+            return store(in, buffer, 0, extension, file.getOriginalFilename(), author);
+        }
+    }
+
+    /**
+     * Sauvegarde une photo envoyée en flux (corps brut de la requête), sans fichier
+     * temporaire intermédiaire. Le type est déterminé d'après les premiers octets.
+     *
+     * @throws IllegalArgumentException si le contenu est vide ou n'est pas une image reconnue
+     * @throws PhotoTooLargeException si le contenu dépasse la taille maximale
+     */
+    public Photo savePhoto(InputStream content, String originalFilename, User author) throws IOException {
+        // Premier bloc : suffisant pour reconnaître le format, rien n'est encore écrit sur disque
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int first = content.readNBytes(buffer, 0, buffer.length);
+        if (first == 0) {
+            throw new IllegalArgumentException("Le fichier est vide.");
+        }
+        String extension = sniffExtension(buffer, first);
+        if (extension == null) {
+            throw new IllegalArgumentException("Le fichier n'est pas une image.");
+        }
+        return store(content, buffer, first, extension, originalFilename, author);
+    }
 
-        Path destination = uploadDir.resolve(uniqueName);
+    /**
+     * Taille maximale d'une photo, en octets
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
 
-        Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Écrit le contenu (premier bloc déjà lu compris) dans un fichier temporaire du stockage
+     * en calculant l'empreinte au passage, enregistre la photo sous le verrou de l'empreinte,
+     * puis dépose le fichier sous un nom dérivé de l'empreinte s'il n'existe pas encore.
+     */
+    private Photo store(InputStream in, byte[] buffer, int buffered, String extension,
+                        String originalFilename, User author) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = storage.newStagingFile();
+        try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.WRITE)) {
+            long total = 0;
+            int read = buffered;
+            while (read >= 0) {
+                if (read > 0) {
+                    total += read;
+                    if (total > maxSize) {
+                        throw new PhotoTooLargeException(maxSize);
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+                read = in.read(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
 
-        String url = "/uploads/" + uniqueName;
+        String filename = layout.path(hash + "." + extension);
+        String url = "/uploads/" + filename;
 
         Photo photo = new Photo(
-                uniqueName,
-                file.getOriginalFilename(),
+                filename,
+                originalFilename,
                 url,
                 author
         );
-
+        photo.setContentHash(hash);
         photo.setCreatedAt(LocalDateTime.now());
 
-        return photoRepository.save(photo);
+        // Référence enregistrée d'abord : le fichier ne peut plus être supprimé avec une autre photo
+        Photo saved;
+        try {
+            saved = contentLock.call(hash, () -> {
+                // Miniatures déjà générées pour ce contenu : réutilisées telles quelles
+                photoRepository.findFirstByContentHashAndThumbnailUrlIsNotNull(hash).ifPresent(existing -> {
+                    photo.setThumbnailUrl(existing.getThumbnailUrl());
+                    photo.setLargeThumbnailUrl(existing.getLargeThumbnailUrl());
+                });
+                return photoRepository.save(photo);
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        // Dépôt hors du verrou ; deux envois simultanés du même contenu déposent les mêmes octets
+        try {
+            if (PhotoStorage.await(storage.head(filename)).isPresent()) {
+                // Contenu déjà stocké : le fichier existant est partagé
+                Files.delete(temp);
+            } else {
+                PhotoStorage.await(storage.put(filename, temp));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            try {
+                deletePhoto(saved);
+            } catch (IOException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        if (saved.getThumbnailUrl() == null) {
+            // Miniatures générées en arrière-plan : l'envoi n'attend pas le redimensionnement
+            eventPublisher.publishEvent(new PhotoUploadedEvent(saved.getId(), filename, hash));
+        }
+        return saved;
+    }
+
+    /**
+     * Supprime une photo. Le fichier et ses miniatures ne sont supprimés
+     * que si aucune autre photo ne partage le même contenu.
+     *
+     * Le verrou de l'empreinte est gardé pendant la suppression des fichiers : un envoi
+     * du même contenu attend, puis trouve le fichier absent et le dépose à nouveau.
+     * Les miniatures sont relues sous le verrou (ThumbnailService a pu les enregistrer
+     * depuis le chargement de la photo).
+     */
+    public void deletePhoto(Photo photo) throws IOException {
+        String hash = photo.getContentHash();
+        if (hash == null) {
+            // Photo antérieure au stockage par contenu : fichier propre à la photo
+            withLegacyLock(photo, () -> {
+                photoRepository.delete(photo);
+                deleteUpload(photo.getUrl());
+                return null;
+            });
+            return;
+        }
+        contentLock.call(hash, () -> {
+            Photo current = photoRepository.findById(photo.getId()).orElse(photo);
+            photoRepository.delete(current);
+            if (photoRepository.countByContentHash(hash) == 0) {
+                deleteUpload(current.getUrl());
+                deleteUpload(current.getThumbnailUrl());
+                deleteUpload(current.getLargeThumbnailUrl());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Déplace les fichiers d'une photo enregistrée à plat (ou dans une autre répartition)
+     * vers la répartition courante, puis met à jour la photo. Les anciennes URL restent
+     * servies (PhotoFileService) : le déplacement peut se faire application en service.
+     *
+     * @return false si la photo suit déjà la répartition
+     */
+    public boolean relocate(Photo photo) throws IOException {
+        String filename = layout.relocate(photo.getFilename());
+        if (filename.equals(photo.getFilename())) {
+            return false;
+        }
+        PhotoContentLock.Action<Void> move = () -> {
+            moveUpload(photo.getFilename(), filename);
+            String thumbnailUrl = relocateUrl(photo.getThumbnailUrl());
+            String largeThumbnailUrl = relocateUrl(photo.getLargeThumbnailUrl());
+            photoRepository.relocate(photo.getId(), filename, "/uploads/" + filename, thumbnailUrl, largeThumbnailUrl);
+            return null;
+        };
+        if (photo.getContentHash() != null) {
+            contentLock.call(photo.getContentHash(), move);
+        } else {
+            withLegacyLock(photo, move);
+        }
+        return true;
+    }
+
+    private <T> T withLegacyLock(Photo photo, PhotoContentLock.Action<T> action) throws IOException {
+        ReentrantLock lock = locks[Math.floorMod(photo.getFilename().hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String relocateUrl(String url) throws IOException {
+        if (url == null || !url.startsWith("/uploads/")) {
+            return url;
+        }
+        String source = url.substring("/uploads/".length());
+        String target = layout.relocate(source);
+        moveUpload(source, target);
+        return "/uploads/" + target;
+    }
+
+    // Fichier partagé par plusieurs photos : déjà déplacé lors de la migration de l'une d'elles
+    private void moveUpload(String source, String target) throws IOException {
+        if (!source.equals(target)) {
+            PhotoStorage.await(storage.move(source, target));
+        }
+    }
+
+    // Une photo lue avant sa migration porte encore l'ancien chemin : les deux sont supprimés
+    private void deleteUpload(String url) throws IOException {
+        if (url != null && url.startsWith("/uploads/")) {
+            String path = url.substring("/uploads/".length());
+            PhotoStorage.await(storage.delete(path));
+            String relocated = layout.relocate(path);
+            if (!relocated.equals(path)) {
+                PhotoStorage.await(storage.delete(relocated));
+            }
+        }
+    }
+
+    /**
+     * Format d'après la signature des premiers octets (JPEG, PNG, GIF, WebP, BMP),
+     * ou null si le contenu n'est pas une image reconnue.
+     */
+    static String sniffExtension(byte[] head, int length) {
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(head, length, 'G', 'I', 'F', '8')
+                && length >= 6 && (head[4] == '7' || head[4] == '9') && head[5] == 'a') {
+            return "gif";
+        }
+        if (startsWith(head, length, 'R', 'I', 'F', 'F')
+                && length >= 12 && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        }
+        // "BM" seul est trop court : taille de l'en-tête DIB vérifiée en plus
+        if (startsWith(head, length, 'B', 'M') && length >= 18) {
+            int dibSize = (head[14] & 0xFF) | (head[15] & 0xFF) << 8 | (head[16] & 0xFF) << 16 | (head[17] & 0xFF) << 24;
+            if (dibSize == 12 || dibSize == 40 || dibSize == 52 || dibSize == 56 || dibSize == 108 || dibSize == 124) {
+                return "bmp";
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
     }
 }
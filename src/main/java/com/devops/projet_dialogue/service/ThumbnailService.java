@@ -0,0 +1,270 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.event.PhotoUploadedEvent;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import com.devops.projet_dialogue.repository.PhotoRepository;
+import com.devops.projet_dialogue.storage.PhotoStorage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Génération des miniatures des photos envoyées (javax.imageio).
+ *
+ * Les miniatures sont calculées en arrière-plan, sur un pool de threads borné, après la
+ * validation de l'envoi : l'upload n'attend pas le redimensionnement. Tant qu'une photo
+ * n'a pas de miniature (génération en cours, file pleine, format non lu par ImageIO),
+ * les pages affichent l'original.
+ *
+ * Les miniatures sont déposées et enregistrées sous le verrou du contenu (PhotoContentLock),
+ * comme la suppression d'une photo (PhotoService.deletePhoto) : une photo supprimée
+ * pendant la génération n'en reçoit pas, une photo supprimée ensuite emporte les siennes.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    /** Largeur de la miniature des bulles de conversation */
+    public static final int SMALL_WIDTH = 320;
+
+    /** Largeur de la miniature de la grille de la galerie */
+    public static final int LARGE_WIDTH = 640;
+
+    // Au-delà, l'image n'est pas décodée (une image très compressée peut occuper des Go en mémoire)
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final PhotoRepository photoRepository;
+    private final MessageRepository messageRepository;
+    private final MessageTailCache tailCache;
+    private final PhotoStorage storage;
+    private final PhotoContentLock contentLock;
+    private final Executor executor;
+
+    @Autowired
+    public ThumbnailService(PhotoRepository photoRepository,
+                            MessageRepository messageRepository,
+                            MessageTailCache tailCache,
+                            PhotoStorage storage,
+                            PhotoContentLock contentLock,
+                            @Value("${app.photos.thumbnails.threads:2}") int threads,
+                            @Value("${app.photos.thumbnails.queue-capacity:100}") int queueCapacity) {
+        this(photoRepository, messageRepository, tailCache, storage, contentLock,
+                thumbnailExecutor(threads, queueCapacity));
+    }
+
+    ThumbnailService(PhotoRepository photoRepository,
+                     MessageRepository messageRepository,
+                     MessageTailCache tailCache,
+                     PhotoStorage storage,
+                     PhotoContentLock contentLock,
+                     Executor executor) {
+        this.photoRepository = photoRepository;
+        this.messageRepository = messageRepository;
+        this.tailCache = tailCache;
+        this.storage = storage;
+        this.contentLock = contentLock;
+        this.executor = executor;
+    }
+
+    private static Executor thumbnailExecutor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setQueueCapacity(queueCapacity);
+        taskExecutor.setThreadNamePrefix("thumbnails-");
+        taskExecutor.initialize();
+        return taskExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor taskExecutor) {
+            taskExecutor.shutdown();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPhotoUploaded(PhotoUploadedEvent event) {
+        try {
+            executor.execute(() -> generate(event.photoId(), event.filename(), event.contentHash()));
+        } catch (TaskRejectedException e) {
+            // File pleine : la photo reste affichée en taille originale
+            logger.warn("Miniatures de la photo {} non planifiées (file pleine)", event.photoId());
+        }
+    }
+
+    /**
+     * Génère et enregistre les miniatures d'une photo.
+     * Le redimensionnement se fait hors du verrou ; seuls le dépôt et l'enregistrement le prennent.
+     */
+    void generate(Long photoId, String filename, String contentHash) {
+        // Miniatures à déposer, par clé
+        Map<String, Path> staged = new LinkedHashMap<>();
+        try {
+            Optional<byte[]> original = PhotoStorage.await(storage.get(filename));
+            if (original.isEmpty()) {
+                logger.warn("Miniatures de la photo {} non générées : fichier introuvable", photoId);
+                return;
+            }
+            BufferedImage image = read(original.get());
+            if (image == null) {
+                logger.warn("Miniatures de la photo {} non générées : format non pris en charge", photoId);
+                return;
+            }
+            String thumbnailUrl = thumbnail(image, filename, SMALL_WIDTH, staged);
+            String largeThumbnailUrl = thumbnail(image, filename, LARGE_WIDTH, staged);
+            boolean recorded = contentLock.call(contentHash, () -> {
+                if (!photoRepository.existsById(photoId)) {
+                    return false;
+                }
+                for (Map.Entry<String, Path> thumbnail : staged.entrySet()) {
+                    PhotoStorage.await(storage.put(thumbnail.getKey(), thumbnail.getValue()));
+                }
+                photoRepository.recordThumbnails(photoId, thumbnailUrl, largeThumbnailUrl);
+                return true;
+            });
+            if (!recorded) {
+                logger.info("Miniatures de la photo {} abandonnées : photo supprimée", photoId);
+                return;
+            }
+
+            // Les premières pages en cache affichent encore l'original
+            messageRepository.findConversationIdsByPhotoId(photoId).forEach(tailCache::evict);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Miniatures de la photo {} non générées : {}", photoId, e.getMessage());
+        } finally {
+            // Fichiers temporaires non consommés par un dépôt
+            for (Path temp : staged.values()) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    logger.warn("Fichier temporaire {} non supprimé : {}", temp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Décode l'image, ou retourne null si ImageIO ne sait pas la lire ou si elle est trop grande.
+     */
+    private static BufferedImage read(byte[] source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Prépare la miniature de la largeur donnée (fichier temporaire ajouté à staged, déposé
+     * ensuite sous le verrou) et retourne son URL.
+     * Une image déjà plus étroite n'est pas agrandie : l'original sert de miniature.
+     */
+    private String thumbnail(BufferedImage image, String filename, int width,
+                             Map<String, Path> staged) throws IOException {
+        if (image.getWidth() <= width) {
+            return "/uploads/" + filename;
+        }
+        // Même répartition en sous-dossiers que l'original (ex: thumbnails/320/ab/cd/abcd….jpg)
+        String key = "thumbnails/" + width + "/" + baseName(filename) + ".jpg";
+        // Nom dérivé du contenu : une miniature existante est déjà la bonne
+        if (PhotoStorage.await(storage.head(key)).isEmpty()) {
+            Path temp = storage.newStagingFile();
+            staged.put(key, temp);
+            writeJpeg(scale(image, width), temp);
+        }
+        return "/uploads/" + key;
+    }
+
+    /**
+     * Réduction par divisions successives par deux, puis à la largeur exacte :
+     * une seule interpolation bilinéaire sur un grand écart de taille crénelle l'image.
+     */
+    static BufferedImage scale(BufferedImage source, int width) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = currentWidth == width ? height : Math.max(height, currentHeight / 2);
+            current = draw(current, currentWidth, currentHeight);
+        } while (currentWidth > width);
+        return current;
+    }
+
+    // Fond blanc : le JPEG n'a pas de transparence
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path destination) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(destination.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+}
@@ -0,0 +1,98 @@
+package com.devops.projet_dialogue.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Répartition des fichiers du dossier uploads en sous-dossiers : un niveau par paire de
+ * caractères hexadécimaux du nom (ex: ab/cd/abcd…png pour une profondeur de 2), pour éviter
+ * un unique dossier de plusieurs millions d'entrées. Profondeur 0 : dossier à plat.
+ *
+ * Les noms dérivés du contenu (empreinte SHA-256) ou d'un UUID commencent déjà par des
+ * caractères hexadécimaux aléatoires ; les autres sont répartis d'après l'empreinte du nom.
+ */
+@Component
+public class UploadLayout {
+
+    /** Profondeur maximale : 256^4 dossiers suffisent très largement */
+    public static final int MAX_DEPTH = 4;
+
+    private final int depth;
+
+    @Autowired
+    public UploadLayout(@Value("${app.photos.shard-depth:2}") int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("app.photos.shard-depth doit être compris entre 0 et " + MAX_DEPTH);
+        }
+        this.depth = depth;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Chemin relatif d'un fichier dans la répartition (ex: "ab/cd/abcd….png").
+     */
+    public String path(String name) {
+        if (depth == 0) {
+            return name;
+        }
+        String key = shardKey(name);
+        StringBuilder path = new StringBuilder(name.length() + 3 * depth);
+        for (int level = 0; level < depth; level++) {
+            path.append(key, 2 * level, 2 * level + 2).append('/');
+        }
+        return path.append(name).toString();
+    }
+
+    /**
+     * Vrai si le chemin relatif (ex: "thumbnails/320/ab/cd/abcd….jpg") suit déjà la répartition.
+     */
+    public boolean isLaidOut(String relativePath) {
+        int slash = relativePath.lastIndexOf('/');
+        String expected = path(relativePath.substring(slash + 1));
+        return relativePath.equals(expected) || relativePath.endsWith("/" + expected);
+    }
+
+    /**
+     * Chemin relatif dans la répartition, en conservant le dossier parent
+     * (ex: "thumbnails/320/abcd….jpg" → "thumbnails/320/ab/cd/abcd….jpg").
+     */
+    public String relocate(String relativePath) {
+        if (isLaidOut(relativePath)) {
+            return relativePath;
+        }
+        int slash = relativePath.lastIndexOf('/');
+        return relativePath.substring(0, slash + 1) + path(relativePath.substring(slash + 1));
+    }
+
+    private String shardKey(String name) {
+        int length = 2 * depth;
+        if (name.length() > length && isHex(name, length)) {
+            return name;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static boolean isHex(String name, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,110 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.model.Photo;
+import com.devops.projet_dialogue.repository.PhotoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Au démarrage, déplace en arrière-plan les photos encore stockées à plat dans la
+ * répartition en sous-dossiers (UploadLayout) et réécrit leurs chemins, par lots.
+ *
+ * L'application reste en service pendant la migration : les anciennes URL sont servies
+ * depuis le nouvel emplacement (PhotoFileService) et chaque photo est déplacée sous le
+ * verrou de PhotoService. Une photo en échec reste à plat et sera reprise au prochain
+ * démarrage. Sans effet une fois les fichiers migrés.
+ */
+@Component
+public class UploadShardMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadShardMigration.class);
+
+    private final PhotoRepository photoRepository;
+    private final PhotoService photoService;
+    private final UploadLayout layout;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+
+    private volatile boolean stopped;
+    private volatile Thread worker;
+
+    public UploadShardMigration(PhotoRepository photoRepository,
+                                PhotoService photoService,
+                                UploadLayout layout,
+                                @Value("${app.photos.shard-migration.enabled:true}") boolean enabled,
+                                @Value("${app.photos.shard-migration.batch-size:500}") int batchSize,
+                                @Value("${app.photos.shard-migration.pause:100ms}") Duration pause) {
+        this.photoRepository = photoRepository;
+        this.photoService = photoService;
+        this.layout = layout;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || layout.getDepth() == 0) {
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "upload-shard-migration");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Migre toutes les photos à plat, lot par lot, et retourne le nombre de photos déplacées.
+     */
+    int migrate() {
+        int moved = 0;
+        long afterId = 0;
+        try {
+            while (!stopped) {
+                List<Photo> batch = photoRepository.findFlatAfter(afterId, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Photo photo : batch) {
+                    try {
+                        if (photoService.relocate(photo)) {
+                            moved++;
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Photo {} non déplacée : {}", photo.getId(), e.getMessage());
+                    }
+                    afterId = photo.getId();
+                }
+                logger.info("Répartition des uploads : {} photo(s) déplacée(s)", moved);
+
+                // Pause entre deux lots : la migration ne monopolise ni le disque ni la base
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("Répartition des uploads interrompue : {}", e.getMessage());
+        }
+        return moved;
+    }
+}
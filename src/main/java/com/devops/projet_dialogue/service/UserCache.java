@@ -0,0 +1,221 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.event.UserChangedEvent;
+import com.devops.projet_dialogue.model.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache mémoire des utilisateurs, indexé par id et par username.
+ *
+ * Les deux index partagent les mêmes entrées : une entrée évincée (LRU au-delà de
+ * maxEntries) ou expirée (TTL) disparaît des deux à la fois. Les utilisateurs sont
+ * rendus sous forme de copies détachées, qu'un appelant peut modifier sans altérer le cache.
+ *
+ * Le cache est invalidé par UserService.save et, après validation de la transaction,
+ * à la réception d'un UserChangedEvent, sur ce nœud seulement : la connexion ne s'appuie
+ * donc pas sur lui (UserService.findForAuthentication relit le mot de passe en base).
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final Map<Long, Entry> byId;
+    private final Map<String, Entry> byUsername = new HashMap<>();
+
+    // Incrémenté à chaque invalidation, pour ignorer un chargement commencé avant
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public UserCache(@Value("${app.users.cache.max-entries:10000}") int maxEntries,
+                     @Value("${app.users.cache.ttl:10m}") Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    UserCache(int maxEntries, Duration ttl, LongSupplier ticker) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > UserCache.this.maxEntries) {
+                    byUsername.remove(eldest.getValue().username(), eldest.getValue());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<User> getById(Long id) {
+        synchronized (byId) {
+            return hitOrMiss(byId.get(id));
+        }
+    }
+
+    public Optional<User> getByUsername(String username) {
+        synchronized (byId) {
+            Entry entry = byUsername.get(username);
+            if (entry != null) {
+                // Rafraîchit la position LRU de l'entrée partagée
+                byId.get(entry.id());
+            }
+            return hitOrMiss(entry);
+        }
+    }
+
+    /**
+     * Jeton à prendre avant de lire la base, puis à passer à {@link #put}.
+     */
+    public long stamp() {
+        return generation.get();
+    }
+
+    /**
+     * Met en cache un utilisateur lu en base. Ignoré si le cache a été invalidé
+     * depuis la prise du jeton (l'utilisateur lu serait peut-être périmé).
+     */
+    public void put(User user, long stamp) {
+        if (user.getId() == null || user.getUsername() == null) {
+            return;
+        }
+        Entry entry = new Entry(user.getId(), user.getUsername(), user.getPassword(),
+                user.getRole(), user.getCreatedAt(), ticker.getAsLong() + ttlNanos);
+        synchronized (byId) {
+            if (generation.get() != stamp) {
+                return;
+            }
+            remove(entry.id(), entry.username());
+            byId.put(entry.id(), entry);
+            byUsername.put(entry.username(), entry);
+        }
+    }
+
+    /**
+     * Retire l'utilisateur des deux index (y compris sous son ancien username).
+     */
+    public void invalidate(Long id, String username) {
+        synchronized (byId) {
+            generation.incrementAndGet();
+            remove(id, username);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (byId) {
+            generation.incrementAndGet();
+            byId.clear();
+            byUsername.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.user().id(), event.user().username());
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (byId) {
+            size = byId.size();
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tag("cache", "users").tag("result", "hit")
+                .description("Utilisateurs servis par le cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tag("cache", "users").tag("result", "miss")
+                .description("Utilisateurs chargés depuis la base")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", "users")
+                .description("Utilisateurs évincés du cache (LRU ou expiration)")
+                .register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.stats().size())
+                .tag("cache", "users")
+                .description("Nombre d'utilisateurs en cache")
+                .register(registry);
+    }
+
+    // Appelé sous le verrou
+    private Optional<User> hitOrMiss(Entry entry) {
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (entry.expiresAt() - ticker.getAsLong() <= 0) {
+            remove(entry.id(), entry.username());
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.toUser());
+    }
+
+    // Appelé sous le verrou
+    private void remove(Long id, String username) {
+        Entry entry = id == null ? null : byId.remove(id);
+        if (entry != null) {
+            byUsername.remove(entry.username(), entry);
+        }
+        if (username != null) {
+            Entry other = byUsername.remove(username);
+            if (other != null) {
+                byId.remove(other.id(), other);
+            }
+        }
+    }
+
+    /**
+     * Compteurs du cache.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    /**
+     * Colonnes d'un utilisateur et date d'expiration de l'entrée (en nanosecondes du ticker).
+     */
+    private record Entry(Long id, String username, String password, String role,
+                         LocalDateTime createdAt, long expiresAt) {
+
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setUsername(username);
+            user.setPassword(password);
+            user.setRole(role);
+            user.setCreatedAt(createdAt);
+            return user;
+        }
+    }
+}
@@ -1,29 +1,146 @@
 package com.devops.projet_dialogue.service;
 
+import com.devops.projet_dialogue.dto.UserPage;
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.event.UserChangedEvent;
 import com.devops.projet_dialogue.model.User;
 import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.security.UserSnapshot;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    /** Nombre d'utilisateurs par page de l'annuaire */
+    public static final int DIRECTORY_PAGE_SIZE = 50;
+
+    /** Nombre maximal de suggestions renvoyées par la recherche */
+    public static final int SEARCH_LIMIT = 10;
+
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UsernameIndex usernameIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       UserCache userCache,
+                       UsernameIndex usernameIndex,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.usernameIndex = usernameIndex;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Utilisateur par username, servi par le cache (copie détachée).
+     */
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        Optional<User> cached = userCache.getByUsername(username);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long stamp = userCache.stamp();
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(u -> userCache.put(u, stamp));
+        return user;
+    }
+
+    /**
+     * Utilisateur par username pour l'authentification : toujours lu en base, jamais dans le cache.
+     * Le cache n'est invalidé que sur le nœud qui modifie l'utilisateur ; un mot de passe changé
+     * ailleurs doit être pris en compte dès la connexion suivante. La lecture rafraîchit le cache.
+     */
+    public Optional<User> findForAuthentication(String username) {
+        long stamp = userCache.stamp();
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(u -> userCache.put(u, stamp));
+        return user;
     }
 
+    /**
+     * Utilisateur par id, servi par le cache (copie détachée).
+     */
     public Optional<User> findById(Long id) {
-        return userRepository.findById(id);
+        Optional<User> cached = userCache.getById(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long stamp = userCache.stamp();
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(u -> userCache.put(u, stamp));
+        return user;
+    }
+
+    /**
+     * Vérifie en base (jamais dans le cache) qu'un username est déjà pris.
+     */
+    public boolean existsByUsername(String username) {
+        return userRepository.existsByUsername(username);
+    }
+
+    /**
+     * Page de l'annuaire (id et username uniquement), sans l'utilisateur donné.
+     * Un utilisateur de plus que DIRECTORY_PAGE_SIZE est demandé pour savoir s'il existe une page suivante.
+     *
+     * @param excludedId    utilisateur à exclure (l'appelant)
+     * @param afterUsername curseur renvoyé par la page précédente, ou null pour la première page
+     */
+    public UserPage directory(Long excludedId, String afterUsername) {
+        Limit limit = Limit.of(DIRECTORY_PAGE_SIZE + 1);
+        List<UserSummary> users = afterUsername == null || afterUsername.isEmpty()
+                ? userRepository.findDirectory(excludedId, limit)
+                : userRepository.findDirectoryAfter(excludedId, afterUsername, limit);
+
+        if (users.size() <= DIRECTORY_PAGE_SIZE) {
+            return new UserPage(users, null);
+        }
+        List<UserSummary> page = new ArrayList<>(users.subList(0, DIRECTORY_PAGE_SIZE));
+        return new UserPage(page, page.get(DIRECTORY_PAGE_SIZE - 1).username());
+    }
+
+    /**
+     * Suggestions d'utilisateurs pour la saisie semi-automatique, sans l'utilisateur donné.
+     * La recherche par préfixe est servie par l'index mémoire (UsernameIndex) une fois chargé ;
+     * la recherche par sous-chaîne interroge la base (index trigramme sur PostgreSQL).
+     */
+    public List<UserSummary> search(String query, boolean contains, Long excludedId) {
+        String term = query == null ? "" : query.strip();
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        if (!contains && usernameIndex.isLoaded()) {
+            return usernameIndex.search(term, excludedId, SEARCH_LIMIT);
+        }
+        String pattern = (contains ? "%" : "") + escapeLike(term.toLowerCase(Locale.ROOT)) + "%";
+        return userRepository.searchByUsername(excludedId, pattern, Limit.of(SEARCH_LIMIT));
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Référence vers un utilisateur dont l'id est connu (ex : utilisateur connecté),
+     * sans le charger : suffit pour rattacher un message ou une photo.
+     */
+    public User getReference(Long id) {
+        return userRepository.getReferenceById(id);
     }
 
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Invalidé tout de suite, puis de nouveau après validation de la transaction (UserCache.onUserChanged)
+        userCache.invalidate(saved.getId(), saved.getUsername());
+        // Remplace la copie conservée dans les sessions de cet utilisateur
+        eventPublisher.publishEvent(new UserChangedEvent(UserSnapshot.of(saved)));
+        return saved;
     }
 }
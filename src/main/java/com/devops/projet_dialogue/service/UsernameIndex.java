@@ -0,0 +1,226 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.event.UserChangedEvent;
+import com.devops.projet_dialogue.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Index mémoire des usernames pour la recherche par préfixe (saisie semi-automatique).
+ *
+ * Les usernames sont rangés dans des tableaux triés par clé en minuscules : une recherche
+ * est une recherche dichotomique suivie de la lecture des K entrées suivantes, sans requête SQL.
+ * L'index est chargé au démarrage puis tenu à jour à chaque UserChangedEvent (inscription,
+ * renommage). Chaque écriture remplace les tableaux (copie), les lectures ne prennent aucun verrou.
+ */
+@Component
+public class UsernameIndex implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameIndex.class);
+
+    private final UserRepository userRepository;
+
+    private volatile Entries entries = Entries.EMPTY;
+    private volatile boolean loaded;
+
+    // Modifications reçues pendant le chargement, rejouées ensuite (protégées par this)
+    private final List<UserSummary> pending = new ArrayList<>();
+
+    public UsernameIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        load();
+    }
+
+    /**
+     * Charge tous les usernames (id et username uniquement).
+     */
+    public void load() {
+        List<UserSummary> users = userRepository.findAllSummaries();
+        Entries loadedEntries = Entries.of(users);
+        synchronized (this) {
+            entries = loadedEntries;
+            for (UserSummary user : pending) {
+                entries = entries.with(user.id(), user.username());
+            }
+            pending.clear();
+            loaded = true;
+        }
+        logger.info("Index des usernames chargé ({} utilisateur(s))", loadedEntries.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Au plus limit utilisateurs dont le username commence par le préfixe (sans tenir compte
+     * de la casse), par ordre alphabétique, l'utilisateur exclu n'étant pas compté.
+     */
+    public List<UserSummary> search(String prefix, Long excludedId, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        Entries current = entries;
+        List<UserSummary> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = current.lowerBound(key, ""); i < current.size() && result.size() < limit; i++) {
+            if (!current.keys[i].startsWith(key)) {
+                break;
+            }
+            if (excludedId == null || current.ids[i] != excludedId) {
+                result.add(new UserSummary(current.ids[i], current.usernames[i]));
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        put(event.user().id(), event.user().username());
+    }
+
+    /**
+     * Ajoute un utilisateur, ou le déplace s'il a changé de username.
+     */
+    public synchronized void put(Long id, String username) {
+        if (id == null || username == null) {
+            return;
+        }
+        if (!loaded) {
+            pending.add(new UserSummary(id, username));
+            return;
+        }
+        entries = entries.with(id, username);
+    }
+
+    /**
+     * Tableaux parallèles triés par (clé en minuscules, username).
+     */
+    private static final class Entries {
+
+        static final Entries EMPTY = new Entries(new String[0], new String[0], new long[0]);
+
+        private static final Comparator<UserSummary> ORDER = Comparator
+                .comparing((UserSummary u) -> u.username().toLowerCase(Locale.ROOT))
+                .thenComparing(UserSummary::username);
+
+        final String[] keys;
+        final String[] usernames;
+        final long[] ids;
+
+        private Entries(String[] keys, String[] usernames, long[] ids) {
+            this.keys = keys;
+            this.usernames = usernames;
+            this.ids = ids;
+        }
+
+        static Entries of(List<UserSummary> users) {
+            UserSummary[] sorted = users.toArray(new UserSummary[0]);
+            Arrays.sort(sorted, ORDER);
+            String[] keys = new String[sorted.length];
+            String[] usernames = new String[sorted.length];
+            long[] ids = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                usernames[i] = sorted[i].username();
+                keys[i] = key(usernames[i]);
+                ids[i] = sorted[i].id();
+            }
+            return new Entries(keys, usernames, ids);
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        /**
+         * Premier indice dont (clé, username) n'est pas inférieur à (key, username).
+         */
+        int lowerBound(String key, String username) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = keys[mid].compareTo(key);
+                if (cmp == 0) {
+                    cmp = usernames[mid].compareTo(username);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Copie contenant l'utilisateur à sa place, sans son ancienne entrée éventuelle.
+         */
+        Entries with(long id, String username) {
+            int previous = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    previous = i;
+                    break;
+                }
+            }
+            if (previous >= 0 && usernames[previous].equals(username)) {
+                return this;
+            }
+            Entries base = previous < 0 ? this : without(previous);
+            String key = key(username);
+            int at = base.lowerBound(key, username);
+            int n = base.size();
+
+            String[] newKeys = new String[n + 1];
+            String[] newUsernames = new String[n + 1];
+            long[] newIds = new long[n + 1];
+            System.arraycopy(base.keys, 0, newKeys, 0, at);
+            System.arraycopy(base.usernames, 0, newUsernames, 0, at);
+            System.arraycopy(base.ids, 0, newIds, 0, at);
+            newKeys[at] = key;
+            newUsernames[at] = username;
+            newIds[at] = id;
+            System.arraycopy(base.keys, at, newKeys, at + 1, n - at);
+            System.arraycopy(base.usernames, at, newUsernames, at + 1, n - at);
+            System.arraycopy(base.ids, at, newIds, at + 1, n - at);
+            return new Entries(newKeys, newUsernames, newIds);
+        }
+
+        private Entries without(int index) {
+            int n = size();
+            String[] newKeys = new String[n - 1];
+            String[] newUsernames = new String[n - 1];
+            long[] newIds = new long[n - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(usernames, 0, newUsernames, 0, index);
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, n - index - 1);
+            System.arraycopy(usernames, index + 1, newUsernames, index, n - index - 1);
+            System.arraycopy(ids, index + 1, newIds, index, n - index - 1);
+            return new Entries(newKeys, newUsernames, newIds);
+        }
+
+        // Même instance que le username quand il est déjà en minuscules
+        private static String key(String username) {
+            String key = username.toLowerCase(Locale.ROOT);
+            return key.equals(username) ? username : key;
+        }
+    }
+}
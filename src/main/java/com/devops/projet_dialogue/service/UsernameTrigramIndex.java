@@ -0,0 +1,51 @@
+package com.devops.projet_dialogue.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Au démarrage, sur PostgreSQL uniquement, crée l'index trigramme (pg_trgm) utilisé par la
+ * recherche de usernames par sous-chaîne (LOWER(username) LIKE '%...%').
+ * Sans effet sur les autres bases (H2 en test) ou si l'index existe déjà.
+ */
+@Component
+public class UsernameTrigramIndex implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameTrigramIndex.class);
+
+    private static final String CREATE_EXTENSION = "CREATE EXTENSION IF NOT EXISTS pg_trgm";
+
+    // CONCURRENTLY : la table users reste accessible en écriture pendant la construction
+    private static final String CREATE_INDEX = """
+        CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_trgm
+        ON users USING gin (LOWER(username) gin_trgm_ops)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsernameTrigramIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        if (!Boolean.TRUE.equals(postgres)) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute(CREATE_EXTENSION);
+            jdbcTemplate.execute(CREATE_INDEX);
+        } catch (DataAccessException e) {
+            // Ex : droits insuffisants pour créer l'extension. La recherche reste possible, sans index.
+            logger.warn("Index trigramme des usernames non créé : {}", e.getMessage());
+        }
+    }
+}
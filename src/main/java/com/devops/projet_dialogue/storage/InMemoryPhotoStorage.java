@@ -0,0 +1,83 @@
+package com.devops.projet_dialogue.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stockage en mémoire, pour les tests (app.photos.storage.type=memory).
+ * Le contenu est perdu à l'arrêt de l'application.
+ */
+public class InMemoryPhotoStorage implements PhotoStorage {
+
+    private final Map<String, Entry> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public Path newStagingFile() throws IOException {
+        return Files.createTempFile("photo-", ".upload");
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Path staged) {
+        try {
+            objects.put(key, new Entry(Files.readAllBytes(staged), Instant.now()));
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException ignored) {
+                // Fichier temporaire du système : supprimé par l'OS
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObject>> head(String key) {
+        return CompletableFuture.completedFuture(Optional.ofNullable(objects.get(key))
+                .map(entry -> new StoredObject(key, entry.content().length, entry.lastModified())));
+    }
+
+    @Override
+    public CompletableFuture<Optional<byte[]>> get(String key) {
+        return CompletableFuture.completedFuture(Optional.ofNullable(objects.get(key))
+                .map(entry -> entry.content().clone()));
+    }
+
+    @Override
+    public CompletableFuture<Optional<InputStream>> stream(String key, long start, long end) {
+        return CompletableFuture.completedFuture(Optional.ofNullable(objects.get(key))
+                .map(entry -> {
+                    int from = (int) Math.min(start, entry.content().length);
+                    int to = (int) Math.min(end + 1, entry.content().length);
+                    return new ByteArrayInputStream(entry.content(), from, Math.max(0, to - from));
+                }));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        objects.remove(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> move(String source, String target) {
+        Entry entry = objects.remove(source);
+        if (entry == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        objects.putIfAbsent(target, entry);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    private record Entry(byte[] content, Instant lastModified) {
+    }
+}
@@ -0,0 +1,204 @@
+package com.devops.projet_dialogue.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stockage dans un dossier local (par défaut : uploads).
+ *
+ * Les opérations sont exécutées dans le thread appelant : sur un disque local, un
+ * changement de thread coûterait plus que l'accès lui-même. Les fichiers temporaires
+ * sont créés dans le même dossier, pour que le dépôt soit un renommage atomique.
+ */
+public class LocalPhotoStorage implements PhotoStorage {
+
+    private final Path root;
+
+    public LocalPhotoStorage(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de créer le dossier '" + root + "'", e);
+        }
+    }
+
+    @Override
+    public Path newStagingFile() throws IOException {
+        return Files.createFile(root.resolve(".upload-" + UUID.randomUUID()));
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Path staged) {
+        try {
+            Path destination = resolve(key);
+            Files.createDirectories(destination.getParent());
+            moveIntoPlace(staged, destination);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(staged);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObject>> head(String key) {
+        try {
+            Path file = resolve(key);
+            if (!Files.isRegularFile(file)) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return CompletableFuture.completedFuture(Optional.of(
+                    new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toInstant())));
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<byte[]>> get(String key) {
+        try {
+            return CompletableFuture.completedFuture(Optional.of(Files.readAllBytes(resolve(key))));
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<InputStream>> stream(String key, long start, long end) {
+        try {
+            FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+            channel.position(start);
+            InputStream in = Channels.newInputStream(channel);
+            return CompletableFuture.completedFuture(Optional.of(new BoundedInputStream(in, end - start + 1)));
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> move(String source, String target) {
+        try {
+            Path from = resolve(source);
+            Path to = resolve(target);
+            if (!Files.exists(from)) {
+                return CompletableFuture.completedFuture(false);
+            }
+            if (Files.exists(to)) {
+                Files.delete(from);
+            } else {
+                Files.createDirectories(to.getParent());
+                moveIntoPlace(from, to);
+            }
+            return CompletableFuture.completedFuture(true);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path file = resolve(key);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Fichier d'une clé, qui ne peut pas sortir du dossier racine.
+     */
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Clé invalide : " + key);
+        }
+        return file;
+    }
+
+    // Renommage atomique : le fichier n'est jamais visible à moitié écrit
+    private static void moveIntoPlace(Path source, Path destination) throws IOException {
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Fichier temporaire caché : jamais servi, seule la place occupée est perdue
+        }
+    }
+
+    /**
+     * Flux limité à un nombre d'octets (fin de la plage demandée).
+     */
+    private static final class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.devops.projet_dialogue.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Stockage des fichiers des photos (originaux et miniatures), indépendant de leur emplacement :
+ * dossier local, mémoire (tests) ou service compatible S3 partagé entre plusieurs instances.
+ *
+ * Les clés sont les chemins relatifs enregistrés sur les photos (ex: "ab/cd/abcd….jpg",
+ * "thumbnails/320/ab/cd/abcd….jpg"). Toutes les opérations sont asynchrones ; une clé
+ * absente donne un Optional vide, les erreurs d'accès un future en échec (IOException).
+ */
+public interface PhotoStorage {
+
+    /**
+     * Nouveau fichier temporaire où écrire un contenu avant de le déposer avec put.
+     * Pour le stockage local, il est créé au même endroit que les photos (renommage atomique).
+     */
+    Path newStagingFile() throws IOException;
+
+    /**
+     * Dépose le fichier sous la clé donnée, en remplaçant un objet existant.
+     * Le fichier temporaire est consommé (déplacé ou supprimé), même en cas d'échec.
+     */
+    CompletableFuture<Void> put(String key, Path staged);
+
+    /**
+     * Taille et date de modification de l'objet, s'il existe.
+     */
+    CompletableFuture<Optional<StoredObject>> head(String key);
+
+    /**
+     * Contenu entier de l'objet, s'il existe.
+     */
+    CompletableFuture<Optional<byte[]>> get(String key);
+
+    /**
+     * Flux des octets [start, end] de l'objet, s'il existe. L'appelant ferme le flux.
+     */
+    CompletableFuture<Optional<InputStream>> stream(String key, long start, long end);
+
+    /**
+     * Supprime l'objet ; sans effet s'il n'existe pas.
+     */
+    CompletableFuture<Void> delete(String key);
+
+    /**
+     * Déplace un objet vers une autre clé. Si la cible existe déjà (contenu partagé),
+     * la source est simplement supprimée.
+     *
+     * @return false si la source n'existe pas
+     */
+    CompletableFuture<Boolean> move(String source, String target);
+
+    /**
+     * Fichier local de l'objet, quand le stockage en a un : il peut alors être envoyé
+     * sans passer par la JVM (sendfile).
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Attend le résultat d'une opération, en relançant l'IOException d'origine.
+     */
+    static <T> T await(CompletableFuture<T> operation) throws IOException {
+        try {
+            return operation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Opération de stockage interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException completion && completion.getCause() != null
+                    ? completion.getCause()
+                    : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Métadonnées d'un objet stocké.
+     */
+    record StoredObject(String key, long size, Instant lastModified) {
+    }
+}
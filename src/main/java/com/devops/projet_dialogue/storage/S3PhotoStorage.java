@@ -0,0 +1,120 @@
+package com.devops.projet_dialogue.storage;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Stockage dans un bucket compatible S3 (AWS S3, MinIO…), partagé par toutes les
+ * instances de l'application.
+ *
+ * Le client est asynchrone (aucun thread bloqué pendant les échanges) ; les objets
+ * au-delà du seuil multipart du client sont envoyés en plusieurs parties en parallèle
+ * (voir PhotoStorageConfig). Les contenus sont d'abord écrits dans un fichier
+ * temporaire local, dont la taille est alors connue.
+ */
+public class S3PhotoStorage implements PhotoStorage {
+
+    private static final int NOT_FOUND = 404;
+
+    private final S3AsyncClient client;
+    private final String bucket;
+
+    public S3PhotoStorage(S3AsyncClient client, String bucket) {
+        this.client = client;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public Path newStagingFile() throws IOException {
+        return Files.createTempFile("photo-", ".upload");
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Path staged) {
+        CompletableFuture<Void> upload;
+        try {
+            long size = Files.size(staged);
+            upload = client.putObject(request -> request.bucket(bucket).key(key).contentLength(size),
+                            AsyncRequestBody.fromFile(staged))
+                    .thenApply(response -> (Void) null);
+        } catch (IOException | RuntimeException e) {
+            upload = CompletableFuture.failedFuture(e);
+        }
+        return upload.whenComplete((ignored, error) -> {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                // Fichier temporaire du système : supprimé par l'OS
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObject>> head(String key) {
+        return client.headObject(request -> request.bucket(bucket).key(key))
+                .thenApply(response -> Optional.of(new StoredObject(key, response.contentLength(), response.lastModified())))
+                .exceptionally(error -> notFound(error));
+    }
+
+    @Override
+    public CompletableFuture<Optional<byte[]>> get(String key) {
+        return client.getObject(request -> request.bucket(bucket).key(key), AsyncResponseTransformer.toBytes())
+                .thenApply(response -> Optional.of(response.asByteArray()))
+                .exceptionally(error -> notFound(error));
+    }
+
+    @Override
+    public CompletableFuture<Optional<InputStream>> stream(String key, long start, long end) {
+        // Le flux est lu au fil de l'envoi au client : rien n'est gardé en mémoire
+        return client.getObject(request -> request.bucket(bucket).key(key).range("bytes=" + start + "-" + end),
+                        AsyncResponseTransformer.toBlockingInputStream())
+                .thenApply(response -> Optional.<InputStream>of(response))
+                .exceptionally(error -> notFound(error));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return client.deleteObject(request -> request.bucket(bucket).key(key))
+                .thenApply(response -> (Void) null);
+    }
+
+    /**
+     * Copie côté serveur puis suppression de la source (S3 n'a pas de renommage).
+     */
+    @Override
+    public CompletableFuture<Boolean> move(String source, String target) {
+        return head(source).thenCompose(found -> {
+            if (found.isEmpty()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return head(target)
+                    .thenCompose(existing -> existing.isPresent()
+                            ? CompletableFuture.<Void>completedFuture(null)
+                            : client.copyObject(request -> request
+                                    .sourceBucket(bucket).sourceKey(source)
+                                    .destinationBucket(bucket).destinationKey(target))
+                                    .thenApply(response -> (Void) null))
+                    .thenCompose(copied -> delete(source))
+                    .thenApply(deleted -> true);
+        });
+    }
+
+    // Objet absent : Optional vide ; toute autre erreur est propagée
+    private static <T> Optional<T> notFound(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof S3Exception s3 && s3.statusCode() == NOT_FOUND) {
+            return Optional.empty();
+        }
+        throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
+}
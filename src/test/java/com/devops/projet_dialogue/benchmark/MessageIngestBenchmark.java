@@ -0,0 +1,116 @@
+package com.devops.projet_dialogue.benchmark;
+
+import com.devops.projet_dialogue.ProjetDialogueApplication;
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.service.ConversationService;
+import com.devops.projet_dialogue.service.MessageService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Banc d'écriture : N messages enregistrés un par un (MessageService.sendMessage, une
+ * transaction par message) puis par lots (sendMessages, BULK_MAX_SIZE messages par
+ * transaction, INSERT regroupés par JDBC).
+ *
+ * Non lancé avec les tests : mvn test -Pbenchmarks
+ * Option : -Dbenchmark.messages=20000. Sur H2 en mémoire le gain vient surtout du nombre
+ * de transactions ; pour mesurer aussi reWriteBatchedInserts, viser une base PostgreSQL
+ * (-Dspring.datasource.url=jdbc:postgresql://...?reWriteBatchedInserts=true et identifiants).
+ */
+@DisplayName("Banc d'écriture message par message / par lots")
+class MessageIngestBenchmark {
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 20_000);
+
+    @Test
+    @DisplayName("Compare l'envoi unitaire et l'envoi groupé")
+    void compareSingleAndBulkIngest() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjetDialogueApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "app.photos.storage.type=memory",
+                        "app.photos.shard-migration.enabled=false")
+                .run()) {
+
+            MessageService messageService = context.getBean(MessageService.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class).getStatistics();
+
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            User alice = userRepository.save(new User("bench-alice", "x", "ROLE_USER"));
+            User bob = userRepository.save(new User("bench-bob", "x", "ROLE_USER"));
+            Long conversationId = context.getBean(ConversationService.class).getOrCreate(alice.getId(), bob.getId());
+
+            // Préchauffage : compilation JIT, pool de connexions, blocs de séquence
+            single(messageService, statistics, conversationId, alice, 1_000);
+            bulk(messageService, statistics, conversationId, alice, 1_000);
+
+            Result single = single(messageService, statistics, conversationId, alice, MESSAGES);
+            Result bulk = bulk(messageService, statistics, conversationId, alice, MESSAGES);
+
+            System.out.printf("%n%d messages, lots de %d%n", MESSAGES, MessageService.BULK_MAX_SIZE);
+            System.out.println(Result.HEADER);
+            System.out.println(single);
+            System.out.println(bulk);
+
+            assertThat(context.getBean(MessageRepository.class).count()).isEqualTo(2L * (MESSAGES + 1_000));
+        }
+    }
+
+    private static Result single(MessageService messageService, Statistics statistics,
+                                 Long conversationId, User sender, int count) {
+        statistics.clear();
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            messageService.sendMessage(conversationId, sender, "Message " + i, null);
+        }
+        return new Result("unitaire", count, System.nanoTime() - begin, statistics);
+    }
+
+    private static Result bulk(MessageService messageService, Statistics statistics,
+                               Long conversationId, User sender, int count) {
+        statistics.clear();
+        long begin = System.nanoTime();
+        List<String> batch = new ArrayList<>(MessageService.BULK_MAX_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add("Message " + i);
+            if (batch.size() == MessageService.BULK_MAX_SIZE || i == count - 1) {
+                messageService.sendMessages(conversationId, sender, batch);
+                batch.clear();
+            }
+        }
+        return new Result("par lots", count, System.nanoTime() - begin, statistics);
+    }
+
+    private record Result(String mode, int messages, long elapsedNanos, long transactions,
+                          long statements) {
+
+        Result(String mode, int messages, long elapsedNanos, Statistics statistics) {
+            this(mode, messages, elapsedNanos, statistics.getTransactionCount(),
+                    statistics.getPrepareStatementCount());
+        }
+
+        static final String HEADER = String.format("%-9s %10s %12s %14s %14s",
+                "envoi", "durée ms", "messages/s", "transactions", "requêtes JDBC");
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %10d %12.0f %14d %14d",
+                    mode, elapsedNanos / 1_000_000, messages / (elapsedNanos / 1e9), transactions, statements);
+        }
+    }
+}
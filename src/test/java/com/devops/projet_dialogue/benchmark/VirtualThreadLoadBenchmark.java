@@ -0,0 +1,228 @@
+package com.devops.projet_dialogue.benchmark;
+
+import com.devops.projet_dialogue.ProjetDialogueApplication;
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Banc de charge : annuaire des utilisateurs (/user, une requête SQL et un rendu Thymeleaf
+ * par page) sous 5 000 utilisateurs simultanés, avec des threads système (Tomcat, 200
+ * threads) puis des threads virtuels (limités par AdmissionLimitFilter).
+ *
+ * Non lancé avec les tests : mvn test -Pbenchmarks
+ * Options : -Dbenchmark.users=5000 -Dbenchmark.requests-per-user=10. Avec la base H2 en
+ * mémoire des tests, JDBC ne bloque presque pas : pour mesurer l'effet des threads virtuels,
+ * viser une base PostgreSQL (-Dspring.datasource.url=... et identifiants).
+ */
+@DisplayName("Banc de charge threads système / threads virtuels")
+class VirtualThreadLoadBenchmark {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 5000);
+    private static final int REQUESTS_PER_USER = Integer.getInteger("benchmark.requests-per-user", 10);
+
+    // Utilisateurs affichés par l'annuaire (une page pleine)
+    private static final int DIRECTORY_SIZE = 100;
+
+    private static final String PASSWORD = "benchmark";
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final Pattern SESSION = Pattern.compile("JSESSIONID=([^;]+)");
+
+    @Test
+    @DisplayName("Compare débit et latences à 5 000 utilisateurs simultanés")
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%n%d utilisateurs simultanés x %d requêtes GET /user%n", USERS, REQUESTS_PER_USER);
+        System.out.println(Result.HEADER);
+        System.out.println(platform);
+        System.out.println(virtual);
+
+        assertThat(platform.ok()).isPositive();
+        assertThat(virtual.ok()).isPositive();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjetDialogueApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.jpa.show-sql=false",
+                        "spring.thymeleaf.cache=true",
+                        "app.photos.storage.type=memory",
+                        "app.photos.shard-migration.enabled=false",
+                        // Toutes les connexions des clients sont acceptées : seule l'exécution est comparée
+                        "server.tomcat.max-connections=" + (USERS + 1000),
+                        "server.tomcat.accept-count=" + USERS)
+                .run()) {
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String username = seed(context);
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+            String session = login(client, baseUrl, username);
+
+            // Préchauffage : compilation JIT, caches, pool de connexions
+            load(client, baseUrl, session, Math.min(USERS, 200), 5);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            Load load = load(client, baseUrl, session, USERS, REQUESTS_PER_USER);
+            return load.toResult(virtualThreads ? "virtuels" : "système", threads.getPeakThreadCount());
+        }
+    }
+
+    private static String seed(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        String password = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < DIRECTORY_SIZE; i++) {
+            users.add(new User(String.format("bench-%03d", i), password, "ROLE_USER"));
+        }
+        userRepository.saveAll(users);
+        return users.get(0).getUsername();
+    }
+
+    /**
+     * Connexion par le formulaire (jeton CSRF compris) ; retourne l'identifiant de session.
+     */
+    private static String login(HttpClient client, String baseUrl, String username) throws Exception {
+        HttpResponse<String> page = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher csrf = CSRF.matcher(page.body());
+        assertThat(csrf.find()).as("jeton CSRF du formulaire de connexion").isTrue();
+        String anonymous = session(page);
+
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8)
+                + "&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .header("Cookie", "JSESSIONID=" + anonymous)
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertThat(response.headers().firstValue("Location")).hasValueSatisfying(
+                location -> assertThat(location).endsWith("/user/home"));
+        // Nouvelle session après connexion (protection contre la fixation de session)
+        return session(response);
+    }
+
+    private static String session(HttpResponse<?> response) {
+        return response.headers().allValues("Set-Cookie").stream()
+                .map(SESSION::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> matcher.group(1))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Pas de cookie de session"));
+    }
+
+    /**
+     * Lance les utilisateurs en même temps, chacun sur son thread virtuel côté client.
+     */
+    private static Load load(HttpClient client, String baseUrl, String session,
+                             int users, int requestsPerUser) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/user"))
+                .header("Cookie", "JSESSIONID=" + session)
+                .timeout(Duration.ofMinutes(2))
+                .build();
+        long[] latencies = new long[users * requestsPerUser];
+        AtomicInteger index = new AtomicInteger();
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        long begin;
+        long elapsed;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                clients.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int r = 0; r < requestsPerUser; r++) {
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 200) {
+                                ok.incrementAndGet();
+                            } else if (status == 503) {
+                                rejected.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[index.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                });
+            }
+            begin = System.nanoTime();
+            start.countDown();
+        }
+        elapsed = System.nanoTime() - begin;
+        return new Load(Arrays.copyOf(latencies, index.get()), ok.get(), rejected.get(), failed.get(), elapsed);
+    }
+
+    private record Load(long[] latencies, int ok, int rejected, int failed, long elapsedNanos) {
+
+        Result toResult(String mode, int peakThreads) {
+            Arrays.sort(latencies);
+            return new Result(mode, ok, rejected, failed,
+                    (ok + rejected + failed) / (elapsedNanos / 1e9),
+                    percentile(0.50), percentile(0.99), latencies[latencies.length - 1] / 1_000_000,
+                    peakThreads);
+        }
+
+        private long percentile(double p) {
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1)] / 1_000_000;
+        }
+    }
+
+    private record Result(String mode, int ok, int rejected, int failed, double throughput,
+                          long p50Millis, long p99Millis, long maxMillis, int peakThreads) {
+
+        static final String HEADER = String.format("%-9s %8s %8s %8s %10s %8s %8s %8s %14s",
+                "threads", "200", "503", "erreurs", "req/s", "p50 ms", "p99 ms", "max ms", "threads OS max");
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %8d %8d %8d %10.0f %8d %8d %8d %14d",
+                    mode, ok, rejected, failed, throughput, p50Millis, p99Millis, maxMillis, peakThreads);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.devops.projet_dialogue.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour AdmissionLimitFilter
+ */
+@DisplayName("Tests de AdmissionLimitFilter")
+class AdmissionLimitFilterTest {
+
+    private final AdmissionLimitFilter filter = new AdmissionLimitFilter(1, Duration.ofMillis(10));
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    /**
+     * Chaîne d'une requête qui occupe la place et, pendant son traitement, en lance une autre.
+     */
+    private MockFilterChain holding(String nestedPath, MockHttpServletResponse nestedResponse) {
+        return holding(get(nestedPath), nestedResponse);
+    }
+
+    private MockFilterChain holding(MockHttpServletRequest nestedRequest, MockHttpServletResponse nestedResponse) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+                filter.doFilter(nestedRequest, nestedResponse, new MockFilterChain());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Devrait traiter la requête et libérer sa place ensuite")
+    void shouldAdmitAndRelease() throws Exception {
+        // WHEN - deux requêtes successives avec une seule place
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(get("/user"), first, new MockFilterChain());
+        filter.doFilter(get("/user"), second, new MockFilterChain());
+
+        // THEN
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Devrait répondre 503 quand aucune place ne se libère dans le délai")
+    void shouldReject_WhenFull() throws Exception {
+        // GIVEN
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        // WHEN
+        filter.doFilter(get("/user"), new MockHttpServletResponse(), holding("/user", nested));
+
+        // THEN
+        assertThat(nested.getStatus()).isEqualTo(503);
+        assertThat(nested.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+        assertThat(registry.get("http.admission.rejected").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("http.admission.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas limiter les fichiers servis sans la base")
+    void shouldNotLimitServedFiles() throws Exception {
+        // GIVEN
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        // WHEN
+        filter.doFilter(get("/user"), new MockHttpServletResponse(), holding("/uploads/ab/cd/photo.jpg", nested));
+
+        // THEN
+        assertThat(nested.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Ne devrait exclure que le chemin exact du WebSocket")
+    void shouldExcludeOnlyWebSocketEndpoint() throws Exception {
+        // GIVEN
+        MockHttpServletResponse handshake = new MockHttpServletResponse();
+        MockHttpServletResponse other = new MockHttpServletResponse();
+
+        // WHEN
+        filter.doFilter(get("/user"), new MockHttpServletResponse(), holding("/ws", handshake));
+        filter.doFilter(get("/user"), new MockHttpServletResponse(), holding("/wsfoo", other));
+
+        // THEN
+        assertThat(handshake.getStatus()).isEqualTo(200);
+        assertThat(other.getStatus()).isEqualTo(503);
+    }
+
+    @Test
+    @DisplayName("Devrait limiter l'envoi d'une photo, qui utilise la base")
+    void shouldLimitPhotoUploads() throws Exception {
+        // GIVEN
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        // WHEN
+        filter.doFilter(get("/user"), new MockHttpServletResponse(),
+                holding(new MockHttpServletRequest("POST", "/conversation/1/photo"), nested));
+
+        // THEN
+        assertThat(nested.getStatus()).isEqualTo(503);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une limite nulle")
+    void shouldRejectInvalidLimit() {
+        assertThatThrownBy(() -> new AdmissionLimitFilter(0, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
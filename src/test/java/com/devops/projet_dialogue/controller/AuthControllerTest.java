@@ -1,7 +1,7 @@
 package com.devops.projet_dialogue.controller;
 
 import com.devops.projet_dialogue.model.User;
-import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.service.UserService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,7 +33,7 @@ class AuthControllerTest {
     private MockMvc mockMvc;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private UserService userService;
 
     @MockitoBean
     private PasswordEncoder passwordEncoder;
@@ -65,9 +65,9 @@ class AuthControllerTest {
     @DisplayName("POST /register devrait créer un nouveau user avec succès")
     void shouldRegisterNewUser_Successfully() throws Exception {
         // GIVEN
-        when(userRepository.existsByUsername("alice")).thenReturn(false);
+        when(userService.existsByUsername("alice")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("$2a$10$hashedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userService.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // WHEN & THEN
         mockMvc.perform(post("/register")
@@ -79,7 +79,7 @@ class AuthControllerTest {
                 .andExpect(redirectedUrl("/login?registered"));
 
         // Vérifier que l'utilisateur a été sauvegardé
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userService, times(1)).save(any(User.class));
         verify(passwordEncoder, times(1)).encode("password123");
     }
 
@@ -87,7 +87,7 @@ class AuthControllerTest {
     @DisplayName("POST /register devrait encoder le mot de passe")
     void shouldEncodePassword_WhenRegistering() throws Exception {
         // GIVEN
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(userService.existsByUsername(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$encoded");
 
         // WHEN
@@ -106,7 +106,7 @@ class AuthControllerTest {
     @DisplayName("POST /register devrait attribuer le rôle ROLE_USER par défaut")
     void shouldAssignRoleUser_ByDefault() throws Exception {
         // GIVEN
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(userService.existsByUsername(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded");
 
         // WHEN
@@ -118,7 +118,7 @@ class AuthControllerTest {
                 .andExpect(status().is3xxRedirection());
 
         // THEN - Vérifier que le rôle est ROLE_USER
-        verify(userRepository).save(argThat(user ->
+        verify(userService).save(argThat(user ->
                 user.getRole().equals("ROLE_USER")
         ));
     }
@@ -138,14 +138,14 @@ class AuthControllerTest {
                 .andExpect(model().attributeExists("errorMessage"))
                 .andExpect(model().attribute("errorMessage", "Les mots de passe ne correspondent pas."));
 
-        verify(userRepository, never()).save(any(User.class));
+        verify(userService, never()).save(any(User.class));
     }
 
     @Test
     @DisplayName("POST /register devrait rejeter si username déjà pris")
     void shouldRejectRegistration_WhenUsernameAlreadyExists() throws Exception {
         // GIVEN - Username existe déjà
-        when(userRepository.existsByUsername("alice")).thenReturn(true);
+        when(userService.existsByUsername("alice")).thenReturn(true);
 
         // WHEN & THEN
         mockMvc.perform(post("/register")
@@ -158,7 +158,7 @@ class AuthControllerTest {
                 .andExpect(model().attributeExists("errorMessage"))
                 .andExpect(model().attribute("errorMessage", "Ce nom d'utilisateur est déjà pris."));
 
-        verify(userRepository, never()).save(any(User.class));
+        verify(userService, never()).save(any(User.class));
     }
 
     // ========== Tests cas limites ==========
@@ -174,7 +174,7 @@ class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(view().name("register"));
 
-        verify(userRepository, never()).save(any(User.class));
+        verify(userService, never()).save(any(User.class));
     }
 
     @Test
@@ -188,14 +188,14 @@ class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(view().name("register"));
 
-        verify(userRepository, never()).save(any(User.class));
+        verify(userService, never()).save(any(User.class));
     }
 
     @Test
     @DisplayName("POST /register devrait vérifier l'existence du username avant d'encoder le mot de passe")
     void shouldCheckUsernameExists_BeforeEncodingPassword() throws Exception {
         // GIVEN
-        when(userRepository.existsByUsername("existing")).thenReturn(true);
+        when(userService.existsByUsername("existing")).thenReturn(true);
 
         // WHEN
         mockMvc.perform(post("/register")
@@ -213,7 +213,7 @@ class AuthControllerTest {
     @DisplayName("POST /register devrait gérer les espaces dans le username")
     void shouldHandleWhitespaceInUsername() throws Exception {
         // GIVEN
-        when(userRepository.existsByUsername("user name")).thenReturn(false);
+        when(userService.existsByUsername("user name")).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded");
 
         // WHEN
@@ -225,7 +225,7 @@ class AuthControllerTest {
                 .andExpect(status().is3xxRedirection());
 
         // THEN
-        verify(userRepository).save(argThat(user ->
+        verify(userService).save(argThat(user ->
                 user.getUsername().equals("user name")
         ));
     }
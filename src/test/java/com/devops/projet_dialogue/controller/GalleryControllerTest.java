@@ -1,8 +1,12 @@
 package com.devops.projet_dialogue.controller;
 
+import com.devops.projet_dialogue.dto.ConversationParticipants;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.dto.GalleryPhotoView;
+import com.devops.projet_dialogue.dto.UserSummary;
 import com.devops.projet_dialogue.model.Conversation;
-import com.devops.projet_dialogue.model.Photo;
 import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.service.ConversationMembershipCache;
 import com.devops.projet_dialogue.service.ConversationService;
 import com.devops.projet_dialogue.service.MessageService;
 import com.devops.projet_dialogue.service.UserService;
@@ -44,6 +48,9 @@ class GalleryControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private ConversationMembershipCache membershipCache;
+
     private User alice;
     private User bob;
     private Conversation conversation;
@@ -64,6 +71,10 @@ class GalleryControllerTest {
         conversation.setUser1(alice);
         conversation.setUser2(bob);
         conversation.setCreatedAt(LocalDateTime.now());
+
+        // Participants : alice (1) et bob (2)
+        when(membershipCache.isParticipant(anyLong(), any())).thenAnswer(invocation ->
+                new ConversationParticipants(1L, 2L).includes(invocation.getArgument(1)));
     }
 
     // ========== Tests GET /conversation/{id}/gallery ==========
@@ -75,13 +86,14 @@ class GalleryControllerTest {
         // GIVEN
         Long conversationId = 1L;
 
-        Photo photo1 = new Photo("uuid1.jpg", "photo1.jpg", "/uploads/uuid1.jpg", alice);
-        Photo photo2 = new Photo("uuid2.jpg", "photo2.jpg", "/uploads/uuid2.jpg", bob);
-        List<Photo> photos = Arrays.asList(photo1, photo2);
+        LocalDateTime now = LocalDateTime.now();
+        GalleryPhotoView photo1 = new GalleryPhotoView(1L, "/uploads/uuid1.jpg", null, "photo1.jpg", "alice", now);
+        GalleryPhotoView photo2 = new GalleryPhotoView(2L, "/uploads/uuid2.jpg", null, "photo2.jpg", "bob", now);
+        List<GalleryPhotoView> photos = Arrays.asList(photo1, photo2);
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listPhotos(conversationId)).thenReturn(photos);
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listPhotos(eq(conversationId), any())).thenReturn(photos);
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
@@ -91,10 +103,10 @@ class GalleryControllerTest {
                 .andExpect(model().attributeExists("photos"))
                 .andExpect(model().attributeExists("otherUser"))
                 .andExpect(model().attribute("photos", photos))
-                .andExpect(model().attribute("otherUser", bob));
+                .andExpect(model().attribute("otherUser", UserSummary.of(bob)));
 
         verify(conversationService, times(1)).findById(conversationId);
-        verify(messageService, times(1)).listPhotos(conversationId);
+        verify(messageService, times(1)).listPhotos(eq(conversationId), any());
     }
 
     @Test
@@ -105,13 +117,13 @@ class GalleryControllerTest {
         Long conversationId = 1L;
 
         when(userService.findByUsername("bob")).thenReturn(Optional.of(bob));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listPhotos(conversationId)).thenReturn(List.of());
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listPhotos(eq(conversationId), any())).thenReturn(List.of());
 
         // WHEN & THEN - Bob est connecté, donc otherUser = Alice
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
                 .andExpect(status().isOk())
-                .andExpect(model().attribute("otherUser", alice));
+                .andExpect(model().attribute("otherUser", UserSummary.of(alice)));
     }
 
     @Test
@@ -124,7 +136,7 @@ class GalleryControllerTest {
         charlie.setId(3L); // ID différent de alice et bob
 
         when(userService.findByUsername("charlie")).thenReturn(Optional.of(charlie));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
@@ -132,7 +144,7 @@ class GalleryControllerTest {
                 .andExpect(redirectedUrl("/conversations"));
 
         // Ne devrait PAS charger les photos
-        verify(messageService, never()).listPhotos(anyLong());
+        verify(messageService, never()).listPhotos(anyLong(), any());
     }
 
     @Test
@@ -143,8 +155,8 @@ class GalleryControllerTest {
         Long conversationId = 1L;
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listPhotos(conversationId)).thenReturn(List.of());
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listPhotos(eq(conversationId), any())).thenReturn(List.of());
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
@@ -152,7 +164,7 @@ class GalleryControllerTest {
                 .andExpect(view().name("gallery"))
                 .andExpect(model().attribute("photos", hasSize(0)));
 
-        verify(messageService, times(1)).listPhotos(conversationId);
+        verify(messageService, times(1)).listPhotos(eq(conversationId), any());
     }
 
     @Test
@@ -162,24 +174,24 @@ class GalleryControllerTest {
         // GIVEN - 5 photos
         Long conversationId = 1L;
 
-        List<Photo> photos = Arrays.asList(
-                new Photo("uuid1.jpg", "photo1.jpg", "/uploads/uuid1.jpg", alice),
-                new Photo("uuid2.jpg", "photo2.jpg", "/uploads/uuid2.jpg", bob),
-                new Photo("uuid3.jpg", "photo3.jpg", "/uploads/uuid3.jpg", alice),
-                new Photo("uuid4.jpg", "photo4.jpg", "/uploads/uuid4.jpg", bob),
-                new Photo("uuid5.jpg", "photo5.jpg", "/uploads/uuid5.jpg", alice)
+        List<GalleryPhotoView> photos = Arrays.asList(
+                new GalleryPhotoView(1L, "/uploads/uuid1.jpg", null, "photo1.jpg", "alice", LocalDateTime.now()),
+                new GalleryPhotoView(2L, "/uploads/uuid2.jpg", null, "photo2.jpg", "bob", LocalDateTime.now()),
+                new GalleryPhotoView(3L, "/uploads/uuid3.jpg", null, "photo3.jpg", "alice", LocalDateTime.now()),
+                new GalleryPhotoView(4L, "/uploads/uuid4.jpg", null, "photo4.jpg", "bob", LocalDateTime.now()),
+                new GalleryPhotoView(5L, "/uploads/uuid5.jpg", null, "photo5.jpg", "alice", LocalDateTime.now())
         );
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listPhotos(conversationId)).thenReturn(photos);
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listPhotos(eq(conversationId), any())).thenReturn(photos);
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
                 .andExpect(status().isOk())
                 .andExpect(model().attribute("photos", hasSize(5)));
 
-        verify(messageService, times(1)).listPhotos(conversationId);
+        verify(messageService, times(1)).listPhotos(eq(conversationId), any());
     }
 
     @Test
@@ -190,7 +202,7 @@ class GalleryControllerTest {
                 .andExpect(status().isUnauthorized());
 
         verify(conversationService, never()).findById(anyLong());
-        verify(messageService, never()).listPhotos(anyLong());
+        verify(messageService, never()).listPhotos(anyLong(), any());
     }
 
     @Test
@@ -213,8 +225,8 @@ class GalleryControllerTest {
         Long conversationId = 999L;
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(conversationService.findById(conversationId))
-                .thenThrow(new RuntimeException("Conversation non trouvée"));
+        doThrow(new RuntimeException("Conversation non trouvée"))
+                .when(membershipCache).isParticipant(conversationId, alice.getId());
 
         // WHEN & THEN - Affiche page d'erreur via GlobalExceptionHandler
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
@@ -222,8 +234,8 @@ class GalleryControllerTest {
                 .andExpect(view().name("error"))
                 .andExpect(model().attributeExists("errorMessage"));
 
-        verify(conversationService, times(1)).findById(conversationId);
-        verify(messageService, never()).listPhotos(anyLong());
+        verify(conversationService, never()).findById(anyLong());
+        verify(messageService, never()).listPhotos(anyLong(), any());
     }
 
     @Test
@@ -236,7 +248,7 @@ class GalleryControllerTest {
         charlie.setId(3L);
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(charlie));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
 
         // WHEN
         mockMvc.perform(get("/conversation/" + conversationId + "/gallery"))
@@ -244,6 +256,6 @@ class GalleryControllerTest {
                 .andExpect(redirectedUrl("/conversations"));
 
         // THEN - Les photos ne devraient PAS être chargées
-        verify(messageService, never()).listPhotos(conversationId);
+        verify(messageService, never()).listPhotos(eq(conversationId), any());
     }
 }
\ No newline at end of file
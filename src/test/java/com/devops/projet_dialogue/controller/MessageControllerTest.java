@@ -1,10 +1,21 @@
 package com.devops.projet_dialogue.controller;
 
+import com.devops.projet_dialogue.dto.ConversationParticipants;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.dto.MessageCursor;
+import com.devops.projet_dialogue.dto.MessagePage;
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.exception.MessageQueueFullException;
+import com.devops.projet_dialogue.exception.PhotoTooLargeException;
 import com.devops.projet_dialogue.model.Conversation;
 import com.devops.projet_dialogue.model.Message;
 import com.devops.projet_dialogue.model.Photo;
 import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.security.UserSnapshot;
+import com.devops.projet_dialogue.service.ConversationMembershipCache;
 import com.devops.projet_dialogue.service.ConversationService;
+import com.devops.projet_dialogue.service.MessageEventStream;
 import com.devops.projet_dialogue.service.MessageService;
 import com.devops.projet_dialogue.service.PhotoService;
 import com.devops.projet_dialogue.service.UserService;
@@ -14,16 +25,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -50,9 +66,15 @@ class MessageControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private ConversationMembershipCache membershipCache;
+
     @MockitoBean
     private PhotoService photoService;
 
+    @MockitoBean
+    private MessageEventStream eventStream;
+
     private User alice;
     private User bob;
     private Conversation conversation;
@@ -60,15 +82,24 @@ class MessageControllerTest {
     @BeforeEach
     void setUp() {
         alice = new User("alice", "password1", "ROLE_USER");
+        alice.setId(1L);
         alice.setCreatedAt(LocalDateTime.now());
 
         bob = new User("bob", "password2", "ROLE_USER");
+        bob.setId(2L);
         bob.setCreatedAt(LocalDateTime.now());
 
         conversation = new Conversation();
         conversation.setUser1(alice);
         conversation.setUser2(bob);
         conversation.setCreatedAt(LocalDateTime.now());
+
+        when(userService.getReference(1L)).thenReturn(alice);
+        when(userService.getReference(2L)).thenReturn(bob);
+
+        // Participants : alice (1) et bob (2)
+        when(membershipCache.isParticipant(anyLong(), any())).thenAnswer(invocation ->
+                new ConversationParticipants(1L, 2L).includes(invocation.getArgument(1)));
     }
 
     // ========== Tests GET /conversation/{id} ==========
@@ -88,11 +119,11 @@ class MessageControllerTest {
         msg2.setText("Hi!");
         msg2.setSender(bob);
 
-        List<Message> messages = Arrays.asList(msg1, msg2);
+        List<MessageView> messages = Arrays.asList(MessageView.of(msg1), MessageView.of(msg2));
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listMessages(conversationId)).thenReturn(messages);
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listMessages(conversationId)).thenReturn(new MessagePage(messages, null));
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId))
@@ -102,8 +133,8 @@ class MessageControllerTest {
                 .andExpect(model().attributeExists("messages"))
                 .andExpect(model().attributeExists("currentUser"))
                 .andExpect(model().attributeExists("otherUser"))
-                .andExpect(model().attribute("currentUser", alice))
-                .andExpect(model().attribute("otherUser", bob));
+                .andExpect(model().attribute("currentUser", UserSnapshot.of(alice)))
+                .andExpect(model().attribute("otherUser", UserSummary.of(bob)));
 
         verify(conversationService, times(1)).findById(conversationId);
         verify(messageService, times(1)).listMessages(conversationId);
@@ -117,14 +148,14 @@ class MessageControllerTest {
         Long conversationId = 1L;
 
         when(userService.findByUsername("bob")).thenReturn(Optional.of(bob));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listMessages(conversationId)).thenReturn(List.of());
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listMessages(conversationId)).thenReturn(new MessagePage(List.of(), null));
 
         // WHEN & THEN - Bob est connecté, donc otherUser = Alice
         mockMvc.perform(get("/conversation/" + conversationId))
                 .andExpect(status().isOk())
-                .andExpect(model().attribute("currentUser", bob))
-                .andExpect(model().attribute("otherUser", alice));
+                .andExpect(model().attribute("currentUser", UserSnapshot.of(bob)))
+                .andExpect(model().attribute("otherUser", UserSummary.of(alice)));
     }
 
     @Test
@@ -136,7 +167,6 @@ class MessageControllerTest {
         User charlie = new User("charlie", "pass", "ROLE_USER");
 
         when(userService.findByUsername("charlie")).thenReturn(Optional.of(charlie));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId))
@@ -144,6 +174,7 @@ class MessageControllerTest {
                 .andExpect(redirectedUrl("/conversations"));
 
         verify(messageService, never()).listMessages(anyLong());
+        verify(conversationService, never()).findById(anyLong());
     }
 
     @Test
@@ -182,6 +213,28 @@ class MessageControllerTest {
         verify(photoService, never()).savePhoto(any(), any());
     }
 
+    @Test
+    @WithMockUser(username = "charlie")
+    @DisplayName("POST /conversation/{id}/send devrait refuser un non participant")
+    void shouldNotSendMessage_WhenUserNotParticipant() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        User charlie = new User("charlie", "pass", "ROLE_USER");
+        charlie.setId(3L);
+
+        when(userService.findByUsername("charlie")).thenReturn(Optional.of(charlie));
+
+        // WHEN & THEN
+        mockMvc.perform(multipart("/conversation/" + conversationId + "/send")
+                        .param("text", "Intrusion")
+                        .with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/conversations"));
+
+        verify(messageService, never()).sendMessage(anyLong(), any(), any(), any());
+        verify(photoService, never()).savePhoto(any(), any());
+    }
+
     @Test
     @WithMockUser(username = "alice")
     @DisplayName("POST /conversation/{id}/send devrait envoyer une photo seule")
@@ -300,6 +353,36 @@ class MessageControllerTest {
         verify(messageService, times(1)).sendMessage(eq(conversationId), eq(alice), eq("Text message"), isNull());
     }
 
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/send devrait libérer la photo quand la file d'envoi est pleine")
+    void shouldReleasePhoto_WhenQueueIsFull() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+
+        MockMultipartFile photo = new MockMultipartFile(
+                "image",
+                "photo.jpg",
+                "image/jpeg",
+                "fake-image-content".getBytes()
+        );
+
+        Photo savedPhoto = new Photo("uuid.jpg", "photo.jpg", "/uploads/uuid.jpg", alice);
+
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(photoService.savePhoto(any(), eq(alice))).thenReturn(savedPhoto);
+        when(messageService.sendMessage(eq(conversationId), eq(alice), isNull(), eq(savedPhoto)))
+                .thenThrow(new MessageQueueFullException());
+
+        // WHEN & THEN
+        mockMvc.perform(multipart("/conversation/" + conversationId + "/send")
+                        .file(photo)
+                        .with(csrf()))
+                .andExpect(status().isServiceUnavailable());
+
+        verify(photoService).deletePhoto(savedPhoto);
+    }
+
     @Test
     @WithMockUser(username = "alice")
     @DisplayName("POST /conversation/{id}/send devrait nécessiter CSRF token")
@@ -368,12 +451,405 @@ class MessageControllerTest {
         Long conversationId = 1L;
 
         when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(conversationService.findById(conversationId)).thenReturn(conversation);
-        when(messageService.listMessages(conversationId)).thenReturn(List.of());
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listMessages(conversationId)).thenReturn(new MessagePage(List.of(), null));
 
         // WHEN & THEN
         mockMvc.perform(get("/conversation/" + conversationId))
                 .andExpect(status().isOk())
                 .andExpect(model().attribute("messages", List.of()));
     }
-}
\ No newline at end of file
+
+    // ========== Tests GET /conversation/{id}/messages ==========
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /conversation/{id} devrait exposer le curseur vers les messages précédents")
+    void shouldExposeOlderCursor_WhenHistoryIsLonger() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        MessageCursor cursor = new MessageCursor(LocalDateTime.of(2025, 11, 20, 10, 21), 42L);
+
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(conversationService.findById(conversationId)).thenReturn(ConversationView.of(conversation));
+        when(messageService.listMessages(conversationId)).thenReturn(new MessagePage(List.of(), cursor));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("olderCursor", cursor));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /conversation/{id}/messages devrait charger la page précédant le curseur")
+    void shouldLoadOlderMessages() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        MessageCursor cursor = new MessageCursor(LocalDateTime.of(2025, 11, 20, 10, 21), 42L);
+
+        Message older = new Message();
+        older.setText("Ancien");
+        older.setSender(bob);
+
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(messageService.listMessagesBefore(conversationId, cursor))
+                .thenReturn(new MessagePage(List.of(MessageView.of(older)), null));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/messages")
+                        .param("before", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("messages", List.of(MessageView.of(older))))
+                .andExpect(content().string(containsString("Ancien")));
+
+        verify(messageService, times(1)).listMessagesBefore(conversationId, cursor);
+    }
+
+    @Test
+    @WithMockUser(username = "charlie")
+    @DisplayName("GET /conversation/{id}/messages devrait rediriger si user non participant")
+    void shouldNotLoadOlderMessages_WhenUserNotParticipant() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        User charlie = new User("charlie", "pass", "ROLE_USER");
+
+        when(userService.findByUsername("charlie")).thenReturn(Optional.of(charlie));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/messages")
+                        .param("before", "2025-11-20T10:21_42"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/conversations"));
+
+        verify(messageService, never()).listMessagesBefore(anyLong(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /conversation/{id}/messages devrait retourner 400 si curseur invalide")
+    void shouldReturnBadRequest_WhenCursorInvalid() throws Exception {
+        mockMvc.perform(get("/conversation/1/messages")
+                        .param("before", "pas-un-curseur"))
+                .andExpect(status().isBadRequest())
+                .andExpect(view().name("error-400"));
+
+        verify(messageService, never()).listMessagesBefore(anyLong(), any());
+    }
+
+    // ========== Tests GET /conversation/{id}/messages/since ==========
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /conversation/{id}/messages/since devrait retourner les nouveaux messages en JSON")
+    void shouldReturnNewMessagesAsJson() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        MessageView newer = new MessageView(43L, 2L, "Nouveau", null, null, LocalDateTime.of(2025, 11, 20, 10, 21));
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(messageService.listMessagesSince(conversationId, 42L)).thenReturn(List.of(newer));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/messages/since")
+                        .param("after", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(43))
+                .andExpect(jsonPath("$[0].senderId").value(2))
+                .andExpect(jsonPath("$[0].text").value("Nouveau"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /conversation/{id}/messages/since devrait retourner 204 si rien de nouveau")
+    void shouldReturnNoContent_WhenNothingNew() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(messageService.listMessagesSince(conversationId, 42L)).thenReturn(List.of());
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/messages/since")
+                        .param("after", "42"))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "charlie")
+    @DisplayName("GET /conversation/{id}/messages/since devrait refuser un non participant")
+    void shouldRejectMessagesSince_WhenUserNotParticipant() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        User charlie = new User("charlie", "pass", "ROLE_USER");
+        charlie.setId(3L);
+        when(userService.findByUsername("charlie")).thenReturn(Optional.of(charlie));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/messages/since")
+                        .param("after", "42"))
+                .andExpect(status().isForbidden());
+
+        verify(messageService, never()).listMessagesSince(anyLong(), anyLong());
+    }
+
+    // ========== Tests GET /conversation/{id}/events ==========
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /conversation/{id}/events devrait ouvrir un flux SSE pour un participant")
+    void shouldOpenEventStream_ForParticipant() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(eventStream.subscribe(conversationId, 42L)).thenReturn(new SseEmitter());
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/events")
+                        .param("lastId", "42"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(eventStream, times(1)).subscribe(conversationId, 42L);
+    }
+
+    @Test
+    @WithMockUser(username = "bob")
+    @DisplayName("GET /conversation/{id}/events devrait reprendre depuis l'en-tête Last-Event-ID")
+    void shouldResumeFromLastEventIdHeader() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        when(userService.findByUsername("bob")).thenReturn(Optional.of(bob));
+        when(eventStream.subscribe(conversationId, 57L)).thenReturn(new SseEmitter());
+
+        // WHEN & THEN - l'en-tête de reconnexion prime sur le paramètre
+        mockMvc.perform(get("/conversation/" + conversationId + "/events")
+                        .param("lastId", "42")
+                        .header("Last-Event-ID", "57"))
+                .andExpect(status().isOk());
+
+        verify(eventStream, times(1)).subscribe(conversationId, 57L);
+    }
+
+    @Test
+    @WithMockUser(username = "charlie")
+    @DisplayName("GET /conversation/{id}/events devrait refuser un non participant")
+    void shouldRejectEventStream_WhenUserNotParticipant() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        User charlie = new User("charlie", "pass", "ROLE_USER");
+        charlie.setId(3L);
+        when(userService.findByUsername("charlie")).thenReturn(Optional.of(charlie));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/conversation/" + conversationId + "/events"))
+                .andExpect(status().isForbidden());
+
+        verify(eventStream, never()).subscribe(anyLong(), any());
+    }
+
+    // ========== Tests POST /conversation/{id}/messages ==========
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/messages devrait enregistrer le lot et retourner les messages créés")
+    void shouldSendMessagesInBulk() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        Message first = new Message();
+        first.setSender(alice);
+        first.setText("Un");
+        Message second = new Message();
+        second.setSender(alice);
+        second.setText("Deux");
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(messageService.sendMessages(conversationId, alice, List.of("Un", "Deux"))).thenReturn(List.of(first, second));
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/" + conversationId + "/messages")
+                        .contentType("application/json")
+                        .content("[\"Un\", \"Deux\"]")
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].text").value("Un"))
+                .andExpect(jsonPath("$[1].text").value("Deux"))
+                .andExpect(jsonPath("$[1].senderId").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/messages devrait répondre 413 au-delà de la taille de lot maximale")
+    void shouldRejectBulk_WhenTooManyMessages() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        String body = "[" + String.join(",", Collections.nCopies(MessageService.BULK_MAX_SIZE + 1, "\"x\"")) + "]";
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/messages")
+                        .contentType("application/json")
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(messageService, never()).sendMessages(anyLong(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/messages devrait répondre 400 pour un message vide")
+    void shouldRejectBulk_WhenMessageBlank() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(messageService.sendMessages(eq(1L), eq(alice), any()))
+                .thenThrow(new IllegalArgumentException("Message vide"));
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/messages")
+                        .contentType("application/json")
+                        .content("[\"Un\", \" \"]")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/messages devrait refuser un non-participant")
+    void shouldRejectBulk_WhenNotParticipant() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(membershipCache.isParticipant(anyLong(), any())).thenReturn(false);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/messages")
+                        .contentType("application/json")
+                        .content("[\"Un\"]")
+                        .with(csrf()))
+                .andExpect(status().isForbidden());
+
+        verify(messageService, never()).sendMessages(anyLong(), any(), any());
+    }
+
+    // ========== Tests POST /conversation/{id}/photo ==========
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/photo devrait enregistrer la photo envoyée en flux")
+    void shouldSendStreamedPhoto() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        Photo savedPhoto = new Photo("hash.png", "photo.png", "/uploads/hash.png", alice);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(photoService.getMaxSize()).thenReturn(10L * 1024 * 1024);
+        when(photoService.savePhoto(any(InputStream.class), eq("photo.png"), eq(alice))).thenReturn(savedPhoto);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/" + conversationId + "/photo")
+                        .param("filename", "photo.png")
+                        .param("text", "Regarde")
+                        .contentType("image/png")
+                        .content(new byte[]{1, 2, 3})
+                        .with(csrf()))
+                .andExpect(status().isCreated());
+
+        verify(messageService).sendMessage(eq(conversationId), eq(alice), eq("Regarde"), eq(savedPhoto));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/photo devrait libérer la photo et répondre 503 quand la file d'envoi est pleine")
+    void shouldReleaseStreamedPhoto_WhenQueueIsFull() throws Exception {
+        // GIVEN
+        Long conversationId = 1L;
+        Photo savedPhoto = new Photo("hash.png", "photo.png", "/uploads/hash.png", alice);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(photoService.getMaxSize()).thenReturn(10L * 1024 * 1024);
+        when(photoService.savePhoto(any(InputStream.class), eq("photo.png"), eq(alice))).thenReturn(savedPhoto);
+        when(messageService.sendMessage(eq(conversationId), eq(alice), isNull(), eq(savedPhoto)))
+                .thenThrow(new MessageQueueFullException());
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/" + conversationId + "/photo")
+                        .param("filename", "photo.png")
+                        .contentType("image/png")
+                        .content(new byte[]{1, 2, 3})
+                        .with(csrf()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        verify(photoService).deletePhoto(savedPhoto);
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/photo devrait refuser une taille annoncée trop grande sans lire le corps")
+    void shouldRejectStreamedPhoto_WhenContentLengthTooLarge() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(photoService.getMaxSize()).thenReturn(2L);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/photo")
+                        .contentType("image/png")
+                        .content(new byte[]{1, 2, 3})
+                        .with(csrf()))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(photoService, never()).savePhoto(any(InputStream.class), any(), any());
+        verify(messageService, never()).sendMessage(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/photo devrait répondre 415 si le contenu n'est pas une image")
+    void shouldRejectStreamedPhoto_WhenNotAnImage() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(photoService.getMaxSize()).thenReturn(10L * 1024 * 1024);
+        when(photoService.savePhoto(any(InputStream.class), any(), eq(alice)))
+                .thenThrow(new IllegalArgumentException("Le fichier n'est pas une image."));
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/photo")
+                        .contentType("image/png")
+                        .content("texte".getBytes())
+                        .with(csrf()))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(messageService, never()).sendMessage(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/photo devrait répondre 413 si le flux dépasse la taille maximale")
+    void shouldRejectStreamedPhoto_WhenStreamTooLarge() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(photoService.getMaxSize()).thenReturn(10L * 1024 * 1024);
+        when(photoService.savePhoto(any(InputStream.class), any(), eq(alice)))
+                .thenThrow(new PhotoTooLargeException(10L * 1024 * 1024));
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/photo")
+                        .contentType("image/png")
+                        .content(new byte[]{1, 2, 3})
+                        .with(csrf()))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("POST /conversation/{id}/photo devrait refuser un non-participant")
+    void shouldRejectStreamedPhoto_WhenNotParticipant() throws Exception {
+        // GIVEN
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(membershipCache.isParticipant(anyLong(), any())).thenReturn(false);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/conversation/1/photo")
+                        .contentType("image/png")
+                        .content(new byte[]{1, 2, 3})
+                        .with(csrf()))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(photoService);
+    }
+}
@@ -0,0 +1,169 @@
+package com.devops.projet_dialogue.controller;
+
+import com.devops.projet_dialogue.service.PhotoFileService;
+import com.devops.projet_dialogue.service.PhotoFileService.PhotoFile;
+import com.devops.projet_dialogue.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = PhotoFileController.class)
+@AutoConfigureMockMvc
+@DisplayName("Tests du PhotoFileController")
+class PhotoFileControllerTest {
+
+    private static final String ETAG = "\"abc123\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PhotoFileService photoFileService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = uploadDir.resolve("photo.jpg");
+        Files.writeString(file, "0123456789");
+        when(photoFileService.find("/photo.jpg"))
+                .thenReturn(Optional.of(new PhotoFile("photo.jpg", file, 10, ETAG, MediaType.IMAGE_JPEG, true)));
+        // Écriture réelle des octets dans la réponse
+        doCallRealMethod().when(photoFileService).transfer(any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait envoyer le fichier avec ETag et cache permanent")
+    void shouldServeWholeFile() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(content().string("0123456789"))
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("Content-Length", "10"))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, private, immutable"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait faire revalider un fichier dont le nom ne dérive pas du contenu")
+    void shouldRevalidate_WhenNotContentAddressed() throws Exception {
+        // GIVEN
+        Path legacy = uploadDir.resolve("legacy.jpg");
+        Files.writeString(legacy, "0123456789");
+        when(photoFileService.find("/legacy.jpg"))
+                .thenReturn(Optional.of(new PhotoFile("legacy.jpg", legacy, 10, ETAG, MediaType.IMAGE_JPEG, false)));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/uploads/legacy.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait répondre 304 si l'ETag correspond")
+    void shouldReturnNotModified_WhenEtagMatches() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg").header("If-None-Match", "\"other\", W/" + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(content().string(""));
+
+        verify(photoFileService, never()).transfer(any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait envoyer une plage d'octets")
+    void shouldServeRange() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg").header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(header().string("Content-Length", "4"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait envoyer les derniers octets demandés")
+    void shouldServeSuffixRange() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg").header("Range", "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait répondre 416 pour une plage hors du fichier")
+    void shouldReturn416_WhenRangeUnsatisfiable() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg").header("Range", "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait ignorer la plage si If-Range ne correspond plus")
+    void shouldServeWholeFile_WhenIfRangeStale() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg")
+                        .header("Range", "bytes=2-5")
+                        .header("If-Range", "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("HEAD /uploads/{path} devrait envoyer les en-têtes sans le contenu")
+    void shouldSendHeadersOnly_WhenHead() throws Exception {
+        mockMvc.perform(head("/uploads/photo.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Length", "10"))
+                .andExpect(content().string(""));
+
+        verify(photoFileService, never()).transfer(any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    @DisplayName("GET /uploads/{path} devrait répondre 404 pour un fichier inconnu")
+    void shouldReturn404_WhenFileMissing() throws Exception {
+        mockMvc.perform(get("/uploads/missing.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /uploads/{path} devrait refuser un utilisateur non connecté")
+    void shouldRejectAnonymous() throws Exception {
+        mockMvc.perform(get("/uploads/photo.jpg"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(photoFileService);
+    }
+}
@@ -1,8 +1,10 @@
 package com.devops.projet_dialogue.controller;
 
+import com.devops.projet_dialogue.dto.UserPage;
+import com.devops.projet_dialogue.dto.UserSummary;
 import com.devops.projet_dialogue.model.User;
-import com.devops.projet_dialogue.repository.UserRepository;
 import com.devops.projet_dialogue.security.CustomUserDetails;
+import com.devops.projet_dialogue.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,10 +16,14 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
@@ -36,7 +42,7 @@ class UserControllerTest {
     private MockMvc mockMvc;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private UserService userService;
 
     private User alice;
     private User bob;
@@ -102,29 +108,29 @@ class UserControllerTest {
     // ========== Tests GET /user (liste des utilisateurs) ==========
 
     @Test
-    @DisplayName("GET /user devrait afficher la liste des autres utilisateurs")
+    @DisplayName("GET /user devrait afficher la première page des autres utilisateurs")
     void shouldShowUserList() throws Exception {
         // GIVEN
-        List<User> allUsers = Arrays.asList(alice, bob, charlie);
-        when(userRepository.findAll()).thenReturn(allUsers);
+        UserPage page = new UserPage(List.of(UserSummary.of(bob), UserSummary.of(charlie)), null);
+        when(userService.directory(1L, null)).thenReturn(page);
 
         // WHEN & THEN - Alice connectée, devrait voir Bob et Charlie
         mockMvc.perform(get("/user")
                         .with(user(aliceDetails)))
                 .andExpect(status().isOk())
                 .andExpect(view().name("users/list"))
-                .andExpect(model().attributeExists("users"))
+                .andExpect(model().attribute("users", page.users()))
+                .andExpect(model().attribute("firstPage", true))
                 .andExpect(model().attributeExists("currentUserId"));
 
-        verify(userRepository, times(1)).findAll();
+        verify(userService, times(1)).directory(1L, null);
     }
 
     @Test
     @DisplayName("GET /user devrait exclure l'utilisateur connecté de la liste")
     void shouldExcludeCurrentUser_FromList() throws Exception {
         // GIVEN
-        List<User> allUsers = Arrays.asList(alice, bob, charlie);
-        when(userRepository.findAll()).thenReturn(allUsers);
+        when(userService.directory(anyLong(), any())).thenReturn(new UserPage(List.of(), null));
 
         // WHEN & THEN
         mockMvc.perform(get("/user")
@@ -132,24 +138,40 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(model().attributeExists("users"));
 
-        // Note: Le filtrage se fait dans le controller avec stream().filter()
-        // On vérifie juste que findAll() est appelé
-        verify(userRepository, times(1)).findAll();
+        // Le filtrage se fait en base : l'id de l'utilisateur connecté est transmis
+        verify(userService, times(1)).directory(1L, null);
     }
 
     @Test
     @DisplayName("GET /user devrait afficher une liste vide si user est seul")
     void shouldShowEmptyList_WhenOnlyOneUser() throws Exception {
         // GIVEN - Alice est la seule utilisatrice
-        when(userRepository.findAll()).thenReturn(List.of(alice));
+        when(userService.directory(1L, null)).thenReturn(new UserPage(List.of(), null));
 
         // WHEN & THEN
         mockMvc.perform(get("/user")
                         .with(user(aliceDetails)))
                 .andExpect(status().isOk())
-                .andExpect(view().name("users/list"));
+                .andExpect(view().name("users/list"))
+                .andExpect(model().attribute("nextCursor", nullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /user?after= devrait afficher la page suivant le curseur")
+    void shouldShowNextPage_WhenCursorGiven() throws Exception {
+        // GIVEN
+        UserPage page = new UserPage(List.of(UserSummary.of(charlie)), "charlie");
+        when(userService.directory(1L, "bob")).thenReturn(page);
 
-        verify(userRepository, times(1)).findAll();
+        // WHEN & THEN
+        mockMvc.perform(get("/user")
+                        .param("after", "bob")
+                        .with(user(aliceDetails)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("users", page.users()))
+                .andExpect(model().attribute("nextCursor", "charlie"))
+                .andExpect(model().attribute("firstPage", false))
+                .andExpect(content().string(containsString("/user?after=charlie")));
     }
 
     @Test
@@ -158,7 +180,48 @@ class UserControllerTest {
         mockMvc.perform(get("/user"))
                 .andExpect(status().isUnauthorized()); // 401 en environnement de test
 
-        verify(userRepository, never()).findAll();
+        verify(userService, never()).directory(any(), any());
+    }
+
+    // ========== Tests GET /user/search (saisie semi-automatique) ==========
+
+    @Test
+    @DisplayName("GET /user/search devrait retourner les suggestions en JSON")
+    void shouldReturnSearchSuggestions() throws Exception {
+        // GIVEN
+        when(userService.search("bo", false, 1L)).thenReturn(List.of(UserSummary.of(bob)));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/user/search")
+                        .param("q", "bo")
+                        .with(user(aliceDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].username").value("bob"));
+    }
+
+    @Test
+    @DisplayName("GET /user/search?contains=true devrait chercher par sous-chaîne")
+    void shouldSearchBySubstring_WhenContains() throws Exception {
+        // GIVEN
+        when(userService.search("arl", true, 1L)).thenReturn(List.of(UserSummary.of(charlie)));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/user/search")
+                        .param("q", "arl")
+                        .param("contains", "true")
+                        .with(user(aliceDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("charlie"));
+    }
+
+    @Test
+    @DisplayName("GET /user/search devrait nécessiter une authentification")
+    void shouldRequireAuthentication_ForSearch() throws Exception {
+        mockMvc.perform(get("/user/search").param("q", "bo"))
+                .andExpect(status().isUnauthorized());
+
+        verify(userService, never()).search(any(), anyBoolean(), any());
     }
 
     // ========== Tests GET /user/{id} (profil utilisateur) ==========
@@ -168,7 +231,7 @@ class UserControllerTest {
     void shouldShowUserProfile() throws Exception {
         // GIVEN
         Long bobId = 2L;
-        when(userRepository.findById(bobId)).thenReturn(Optional.of(bob));
+        when(userService.findById(bobId)).thenReturn(Optional.of(bob));
 
         // WHEN & THEN - Alice veut voir le profil de Bob
         mockMvc.perform(get("/user/" + bobId)
@@ -179,7 +242,7 @@ class UserControllerTest {
                 .andExpect(model().attribute("user", bob))
                 .andExpect(model().attributeExists("currentUserId"));
 
-        verify(userRepository, times(1)).findById(bobId);
+        verify(userService, times(1)).findById(bobId);
     }
 
     @Test
@@ -195,7 +258,7 @@ class UserControllerTest {
                 .andExpect(redirectedUrl("/user/home"));
 
         // Ne devrait PAS chercher dans la base
-        verify(userRepository, never()).findById(anyLong());
+        verify(userService, never()).findById(anyLong());
     }
 
     @Test
@@ -203,7 +266,7 @@ class UserControllerTest {
     void shouldRedirect_WhenUserNotFound() throws Exception {
         // GIVEN
         Long unknownId = 999L;
-        when(userRepository.findById(unknownId)).thenReturn(Optional.empty());
+        when(userService.findById(unknownId)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         mockMvc.perform(get("/user/" + unknownId)
@@ -211,7 +274,7 @@ class UserControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("/user?notfound"));
 
-        verify(userRepository, times(1)).findById(unknownId);
+        verify(userService, times(1)).findById(unknownId);
     }
 
     @Test
@@ -223,7 +286,7 @@ class UserControllerTest {
                         .with(user(aliceDetails)))
                 .andExpect(status().isBadRequest()); // 400 Bad Request
 
-        verify(userRepository, never()).findById(anyLong());
+        verify(userService, never()).findById(anyLong());
     }
 
     @Test
@@ -232,7 +295,7 @@ class UserControllerTest {
         mockMvc.perform(get("/user/2"))
                 .andExpect(status().isUnauthorized()); // 401 en environnement de test
 
-        verify(userRepository, never()).findById(anyLong());
+        verify(userService, never()).findById(anyLong());
     }
 
     // ========== Tests des IDs et cas limites ==========
@@ -242,7 +305,7 @@ class UserControllerTest {
     void shouldHandleNegativeId() throws Exception {
         // GIVEN
         Long negativeId = -1L;
-        when(userRepository.findById(negativeId)).thenReturn(Optional.empty());
+        when(userService.findById(negativeId)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         mockMvc.perform(get("/user/" + negativeId)
@@ -250,28 +313,28 @@ class UserControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("/user?notfound"));
 
-        verify(userRepository, times(1)).findById(negativeId);
+        verify(userService, times(1)).findById(negativeId);
     }
 
     @Test
     @DisplayName("GET /user/{id} devrait gérer l'ID 0")
     void shouldHandleZeroId() throws Exception {
         // GIVEN
-        when(userRepository.findById(0L)).thenReturn(Optional.empty());
+        when(userService.findById(0L)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         mockMvc.perform(get("/user/0")
                         .with(user(aliceDetails)))
                 .andExpect(status().is3xxRedirection());
 
-        verify(userRepository, times(1)).findById(0L);
+        verify(userService, times(1)).findById(0L);
     }
 
     @Test
     @DisplayName("GET /user devrait gérer une base de données vide")
     void shouldHandleEmptyDatabase() throws Exception {
         // GIVEN - Aucun utilisateur
-        when(userRepository.findAll()).thenReturn(List.of());
+        when(userService.directory(1L, null)).thenReturn(new UserPage(List.of(), null));
 
         // WHEN & THEN
         mockMvc.perform(get("/user")
@@ -279,50 +342,25 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(view().name("users/list"));
 
-        verify(userRepository, times(1)).findAll();
+        verify(userService, times(1)).directory(1L, null);
     }
 
     @Test
-    @DisplayName("GET /user devrait charger plusieurs utilisateurs")
-    void shouldLoadMultipleUsers() throws Exception {
-        // GIVEN - 10 utilisateurs avec IDs
-        User user4 = new User("user4", "pass", "ROLE_USER");
-        User user5 = new User("user5", "pass", "ROLE_USER");
-        User user6 = new User("user6", "pass", "ROLE_USER");
-        User user7 = new User("user7", "pass", "ROLE_USER");
-        User user8 = new User("user8", "pass", "ROLE_USER");
-        User user9 = new User("user9", "pass", "ROLE_USER");
-        User user10 = new User("user10", "pass", "ROLE_USER");
-
-        // Assigner des IDs via reflection
-        try {
-            var idField = User.class.getDeclaredField("id");
-            idField.setAccessible(true);
-            idField.set(user4, 4L);
-            idField.set(user5, 5L);
-            idField.set(user6, 6L);
-            idField.set(user7, 7L);
-            idField.set(user8, 8L);
-            idField.set(user9, 9L);
-            idField.set(user10, 10L);
-        } catch (Exception e) {
-            // Fallback
-        }
-
-        List<User> manyUsers = Arrays.asList(
-                alice, bob, charlie,
-                user4, user5, user6, user7, user8, user9, user10
-        );
-
-        when(userRepository.findAll()).thenReturn(manyUsers);
+    @DisplayName("GET /user devrait proposer la page suivante s'il reste des utilisateurs")
+    void shouldLinkNextPage_WhenMoreUsers() throws Exception {
+        // GIVEN - Une page pleine, suivie d'autres utilisateurs
+        List<UserSummary> users = LongStream.rangeClosed(2, UserService.DIRECTORY_PAGE_SIZE + 1)
+                .mapToObj(id -> new UserSummary(id, "user" + id))
+                .toList();
+        String lastUsername = users.get(users.size() - 1).username();
+        when(userService.directory(1L, null)).thenReturn(new UserPage(users, lastUsername));
 
         // WHEN & THEN
         mockMvc.perform(get("/user")
                         .with(user(aliceDetails)))
                 .andExpect(status().isOk())
-                .andExpect(model().attributeExists("users"));
-
-        verify(userRepository, times(1)).findAll();
+                .andExpect(model().attribute("users", users))
+                .andExpect(content().string(containsString("/user?after=" + lastUsername)));
     }
 
     @Test
@@ -1,7 +1,12 @@
 package com.devops.projet_dialogue.repository;
 
+import com.devops.projet_dialogue.dto.ConversationParticipants;
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.dto.UserSummary;
 import com.devops.projet_dialogue.model.Conversation;
 import com.devops.projet_dialogue.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,11 +24,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 /**
  * Tests d'intégration pour ConversationRepository
  */
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @ActiveProfiles("test")
 @DisplayName("Tests du ConversationRepository")
 class ConversationRepositoryTest {
 
+    private static final int INBOX_LIMIT = 100;
+
     @Autowired
     private ConversationRepository conversationRepository;
 
@@ -173,12 +180,12 @@ class ConversationRepositoryTest {
         entityManager.flush();
 
         // WHEN - Récupérer les conversations d'Alice
-        List<Conversation> aliceConversations = conversationRepository.findAllForUser(alice.getId());
+        List<ConversationView> aliceConversations = conversationRepository.findAllForUser(alice.getId(), INBOX_LIMIT);
 
         // THEN - Alice doit avoir 2 conversations
         assertThat(aliceConversations).hasSize(2);
         assertThat(aliceConversations)
-                .extracting(c -> c.getUser1().getId() + "-" + c.getUser2().getId())
+                .extracting(c -> c.user1().id() + "-" + c.user2().id())
                 .containsExactlyInAnyOrder(
                         alice.getId() + "-" + bob.getId(),
                         alice.getId() + "-" + charlie.getId()
@@ -204,7 +211,7 @@ class ConversationRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Conversation> bobConversations = conversationRepository.findAllForUser(bob.getId());
+        List<ConversationView> bobConversations = conversationRepository.findAllForUser(bob.getId(), INBOX_LIMIT);
 
         // THEN - Bob doit apparaître dans les 2 conversations
         assertThat(bobConversations).hasSize(2);
@@ -235,14 +242,14 @@ class ConversationRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Conversation> aliceConversations = conversationRepository.findAllForUser(alice.getId());
+        List<ConversationView> aliceConversations = conversationRepository.findAllForUser(alice.getId(), INBOX_LIMIT);
 
         // THEN - Doit être trié du plus récent au plus ancien
         assertThat(aliceConversations).hasSize(3);
-        assertThat(aliceConversations.get(0).getCreatedAt())
-                .isAfter(aliceConversations.get(1).getCreatedAt());
-        assertThat(aliceConversations.get(1).getCreatedAt())
-                .isAfter(aliceConversations.get(2).getCreatedAt());
+        assertThat(aliceConversations.get(0).createdAt())
+                .isAfter(aliceConversations.get(1).createdAt());
+        assertThat(aliceConversations.get(1).createdAt())
+                .isAfter(aliceConversations.get(2).createdAt());
     }
 
     @Test
@@ -251,7 +258,7 @@ class ConversationRepositoryTest {
         // GIVEN - Charlie n'a aucune conversation
 
         // WHEN
-        List<Conversation> charlieConversations = conversationRepository.findAllForUser(charlie.getId());
+        List<ConversationView> charlieConversations = conversationRepository.findAllForUser(charlie.getId(), INBOX_LIMIT);
 
         // THEN
         assertThat(charlieConversations).isEmpty();
@@ -290,7 +297,7 @@ class ConversationRepositoryTest {
         // Note: La contrainte unique sur (user1_id, user2_id) devrait empêcher cela
 
         // THEN - On vérifie qu'il n'y a qu'une seule conversation
-        List<Conversation> conversations = conversationRepository.findAllForUser(alice.getId());
+        List<ConversationView> conversations = conversationRepository.findAllForUser(alice.getId(), INBOX_LIMIT);
         assertThat(conversations).hasSize(1);
     }
 
@@ -351,4 +358,253 @@ class ConversationRepositoryTest {
         // THEN
         assertThat(count).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    // ========== Tests nombre de requêtes (N+1) ==========
+
+    @Test
+    @DisplayName("Devrait charger une conversation et ses participants en une seule requête")
+    void shouldLoadConversationWithParticipants_InSingleStatement() {
+        // GIVEN
+        Conversation conversation = new Conversation();
+        conversation.setUser1(alice);
+        conversation.setUser2(bob);
+        conversation.setCreatedAt(LocalDateTime.now());
+        conversation = entityManager.persistAndFlush(conversation);
+        Statistics statistics = startCountingStatements();
+
+        // WHEN
+        Conversation loaded = conversationRepository.findById(conversation.getId()).orElseThrow();
+        loaded.getUser1().getUsername();
+        loaded.getUser2().getUsername();
+
+        // THEN
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait limiter la boîte de réception aux conversations les plus récemment actives")
+    void shouldLimitInbox_ToMostRecentConversations() {
+        // GIVEN - une conversation par branche de la requête, plus une de trop
+        Conversation quiet = persistConversation(alice, bob, LocalDateTime.now().minusDays(1));
+        Conversation asUser2 = persistConversation(charlie, alice, LocalDateTime.now().minusDays(3));
+        Conversation asUser1 = persistConversation(alice, charlie, LocalDateTime.now().minusDays(4));
+        persistConversation(alice, alice, LocalDateTime.now().minusDays(2));
+        conversationRepository.recordMessage(asUser2.getId(), 1L, LocalDateTime.now().minusHours(1), "Salut");
+        conversationRepository.recordMessage(asUser1.getId(), 2L, LocalDateTime.now().minusHours(2), "Bonjour");
+        entityManager.clear();
+
+        // WHEN
+        List<ConversationView> inbox = conversationRepository.findAllForUser(alice.getId(), 3);
+
+        // THEN - conversations actives d'abord, puis la conversation vide la plus récente
+        assertThat(inbox).extracting(ConversationView::id)
+                .containsExactly(asUser2.getId(), asUser1.getId(), quiet.getId());
+        assertThat(inbox.get(0).user1()).isEqualTo(new UserSummary(charlie.getId(), "charlie"));
+        assertThat(inbox.get(0).lastMessagePreview()).isEqualTo("Salut");
+        assertThat(inbox.get(0).messageCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait charger la vue d'une conversation en une seule requête")
+    void shouldLoadConversationView_InSingleStatement() {
+        // GIVEN
+        Conversation conversation = new Conversation();
+        conversation.setUser1(alice);
+        conversation.setUser2(bob);
+        conversation.setCreatedAt(LocalDateTime.now());
+        conversation = entityManager.persistAndFlush(conversation);
+        Statistics statistics = startCountingStatements();
+
+        // WHEN
+        ConversationView view = conversationRepository.findViewById(conversation.getId()).orElseThrow();
+
+        // THEN
+        assertThat(view.id()).isEqualTo(conversation.getId());
+        assertThat(view.user1()).isEqualTo(new UserSummary(alice.getId(), "alice"));
+        assertThat(view.user2()).isEqualTo(new UserSummary(bob.getId(), "bob"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    // ========== Tests findParticipants ==========
+
+    @Test
+    @DisplayName("Devrait lire les ids des participants sans charger les utilisateurs")
+    void shouldFindParticipants_WithoutLoadingUsers() {
+        // GIVEN
+        Conversation conversation = persistConversation(alice, bob, LocalDateTime.now());
+        Statistics statistics = startCountingStatements();
+
+        // WHEN
+        ConversationParticipants participants = conversationRepository.findParticipants(conversation.getId()).orElseThrow();
+
+        // THEN
+        assertThat(participants).isEqualTo(new ConversationParticipants(alice.getId(), bob.getId()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(conversationRepository.findParticipants(-1L)).isEmpty();
+    }
+
+    // ========== Tests findOrCreateId ==========
+
+    @Test
+    @DisplayName("Devrait créer la conversation puis retrouver la même")
+    void shouldCreateThenFindSameConversation() {
+        // WHEN
+        Long created = conversationRepository.findOrCreateId(alice.getId(), bob.getId(), LocalDateTime.now());
+        Long found = conversationRepository.findOrCreateId(alice.getId(), bob.getId(), LocalDateTime.now());
+
+        // THEN
+        assertThat(created).isNotNull();
+        assertThat(found).isEqualTo(created);
+        assertThat(conversationRepository.findByUsers(bob.getId(), alice.getId()))
+                .get().extracting(Conversation::getId).isEqualTo(created);
+        assertThat(conversationRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver une conversation créée par JPA")
+    void shouldFindExistingConversationId() {
+        // GIVEN
+        Conversation existing = persistConversation(alice, charlie, LocalDateTime.now());
+
+        // WHEN
+        Long id = conversationRepository.findOrCreateId(alice.getId(), charlie.getId(), LocalDateTime.now());
+
+        // THEN
+        assertThat(id).isEqualTo(existing.getId());
+    }
+
+    @Test
+    @DisplayName("Devrait remettre les participants dans l'ordre canonique")
+    void shouldNormalizeParticipantOrder() {
+        // GIVEN - Conversation enregistrée dans l'ordre (bob, alice) avant la normalisation
+        Conversation reversed = persistConversation(bob, alice, LocalDateTime.now());
+        persistConversation(alice, charlie, LocalDateTime.now());
+
+        // WHEN
+        int updated = conversationRepository.normalizeParticipantOrder();
+        entityManager.clear();
+
+        // THEN
+        assertThat(updated).isEqualTo(1);
+        assertThat(conversationRepository.findByParticipants(alice.getId(), bob.getId()))
+                .get().extracting(Conversation::getId).isEqualTo(reversed.getId());
+    }
+
+    // ========== Tests du résumé d'activité ==========
+
+    @Test
+    @DisplayName("Devrait mettre à jour le résumé d'activité à chaque message")
+    void shouldRecordMessageActivity() {
+        // GIVEN
+        Conversation conversation = persistConversation(alice, bob, LocalDateTime.now().minusDays(1));
+        LocalDateTime sentAt = LocalDateTime.now().withNano(0);
+
+        // WHEN
+        conversationRepository.recordMessage(conversation.getId(), 10L, sentAt.minusMinutes(1), "Premier");
+        conversationRepository.recordMessage(conversation.getId(), 11L, sentAt, "Second");
+        entityManager.clear();
+
+        // THEN
+        ConversationView view = conversationRepository.findViewById(conversation.getId()).orElseThrow();
+        assertThat(view.messageCount()).isEqualTo(2);
+        assertThat(view.lastMessagePreview()).isEqualTo("Second");
+        assertThat(view.lastMessageAt()).isEqualTo(sentAt);
+    }
+
+    @Test
+    @DisplayName("Devrait compter un lot de messages en une seule mise à jour")
+    void shouldRecordBulkMessages() {
+        // GIVEN
+        Conversation conversation = persistConversation(alice, bob, LocalDateTime.now().minusDays(1));
+        LocalDateTime sentAt = LocalDateTime.now().withNano(0);
+        conversationRepository.recordMessage(conversation.getId(), 10L, sentAt.minusMinutes(1), "Premier");
+
+        // WHEN
+        conversationRepository.recordMessages(conversation.getId(), 3, 13L, sentAt, "Dernier du lot");
+        entityManager.clear();
+
+        // THEN
+        ConversationView view = conversationRepository.findViewById(conversation.getId()).orElseThrow();
+        assertThat(view.messageCount()).isEqualTo(4);
+        assertThat(view.lastMessagePreview()).isEqualTo("Dernier du lot");
+        assertThat(view.lastMessageAt()).isEqualTo(sentAt);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas faire régresser le dernier message quand un message plus ancien est validé après")
+    void shouldKeepNewestMessage_WhenOlderMessageIsRecordedLast() {
+        // GIVEN
+        Conversation conversation = persistConversation(alice, bob, LocalDateTime.now().minusDays(1));
+        LocalDateTime sentAt = LocalDateTime.now().withNano(0);
+        conversationRepository.recordMessage(conversation.getId(), 11L, sentAt, "Récent");
+
+        // WHEN
+        conversationRepository.recordMessage(conversation.getId(), 10L, sentAt.minusSeconds(1), "Ancien");
+        entityManager.clear();
+
+        // THEN
+        ConversationView view = conversationRepository.findViewById(conversation.getId()).orElseThrow();
+        assertThat(view.messageCount()).isEqualTo(2);
+        assertThat(view.lastMessagePreview()).isEqualTo("Récent");
+        assertThat(view.lastMessageAt()).isEqualTo(sentAt);
+    }
+
+    @Test
+    @DisplayName("Devrait trier la boîte de réception par activité récente, puis par date de création")
+    void shouldSortInbox_ByLastActivity() {
+        // GIVEN
+        Conversation quiet = persistConversation(alice, bob, LocalDateTime.now());
+        Conversation active = persistConversation(alice, charlie, LocalDateTime.now().minusDays(5));
+        conversationRepository.recordMessage(active.getId(), 1L, LocalDateTime.now().minusHours(1), "Salut");
+        entityManager.clear();
+
+        // WHEN
+        List<ConversationView> inbox = conversationRepository.findAllForUser(alice.getId(), INBOX_LIMIT);
+
+        // THEN - une conversation sans message passe après les conversations actives
+        assertThat(inbox).extracting(ConversationView::id)
+                .containsExactly(active.getId(), quiet.getId());
+    }
+
+    @Test
+    @DisplayName("Devrait réunir les conversations des deux côtés sans doublon")
+    void shouldMergeInbox_FromBothParticipantColumns() {
+        // GIVEN - alice en user2, en user1, et avec elle-même
+        Conversation asUser2 = persistConversation(bob, alice, LocalDateTime.now().minusDays(2));
+        Conversation asUser1 = persistConversation(alice, charlie, LocalDateTime.now().minusDays(1));
+        Conversation withSelf = persistConversation(alice, alice, LocalDateTime.now());
+        conversationRepository.recordMessage(asUser2.getId(), 1L, LocalDateTime.now().minusHours(1), "Salut");
+        entityManager.clear();
+
+        // WHEN
+        List<ConversationView> inbox = conversationRepository.findAllForUser(alice.getId(), INBOX_LIMIT);
+
+        // THEN
+        assertThat(inbox).extracting(ConversationView::id)
+                .containsExactly(asUser2.getId(), withSelf.getId(), asUser1.getId());
+    }
+
+    private Conversation persistConversation(User user1, User user2, LocalDateTime createdAt) {
+        Conversation conversation = new Conversation();
+        conversation.setUser1(user1);
+        conversation.setUser2(user2);
+        conversation.setCreatedAt(createdAt);
+        return entityManager.persistAndFlush(conversation);
+    }
+
+    /**
+     * Vide le contexte de persistance puis remet à zéro les statistiques Hibernate,
+     * pour ne compter que les requêtes émises par l'appel testé.
+     */
+    private Statistics startCountingStatements() {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
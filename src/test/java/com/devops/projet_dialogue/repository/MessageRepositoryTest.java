@@ -1,18 +1,25 @@
 package com.devops.projet_dialogue.repository;
 
+import com.devops.projet_dialogue.dto.GalleryPhotoView;
+import com.devops.projet_dialogue.dto.MessageView;
 import com.devops.projet_dialogue.model.Conversation;
 import com.devops.projet_dialogue.model.Message;
 import com.devops.projet_dialogue.model.Photo;
 import com.devops.projet_dialogue.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -20,7 +27,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 /**
  * Tests d'intégration pour MessageRepository
  */
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @ActiveProfiles("test")
 @DisplayName("Tests du MessageRepository")
 class MessageRepositoryTest {
@@ -69,7 +76,7 @@ class MessageRepositoryTest {
         photo2 = entityManager.persistAndFlush(photo2);
     }
 
-    // ========== Tests findByConversationIdOrderByCreatedAtAsc ==========
+    // ========== Tests findInConversationFrom ==========
 
     @Test
     @DisplayName("Devrait retourner les messages triés par date croissante")
@@ -99,21 +106,19 @@ class MessageRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(
-                conversation.getId()
-        );
+        List<MessageView> messages = findHistory(conversation);
 
         // THEN
         assertThat(messages).hasSize(3);
-        assertThat(messages.get(0).getText()).isEqualTo("Premier message");
-        assertThat(messages.get(1).getText()).isEqualTo("Deuxième message");
-        assertThat(messages.get(2).getText()).isEqualTo("Troisième message");
+        assertThat(messages.get(0).text()).isEqualTo("Premier message");
+        assertThat(messages.get(1).text()).isEqualTo("Deuxième message");
+        assertThat(messages.get(2).text()).isEqualTo("Troisième message");
 
         // Vérifier l'ordre chronologique
-        assertThat(messages.get(0).getCreatedAt())
-                .isBefore(messages.get(1).getCreatedAt());
-        assertThat(messages.get(1).getCreatedAt())
-                .isBefore(messages.get(2).getCreatedAt());
+        assertThat(messages.get(0).createdAt())
+                .isBefore(messages.get(1).createdAt());
+        assertThat(messages.get(1).createdAt())
+                .isBefore(messages.get(2).createdAt());
     }
 
     @Test
@@ -122,9 +127,7 @@ class MessageRepositoryTest {
         // GIVEN - Conversation sans messages
 
         // WHEN
-        List<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(
-                conversation.getId()
-        );
+        List<MessageView> messages = findHistory(conversation);
 
         // THEN
         assertThat(messages).isEmpty();
@@ -163,19 +166,15 @@ class MessageRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Message> conv1Messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(
-                conversation.getId()
-        );
-        List<Message> conv2Messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(
-                conversation2.getId()
-        );
+        List<MessageView> conv1Messages = findHistory(conversation);
+        List<MessageView> conv2Messages = findHistory(conversation2);
 
         // THEN
         assertThat(conv1Messages).hasSize(1);
-        assertThat(conv1Messages.getFirst().getText()).isEqualTo("Message conversation 1");
+        assertThat(conv1Messages.getFirst().text()).isEqualTo("Message conversation 1");
 
         assertThat(conv2Messages).hasSize(1);
-        assertThat(conv2Messages.getFirst().getText()).isEqualTo("Message conversation 2");
+        assertThat(conv2Messages.getFirst().text()).isEqualTo("Message conversation 2");
     }
 
     @Test
@@ -201,14 +200,137 @@ class MessageRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(
-                conversation.getId()
-        );
+        List<MessageView> messages = findHistory(conversation);
 
         // THEN
         assertThat(messages).hasSize(2);
-        assertThat(messages.get(0).getPhoto()).isNotNull();
-        assertThat(messages.get(1).getPhoto()).isNull();
+        assertThat(messages.get(0).photoUrl()).isNotNull();
+        assertThat(messages.get(1).photoUrl()).isNull();
+    }
+
+    // ========== Tests pagination par curseur ==========
+
+    @Test
+    @DisplayName("Devrait retourner les derniers messages du plus récent au plus ancien")
+    void shouldReturnLatestMessages_NewestFirst() {
+        // GIVEN - 5 messages
+        LocalDateTime base = LocalDateTime.now().minusHours(5);
+        for (int i = 0; i < 5; i++) {
+            Message msg = new Message();
+            msg.setConversation(conversation);
+            msg.setSender(i % 2 == 0 ? alice : bob);
+            msg.setText("Message " + i);
+            msg.setCreatedAt(base.plusHours(i));
+            entityManager.persist(msg);
+        }
+        entityManager.flush();
+
+        // WHEN
+        List<MessageView> latest = messageRepository.findLatestInConversation(conversation.getId(), Limit.of(3));
+
+        // THEN
+        assertThat(latest).extracting(MessageView::text)
+                .containsExactly("Message 4", "Message 3", "Message 2");
+    }
+
+    @Test
+    @DisplayName("Devrait retourner les messages antérieurs au curseur, y compris à date égale")
+    void shouldReturnMessagesBeforeCursor() {
+        // GIVEN - 2 messages à la même date + 1 plus ancien
+        LocalDateTime sameTime = LocalDateTime.now().minusHours(1).withNano(0);
+
+        Message oldest = new Message();
+        oldest.setConversation(conversation);
+        oldest.setSender(alice);
+        oldest.setText("Plus ancien");
+        oldest.setCreatedAt(sameTime.minusMinutes(10));
+
+        Message first = new Message();
+        first.setConversation(conversation);
+        first.setSender(bob);
+        first.setText("Même date 1");
+        first.setCreatedAt(sameTime);
+
+        Message second = new Message();
+        second.setConversation(conversation);
+        second.setSender(alice);
+        second.setText("Même date 2");
+        second.setCreatedAt(sameTime);
+
+        entityManager.persist(oldest);
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.flush();
+
+        // WHEN - curseur positionné sur le second message
+        List<MessageView> before = messageRepository.findInConversationBefore(
+                conversation.getId(), second.getCreatedAt(), second.getId(), Limit.of(10));
+
+        // THEN - départage par id à date égale, sans doublon ni trou
+        assertThat(before).extracting(MessageView::text)
+                .containsExactly("Même date 1", "Plus ancien");
+    }
+
+    @Test
+    @DisplayName("Devrait retourner les messages postérieurs à un id, du plus ancien au plus récent")
+    void shouldReturnMessagesAfterId() {
+        // GIVEN - 4 messages
+        List<Message> persisted = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Message msg = new Message();
+            msg.setConversation(conversation);
+            msg.setSender(alice);
+            msg.setText("Message " + i);
+            msg.setCreatedAt(LocalDateTime.now());
+            persisted.add(entityManager.persist(msg));
+        }
+        entityManager.flush();
+
+        // WHEN
+        List<MessageView> after = messageRepository.findInConversationAfter(
+                conversation.getId(), persisted.get(1).getId(), Limit.of(10));
+
+        // THEN
+        assertThat(after).extracting(MessageView::text)
+                .containsExactly("Message 2", "Message 3");
+    }
+
+    @Test
+    @DisplayName("Devrait relire derrière le curseur les messages validés dans le désordre")
+    void shouldResumeWithOverlap_WhenIdsAreOutOfOrder() {
+        // GIVEN - le curseur, puis un message d'id supérieur, puis un d'id inférieur créé juste avant
+        LocalDateTime now = LocalDateTime.now();
+        Message ancient = persistMessage("Ancien", now.minusMinutes(5));
+        Message late = persistMessage("Tardif", now.minusSeconds(2));
+        Message cursor = persistMessage("Curseur", now.minusSeconds(1));
+        Message newer = persistMessage("Nouveau", now);
+        entityManager.flush();
+        // L'id le plus bas est attribué au message validé le plus tard
+        assertThat(late.getId()).isLessThan(cursor.getId());
+
+        // WHEN
+        List<MessageView> resumed = messageRepository.findInConversationResuming(
+                conversation.getId(), cursor.getId(), Duration.ofSeconds(10), Limit.of(10));
+
+        // THEN - le message tardif est renvoyé même si son id est inférieur ; l'ancien non
+        assertThat(resumed).extracting(MessageView::id).containsExactly(late.getId(), newer.getId());
+        assertThat(resumed).extracting(MessageView::id).doesNotContain(ancient.getId(), cursor.getId());
+    }
+
+    @Test
+    @DisplayName("Devrait reprendre par id quand le message du curseur n'existe pas")
+    void shouldResumeById_WhenCursorIsUnknown() {
+        // GIVEN
+        Message first = persistMessage("Premier", LocalDateTime.now().minusMinutes(1));
+        Message second = persistMessage("Second", LocalDateTime.now());
+        entityManager.flush();
+
+        // WHEN
+        List<MessageView> resumed = messageRepository.findInConversationResuming(
+                conversation.getId(), first.getId() - 1_000, Duration.ofSeconds(10), Limit.of(10));
+
+        // THEN
+        assertThat(resumed).extracting(MessageView::id).containsExactly(first.getId(), second.getId());
     }
 
     // ========== Tests findPhotosInConversation ==========
@@ -244,12 +366,70 @@ class MessageRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Photo> photos = messageRepository.findPhotosInConversation(conversation.getId());
+        List<GalleryPhotoView> photos = findPhotos(conversation);
 
         // THEN
         assertThat(photos).hasSize(2);
-        assertThat(photos).extracting(Photo::getFilename)
-                .containsExactly("uuid1.jpg", "uuid2.jpg"); // Ordre chronologique
+        assertThat(photos).extracting(GalleryPhotoView::url)
+                .containsExactly("/uploads/uuid1.jpg", "/uploads/uuid2.jpg"); // Ordre chronologique
+        assertThat(photos).extracting(GalleryPhotoView::authorUsername)
+                .containsExactly("alice", "bob");
+    }
+
+    @Test
+    @DisplayName("Devrait limiter les photos à celles postérieures à la borne")
+    void shouldBoundPhotos_BySince() {
+        // GIVEN - une photo ancienne, une récente
+        Message old = new Message();
+        old.setConversation(conversation);
+        old.setSender(alice);
+        old.setPhoto(photo1);
+        old.setCreatedAt(LocalDateTime.now().minusDays(40));
+
+        Message recent = new Message();
+        recent.setConversation(conversation);
+        recent.setSender(bob);
+        recent.setPhoto(photo2);
+        recent.setCreatedAt(LocalDateTime.now().minusHours(1));
+
+        entityManager.persist(old);
+        entityManager.persist(recent);
+        entityManager.flush();
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+
+        // WHEN
+        List<GalleryPhotoView> photos = messageRepository.findPhotosInConversation(conversation.getId(), since);
+
+        // THEN
+        assertThat(photos).extracting(GalleryPhotoView::url).containsExactly("/uploads/uuid2.jpg");
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver la conversation d'une photo et lire sa miniature")
+    void shouldFindConversationOfPhoto_WithThumbnail() {
+        // GIVEN
+        Photo photo = new Photo("uuid1.jpg", "photo1.jpg", "/uploads/uuid1.jpg", alice);
+        photo.setThumbnailUrl("/uploads/thumbnails/320/uuid1.jpg");
+        photo.setLargeThumbnailUrl("/uploads/thumbnails/640/uuid1.jpg");
+        entityManager.persist(photo);
+
+        Message message = new Message();
+        message.setConversation(conversation);
+        message.setSender(alice);
+        message.setPhoto(photo);
+        message.setCreatedAt(LocalDateTime.now());
+        entityManager.persist(message);
+        entityManager.flush();
+
+        // WHEN
+        List<Long> conversationIds = messageRepository.findConversationIdsByPhotoId(photo.getId());
+        List<MessageView> messages = messageRepository.findLatestInConversation(conversation.getId(), Limit.of(10));
+        List<GalleryPhotoView> photos = findPhotos(conversation);
+
+        // THEN
+        assertThat(conversationIds).containsExactly(conversation.getId());
+        assertThat(messages.get(0).photoThumbnailUrl()).isEqualTo("/uploads/thumbnails/320/uuid1.jpg");
+        assertThat(photos.get(0).thumbnailUrl()).isEqualTo("/uploads/thumbnails/640/uuid1.jpg");
     }
 
     @Test
@@ -265,7 +445,7 @@ class MessageRepositoryTest {
         entityManager.persistAndFlush(msg);
 
         // WHEN
-        List<Photo> photos = messageRepository.findPhotosInConversation(conversation.getId());
+        List<GalleryPhotoView> photos = findPhotos(conversation);
 
         // THEN
         assertThat(photos).isEmpty();
@@ -312,13 +492,13 @@ class MessageRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Photo> photos = messageRepository.findPhotosInConversation(conversation.getId());
+        List<GalleryPhotoView> photos = findPhotos(conversation);
 
         // THEN - Ordre: old -> medium -> recent
         assertThat(photos).hasSize(3);
-        assertThat(photos.get(0).getFilename()).isEqualTo("old.jpg");
-        assertThat(photos.get(1).getFilename()).isEqualTo("medium.jpg");
-        assertThat(photos.get(2).getFilename()).isEqualTo("recent.jpg");
+        assertThat(photos.get(0).url()).isEqualTo("/uploads/old.jpg");
+        assertThat(photos.get(1).url()).isEqualTo("/uploads/medium.jpg");
+        assertThat(photos.get(2).url()).isEqualTo("/uploads/recent.jpg");
     }
 
     @Test
@@ -354,15 +534,114 @@ class MessageRepositoryTest {
         entityManager.flush();
 
         // WHEN
-        List<Photo> photosConv1 = messageRepository.findPhotosInConversation(conversation.getId());
-        List<Photo> photosConv2 = messageRepository.findPhotosInConversation(conversation2.getId());
+        List<GalleryPhotoView> photosConv1 = findPhotos(conversation);
+        List<GalleryPhotoView> photosConv2 = findPhotos(conversation2);
 
         // THEN
         assertThat(photosConv1).hasSize(1);
-        assertThat(photosConv1.getFirst()).isEqualTo(photo1);
+        assertThat(photosConv1.getFirst().id()).isEqualTo(photo1.getId());
 
         assertThat(photosConv2).hasSize(1);
-        assertThat(photosConv2.getFirst()).isEqualTo(photo2);
+        assertThat(photosConv2.getFirst().id()).isEqualTo(photo2.getId());
+    }
+
+    // ========== Tests nombre de requêtes (N+1) ==========
+
+    @Test
+    @DisplayName("Devrait charger une page de messages, expéditeurs et photos en une seule requête")
+    void shouldLoadMessagePage_InSingleStatement() {
+        // GIVEN - messages de deux expéditeurs, avec et sans photo
+        persistMessagesWithPhotos();
+        Statistics statistics = startCountingStatements();
+
+        // WHEN
+        List<MessageView> messages = messageRepository.findLatestInConversation(conversation.getId(), Limit.of(50));
+
+        // THEN - projection : aucune entité chargée dans le contexte de persistance
+        assertThat(messages).hasSize(3);
+        assertThat(messages).filteredOn(m -> m.photoUrl() != null).hasSize(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait charger la galerie et les auteurs des photos en une seule requête")
+    void shouldLoadGallery_InSingleStatement() {
+        // GIVEN
+        persistMessagesWithPhotos();
+        Statistics statistics = startCountingStatements();
+
+        // WHEN
+        List<GalleryPhotoView> photos = findPhotos(conversation);
+
+        // THEN
+        assertThat(photos).hasSize(2);
+        assertThat(photos).allSatisfy(p -> assertThat(p.authorUsername()).isNotNull());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * Messages de la conversation, borne assez ancienne pour inclure tous les messages des tests.
+     */
+    private List<MessageView> findHistory(Conversation conv) {
+        return messageRepository.findInConversationFrom(conv.getId(), LocalDateTime.now().minusYears(1), 0L,
+                Limit.of(50));
+    }
+
+    /**
+     * Photos de la conversation, borne assez ancienne pour inclure tous les messages des tests.
+     */
+    private List<GalleryPhotoView> findPhotos(Conversation conv) {
+        return messageRepository.findPhotosInConversation(conv.getId(), LocalDateTime.now().minusYears(1));
+    }
+
+    private Message persistMessage(String text, LocalDateTime createdAt) {
+        Message msg = new Message();
+        msg.setConversation(conversation);
+        msg.setSender(alice);
+        msg.setText(text);
+        msg.setCreatedAt(createdAt);
+        return entityManager.persist(msg);
+    }
+
+    private void persistMessagesWithPhotos() {
+        Message msg1 = new Message();
+        msg1.setConversation(conversation);
+        msg1.setSender(alice);
+        msg1.setPhoto(photo1);
+        msg1.setCreatedAt(LocalDateTime.now().minusHours(3));
+
+        Message msg2 = new Message();
+        msg2.setConversation(conversation);
+        msg2.setSender(bob);
+        msg2.setText("Texte seulement");
+        msg2.setCreatedAt(LocalDateTime.now().minusHours(2));
+
+        Message msg3 = new Message();
+        msg3.setConversation(conversation);
+        msg3.setSender(bob);
+        msg3.setPhoto(photo2);
+        msg3.setCreatedAt(LocalDateTime.now().minusHours(1));
+
+        entityManager.persist(msg1);
+        entityManager.persist(msg2);
+        entityManager.persist(msg3);
+        entityManager.flush();
+    }
+
+    /**
+     * Vide le contexte de persistance puis remet à zéro les statistiques Hibernate,
+     * pour ne compter que les requêtes émises par l'appel testé.
+     */
+    private Statistics startCountingStatements() {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
     }
 
     // ========== Tests save ==========
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
@@ -18,7 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Tests d'intégration pour PhotoRepository
- * Ce repository hérite seulement de JpaRepository (pas de requêtes custom)
+ * Ce repository hérite de JpaRepository, plus l'enregistrement des miniatures
  */
 @DataJpaTest
 @ActiveProfiles("test")
@@ -50,6 +51,91 @@ class PhotoRepositoryTest {
         bob = entityManager.persistAndFlush(bob);
     }
 
+    // ========== Tests recordThumbnails ==========
+
+    @Test
+    @DisplayName("Devrait enregistrer les miniatures d'une photo")
+    void shouldRecordThumbnails() {
+        // GIVEN
+        Photo photo = entityManager.persistAndFlush(
+                new Photo("uuid_photo1.jpg", "photo1.jpg", "/uploads/uuid_photo1.jpg", alice));
+        entityManager.clear();
+
+        // WHEN
+        int updated = photoRepository.recordThumbnails(photo.getId(),
+                "/uploads/thumbnails/320/uuid_photo1.jpg", "/uploads/thumbnails/640/uuid_photo1.jpg");
+
+        // THEN
+        Photo reloaded = entityManager.find(Photo.class, photo.getId());
+        assertThat(updated).isEqualTo(1);
+        assertThat(reloaded.getThumbnailUrl()).isEqualTo("/uploads/thumbnails/320/uuid_photo1.jpg");
+        assertThat(reloaded.getLargeThumbnailUrl()).isEqualTo("/uploads/thumbnails/640/uuid_photo1.jpg");
+    }
+
+    // ========== Tests répartition en sous-dossiers ==========
+
+    @Test
+    @DisplayName("Devrait lister uniquement les photos stockées à plat, par lots")
+    void shouldFindFlatPhotosInBatches() {
+        // GIVEN
+        Photo flat1 = entityManager.persist(new Photo("uuid_1.jpg", "1.jpg", "/uploads/uuid_1.jpg", alice));
+        entityManager.persist(new Photo("ab/cd/abcd.jpg", "2.jpg", "/uploads/ab/cd/abcd.jpg", alice));
+        Photo flat2 = entityManager.persist(new Photo("uuid_3.jpg", "3.jpg", "/uploads/uuid_3.jpg", bob));
+        entityManager.flush();
+
+        // WHEN
+        List<Photo> first = photoRepository.findFlatAfter(0L, Limit.of(1));
+        List<Photo> next = photoRepository.findFlatAfter(flat1.getId(), Limit.of(1));
+        List<Photo> last = photoRepository.findFlatAfter(flat2.getId(), Limit.of(1));
+
+        // THEN
+        assertThat(first).extracting(Photo::getId).containsExactly(flat1.getId());
+        assertThat(next).extracting(Photo::getId).containsExactly(flat2.getId());
+        assertThat(last).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer les nouveaux chemins d'une photo déplacée")
+    void shouldRelocatePhoto() {
+        // GIVEN
+        Photo photo = entityManager.persistAndFlush(
+                new Photo("uuid_photo1.jpg", "photo1.jpg", "/uploads/uuid_photo1.jpg", alice));
+        entityManager.clear();
+
+        // WHEN
+        int updated = photoRepository.relocate(photo.getId(), "ab/cd/uuid_photo1.jpg",
+                "/uploads/ab/cd/uuid_photo1.jpg", "/uploads/thumbnails/320/ab/cd/uuid_photo1.jpg", null);
+
+        // THEN
+        Photo reloaded = entityManager.find(Photo.class, photo.getId());
+        assertThat(updated).isEqualTo(1);
+        assertThat(reloaded.getFilename()).isEqualTo("ab/cd/uuid_photo1.jpg");
+        assertThat(reloaded.getUrl()).isEqualTo("/uploads/ab/cd/uuid_photo1.jpg");
+        assertThat(reloaded.getThumbnailUrl()).isEqualTo("/uploads/thumbnails/320/ab/cd/uuid_photo1.jpg");
+        assertThat(reloaded.getLargeThumbnailUrl()).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait compter les photos partageant un même contenu")
+    void shouldCountPhotosSharingContent() {
+        // GIVEN - Deux envois du même contenu, dont un seul a ses miniatures
+        Photo first = new Photo("abc.jpg", "a.jpg", "/uploads/abc.jpg", alice);
+        first.setContentHash("abc");
+        Photo second = new Photo("abc.jpg", "b.jpg", "/uploads/abc.jpg", bob);
+        second.setContentHash("abc");
+        second.setThumbnailUrl("/uploads/thumbnails/320/abc.jpg");
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.flush();
+
+        // WHEN & THEN
+        assertThat(photoRepository.countByContentHash("abc")).isEqualTo(2);
+        assertThat(photoRepository.countByContentHash("other")).isZero();
+        assertThat(photoRepository.findFirstByContentHashAndThumbnailUrlIsNotNull("abc"))
+                .map(Photo::getOriginalFilename)
+                .contains("b.jpg");
+    }
+
     // ========== Tests save ==========
 
     @Test
@@ -1,5 +1,6 @@
 package com.devops.projet_dialogue.repository;
 
+import com.devops.projet_dialogue.dto.UserSummary;
 import com.devops.projet_dialogue.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -7,9 +8,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -259,6 +262,97 @@ class UserRepositoryTest {
         assertThat(allUsers).isEmpty();
     }
 
+    // ========== Tests findDirectory (annuaire paginé) ==========
+
+    @Test
+    @DisplayName("Devrait paginer l'annuaire par username en excluant l'appelant")
+    void shouldPageDirectory_ExcludingCaller() {
+        // GIVEN
+        User charlie = new User("charlie", "$2a$10$hashedPassword3", "ROLE_USER");
+        User dave = new User("dave", "$2a$10$hashedPassword4", "ROLE_USER");
+        entityManager.persist(dave);
+        entityManager.persist(bob);
+        entityManager.persist(alice);
+        entityManager.persist(charlie);
+        entityManager.flush();
+
+        // WHEN - Bob parcourt l'annuaire deux utilisateurs à la fois
+        List<UserSummary> first = userRepository.findDirectory(bob.getId(), Limit.of(2));
+        List<UserSummary> next = userRepository.findDirectoryAfter(bob.getId(), "charlie", Limit.of(2));
+
+        // THEN
+        assertThat(first).containsExactly(UserSummary.of(alice), UserSummary.of(charlie));
+        assertThat(next).containsExactly(UserSummary.of(dave));
+    }
+
+    @Test
+    @DisplayName("Devrait retourner une page vide après le dernier utilisateur")
+    void shouldReturnEmptyPage_AfterLastUser() {
+        // GIVEN
+        entityManager.persist(alice);
+        entityManager.persist(bob);
+        entityManager.flush();
+
+        // WHEN
+        List<UserSummary> page = userRepository.findDirectoryAfter(alice.getId(), "bob", Limit.of(2));
+
+        // THEN
+        assertThat(page).isEmpty();
+    }
+
+    // ========== Tests searchByUsername / findAllSummaries ==========
+
+    @Test
+    @DisplayName("Devrait chercher les usernames par motif sans tenir compte de la casse")
+    void shouldSearchUsernames_IgnoringCase() {
+        // GIVEN
+        User alicia = new User("Alicia", "$2a$10$hashedPassword3", "ROLE_USER");
+        User malik = new User("malik", "$2a$10$hashedPassword4", "ROLE_USER");
+        entityManager.persist(alice);
+        entityManager.persist(alicia);
+        entityManager.persist(malik);
+        entityManager.persist(bob);
+        entityManager.flush();
+
+        // WHEN
+        List<UserSummary> prefix = userRepository.searchByUsername(bob.getId(), "ali%", Limit.of(10));
+        List<UserSummary> substring = userRepository.searchByUsername(alice.getId(), "%li%", Limit.of(10));
+
+        // THEN
+        assertThat(prefix).extracting(UserSummary::username).containsExactlyInAnyOrder("alice", "Alicia");
+        assertThat(substring).extracting(UserSummary::username).containsExactlyInAnyOrder("Alicia", "malik");
+    }
+
+    @Test
+    @DisplayName("Devrait traiter les jokers LIKE échappés comme des caractères")
+    void shouldMatchEscapedWildcardsLiterally() {
+        // GIVEN
+        User underscore = new User("a_b", "$2a$10$hashedPassword3", "ROLE_USER");
+        User other = new User("axb", "$2a$10$hashedPassword4", "ROLE_USER");
+        entityManager.persist(underscore);
+        entityManager.persist(other);
+        entityManager.flush();
+
+        // WHEN
+        List<UserSummary> result = userRepository.searchByUsername(-1L, "a\\_%", Limit.of(10));
+
+        // THEN
+        assertThat(result).extracting(UserSummary::username).containsExactly("a_b");
+    }
+
+    @Test
+    @DisplayName("Devrait lister tous les utilisateurs sous forme de résumé")
+    void shouldFindAllSummaries() {
+        // GIVEN
+        entityManager.persist(alice);
+        entityManager.persist(bob);
+        entityManager.flush();
+
+        // WHEN & THEN
+        assertThat(userRepository.findAllSummaries())
+                .containsExactlyInAnyOrder(UserSummary.of(alice), UserSummary.of(bob));
+    }
+
     // ========== Tests count ==========
 
     @Test
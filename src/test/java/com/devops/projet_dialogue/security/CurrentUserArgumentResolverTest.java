@@ -0,0 +1,195 @@
+package com.devops.projet_dialogue.security;
+
+import com.devops.projet_dialogue.event.UserChangedEvent;
+import com.devops.projet_dialogue.exception.UserNotFoundException;
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour CurrentUserArgumentResolver
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du CurrentUserArgumentResolver")
+class CurrentUserArgumentResolverTest {
+
+    @Mock
+    private ObjectProvider<UserService> userServiceProvider;
+
+    @Mock
+    private UserService userService;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private CurrentUserArgumentResolver resolver;
+    private User alice;
+    private NativeWebRequest request;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new CurrentUserArgumentResolver(userServiceProvider, 2, Duration.ofMinutes(30), clock::get);
+
+        alice = new User("alice", "password", "ROLE_USER");
+        alice.setId(1L);
+        alice.setCreatedAt(LocalDateTime.now());
+
+        request = new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // Méthodes dont les paramètres servent de cibles aux tests
+    @SuppressWarnings("unused")
+    void handler(@CurrentUser UserSnapshot required, @CurrentUser(required = false) UserSnapshot optional, UserSnapshot plain) {
+    }
+
+    private static MethodParameter parameter(int index) throws NoSuchMethodException {
+        return new MethodParameter(CurrentUserArgumentResolverTest.class.getDeclaredMethod(
+                "handler", UserSnapshot.class, UserSnapshot.class, UserSnapshot.class), index);
+    }
+
+    private static void authenticate(Object principal, String name) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()) {
+                    @Override
+                    public String getName() {
+                        return name;
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("Ne devrait résoudre que les paramètres annotés @CurrentUser")
+    void shouldSupportAnnotatedParametersOnly() throws Exception {
+        assertThat(resolver.supportsParameter(parameter(0))).isTrue();
+        assertThat(resolver.supportsParameter(parameter(1))).isTrue();
+        assertThat(resolver.supportsParameter(parameter(2))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait lire l'utilisateur dans le principal, sans requête")
+    void shouldResolveFromCustomUserDetails() throws Exception {
+        // GIVEN
+        authenticate(new CustomUserDetails(alice), "alice");
+
+        // WHEN
+        Object result = resolver.resolveArgument(parameter(0), null, request, null);
+
+        // THEN
+        assertThat(result).isEqualTo(new UserSnapshot(1L, "alice", "ROLE_USER"));
+        verifyNoInteractions(userServiceProvider);
+    }
+
+    @Test
+    @DisplayName("Devrait servir la copie à jour après modification de l'utilisateur")
+    void shouldUseRefreshedSnapshot_AfterUserChanged() throws Exception {
+        // GIVEN - Session ouverte avant le changement de rôle
+        authenticate(new CustomUserDetails(alice), "alice");
+        UserSnapshot updated = new UserSnapshot(1L, "alice", "ROLE_ADMIN");
+
+        // WHEN
+        resolver.onUserChanged(new UserChangedEvent(updated));
+        Object result = resolver.resolveArgument(parameter(0), null, request, null);
+
+        // THEN
+        assertThat(result).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("Devrait retirer les copies à jour que plus aucune session ne lit")
+    void shouldDropRefreshedSnapshots_NotReadWithinSessionTimeout() throws Exception {
+        // GIVEN - alice modifiée et lue régulièrement, bob modifié puis jamais lu
+        authenticate(new CustomUserDetails(alice), "alice");
+        UserSnapshot updated = new UserSnapshot(1L, "alice", "ROLE_ADMIN");
+        resolver.onUserChanged(new UserChangedEvent(updated));
+        resolver.onUserChanged(new UserChangedEvent(new UserSnapshot(2L, "bob", "ROLE_USER")));
+
+        // WHEN
+        clock.addAndGet(Duration.ofMinutes(20).toNanos());
+        resolver.resolveArgument(parameter(0), null, new ServletWebRequest(new MockHttpServletRequest()), null);
+        clock.addAndGet(Duration.ofMinutes(20).toNanos());
+        resolver.onUserChanged(new UserChangedEvent(new UserSnapshot(3L, "charlie", "ROLE_USER")));
+
+        // THEN - bob a expiré, alice est toujours servie à jour
+        assertThat(resolver.refreshedCount()).isEqualTo(2);
+        assertThat(resolver.resolveArgument(parameter(0), null, request, null)).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("Devrait borner le nombre de copies à jour conservées")
+    void shouldBoundRefreshedSnapshots() {
+        // WHEN - trois modifications pour deux places
+        for (long id = 1; id <= 3; id++) {
+            clock.incrementAndGet();
+            resolver.onUserChanged(new UserChangedEvent(new UserSnapshot(id, "user" + id, "ROLE_USER")));
+        }
+
+        // THEN
+        assertThat(resolver.refreshedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait charger l'utilisateur une seule fois par requête pour les autres principaux")
+    void shouldLoadUserOncePerRequest_ForOtherPrincipals() throws Exception {
+        // GIVEN
+        authenticate("alice", "alice");
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(alice));
+
+        // WHEN
+        Object first = resolver.resolveArgument(parameter(0), null, request, null);
+        Object second = resolver.resolveArgument(parameter(1), null, request, null);
+
+        // THEN
+        assertThat(first).isEqualTo(UserSnapshot.of(alice));
+        assertThat(second).isEqualTo(first);
+        verify(userService, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Devrait lever une exception si l'utilisateur requis est introuvable")
+    void shouldThrowException_WhenRequiredUserNotFound() throws Exception {
+        // GIVEN
+        authenticate("ghost", "ghost");
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> resolver.resolveArgument(parameter(0), null, request, null))
+                .isInstanceOf(UserNotFoundException.class);
+        assertThat(resolver.resolveArgument(parameter(1), null, request, null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait retourner null sans authentification")
+    void shouldReturnNull_WhenAnonymous() throws Exception {
+        assertThat(resolver.resolveArgument(parameter(0), null, request, null)).isNull();
+        verifyNoInteractions(userServiceProvider);
+    }
+}
@@ -1,7 +1,7 @@
 package com.devops.projet_dialogue.security;
 
 import com.devops.projet_dialogue.model.User;
-import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -28,7 +28,7 @@ import static org.mockito.Mockito.*;
 class CustomUserDetailsServiceTest {
 
     @Mock
-    private UserRepository userRepository;
+    private UserService userService;
 
     @InjectMocks
     private CustomUserDetailsService userDetailsService;
@@ -47,7 +47,7 @@ class CustomUserDetailsServiceTest {
     @DisplayName("Devrait charger un utilisateur par username")
     void shouldLoadUserByUsername() {
         // GIVEN
-        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(userService.findForAuthentication("alice")).thenReturn(Optional.of(alice));
 
         // WHEN
         UserDetails userDetails = userDetailsService.loadUserByUsername("alice");
@@ -57,14 +57,14 @@ class CustomUserDetailsServiceTest {
         assertThat(userDetails.getUsername()).isEqualTo("alice");
         assertThat(userDetails.getPassword()).isEqualTo("$2a$10$hashedPassword");
 
-        verify(userRepository, times(1)).findByUsername("alice");
+        verify(userService, times(1)).findForAuthentication("alice");
     }
 
     @Test
     @DisplayName("Devrait retourner les authorities correctement")
     void shouldReturnAuthorities_Correctly() {
         // GIVEN
-        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(userService.findForAuthentication("alice")).thenReturn(Optional.of(alice));
 
         // WHEN
         UserDetails userDetails = userDetailsService.loadUserByUsername("alice");
@@ -80,14 +80,14 @@ class CustomUserDetailsServiceTest {
     @DisplayName("Devrait lever UsernameNotFoundException si user inexistant")
     void shouldThrowException_WhenUserNotFound() {
         // GIVEN
-        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+        when(userService.findForAuthentication("unknown")).thenReturn(Optional.empty());
 
         // WHEN & THEN
         assertThatThrownBy(() -> userDetailsService.loadUserByUsername("unknown"))
                 .isInstanceOf(UsernameNotFoundException.class)
                 .hasMessageContaining("Utilisateur non trouvé : unknown");
 
-        verify(userRepository, times(1)).findByUsername("unknown");
+        verify(userService, times(1)).findForAuthentication("unknown");
     }
 
     @Test
@@ -97,7 +97,7 @@ class CustomUserDetailsServiceTest {
         User admin = new User("admin", "password", "ROLE_ADMIN");
         admin.setCreatedAt(LocalDateTime.now());
 
-        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+        when(userService.findForAuthentication("admin")).thenReturn(Optional.of(admin));
 
         // WHEN
         UserDetails userDetails = userDetailsService.loadUserByUsername("admin");
@@ -113,7 +113,7 @@ class CustomUserDetailsServiceTest {
     @DisplayName("Devrait retourner isEnabled = true")
     void shouldReturnEnabled_True() {
         // GIVEN
-        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(userService.findForAuthentication("alice")).thenReturn(Optional.of(alice));
 
         // WHEN
         UserDetails userDetails = userDetailsService.loadUserByUsername("alice");
@@ -132,7 +132,7 @@ class CustomUserDetailsServiceTest {
         User userWithSpaces = new User("user name", "password", "ROLE_USER");
         userWithSpaces.setCreatedAt(LocalDateTime.now());
 
-        when(userRepository.findByUsername("user name")).thenReturn(Optional.of(userWithSpaces));
+        when(userService.findForAuthentication("user name")).thenReturn(Optional.of(userWithSpaces));
 
         // WHEN
         UserDetails userDetails = userDetailsService.loadUserByUsername("user name");
@@ -146,20 +146,20 @@ class CustomUserDetailsServiceTest {
     @DisplayName("Devrait être case-sensitive pour les usernames")
     void shouldBeCaseSensitive_ForUsernames() {
         // GIVEN
-        when(userRepository.findByUsername("Alice")).thenReturn(Optional.empty());
+        when(userService.findForAuthentication("Alice")).thenReturn(Optional.empty());
 
         // WHEN & THEN
         assertThatThrownBy(() -> userDetailsService.loadUserByUsername("Alice"))
                 .isInstanceOf(UsernameNotFoundException.class);
 
-        verify(userRepository, times(1)).findByUsername("Alice");
+        verify(userService, times(1)).findForAuthentication("Alice");
     }
 
     @Test
     @DisplayName("Devrait gérer les usernames vides")
     void shouldHandleEmptyUsername() {
         // GIVEN
-        when(userRepository.findByUsername("")).thenReturn(Optional.empty());
+        when(userService.findForAuthentication("")).thenReturn(Optional.empty());
 
         // WHEN & THEN
         assertThatThrownBy(() -> userDetailsService.loadUserByUsername(""))
@@ -170,7 +170,7 @@ class CustomUserDetailsServiceTest {
     @DisplayName("Devrait gérer les usernames null")
     void shouldHandleNullUsername() {
         // GIVEN
-        when(userRepository.findByUsername(null)).thenReturn(Optional.empty());
+        when(userService.findForAuthentication(null)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         assertThatThrownBy(() -> userDetailsService.loadUserByUsername(null))
@@ -184,8 +184,8 @@ class CustomUserDetailsServiceTest {
         User bob = new User("bob", "password", "ROLE_USER");
         bob.setCreatedAt(LocalDateTime.now());
 
-        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
-        when(userRepository.findByUsername("bob")).thenReturn(Optional.of(bob));
+        when(userService.findForAuthentication("alice")).thenReturn(Optional.of(alice));
+        when(userService.findForAuthentication("bob")).thenReturn(Optional.of(bob));
 
         // WHEN
         UserDetails aliceDetails = userDetailsService.loadUserByUsername("alice");
@@ -195,7 +195,7 @@ class CustomUserDetailsServiceTest {
         assertThat(aliceDetails.getUsername()).isEqualTo("alice");
         assertThat(bobDetails.getUsername()).isEqualTo("bob");
 
-        verify(userRepository, times(1)).findByUsername("alice");
-        verify(userRepository, times(1)).findByUsername("bob");
+        verify(userService, times(1)).findForAuthentication("alice");
+        verify(userService, times(1)).findForAuthentication("bob");
     }
 }
\ No newline at end of file
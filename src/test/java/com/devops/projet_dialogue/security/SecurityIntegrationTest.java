@@ -263,12 +263,11 @@ class SecurityIntegrationTest {
     @Test
     @DisplayName("Ne devrait pas accéder à une conversation inexistante")
     void shouldNotAccessConversation_WithoutBeingParticipant() throws Exception {
-        // Test simplifié : tenter d'accéder à une conversation inexistante
-        // Le controller devrait gérer ça et rediriger
+        // Tenter d'accéder à une conversation inexistante : retour à la liste des conversations
         mockMvc.perform(get("/conversation/999")
                         .with(user("alice").roles("USER")))
-                // Peut être 404, redirection, ou autre selon l'implémentation
-                .andExpect(status().isOk());  // On vérifie juste que ça ne plante pas
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/conversations"));
     }
 
     // ========== Tests de protection des endpoints critiques ==========
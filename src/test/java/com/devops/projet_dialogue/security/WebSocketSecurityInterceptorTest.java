@@ -0,0 +1,169 @@
+package com.devops.projet_dialogue.security;
+
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.service.ConversationMembershipCache;
+import com.devops.projet_dialogue.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour WebSocketSecurityInterceptor
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du WebSocketSecurityInterceptor")
+class WebSocketSecurityInterceptorTest {
+
+    @Mock
+    private ConversationMembershipCache membershipCache;
+
+    @Mock
+    private ObjectProvider<UserService> userServiceProvider;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private MessageChannel channel;
+
+    private WebSocketSecurityInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new WebSocketSecurityInterceptor(membershipCache, userServiceProvider);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, "password", "ROLE_USER");
+        user.setId(id);
+        return user;
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String destination, Principal principal) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        if (principal != null) {
+            accessor.setUser(principal);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal loggedIn(User user) {
+        CustomUserDetails details = new CustomUserDetails(user);
+        return new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities());
+    }
+
+    @Test
+    @DisplayName("Devrait autoriser un participant à s'abonner, sans lire l'utilisateur")
+    void shouldAllowParticipantSubscription() {
+        // GIVEN
+        when(membershipCache.isParticipant(10L, 2L)).thenReturn(true);
+        Message<byte[]> message = frame(StompCommand.SUBSCRIBE, "/topic/conversations/10", loggedIn(user(2L, "bob")));
+
+        // WHEN
+        Message<?> result = interceptor.preSend(message, channel);
+
+        // THEN
+        assertThat(result).isSameAs(message);
+        verify(membershipCache, times(1)).isParticipant(10L, 2L);
+        verifyNoInteractions(userServiceProvider);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'abonnement d'un non participant")
+    void shouldRejectNonParticipantSubscription() {
+        // GIVEN
+        when(membershipCache.isParticipant(10L, 3L)).thenReturn(false);
+        Message<byte[]> message = frame(StompCommand.SUBSCRIBE, "/topic/conversations/10", loggedIn(user(3L, "charlie")));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver l'utilisateur par son nom pour les autres authentifications")
+    void shouldResolveUserByName_ForOtherPrincipals() {
+        // GIVEN
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice")));
+        when(membershipCache.isParticipant(10L, 1L)).thenReturn(true);
+        Message<byte[]> message = frame(StompCommand.SUBSCRIBE, "/topic/conversations/10",
+                new UsernamePasswordAuthenticationToken("alice", null));
+
+        // WHEN
+        Message<?> result = interceptor.preSend(message, channel);
+
+        // THEN
+        assertThat(result).isSameAs(message);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'abonnement sans utilisateur authentifié")
+    void shouldRejectAnonymousSubscription() {
+        // GIVEN
+        Message<byte[]> message = frame(StompCommand.SUBSCRIBE, "/topic/conversations/10", null);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(membershipCache);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser les destinations inconnues")
+    void shouldRejectUnknownDestination() {
+        // GIVEN
+        Message<byte[]> message = frame(StompCommand.SUBSCRIBE, "/topic/conversations/abc", loggedIn(user(1L, "alice")));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(membershipCache);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser la publication directe par un client")
+    void shouldRejectClientSend() {
+        // GIVEN
+        Message<byte[]> message = frame(StompCommand.SEND, "/topic/conversations/10", loggedIn(user(1L, "alice")));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(membershipCache);
+    }
+
+    @Test
+    @DisplayName("Devrait laisser passer les autres trames (CONNECT, UNSUBSCRIBE...)")
+    void shouldPassThroughOtherFrames() {
+        // GIVEN
+        Message<byte[]> message = frame(StompCommand.CONNECT, null, loggedIn(user(1L, "alice")));
+
+        // WHEN
+        Message<?> result = interceptor.preSend(message, channel);
+
+        // THEN
+        assertThat(result).isSameAs(message);
+        verifyNoInteractions(membershipCache);
+    }
+}
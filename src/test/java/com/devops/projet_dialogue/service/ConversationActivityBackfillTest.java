@@ -0,0 +1,137 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.ConversationView;
+import com.devops.projet_dialogue.model.Conversation;
+import com.devops.projet_dialogue.model.Message;
+import com.devops.projet_dialogue.model.Photo;
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.repository.ConversationRepository;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests d'intégration pour ConversationActivityBackfill
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du ConversationActivityBackfill")
+class ConversationActivityBackfillTest {
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User alice;
+    private User bob;
+    private ConversationActivityBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        alice = entityManager.persistAndFlush(new User("alice", "password1", "ROLE_USER"));
+        bob = entityManager.persistAndFlush(new User("bob", "password2", "ROLE_USER"));
+        // Lots d'une conversation : plusieurs transactions dès deux conversations
+        backfill = new ConversationActivityBackfill(conversationRepository, messageRepository, transactionManager,
+                1, Duration.ZERO);
+    }
+
+    private Conversation persistLegacyConversation(User user1, User user2) {
+        Conversation conversation = new Conversation();
+        conversation.setUser1(user1);
+        conversation.setUser2(user2);
+        conversation.setCreatedAt(LocalDateTime.now().minusDays(1));
+        conversation.setActivityBackfilled(false);
+        return entityManager.persistAndFlush(conversation);
+    }
+
+    private Message persistMessage(Conversation conversation, User sender, String text, Photo photo,
+                                   LocalDateTime createdAt) {
+        Message message = new Message();
+        message.setConversation(conversation);
+        message.setSender(sender);
+        message.setText(text);
+        message.setPhoto(photo);
+        message.setCreatedAt(createdAt);
+        return entityManager.persistAndFlush(message);
+    }
+
+    @Test
+    @DisplayName("Devrait initialiser le résumé d'activité des conversations existantes, une seule fois")
+    void shouldBackfillActivity() {
+        // GIVEN - messages enregistrés sans mise à jour du résumé
+        Conversation conversation = persistLegacyConversation(alice, bob);
+        Conversation empty = persistLegacyConversation(bob, bob);
+        persistMessage(conversation, alice, "Bonjour", null, LocalDateTime.now().minusMinutes(2));
+        Message last = persistMessage(conversation, bob, "Salut Alice", null, LocalDateTime.now().withNano(0));
+
+        // WHEN
+        int updated = backfill.backfill();
+        entityManager.clear();
+
+        // THEN
+        assertThat(updated).isEqualTo(2);
+        ConversationView view = conversationRepository.findViewById(conversation.getId()).orElseThrow();
+        assertThat(view.messageCount()).isEqualTo(2);
+        assertThat(view.lastMessagePreview()).isEqualTo("Salut Alice");
+        assertThat(view.lastMessageAt()).isEqualTo(last.getCreatedAt());
+        assertThat(conversationRepository.findViewById(empty.getId()).orElseThrow().lastMessageAt()).isNull();
+        assertThat(backfill.backfill()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait utiliser la règle d'aperçu des envois")
+    void shouldUseSendPreviewRule() {
+        // GIVEN - dernier message : une photo sans texte
+        Conversation conversation = persistLegacyConversation(alice, bob);
+        Photo photo = entityManager.persistAndFlush(new Photo("a.jpg", "a.jpg", "/uploads/a.jpg", alice));
+        persistMessage(conversation, alice, "x".repeat(150), null, LocalDateTime.now().minusMinutes(1));
+        persistMessage(conversation, alice, null, photo, LocalDateTime.now());
+
+        // WHEN
+        backfill.backfill();
+        entityManager.clear();
+
+        // THEN
+        assertThat(conversationRepository.findViewById(conversation.getId()).orElseThrow().lastMessagePreview())
+                .isEqualTo("Photo");
+    }
+
+    @Test
+    @DisplayName("Devrait recompter les messages d'une conversation déjà touchée par un envoi")
+    void shouldRecount_WhenSendRecordedBeforeBackfill() {
+        // GIVEN - historique de deux messages, puis un envoi qui n'a compté que le sien
+        Conversation conversation = persistLegacyConversation(alice, bob);
+        persistMessage(conversation, alice, "Ancien", null, LocalDateTime.now().minusDays(1));
+        Message sent = persistMessage(conversation, bob, "Nouveau", null, LocalDateTime.now().withNano(0));
+        conversationRepository.recordMessage(conversation.getId(), sent.getId(), sent.getCreatedAt(), "Nouveau");
+        entityManager.clear();
+
+        // WHEN
+        backfill.backfill();
+        entityManager.clear();
+
+        // THEN
+        ConversationView view = conversationRepository.findViewById(conversation.getId()).orElseThrow();
+        assertThat(view.messageCount()).isEqualTo(2);
+        assertThat(view.lastMessagePreview()).isEqualTo("Nouveau");
+    }
+}
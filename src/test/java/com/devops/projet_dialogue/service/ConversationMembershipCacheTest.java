@@ -0,0 +1,98 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.ConversationParticipants;
+import com.devops.projet_dialogue.repository.ConversationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ConversationMembershipCache
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ConversationMembershipCache")
+class ConversationMembershipCacheTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Test
+    @DisplayName("Devrait charger les participants une seule fois")
+    void shouldLoadParticipantsOnce() {
+        // GIVEN
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, 100);
+        when(conversationRepository.findParticipants(10L))
+                .thenReturn(Optional.of(new ConversationParticipants(1L, 2L)));
+
+        // WHEN
+        boolean alice = cache.isParticipant(10L, 1L);
+        boolean bob = cache.isParticipant(10L, 2L);
+        boolean charlie = cache.isParticipant(10L, 3L);
+
+        // THEN
+        assertThat(alice).isTrue();
+        assertThat(bob).isTrue();
+        assertThat(charlie).isFalse();
+        verify(conversationRepository, times(1)).findParticipants(10L);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'accès si la conversation n'existe pas, sans la mettre en cache")
+    void shouldDenyAccess_WhenConversationNotFound() {
+        // GIVEN
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, 100);
+        when(conversationRepository.findParticipants(999L)).thenReturn(Optional.empty());
+
+        // WHEN & THEN
+        assertThat(cache.isParticipant(999L, 1L)).isFalse();
+        assertThat(cache.participants(999L)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver chaque conversation après agrandissement de la table")
+    void shouldKeepEntries_WhenTableGrows() {
+        // GIVEN
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, 10_000);
+        when(conversationRepository.findParticipants(anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(0);
+            return Optional.of(new ConversationParticipants(id, id + 1));
+        });
+        for (long id = 1; id <= 1_000; id++) {
+            cache.participants(id);
+        }
+        clearInvocations(conversationRepository);
+
+        // WHEN & THEN - Toutes les entrées sont servies sans requête
+        for (long id = 1; id <= 1_000; id++) {
+            assertThat(cache.participants(id)).contains(new ConversationParticipants(id, id + 1));
+        }
+        assertThat(cache.size()).isEqualTo(1_000);
+        verifyNoInteractions(conversationRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait se vider au-delà du nombre maximal d'entrées")
+    void shouldClear_WhenFull() {
+        // GIVEN
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, 2);
+        when(conversationRepository.findParticipants(anyLong()))
+                .thenReturn(Optional.of(new ConversationParticipants(1L, 2L)));
+
+        // WHEN
+        cache.participants(1L);
+        cache.participants(2L);
+        cache.participants(3L);
+
+        // THEN
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.repository.ConversationRepository;
+import com.devops.projet_dialogue.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de concurrence pour ConversationService.getOrCreate
+ * (base réelle : les requêtes concurrentes doivent être validées séparément)
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tests de concurrence du ConversationService")
+class ConversationServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 20;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        alice = userRepository.save(newUser("alice-" + suffix));
+        bob = userRepository.save(newUser("bob-" + suffix));
+    }
+
+    @AfterEach
+    void tearDown() {
+        conversationRepository.findByUsers(alice.getId(), bob.getId())
+                .ifPresent(conversationRepository::delete);
+        userRepository.delete(alice);
+        userRepository.delete(bob);
+    }
+
+    @Test
+    @DisplayName("Devrait créer une seule conversation quand les deux participants l'ouvrent en même temps")
+    void shouldCreateSingleConversation_UnderConcurrentOpens() throws Exception {
+        // GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Set<Long>>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            // La moitié des threads ouvre (alice, bob), l'autre (bob, alice)
+            boolean reversed = t % 2 == 1;
+            results.add(executor.submit(() -> {
+                start.await();
+                Set<Long> ids = new HashSet<>();
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    ids.add(reversed
+                            ? conversationService.getOrCreate(bob.getId(), alice.getId())
+                            : conversationService.getOrCreate(alice.getId(), bob.getId()));
+                }
+                return ids;
+            }));
+        }
+
+        // WHEN
+        start.countDown();
+        Set<Long> ids = new HashSet<>();
+        for (Future<Set<Long>> result : results) {
+            ids.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // THEN - Un seul id renvoyé à tous, une seule ligne en base, dans l'ordre canonique
+        assertThat(ids).hasSize(1);
+        assertThat(conversationService.findAllForUser(alice.getId())).hasSize(1);
+        assertThat(conversationRepository.findByParticipants(alice.getId(), bob.getId()))
+                .get().satisfies(c -> assertThat(c.getId()).isEqualTo(ids.iterator().next()));
+    }
+
+    private static User newUser(String username) {
+        User user = new User(username, "password", "ROLE_USER");
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+}
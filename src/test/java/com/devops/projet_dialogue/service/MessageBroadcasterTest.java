@@ -0,0 +1,45 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour MessageBroadcaster
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du MessageBroadcaster")
+class MessageBroadcasterTest {
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @InjectMocks
+    private MessageBroadcaster broadcaster;
+
+    @Test
+    @DisplayName("Devrait pousser chaque message du lot sur le topic de sa conversation")
+    void shouldPushMessageToConversationTopic() {
+        // GIVEN
+        MessageView message = new MessageView(5L, 1L, "Bonjour", null, null, LocalDateTime.now());
+        MessageView other = new MessageView(6L, 2L, "Salut", null, null, LocalDateTime.now());
+
+        // WHEN
+        broadcaster.onMessages(List.of(new MessageSentEvent(10L, message), new MessageSentEvent(11L, other)));
+
+        // THEN
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/conversations/10", message);
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/conversations/11", other);
+    }
+}
@@ -0,0 +1,212 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageEventSubscriber;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour MessageEventBus
+ */
+@DisplayName("Tests du MessageEventBus")
+class MessageEventBusTest {
+
+    private static MessageSentEvent event(long id) {
+        return new MessageSentEvent(10L, new MessageView(id, 1L, "Message " + id, null, null, LocalDateTime.now()));
+    }
+
+    private static List<Long> ids(List<MessageSentEvent> events) {
+        return events.stream().map(event -> event.message().id()).toList();
+    }
+
+    /**
+     * Abonné qui retient les lots reçus.
+     */
+    private static class Recorder implements MessageEventSubscriber {
+
+        final List<List<MessageSentEvent>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onMessages(List<MessageSentEvent> events) {
+            batches.add(events);
+        }
+
+        List<Long> received() {
+            synchronized (batches) {
+                return batches.stream().flatMap(List::stream).map(event -> event.message().id()).toList();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait distribuer les messages à chaque abonné, dans l'ordre et par lots")
+    void shouldDispatchInOrderToAllSubscribers() throws Exception {
+        // GIVEN
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        MessageEventBus bus = new MessageEventBus(List.of(first, second), 1000, 10, Duration.ofMillis(50));
+
+        // WHEN - publication avant le démarrage : tout est en file
+        LongStream.rangeClosed(1, 25).forEach(id -> bus.publish(event(id)));
+        bus.start();
+        bus.shutdown();
+
+        // THEN
+        List<Long> expected = LongStream.rangeClosed(1, 25).boxed().toList();
+        assertThat(first.received()).isEqualTo(expected);
+        assertThat(second.received()).isEqualTo(expected);
+        assertThat(first.batches).hasSize(3).allSatisfy(batch -> assertThat(batch.size()).isLessThanOrEqualTo(10));
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'événement quand la file est pleine, sans appeler les abonnés")
+    void shouldReject_WhenQueueIsFull() throws Exception {
+        // GIVEN - file d'une place, distribution pas encore démarrée
+        Recorder recorder = new Recorder();
+        MessageEventBus bus = new MessageEventBus(List.of(recorder), 1, 10, Duration.ofMillis(1));
+        bus.publish(event(1));
+
+        // WHEN
+        bus.publish(event(2));
+
+        // THEN - le second est refusé, le premier attend en file
+        assertThat(recorder.received()).isEmpty();
+        assertThat(bus.queueDepth()).isEqualTo(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bus.bindTo(registry);
+        assertThat(registry.get("messages.events.rejected").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("messages.events.queue.depth").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("messages.events.lag").gauge().value()).isPositive();
+
+        bus.shutdown();
+        assertThat(recorder.received()).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Ne devrait perdre aucun message à l'arrêt")
+    void shouldDrainQueue_OnShutdown() throws Exception {
+        // GIVEN - un abonné lent
+        Recorder recorder = new Recorder();
+        MessageEventSubscriber slow = events -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recorder.onMessages(events);
+        };
+        MessageEventBus bus = new MessageEventBus(List.of(slow), 10_000, 5, Duration.ofMillis(50));
+        bus.start();
+
+        // WHEN
+        LongStream.rangeClosed(1, 200).forEach(id -> bus.publish(event(id)));
+        bus.shutdown();
+        bus.publish(event(201));
+
+        // THEN - les messages publiés après l'arrêt sont refusés
+        assertThat(recorder.received()).isEqualTo(LongStream.rangeClosed(1, 200).boxed().toList());
+        assertThat(bus.queueDepth()).isZero();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bus.bindTo(registry);
+        assertThat(registry.get("messages.events.rejected").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien retirer à un abonné en retard pendant l'arrêt")
+    void shouldNotDropBacklog_OnShutdown() throws Exception {
+        // GIVEN - un abonné lent dont la file ne tient que deux lots, 50 lots en attente
+        Recorder recorder = new Recorder();
+        MessageEventSubscriber slow = events -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recorder.onMessages(events);
+        };
+        MessageEventBus bus = new MessageEventBus(List.of(slow), 1000, 2, Duration.ofMillis(50), 2);
+        LongStream.rangeClosed(1, 100).forEach(id -> bus.publish(event(id)));
+
+        // WHEN
+        bus.shutdown();
+
+        // THEN
+        assertThat(recorder.received()).isEqualTo(LongStream.rangeClosed(1, 100).boxed().toList());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bus.bindTo(registry);
+        assertThat(registry.get("messages.events.dropped").functionCounter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un abonné en échec ne devrait pas priver les autres")
+    void shouldIsolateFailingSubscriber() throws Exception {
+        // GIVEN
+        Recorder recorder = new Recorder();
+        MessageEventSubscriber failing = events -> {
+            throw new IllegalStateException("indisponible");
+        };
+        MessageEventBus bus = new MessageEventBus(List.of(failing, recorder), 100, 10, Duration.ofMillis(50));
+        bus.start();
+
+        // WHEN
+        bus.publish(event(1));
+        bus.publish(event(2));
+        bus.shutdown();
+
+        // THEN
+        assertThat(recorder.received()).containsExactly(1L, 2L);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bus.bindTo(registry);
+        assertThat(registry.get("messages.events.failures").functionCounter().count()).isPositive();
+        assertThat(registry.get("messages.events.dispatched").functionCounter().count()).isEqualTo(2.0);
+        assertThat(ids(recorder.batches.get(0))).first().isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Un abonné bloqué ne devrait pas retarder les autres")
+    void shouldNotWaitForBlockedSubscriber() throws Exception {
+        // GIVEN - un abonné bloqué jusqu'à la fin du test
+        CountDownLatch release = new CountDownLatch(1);
+        MessageEventSubscriber blocked = events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Recorder recorder = new Recorder();
+        MessageEventBus bus = new MessageEventBus(List.of(blocked, recorder), 100, 1, Duration.ofMillis(50), 2);
+        bus.start();
+
+        // WHEN - chaque message est publié une fois le précédent reçu par l'autre abonné
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (long id = 1; id <= 10; id++) {
+            bus.publish(event(id));
+            while (recorder.received().size() < id && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+
+        // THEN - l'autre abonné reçoit tout ; l'abonné bloqué perd ce qui dépasse sa file
+        assertThat(recorder.received()).isEqualTo(LongStream.rangeClosed(1, 10).boxed().toList());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bus.bindTo(registry);
+        assertThat(registry.get("messages.events.dropped").functionCounter().count()).isPositive();
+
+        release.countDown();
+        bus.shutdown();
+    }
+}
@@ -0,0 +1,161 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour MessageEventStream
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du MessageEventStream")
+class MessageEventStreamTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    private MessageEventStream eventStream;
+
+    @BeforeEach
+    void setUp() {
+        eventStream = new MessageEventStream(messageRepository, 60_000);
+    }
+
+    private static MessageView message(long id) {
+        return new MessageView(id, 1L, "Message " + id, null, null, LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer l'abonné sans rejouer si aucun lastId")
+    void shouldSubscribeWithoutReplay() {
+        // WHEN
+        SseEmitter emitter = eventStream.subscribe(10L, null);
+
+        // THEN
+        assertThat(emitter).isNotNull();
+        assertThat(eventStream.subscriberCount(10L)).isEqualTo(1);
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer les messages postérieurs au lastId")
+    void shouldReplayMessagesAfterLastId() {
+        // GIVEN
+        when(messageRepository.findInConversationResuming(10L, 5L, MessageService.RESUME_OVERLAP,
+                Limit.of(MessageEventStream.REPLAY_MAX + 1)))
+                .thenReturn(List.of(message(6), message(7)));
+
+        // WHEN
+        eventStream.subscribe(10L, 5L);
+
+        // THEN - une seule lecture, bornée
+        verify(messageRepository, times(1)).findInConversationResuming(eq(10L), anyLong(), any(), any());
+        assertThat(eventStream.subscriberCount(10L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait demander une resynchronisation au-delà d'une page de retard")
+    void shouldAskForResync_WhenTooFarBehind() {
+        // GIVEN - plus d'une page manquée
+        List<MessageView> missed = new ArrayList<>();
+        for (long id = 6; id <= 6 + MessageEventStream.REPLAY_MAX; id++) {
+            missed.add(message(id));
+        }
+        when(messageRepository.findInConversationResuming(10L, 5L, MessageService.RESUME_OVERLAP,
+                Limit.of(MessageEventStream.REPLAY_MAX + 1)))
+                .thenReturn(missed);
+
+        // WHEN
+        eventStream.subscribe(10L, 5L);
+
+        // THEN - pas de lecture supplémentaire, l'abonné reste inscrit pour la suite
+        verify(messageRepository, times(1)).findInConversationResuming(eq(10L), anyLong(), any(), any());
+        assertThat(eventStream.subscriberCount(10L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait retirer au heartbeat les abonnés déconnectés")
+    void shouldRemoveClosedSubscribers_OnHeartbeat() {
+        // GIVEN
+        eventStream.subscribe(10L, null);
+        SseEmitter closed = eventStream.subscribe(11L, null);
+        closed.complete();
+
+        // WHEN
+        eventStream.heartbeat();
+
+        // THEN
+        assertThat(eventStream.subscriberCount(10L)).isEqualTo(1);
+        assertThat(eventStream.subscriberCount(11L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait diffuser les messages du lot aux abonnés de leur conversation")
+    void shouldDispatchToSubscribers() {
+        // GIVEN
+        eventStream.subscribe(10L, null);
+
+        // WHEN - émetteur pas encore pris en charge par MVC : l'envoi est mis en attente
+        eventStream.onMessages(List.of(new MessageSentEvent(10L, message(1)), new MessageSentEvent(10L, message(2))));
+
+        // THEN - l'abonné reste inscrit
+        assertThat(eventStream.subscriberCount(10L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait retirer l'abonné dont l'envoi échoue")
+    void shouldRemoveSubscriber_WhenSendFails() {
+        // GIVEN
+        SseEmitter emitter = eventStream.subscribe(10L, null);
+        emitter.complete();
+
+        // WHEN
+        eventStream.onMessages(List.of(new MessageSentEvent(10L, message(1))));
+
+        // THEN
+        assertThat(eventStream.subscriberCount(10L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait fermer le flux d'un abonné qui ne suit pas, sans attendre ses envois")
+    void shouldCloseSubscriber_WhenFallingBehind() {
+        // GIVEN - envois jamais exécutés (client bloqué), file de deux événements
+        List<Runnable> pending = new ArrayList<>();
+        MessageEventStream stream = new MessageEventStream(messageRepository, 60_000, 2, pending::add);
+        stream.subscribe(10L, null);
+
+        // WHEN
+        stream.onMessages(List.of(new MessageSentEvent(10L, message(1)), new MessageSentEvent(10L, message(2)),
+                new MessageSentEvent(10L, message(3))));
+
+        // THEN - un seul envoi planifié pour l'abonné, retiré quand sa file déborde
+        assertThat(pending).hasSize(1);
+        assertThat(stream.subscriberCount(10L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer une conversation sans abonné")
+    void shouldSkipConversationsWithoutSubscribers() {
+        // WHEN
+        eventStream.onMessages(List.of(new MessageSentEvent(99L, message(1))));
+
+        // THEN
+        assertThat(eventStream.subscriberCount(99L)).isZero();
+    }
+}
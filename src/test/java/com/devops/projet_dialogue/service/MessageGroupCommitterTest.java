@@ -0,0 +1,188 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessageDraft;
+import com.devops.projet_dialogue.exception.MessageQueueFullException;
+import com.devops.projet_dialogue.model.Message;
+import com.devops.projet_dialogue.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour MessageGroupCommitter
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du MessageGroupCommitter")
+class MessageGroupCommitterTest {
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private ConversationMembershipCache membershipCache;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = new User("alice", "password", "ROLE_USER");
+        alice.setId(1L);
+        // Stubs communs, pas utilisés par tous les tests
+        lenient().when(membershipCache.isParticipant(anyLong(), eq(1L))).thenReturn(true);
+        // Le groupe est « enregistré » tel quel
+        lenient().when(messageService.sendMessageGroup(anyList())).thenAnswer(invocation -> {
+            List<MessageDraft> drafts = invocation.getArgument(0);
+            return drafts.stream().map(MessageGroupCommitterTest::message).toList();
+        });
+    }
+
+    private static Message message(MessageDraft draft) {
+        Message message = new Message();
+        message.setSender(draft.sender());
+        message.setText(draft.text());
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+
+    private MessageGroupCommitter committer(int capacity, int maxBatch, Duration enqueueTimeout) {
+        return new MessageGroupCommitter(messageService, membershipCache, capacity, maxBatch,
+                Duration.ofMillis(5), enqueueTimeout);
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer les envois en attente en une seule transaction")
+    @SuppressWarnings("unchecked")
+    void shouldCommitPendingSendsAsOneGroup() throws Exception {
+        // GIVEN - envois mis en file avant le démarrage du thread d'écriture
+        MessageGroupCommitter committer = committer(100, 500, Duration.ofMillis(50));
+        CompletableFuture<Message> first = committer.submit(10L, alice, "Un", null);
+        CompletableFuture<Message> second = committer.submit(11L, alice, "Deux", null);
+        CompletableFuture<Message> third = committer.submit(10L, alice, "Trois", null);
+
+        // WHEN
+        committer.start();
+        committer.shutdown();
+
+        // THEN
+        ArgumentCaptor<List<MessageDraft>> drafts = ArgumentCaptor.forClass(List.class);
+        verify(messageService, times(1)).sendMessageGroup(drafts.capture());
+        assertThat(drafts.getValue()).extracting(MessageDraft::text).containsExactly("Un", "Deux", "Trois");
+        assertThat(first.join().getText()).isEqualTo("Un");
+        assertThat(second.join().getText()).isEqualTo("Deux");
+        assertThat(third.join().getText()).isEqualTo("Trois");
+        verify(messageService, never()).sendMessage(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait limiter la taille des groupes à max-batch")
+    void shouldSplitGroups_AtMaxBatch() throws Exception {
+        // GIVEN
+        MessageGroupCommitter committer = committer(100, 2, Duration.ofMillis(50));
+        for (int i = 0; i < 5; i++) {
+            committer.submit(10L, alice, "Message " + i, null);
+        }
+
+        // WHEN
+        committer.start();
+        committer.shutdown();
+
+        // THEN
+        verify(messageService, times(3)).sendMessageGroup(anyList());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        committer.bindTo(registry);
+        assertThat(registry.get("messages.write-behind.commits").functionCounter().count()).isEqualTo(3.0);
+        assertThat(registry.get("messages.write-behind.committed").functionCounter().count()).isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'envoi quand la file reste pleine")
+    void shouldReject_WhenQueueIsFull() throws Exception {
+        // GIVEN - file d'une place, thread d'écriture pas encore démarré
+        MessageGroupCommitter committer = committer(1, 500, Duration.ofMillis(1));
+        CompletableFuture<Message> queued = committer.submit(10L, alice, "Un", null);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> committer.submit(10L, alice, "Deux", null))
+                .isInstanceOf(MessageQueueFullException.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        committer.bindTo(registry);
+        assertThat(registry.get("messages.write-behind.rejected").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("messages.write-behind.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        // L'envoi accepté est enregistré à l'arrêt
+        committer.shutdown();
+        assertThat(queued.join().getText()).isEqualTo("Un");
+    }
+
+    @Test
+    @DisplayName("Devrait réessayer message par message quand le groupe échoue")
+    void shouldRetryAlone_WhenGroupFails() throws Exception {
+        // GIVEN
+        when(messageService.sendMessageGroup(anyList())).thenThrow(new IllegalStateException("contrainte"));
+        Message saved = new Message();
+        when(messageService.sendMessage(10L, alice, "Valide", null)).thenReturn(saved);
+        when(messageService.sendMessage(10L, alice, "Invalide", null)).thenThrow(new IllegalStateException("contrainte"));
+        MessageGroupCommitter committer = committer(100, 500, Duration.ofMillis(50));
+        CompletableFuture<Message> valid = committer.submit(10L, alice, "Valide", null);
+        CompletableFuture<Message> invalid = committer.submit(10L, alice, "Invalide", null);
+
+        // WHEN
+        committer.start();
+        committer.shutdown();
+
+        // THEN - seul l'envoi fautif échoue
+        assertThat(valid.join()).isSameAs(saved);
+        assertThat(invalid).isCompletedExceptionally();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un non participant sans mettre en file")
+    void shouldRejectNonParticipant() {
+        // GIVEN
+        User charlie = new User("charlie", "password", "ROLE_USER");
+        charlie.setId(3L);
+        MessageGroupCommitter committer = committer(100, 500, Duration.ofMillis(50));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> committer.submit(10L, charlie, "Intrus", null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Accès refusé à la conversation");
+        assertThat(committer.queueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer directement après l'arrêt")
+    void shouldSendDirectly_AfterShutdown() throws Exception {
+        // GIVEN
+        Message saved = new Message();
+        when(messageService.sendMessage(10L, alice, "Tardif", null)).thenReturn(saved);
+        MessageGroupCommitter committer = committer(100, 500, Duration.ofMillis(50));
+        committer.start();
+        committer.shutdown();
+
+        // WHEN
+        Message result = committer.send(10L, alice, "Tardif", null);
+
+        // THEN
+        assertThat(result).isSameAs(saved);
+        verify(messageService, never()).sendMessageGroup(anyList());
+    }
+}
@@ -0,0 +1,189 @@
+package com.devops.projet_dialogue.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests d'intégration pour MessagePartitioning, contre un serveur PostgreSQL (ignorés sans Docker)
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Tests de MessagePartitioning")
+class MessagePartitioningTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private JdbcTemplate jdbcTemplate;
+    private MessagePartitioning partitioning;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Schéma tel que le crée Hibernate avant le partitionnement
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS archive CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS messages, messages_legacy, conversations CASCADE");
+        jdbcTemplate.execute("CREATE TABLE conversations (id bigint PRIMARY KEY)");
+        jdbcTemplate.execute("""
+            CREATE TABLE messages (
+                id bigint PRIMARY KEY,
+                conversation_id bigint NOT NULL REFERENCES conversations (id),
+                photo_id bigint UNIQUE,
+                text text,
+                created_at timestamp(6) NOT NULL
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX idx_messages_conversation_created ON messages (conversation_id, created_at, id)");
+        jdbcTemplate.update("INSERT INTO conversations (id) VALUES (1)");
+        insert(1, LocalDateTime.now().minusMonths(2));
+        insert(2, LocalDateTime.now());
+
+        partitioning = new MessagePartitioning(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                2, 0, "archive");
+    }
+
+    private void insert(long id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO messages (id, conversation_id, text, created_at) VALUES (?, 1, 'Bonjour', ?)",
+                id, Timestamp.valueOf(createdAt));
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'messages'::regclass ORDER BY c.relname
+            """, String.class);
+    }
+
+    private String explain(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+    }
+
+    @Test
+    @DisplayName("Devrait convertir la table existante sans perdre l'historique")
+    void shouldConvertExistingTable() {
+        // WHEN
+        partitioning.afterPropertiesSet();
+
+        // THEN - l'historique, mois courant compris, reste dans messages_legacy
+        YearMonth current = YearMonth.now();
+        assertThat(partitioning.isPartitioned()).isTrue();
+        assertThat(partitions()).containsExactly(
+                MessagePartitioning.LEGACY_PARTITION,
+                MessagePartitioning.partitionName(current.plusMonths(1)),
+                MessagePartitioning.partitionName(current.plusMonths(2)));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages_legacy", Long.class)).isEqualTo(2);
+
+        // Index BRIN et clé étrangère portés par la table partitionnée
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'messages' AND indexdef LIKE '%USING brin%'",
+                Long.class)).isEqualTo(1);
+        // Index photo_id (l'unicité ne peut pas être portée par la table partitionnée)
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = ? AND indexdef LIKE '%(photo_id)%'",
+                Long.class, MessagePartitioning.partitionName(current.plusMonths(1)))).isEqualTo(1);
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "INSERT INTO messages (id, conversation_id, created_at) VALUES (99, 42, now())"))
+                .hasMessageContaining("foreign key");
+
+        // Relancer ne change rien
+        partitioning.afterPropertiesSet();
+        assertThat(partitions()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Devrait ne lire que les partitions de la période demandée")
+    void shouldPrunePartitions() {
+        // GIVEN
+        partitioning.afterPropertiesSet();
+        YearMonth next = YearMonth.now().plusMonths(1);
+        insert(3, next.atDay(1).atTime(12, 0));
+
+        // WHEN
+        String plan = explain("SELECT * FROM messages WHERE conversation_id = 1 AND created_at >= '"
+                + next.atDay(1) + "' ORDER BY created_at");
+
+        // THEN
+        assertThat(plan).contains(MessagePartitioning.partitionName(next))
+                .doesNotContain(MessagePartitioning.LEGACY_PARTITION);
+    }
+
+    @Test
+    @DisplayName("Devrait archiver les partitions anciennes dans le schéma d'archive")
+    void shouldArchiveOldPartitions() {
+        // GIVEN
+        partitioning.afterPropertiesSet();
+        YearMonth next = YearMonth.now().plusMonths(1);
+        insert(3, next.atDay(1).atTime(12, 0));
+
+        // WHEN
+        List<String> archived = partitioning.archivePartitionsBefore(next);
+
+        // THEN - l'historique est archivé, le mois suivant reste en place
+        assertThat(archived).containsExactly(MessagePartitioning.LEGACY_PARTITION);
+        assertThat(partitions()).doesNotContain(MessagePartitioning.LEGACY_PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages", Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archive.messages_legacy", Long.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait exposer les mois couverts par les partitions")
+    void shouldReportMonthsCovered() {
+        // WHEN
+        partitioning.afterPropertiesSet();
+
+        // THEN - mois courant (messages_legacy) et deux mois d'avance
+        assertThat(partitioning.monthsCovered()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait terminer un détachement interrompu")
+    void shouldFinalizeInterruptedDetach() throws Exception {
+        // GIVEN - un DETACH ... CONCURRENTLY annulé pendant qu'une lecture est en cours
+        partitioning.afterPropertiesSet();
+        try (Connection reader = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             Connection detacher = DriverManager.getConnection(
+                     postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            reader.setAutoCommit(false);
+            reader.createStatement().executeQuery("SELECT COUNT(*) FROM messages").close();
+            try (Statement statement = detacher.createStatement()) {
+                statement.execute("SET statement_timeout = '1s'");
+                assertThatThrownBy(() -> statement.execute(
+                        "ALTER TABLE messages DETACH PARTITION " + MessagePartitioning.LEGACY_PARTITION + " CONCURRENTLY"))
+                        .hasMessageContaining("timeout");
+            }
+            reader.rollback();
+        }
+
+        // WHEN - la rétention n'atteint pas encore cette partition
+        List<String> archived = partitioning.archivePartitionsBefore(YearMonth.now().minusYears(10));
+
+        // THEN
+        assertThat(archived).containsExactly(MessagePartitioning.LEGACY_PARTITION);
+        assertThat(partitions()).doesNotContain(MessagePartitioning.LEGACY_PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archive.messages_legacy", Long.class))
+                .isEqualTo(2);
+    }
+}
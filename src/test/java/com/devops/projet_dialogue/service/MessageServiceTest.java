@@ -1,5 +1,11 @@
 package com.devops.projet_dialogue.service;
 
+import com.devops.projet_dialogue.dto.GalleryPhotoView;
+import com.devops.projet_dialogue.dto.MessageCursor;
+import com.devops.projet_dialogue.dto.MessageDraft;
+import com.devops.projet_dialogue.dto.MessagePage;
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageSentEvent;
 import com.devops.projet_dialogue.model.Conversation;
 import com.devops.projet_dialogue.model.Message;
 import com.devops.projet_dialogue.model.Photo;
@@ -14,15 +20,22 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,6 +51,15 @@ class MessageServiceTest {
     @Mock
     private ConversationRepository conversationRepository;
 
+    @Mock
+    private MessageTailCache tailCache;
+
+    @Mock
+    private ConversationMembershipCache membershipCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MessageService messageService;
 
@@ -50,9 +72,11 @@ class MessageServiceTest {
     void setUp() {
         // Préparation des données de test
         alice = new User("alice", "password1", "ROLE_USER");
+        alice.setId(1L);
         alice.setCreatedAt(LocalDateTime.now());
 
         bob = new User("bob", "password2", "ROLE_USER");
+        bob.setId(2L);
         bob.setCreatedAt(LocalDateTime.now());
 
         conversation = new Conversation();
@@ -77,8 +101,8 @@ class MessageServiceTest {
         Long conversationId = 1L;
         String messageText = "Bonjour Bob !";
 
-        when(conversationRepository.findById(conversationId))
-                .thenReturn(Optional.of(conversation));
+        when(membershipCache.isParticipant(eq(conversationId), any())).thenReturn(true);
+        when(conversationRepository.getReferenceById(conversationId)).thenReturn(conversation);
 
         Message savedMessage = new Message();
         savedMessage.setConversation(conversation);
@@ -99,8 +123,12 @@ class MessageServiceTest {
         assertThat(result.getConversation()).isEqualTo(conversation);
         assertThat(result.getPhoto()).isNull();
 
-        verify(conversationRepository, times(1)).findById(conversationId);
+        verify(conversationRepository, never()).findById(any());
         verify(messageRepository, times(1)).save(any(Message.class));
+        verify(conversationRepository, times(1))
+                .recordMessage(conversationId, savedMessage.getId(), savedMessage.getCreatedAt(), messageText);
+        verify(eventPublisher, times(1))
+                .publishEvent(new MessageSentEvent(conversationId, MessageView.of(savedMessage)));
     }
 
     @Test
@@ -110,8 +138,8 @@ class MessageServiceTest {
         Long conversationId = 1L;
         String messageText = "Regarde cette photo !";
 
-        when(conversationRepository.findById(conversationId))
-                .thenReturn(Optional.of(conversation));
+        when(membershipCache.isParticipant(eq(conversationId), any())).thenReturn(true);
+        when(conversationRepository.getReferenceById(conversationId)).thenReturn(conversation);
 
         Message savedMessage = new Message();
         savedMessage.setConversation(conversation);
@@ -132,7 +160,7 @@ class MessageServiceTest {
         assertThat(result.getPhoto()).isEqualTo(testPhoto);
         assertThat(result.getSender()).isEqualTo(alice);
 
-        verify(conversationRepository, times(1)).findById(conversationId);
+        verify(conversationRepository, never()).findById(any());
         verify(messageRepository, times(1)).save(any(Message.class));
     }
 
@@ -142,8 +170,8 @@ class MessageServiceTest {
         // GIVEN
         Long conversationId = 1L;
 
-        when(conversationRepository.findById(conversationId))
-                .thenReturn(Optional.of(conversation));
+        when(membershipCache.isParticipant(eq(conversationId), any())).thenReturn(true);
+        when(conversationRepository.getReferenceById(conversationId)).thenReturn(conversation);
 
         Message savedMessage = new Message();
         savedMessage.setConversation(conversation);
@@ -165,6 +193,8 @@ class MessageServiceTest {
         assertThat(result.getSender()).isEqualTo(bob);
 
         verify(messageRepository, times(1)).save(any(Message.class));
+        verify(conversationRepository, times(1))
+                .recordMessage(conversationId, savedMessage.getId(), savedMessage.getCreatedAt(), "Photo");
     }
 
     @Test
@@ -172,8 +202,8 @@ class MessageServiceTest {
     void shouldThrowException_WhenConversationNotFound() {
         // GIVEN
         Long conversationId = 999L;
-        when(conversationRepository.findById(conversationId))
-                .thenReturn(Optional.empty());
+        when(membershipCache.isParticipant(conversationId, alice.getId()))
+                .thenThrow(new RuntimeException("Conversation non trouvée"));
 
         // WHEN & THEN
         assertThatThrownBy(() ->
@@ -182,8 +212,10 @@ class MessageServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("Conversation non trouvée");
 
-        verify(conversationRepository, times(1)).findById(conversationId);
+        verify(conversationRepository, never()).getReferenceById(any());
         verify(messageRepository, never()).save(any());
+        verify(conversationRepository, never()).recordMessage(any(), any(), any(), any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -191,8 +223,8 @@ class MessageServiceTest {
     void shouldSetCreatedAtAutomatically() {
         // GIVEN
         Long conversationId = 1L;
-        when(conversationRepository.findById(conversationId))
-                .thenReturn(Optional.of(conversation));
+        when(membershipCache.isParticipant(eq(conversationId), any())).thenReturn(true);
+        when(conversationRepository.getReferenceById(conversationId)).thenReturn(conversation);
         when(messageRepository.save(any(Message.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -212,12 +244,131 @@ class MessageServiceTest {
                 .isBeforeOrEqualTo(afterSend);
     }
 
+    @Test
+    @DisplayName("Devrait refuser l'envoi par un non participant")
+    void shouldRejectMessage_WhenSenderNotParticipant() {
+        // GIVEN
+        Long conversationId = 1L;
+        when(membershipCache.isParticipant(conversationId, bob.getId())).thenReturn(false);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> messageService.sendMessage(conversationId, bob, "Intrus", null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Accès refusé à la conversation");
+
+        verify(messageRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // ========== Tests sendMessages ==========
+
+    @Test
+    @DisplayName("Devrait enregistrer un lot en un seul saveAll et une seule mise à jour de la conversation")
+    void shouldSendMessagesInBulk() {
+        // GIVEN
+        Long conversationId = 1L;
+        when(membershipCache.isParticipant(eq(conversationId), any())).thenReturn(true);
+        when(conversationRepository.getReferenceById(conversationId)).thenReturn(conversation);
+        when(messageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        List<Message> result = messageService.sendMessages(conversationId, alice, List.of("Un", "Deux", "Trois"));
+
+        // THEN
+        assertThat(result).extracting(Message::getText).containsExactly("Un", "Deux", "Trois");
+        assertThat(result).allSatisfy(message -> {
+            assertThat(message.getSender()).isEqualTo(alice);
+            assertThat(message.getConversation()).isEqualTo(conversation);
+        });
+        verify(messageRepository, never()).save(any());
+        verify(conversationRepository, times(1))
+                .recordMessages(eq(conversationId), eq(3L), any(), any(), eq("Trois"));
+        verify(eventPublisher, times(3)).publishEvent(any(MessageSentEvent.class));
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un lot trop grand ou contenant un message vide")
+    void shouldRejectInvalidBulk() {
+        // GIVEN
+        List<String> tooMany = Collections.nCopies(MessageService.BULK_MAX_SIZE + 1, "x");
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> messageService.sendMessages(1L, alice, tooMany))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> messageService.sendMessages(1L, alice, Arrays.asList("Un", " ")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(messageRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'envoi groupé d'un non participant")
+    void shouldRejectBulk_WhenNotParticipant() {
+        // GIVEN
+        when(membershipCache.isParticipant(1L, alice.getId())).thenReturn(false);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> messageService.sendMessages(1L, alice, List.of("Un")))
+                .isInstanceOf(RuntimeException.class);
+        verifyNoInteractions(messageRepository, eventPublisher);
+    }
+
+    // ========== Tests sendMessageGroup ==========
+
+    @Test
+    @DisplayName("Devrait enregistrer un groupe de plusieurs conversations en une transaction")
+    void shouldSendMessageGroup() {
+        // GIVEN
+        Conversation other = new Conversation();
+        when(conversationRepository.getReferenceById(1L)).thenReturn(conversation);
+        when(conversationRepository.getReferenceById(2L)).thenReturn(other);
+        when(messageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<MessageDraft> drafts = List.of(
+                new MessageDraft(1L, alice, "Un", null),
+                new MessageDraft(2L, bob, "Deux", null),
+                new MessageDraft(1L, bob, null, testPhoto));
+
+        // WHEN
+        List<Message> result = messageService.sendMessageGroup(drafts);
+
+        // THEN - ordre conservé, un résumé par conversation
+        assertThat(result).extracting(Message::getText).containsExactly("Un", "Deux", null);
+        assertThat(result).extracting(Message::getConversation).containsExactly(conversation, other, conversation);
+        verify(conversationRepository, times(1)).recordMessages(eq(1L), eq(2L), any(), any(), eq("Photo"));
+        verify(conversationRepository, times(1)).recordMessages(eq(2L), eq(1L), any(), any(), eq("Deux"));
+        verify(eventPublisher, times(3)).publishEvent(any(MessageSentEvent.class));
+        verifyNoInteractions(membershipCache);
+    }
+
+    // ========== Tests preview ==========
+
+    @Test
+    @DisplayName("Devrait tronquer l'aperçu des messages trop longs")
+    void shouldTruncateLongPreview() {
+        // GIVEN
+        String longText = "a".repeat(Conversation.PREVIEW_LENGTH + 20);
+
+        // WHEN
+        String preview = MessageService.preview("  " + longText + "  ", null);
+
+        // THEN
+        assertThat(preview).hasSize(Conversation.PREVIEW_LENGTH);
+        assertThat(preview).endsWith("…");
+    }
+
+    @Test
+    @DisplayName("Devrait résumer une photo sans texte")
+    void shouldPreviewPhotoOnlyMessage() {
+        assertThat(MessageService.preview("  ", testPhoto)).isEqualTo("Photo");
+        assertThat(MessageService.preview(null, null)).isNull();
+        assertThat(MessageService.preview(" Salut ", testPhoto)).isEqualTo("Salut");
+    }
+
     // ========== Tests listMessages ==========
 
     @Test
-    @DisplayName("Devrait lister tous les messages d'une conversation")
+    @DisplayName("Devrait lister les messages d'une conversation du plus ancien au plus récent")
     void shouldListAllMessagesInConversation() {
-        // GIVEN
+        // GIVEN - le repository renvoie du plus récent au plus ancien
         Long conversationId = 1L;
 
         Message msg1 = new Message();
@@ -238,22 +389,21 @@ class MessageServiceTest {
         msg3.setText("Troisième message");
         msg3.setCreatedAt(LocalDateTime.now());
 
-        List<Message> messages = Arrays.asList(msg1, msg2, msg3);
-
-        when(messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId))
-                .thenReturn(messages);
+        when(messageRepository.findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1)))
+                .thenReturn(Arrays.asList(MessageView.of(msg3), MessageView.of(msg2), MessageView.of(msg1)));
 
         // WHEN
-        List<Message> result = messageService.listMessages(conversationId);
+        MessagePage result = messageService.listMessages(conversationId);
 
         // THEN
-        assertThat(result).hasSize(3);
-        assertThat(result).containsExactly(msg1, msg2, msg3);
-        assertThat(result.get(0).getText()).isEqualTo("Premier message");
-        assertThat(result.get(2).getText()).isEqualTo("Troisième message");
+        assertThat(result.messages()).hasSize(3);
+        assertThat(result.messages()).containsExactly(MessageView.of(msg1), MessageView.of(msg2), MessageView.of(msg3));
+        assertThat(result.messages().get(0).text()).isEqualTo("Premier message");
+        assertThat(result.messages().get(2).text()).isEqualTo("Troisième message");
+        assertThat(result.hasOlder()).isFalse();
 
         verify(messageRepository, times(1))
-                .findByConversationIdOrderByCreatedAtAsc(conversationId);
+                .findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1));
     }
 
     @Test
@@ -261,16 +411,135 @@ class MessageServiceTest {
     void shouldReturnEmptyList_WhenNoMessages() {
         // GIVEN
         Long conversationId = 1L;
-        when(messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId))
+        when(messageRepository.findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1)))
                 .thenReturn(List.of());
 
         // WHEN
-        List<Message> result = messageService.listMessages(conversationId);
+        MessagePage result = messageService.listMessages(conversationId);
 
         // THEN
-        assertThat(result).isEmpty();
+        assertThat(result.messages()).isEmpty();
+        assertThat(result.olderCursor()).isNull();
         verify(messageRepository, times(1))
-                .findByConversationIdOrderByCreatedAtAsc(conversationId);
+                .findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("Devrait limiter la première page et fournir un curseur vers les messages précédents")
+    void shouldLimitFirstPage_AndReturnOlderCursor() {
+        // GIVEN - PAGE_SIZE + 1 messages renvoyés (du plus récent au plus ancien)
+        Long conversationId = 1L;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<MessageView> newestFirst = new ArrayList<>();
+        for (int i = 0; i <= MessageService.PAGE_SIZE; i++) {
+            newestFirst.add(new MessageView((long) (MessageService.PAGE_SIZE - i), 1L,
+                    "Message " + i, null, null, now.minusMinutes(i)));
+        }
+
+        when(messageRepository.findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1)))
+                .thenReturn(newestFirst);
+
+        // WHEN
+        MessagePage result = messageService.listMessages(conversationId);
+
+        // THEN - le message en trop n'est pas affiché, il sert à détecter la page précédente
+        assertThat(result.messages()).hasSize(MessageService.PAGE_SIZE);
+        assertThat(result.messages().get(0).text()).isEqualTo("Message " + (MessageService.PAGE_SIZE - 1));
+        assertThat(result.messages().get(MessageService.PAGE_SIZE - 1).text()).isEqualTo("Message 0");
+        assertThat(result.hasOlder()).isTrue();
+        assertThat(result.olderCursor().createdAt())
+                .isEqualTo(now.minusMinutes(MessageService.PAGE_SIZE - 1));
+    }
+
+    @Test
+    @DisplayName("Devrait servir la première page depuis le cache sans requête")
+    void shouldServeFirstPageFromTailCache() {
+        // GIVEN
+        Long conversationId = 1L;
+        MessageView cached = new MessageView(1L, 1L, "En cache", null, null, LocalDateTime.now());
+        MessagePage page = new MessagePage(List.of(cached), null);
+
+        when(tailCache.get(conversationId)).thenReturn(Optional.of(page));
+
+        // WHEN
+        MessagePage result = messageService.listMessages(conversationId);
+
+        // THEN
+        assertThat(result).isSameAs(page);
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait mettre en cache la première page chargée depuis la base")
+    void shouldPopulateTailCache_OnMiss() {
+        // GIVEN
+        Long conversationId = 1L;
+        when(tailCache.get(conversationId)).thenReturn(Optional.empty());
+        when(tailCache.stamp(conversationId)).thenReturn(7L);
+        when(messageRepository.findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1)))
+                .thenReturn(List.of());
+
+        // WHEN
+        MessagePage result = messageService.listMessages(conversationId);
+
+        // THEN
+        verify(tailCache, times(1)).put(conversationId, result, 7L);
+    }
+
+    @Test
+    @DisplayName("Devrait charger la page précédant un curseur")
+    void shouldListMessagesBeforeCursor() {
+        // GIVEN
+        Long conversationId = 1L;
+        MessageCursor cursor = new MessageCursor(LocalDateTime.now(), 100L);
+
+        MessageView older = new MessageView(42L, 2L, "Ancien message", null, null, LocalDateTime.now().minusDays(1));
+
+        when(messageRepository.findInConversationBefore(conversationId, cursor.createdAt(), 100L,
+                Limit.of(MessageService.PAGE_SIZE + 1)))
+                .thenReturn(List.of(older));
+
+        // WHEN
+        MessagePage result = messageService.listMessagesBefore(conversationId, cursor);
+
+        // THEN
+        assertThat(result.messages()).containsExactly(older);
+        assertThat(result.hasOlder()).isFalse();
+    }
+
+    // ========== Tests listMessagesSince ==========
+
+    @Test
+    @DisplayName("Devrait répondre sans requête quand le cache sait que rien n'est plus récent")
+    void shouldReturnNothingNew_WithoutQuery_WhenCacheKnows() {
+        // GIVEN
+        Long conversationId = 1L;
+        when(tailCache.nothingNewAfter(conversationId, 42L, MessageService.RESUME_OVERLAP)).thenReturn(true);
+
+        // WHEN
+        List<MessageView> result = messageService.listMessagesSince(conversationId, 42L);
+
+        // THEN
+        assertThat(result).isEmpty();
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait relire les messages depuis le curseur, avec recouvrement, quand le cache ne sait pas")
+    void shouldLoadMessagesWithOverlap_WhenCacheDoesNotKnow() {
+        // GIVEN
+        Long conversationId = 1L;
+        MessageView newer = new MessageView(43L, 2L, "Nouveau", null, null, LocalDateTime.now());
+        when(tailCache.nothingNewAfter(conversationId, 42L, MessageService.RESUME_OVERLAP)).thenReturn(false);
+        when(messageRepository.findInConversationResuming(conversationId, 42L, MessageService.RESUME_OVERLAP,
+                Limit.of(MessageService.PAGE_SIZE))).thenReturn(List.of(newer));
+
+        // WHEN
+        List<MessageView> result = messageService.listMessagesSince(conversationId, 42L);
+
+        // THEN
+        assertThat(result).containsExactly(newer);
     }
 
     // ========== Tests listPhotos ==========
@@ -281,26 +550,27 @@ class MessageServiceTest {
         // GIVEN
         Long conversationId = 1L;
 
-        Photo photo1 = new Photo("uuid1.jpg", "photo1.jpg", "/uploads/uuid1.jpg", alice);
-        Photo photo2 = new Photo("uuid2.jpg", "photo2.jpg", "/uploads/uuid2.jpg", bob);
-        Photo photo3 = new Photo("uuid3.jpg", "photo3.jpg", "/uploads/uuid3.jpg", alice);
+        LocalDateTime now = LocalDateTime.now();
+        GalleryPhotoView photo1 = new GalleryPhotoView(1L, "/uploads/uuid1.jpg", null, "photo1.jpg", "alice", now);
+        GalleryPhotoView photo2 = new GalleryPhotoView(2L, "/uploads/uuid2.jpg", null, "photo2.jpg", "bob", now);
+        GalleryPhotoView photo3 = new GalleryPhotoView(3L, "/uploads/uuid3.jpg", null, "photo3.jpg", "alice", now);
 
-        List<Photo> photos = Arrays.asList(photo1, photo2, photo3);
+        List<GalleryPhotoView> photos = Arrays.asList(photo1, photo2, photo3);
 
-        when(messageRepository.findPhotosInConversation(conversationId))
+        when(messageRepository.findPhotosInConversation(eq(conversationId), any()))
                 .thenReturn(photos);
 
         // WHEN
-        List<Photo> result = messageService.listPhotos(conversationId);
+        List<GalleryPhotoView> result = messageService.listPhotos(conversationId, now);
 
         // THEN
         assertThat(result).hasSize(3);
         assertThat(result).containsExactly(photo1, photo2, photo3);
-        assertThat(result.get(0).getAuthor()).isEqualTo(alice);
-        assertThat(result.get(1).getAuthor()).isEqualTo(bob);
+        assertThat(result.get(0).authorUsername()).isEqualTo("alice");
+        assertThat(result.get(1).authorUsername()).isEqualTo("bob");
 
         verify(messageRepository, times(1))
-                .findPhotosInConversation(conversationId);
+                .findPhotosInConversation(eq(conversationId), any());
     }
 
     @Test
@@ -308,16 +578,31 @@ class MessageServiceTest {
     void shouldReturnEmptyList_WhenNoPhotos() {
         // GIVEN
         Long conversationId = 1L;
-        when(messageRepository.findPhotosInConversation(conversationId))
+        when(messageRepository.findPhotosInConversation(eq(conversationId), any()))
                 .thenReturn(List.of());
 
         // WHEN
-        List<Photo> result = messageService.listPhotos(conversationId);
+        List<GalleryPhotoView> result = messageService.listPhotos(conversationId, LocalDateTime.now());
 
         // THEN
         assertThat(result).isEmpty();
         verify(messageRepository, times(1))
-                .findPhotosInConversation(conversationId);
+                .findPhotosInConversation(eq(conversationId), any());
+    }
+
+    @Test
+    @DisplayName("Devrait borner la galerie par la date de création de la conversation, avec une marge")
+    void shouldBoundPhotos_ByConversationCreation() {
+        // GIVEN
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 10, 12, 0);
+        when(messageRepository.findPhotosInConversation(1L, createdAt.minusDays(1))).thenReturn(List.of());
+
+        // WHEN
+        List<GalleryPhotoView> result = messageService.listPhotos(1L, createdAt);
+
+        // THEN
+        assertThat(result).isEmpty();
+        verify(messageRepository).findPhotosInConversation(1L, createdAt.minusDays(1));
     }
 
     @Test
@@ -327,24 +612,26 @@ class MessageServiceTest {
         Long conversationId = 1L;
 
         Message msgWithPhoto = new Message();
+        msgWithPhoto.setSender(alice);
         msgWithPhoto.setText("Avec photo");
         msgWithPhoto.setPhoto(testPhoto);
 
         Message msgWithoutPhoto = new Message();
+        msgWithoutPhoto.setSender(bob);
         msgWithoutPhoto.setText("Sans photo");
         msgWithoutPhoto.setPhoto(null);
 
-        List<Message> messages = Arrays.asList(msgWithPhoto, msgWithoutPhoto);
+        List<MessageView> newestFirst = Arrays.asList(MessageView.of(msgWithoutPhoto), MessageView.of(msgWithPhoto));
 
-        when(messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId))
-                .thenReturn(messages);
+        when(messageRepository.findLatestInConversation(conversationId, Limit.of(MessageService.PAGE_SIZE + 1)))
+                .thenReturn(newestFirst);
 
         // WHEN
-        List<Message> result = messageService.listMessages(conversationId);
+        List<MessageView> result = messageService.listMessages(conversationId).messages();
 
         // THEN
         assertThat(result).hasSize(2);
-        assertThat(result.get(0).getPhoto()).isNotNull();
-        assertThat(result.get(1).getPhoto()).isNull();
+        assertThat(result.get(0).photoUrl()).isEqualTo("/uploads/uuid_photo.jpg");
+        assertThat(result.get(1).photoUrl()).isNull();
     }
 }
\ No newline at end of file
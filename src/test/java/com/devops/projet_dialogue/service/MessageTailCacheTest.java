@@ -0,0 +1,145 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.MessagePage;
+import com.devops.projet_dialogue.dto.MessageView;
+import com.devops.projet_dialogue.event.MessageSentEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour MessageTailCache
+ */
+@DisplayName("Tests du MessageTailCache")
+class MessageTailCacheTest {
+
+    private static MessageView message(String text) {
+        return new MessageView(null, 1L, text, null, null, LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Devrait compter un miss puis un hit")
+    void shouldCountMissThenHit() {
+        MessageTailCache cache = new MessageTailCache(10);
+
+        assertThat(cache.get(1L)).isEmpty();
+        cache.put(1L, new MessagePage(List.of(message("a")), null), cache.stamp(1L));
+        assertThat(cache.get(1L)).isPresent();
+
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait ajouter les nouveaux messages à la fin (write-through)")
+    void shouldAppendNewMessages() {
+        MessageTailCache cache = new MessageTailCache(10);
+        cache.put(1L, new MessagePage(List.of(message("a")), null), cache.stamp(1L));
+
+        cache.append(1L, message("b"));
+
+        MessagePage page = cache.get(1L).orElseThrow();
+        assertThat(page.messages()).extracting(MessageView::text).containsExactly("a", "b");
+        assertThat(page.hasOlder()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait écraser le plus ancien message quand le buffer est plein")
+    void shouldOverwriteOldest_WhenRingIsFull() {
+        MessageTailCache cache = new MessageTailCache(10);
+        List<MessageView> full = new ArrayList<>();
+        for (int i = 0; i < MessageService.PAGE_SIZE; i++) {
+            full.add(message("m" + i));
+        }
+        cache.put(1L, new MessagePage(full, null), cache.stamp(1L));
+
+        cache.append(1L, message("nouveau"));
+
+        MessagePage page = cache.get(1L).orElseThrow();
+        assertThat(page.messages()).hasSize(MessageService.PAGE_SIZE);
+        assertThat(page.messages().get(0).text()).isEqualTo("m1");
+        assertThat(page.messages().get(MessageService.PAGE_SIZE - 1).text()).isEqualTo("nouveau");
+        assertThat(page.hasOlder()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas mettre en cache une page devenue périmée")
+    void shouldIgnoreStalePut() {
+        MessageTailCache cache = new MessageTailCache(10);
+        long stamp = cache.stamp(1L);
+
+        // Un message est envoyé pendant le chargement depuis la base
+        cache.append(1L, message("concurrent"));
+        cache.put(1L, new MessagePage(List.of(), null), stamp);
+
+        assertThat(cache.get(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait évincer la conversation la moins récemment lue")
+    void shouldEvictLeastRecentlyUsedConversation() {
+        MessageTailCache cache = new MessageTailCache(2);
+        cache.put(1L, new MessagePage(List.of(message("a")), null), cache.stamp(1L));
+        cache.put(2L, new MessagePage(List.of(message("b")), null), cache.stamp(2L));
+
+        cache.get(1L); // 1 devient la plus récente
+        cache.put(3L, new MessagePage(List.of(message("c")), null), cache.stamp(3L));
+
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(3L)).isPresent();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait savoir qu'il n'y a rien de nouveau quand le curseur est le dernier message")
+    void shouldKnowNothingIsNew_WhenCursorIsLastMessage() {
+        MessageTailCache cache = new MessageTailCache(10);
+        LocalDateTime now = LocalDateTime.now();
+        MessageView older = new MessageView(7L, 1L, "ancien", null, null, now.minusMinutes(5));
+        MessageView last = new MessageView(9L, 1L, "dernier", null, null, now);
+        cache.put(1L, new MessagePage(List.of(older, last), null), cache.stamp(1L));
+
+        assertThat(cache.nothingNewAfter(1L, 9L, Duration.ofSeconds(10))).isTrue();
+        assertThat(cache.nothingNewAfter(1L, 7L, Duration.ofSeconds(10))).isFalse();
+        // Conversation absente du cache : il ne sait pas
+        assertThat(cache.nothingNewAfter(2L, 9L, Duration.ofSeconds(10))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien affirmer quand un message d'id inférieur est validé après le curseur")
+    void shouldNotAnswer_WhenLowerIdIsCommittedAfterCursor() {
+        MessageTailCache cache = new MessageTailCache(10);
+        LocalDateTime now = LocalDateTime.now();
+        cache.put(1L, new MessagePage(List.of(new MessageView(60L, 1L, "curseur", null, null, now)), null),
+                cache.stamp(1L));
+
+        // Id d'un bloc plus ancien (autre transaction), validé après le message 60
+        cache.append(1L, new MessageView(12L, 1L, "tardif", null, null, now.minusSeconds(1)));
+
+        assertThat(cache.nothingNewAfter(1L, 60L, Duration.ofSeconds(10))).isFalse();
+        assertThat(cache.nothingNewAfter(1L, 12L, Duration.ofSeconds(10))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait ajouter le message publié une fois, même s'il est déjà en cache")
+    void shouldAppendPublishedMessageOnce() {
+        MessageTailCache cache = new MessageTailCache(10);
+        MessageView sent = new MessageView(9L, 1L, "nouveau", null, null, LocalDateTime.now());
+        // La page a été lue en base après la validation du message
+        cache.put(1L, new MessagePage(List.of(sent), null), cache.stamp(1L));
+
+        cache.onMessageSent(new MessageSentEvent(1L, sent));
+
+        MessagePage page = cache.get(1L).orElseThrow();
+        assertThat(page.messages()).extracting(MessageView::id).containsExactly(9L);
+        assertThat(cache.nothingNewAfter(1L, 9L, Duration.ofSeconds(10))).isTrue();
+    }
+}
@@ -0,0 +1,64 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.repository.PhotoContentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests d'intégration pour PhotoContentLock
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du PhotoContentLock")
+class PhotoContentLockTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @Autowired
+    private PhotoContentRepository photoContentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PhotoContentLock contentLock;
+
+    @BeforeEach
+    void setUp() {
+        contentLock = new PhotoContentLock(photoContentRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Devrait créer la ligne du contenu une seule fois et exécuter l'action sous le verrou")
+    void shouldCreateContentRow_AndRunAction() throws IOException {
+        // WHEN
+        String first = contentLock.call(HASH, () -> "premier");
+        String second = contentLock.call(HASH, () -> "second");
+
+        // THEN
+        assertThat(first).isEqualTo("premier");
+        assertThat(second).isEqualTo("second");
+        assertThat(photoContentRepository.count()).isEqualTo(1);
+        assertThat(photoContentRepository.lock(HASH)).contains(HASH);
+    }
+
+    @Test
+    @DisplayName("Devrait relancer l'IOException de l'action")
+    void shouldRethrowIOException() {
+        // WHEN & THEN
+        assertThatThrownBy(() -> contentLock.call(HASH, () -> {
+            throw new IOException("stockage indisponible");
+        }))
+                .isInstanceOf(IOException.class)
+                .hasMessage("stockage indisponible");
+    }
+}
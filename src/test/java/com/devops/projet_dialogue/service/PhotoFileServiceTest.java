@@ -0,0 +1,140 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.service.PhotoFileService.PhotoFile;
+import com.devops.projet_dialogue.storage.LocalPhotoStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour PhotoFileService
+ */
+@DisplayName("Tests du PhotoFileService")
+class PhotoFileServiceTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @TempDir
+    Path root;
+
+    private Path uploadDir;
+
+    private PhotoFileService photoFileService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploadDir = Files.createDirectory(root.resolve("uploads"));
+        photoFileService = new PhotoFileService(new LocalPhotoStorage(uploadDir), new UploadLayout(2));
+    }
+
+    @Test
+    @DisplayName("Devrait utiliser l'empreinte du contenu comme ETag")
+    void shouldUseContentHashAsEtag() throws IOException {
+        // GIVEN
+        Files.writeString(uploadDir.resolve(HASH + ".png"), "image");
+
+        // WHEN
+        Optional<PhotoFile> file = photoFileService.find("/" + HASH + ".png");
+
+        // THEN
+        assertThat(file).isPresent();
+        assertThat(file.get().etag()).isEqualTo("\"" + HASH + "\"");
+        assertThat(file.get().size()).isEqualTo(5);
+        assertThat(file.get().mediaType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(file.get().contentAddressed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait trouver une miniature dans un sous-dossier")
+    void shouldFindThumbnail() throws IOException {
+        // GIVEN
+        Files.createDirectories(uploadDir.resolve("thumbnails/320"));
+        Files.writeString(uploadDir.resolve("thumbnails/320/" + HASH + ".jpg"), "mini");
+
+        // WHEN & THEN
+        assertThat(photoFileService.find("/thumbnails/320/" + HASH + ".jpg")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas sortir du dossier uploads")
+    void shouldRejectPathTraversal() throws IOException {
+        // GIVEN
+        Files.writeString(root.resolve("secret.txt"), "secret");
+
+        // WHEN & THEN
+        assertThat(photoFileService.find("/../secret.txt")).isEmpty();
+        assertThat(photoFileService.find("/")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas servir un fichier en cours d'écriture")
+    void shouldIgnoreHiddenFiles() throws IOException {
+        // GIVEN
+        Files.writeString(uploadDir.resolve(".upload-123"), "partiel");
+
+        // WHEN & THEN
+        assertThat(photoFileService.find("/.upload-123")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait copier la plage demandée dans la réponse")
+    void shouldTransferRange() throws IOException {
+        // GIVEN
+        Files.writeString(uploadDir.resolve("photo.jpg"), "0123456789");
+        PhotoFile file = photoFileService.find("/photo.jpg").orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // WHEN
+        photoFileService.transfer(file, 3, 6, new MockHttpServletRequest(), out);
+
+        // THEN - nom qui ne dérive pas du contenu : pas immuable
+        assertThat(file.contentAddressed()).isFalse();
+        assertThat(out.toString()).isEqualTo("3456");
+    }
+
+    @Test
+    @DisplayName("Devrait déléguer l'envoi à Tomcat quand sendfile est disponible")
+    void shouldUseSendfile_WhenSupported() throws IOException {
+        // GIVEN
+        Files.write(uploadDir.resolve("photo.jpg"), new byte[100_000]);
+        PhotoFile file = photoFileService.find("/photo.jpg").orElseThrow();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(PhotoFileService.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // WHEN
+        photoFileService.transfer(file, 0, 99_999, request, out);
+
+        // THEN
+        assertThat(out.size()).isZero();
+        assertThat(request.getAttribute(PhotoFileService.SENDFILE_FILENAME_ATTR)).isEqualTo(file.path().toString());
+        assertThat(request.getAttribute(PhotoFileService.SENDFILE_START_ATTR)).isEqualTo(0L);
+        assertThat(request.getAttribute(PhotoFileService.SENDFILE_END_ATTR)).isEqualTo(100_000L);
+    }
+
+    @Test
+    @DisplayName("Devrait servir une ancienne URL à plat depuis la répartition en sous-dossiers")
+    void shouldFindRelocatedFile_FromFlatUrl() throws IOException {
+        // GIVEN
+        Files.createDirectories(uploadDir.resolve("aa/aa"));
+        Files.writeString(uploadDir.resolve("aa/aa/" + HASH + ".png"), "image");
+
+        // WHEN
+        Optional<PhotoFile> file = photoFileService.find("/" + HASH + ".png");
+
+        // THEN
+        assertThat(file).isPresent();
+        assertThat(file.get().path()).isEqualTo(uploadDir.resolve("aa/aa/" + HASH + ".png"));
+    }
+}
@@ -1,28 +1,37 @@
 package com.devops.projet_dialogue.service;
 
+import com.devops.projet_dialogue.event.PhotoUploadedEvent;
+import com.devops.projet_dialogue.exception.PhotoTooLargeException;
 import com.devops.projet_dialogue.model.Photo;
 import com.devops.projet_dialogue.model.User;
 import com.devops.projet_dialogue.repository.PhotoRepository;
+import com.devops.projet_dialogue.storage.LocalPhotoStorage;
+import com.devops.projet_dialogue.storage.PhotoStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,6 +44,12 @@ class PhotoServiceTest {
     @Mock
     private PhotoRepository photoRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PhotoContentLock contentLock;
+
     private PhotoService photoService;
 
     private User alice;
@@ -43,39 +58,13 @@ class PhotoServiceTest {
     Path tempDir; // JUnit crée un dossier temporaire pour chaque test
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
+        // Verrou en base : l'action est exécutée directement
+        lenient().when(contentLock.call(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<PhotoContentLock.Action<?>>getArgument(1).run());
+
         // Utiliser le dossier temporaire au lieu de "uploads"
-        photoService = new PhotoService(photoRepository) {
-            // On override le uploadDir pour utiliser le tempDir
-            @Override
-            public Photo savePhoto(MultipartFile file, User author) throws IOException {
-                if (file.isEmpty()) {
-                    throw new IllegalArgumentException("Le fichier est vide.");
-                }
-
-                if (!Objects.requireNonNull(file.getContentType()).startsWith("image/")) {
-                    throw new IllegalArgumentException("Le fichier n'est pas une image.");
-                }
-
-                // Générer un nom unique avec UUID comme le vrai service
-                String extension = "";
-                String originalFilename = file.getOriginalFilename();
-                if (originalFilename != null && originalFilename.contains(".")) {
-                    extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-                }
-                String uniqueName = UUID.randomUUID().toString() + extension;
-
-                // Simuler la sauvegarde dans le tempDir
-                Path destination = tempDir.resolve(uniqueName);
-                Files.copy(file.getInputStream(), destination);
-
-                String url = "/uploads/" + uniqueName;
-                Photo photo = new Photo(uniqueName, file.getOriginalFilename(), url, author);
-                photo.setCreatedAt(LocalDateTime.now());
-
-                return photoRepository.save(photo);
-            }
-        };
+        photoService = new PhotoService(photoRepository, eventPublisher, new LocalPhotoStorage(tempDir), contentLock);
 
         alice = new User("alice", "password1", "ROLE_USER");
         alice.setCreatedAt(LocalDateTime.now());
@@ -172,8 +161,8 @@ class PhotoServiceTest {
     }
 
     @Test
-    @DisplayName("Devrait générer un nom de fichier unique avec UUID")
-    void shouldGenerateUniqueFilename() throws IOException {
+    @DisplayName("Devrait nommer chaque fichier d'après l'empreinte SHA-256 de son contenu")
+    void shouldNameFileAfterContentHash() throws IOException {
         // GIVEN
         MockMultipartFile file1 = new MockMultipartFile(
                 "file",
@@ -196,20 +185,258 @@ class PhotoServiceTest {
         Photo result1 = photoService.savePhoto(file1, alice);
         Photo result2 = photoService.savePhoto(file2, alice);
 
-        // THEN
-        ArgumentCaptor<Photo> photoCaptor = ArgumentCaptor.forClass(Photo.class);
-        verify(photoRepository, times(2)).save(photoCaptor.capture());
-
-        // Les deux fichiers doivent avoir des noms différents même si le nom original est identique
+        // THEN - Même nom d'origine, contenus différents : deux fichiers
         assertThat(result1.getFilename()).isNotEqualTo(result2.getFilename());
-
-        // Vérifier que les deux fichiers existent physiquement
         assertThat(Files.exists(tempDir.resolve(result1.getFilename()))).isTrue();
         assertThat(Files.exists(tempDir.resolve(result2.getFilename()))).isTrue();
 
-        // Vérifier le format UUID (doit ressembler à un UUID)
-        assertThat(result1.getFilename()).matches("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.jpg$");
-        assertThat(result2.getFilename()).matches("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.jpg$");
+        // sha256("content1")
+        assertThat(result1.getContentHash())
+                .isEqualTo("d0b425e00e15a0d36b9b361f02bab63563aed6cb4665083905386c55d5b679fa");
+        assertThat(result1.getFilename()).isEqualTo(result1.getContentHash() + ".jpg");
+        assertThat(result1.getUrl()).isEqualTo("/uploads/" + result1.getFilename());
+    }
+
+    @Test
+    @DisplayName("Devrait stocker une seule fois un contenu envoyé plusieurs fois")
+    void shouldStoreIdenticalContentOnce() throws IOException {
+        // GIVEN
+        MockMultipartFile first = new MockMultipartFile("file", "a.jpg", "image/jpeg", "same".getBytes());
+        MockMultipartFile second = new MockMultipartFile("file", "b.jpg", "image/jpeg", "same".getBytes());
+
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Photo result1 = photoService.savePhoto(first, alice);
+        Photo result2 = photoService.savePhoto(second, alice);
+
+        // THEN - Deux photos, un seul fichier (et aucun fichier temporaire restant)
+        assertThat(result1.getFilename()).isEqualTo(result2.getFilename());
+        assertThat(result2.getOriginalFilename()).isEqualTo("b.jpg");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(tempDir.resolve(result1.getFilename()));
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait réutiliser les miniatures d'un contenu déjà stocké")
+    void shouldReuseThumbnails_WhenContentAlreadyStored() throws IOException {
+        // GIVEN
+        Photo existing = new Photo("hash.jpg", "a.jpg", "/uploads/hash.jpg", alice);
+        existing.setThumbnailUrl("/uploads/thumbnails/320/hash.jpg");
+        existing.setLargeThumbnailUrl("/uploads/thumbnails/640/hash.jpg");
+        when(photoRepository.findFirstByContentHashAndThumbnailUrlIsNotNull(anyString()))
+                .thenReturn(Optional.of(existing));
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Photo result = photoService.savePhoto(
+                new MockMultipartFile("file", "b.jpg", "image/jpeg", "same".getBytes()), alice);
+
+        // THEN - Pas de nouvelle génération
+        assertThat(result.getThumbnailUrl()).isEqualTo("/uploads/thumbnails/320/hash.jpg");
+        assertThat(result.getLargeThumbnailUrl()).isEqualTo("/uploads/thumbnails/640/hash.jpg");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Devrait demander la génération des miniatures d'un nouveau contenu")
+    void shouldPublishUploadEvent_ForNewContent() throws IOException {
+        // GIVEN
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Photo result = photoService.savePhoto(
+                new MockMultipartFile("file", "a.png", "image/png", "png".getBytes()), alice);
+
+        // THEN
+        verify(eventPublisher).publishEvent(new PhotoUploadedEvent(result.getId(), result.getFilename(), result.getContentHash()));
+    }
+
+    // ========== Tests deletePhoto ==========
+
+    @Test
+    @DisplayName("Devrait garder le fichier tant qu'une autre photo le partage")
+    void shouldKeepFile_WhileStillReferenced() throws IOException {
+        // GIVEN
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        Photo photo = photoService.savePhoto(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "same".getBytes()), alice);
+        when(photoRepository.countByContentHash(photo.getContentHash())).thenReturn(1L);
+
+        // WHEN
+        photoService.deletePhoto(photo);
+
+        // THEN
+        verify(photoRepository).delete(photo);
+        assertThat(Files.exists(tempDir.resolve(photo.getFilename()))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer le fichier avec la dernière photo qui le référence")
+    void shouldDeleteFile_WithLastReference() throws IOException {
+        // GIVEN
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        Photo photo = photoService.savePhoto(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "same".getBytes()), alice);
+        when(photoRepository.countByContentHash(photo.getContentHash())).thenReturn(0L);
+
+        // WHEN
+        photoService.deletePhoto(photo);
+
+        // THEN
+        assertThat(Files.exists(tempDir.resolve(photo.getFilename()))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer les miniatures enregistrées depuis le chargement de la photo")
+    void shouldDeleteThumbnails_RecordedSinceLoaded() throws IOException {
+        // GIVEN - photo chargée avant la génération de ses miniatures
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        Photo photo = photoService.savePhoto(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "same".getBytes()), alice);
+        Files.createDirectories(tempDir.resolve("thumbnails/320"));
+        Files.writeString(tempDir.resolve("thumbnails/320/small.jpg"), "miniature");
+        Photo current = new Photo(photo.getFilename(), "a.jpg", photo.getUrl(), alice);
+        current.setContentHash(photo.getContentHash());
+        current.setThumbnailUrl("/uploads/thumbnails/320/small.jpg");
+        when(photoRepository.findById(photo.getId())).thenReturn(Optional.of(current));
+        when(photoRepository.countByContentHash(photo.getContentHash())).thenReturn(0L);
+
+        // WHEN
+        photoService.deletePhoto(photo);
+
+        // THEN
+        verify(photoRepository).delete(current);
+        assertThat(Files.exists(tempDir.resolve("thumbnails/320/small.jpg"))).isFalse();
+        assertThat(Files.exists(tempDir.resolve(photo.getFilename()))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer la référence sous le verrou du contenu, avant le dépôt du fichier")
+    void shouldRecordReference_BeforeStoringFile() throws IOException {
+        // GIVEN
+        PhotoStorage storage = mock(PhotoStorage.class);
+        when(storage.newStagingFile()).thenReturn(Files.createFile(tempDir.resolve(".upload-1")));
+        when(storage.head(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(storage.put(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        PhotoService service = new PhotoService(photoRepository, eventPublisher, storage, contentLock);
+
+        // WHEN
+        Photo photo = service.savePhoto(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "same".getBytes()), alice);
+
+        // THEN - dépôt hors du verrou, après l'enregistrement
+        InOrder order = inOrder(contentLock, photoRepository, storage);
+        order.verify(contentLock).call(eq(photo.getContentHash()), any());
+        order.verify(photoRepository).save(photo);
+        order.verify(storage).put(eq(photo.getFilename()), any());
+    }
+
+    @Test
+    @DisplayName("Devrait retirer la référence si le dépôt du fichier échoue")
+    void shouldReleaseReference_WhenStoringFails() throws IOException {
+        // GIVEN
+        PhotoStorage storage = mock(PhotoStorage.class);
+        Path staged = Files.createFile(tempDir.resolve(".upload-1"));
+        when(storage.newStagingFile()).thenReturn(staged);
+        when(storage.head(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(storage.put(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("stockage indisponible")));
+        when(storage.delete(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        when(photoRepository.save(any(Photo.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        PhotoService service = new PhotoService(photoRepository, eventPublisher, storage, contentLock);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> service.savePhoto(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "same".getBytes()), alice))
+                .isInstanceOf(IOException.class)
+                .hasMessage("stockage indisponible");
+
+        ArgumentCaptor<Photo> saved = ArgumentCaptor.forClass(Photo.class);
+        verify(photoRepository).save(saved.capture());
+        verify(photoRepository).delete(saved.getValue());
+        assertThat(Files.exists(staged)).isFalse();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // ========== Tests répartition en sous-dossiers ==========
+
+    @Test
+    @DisplayName("Devrait ranger le fichier dans les sous-dossiers de son empreinte")
+    void shouldStoreFile_InShardedDirectories() throws IOException {
+        // GIVEN
+        PhotoService sharded = new PhotoService(photoRepository, eventPublisher, new LocalPhotoStorage(tempDir),
+                10 * 1024 * 1024, new UploadLayout(2), contentLock);
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Photo photo = sharded.savePhoto(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", "content".getBytes()), alice);
+
+        // THEN
+        String hash = photo.getContentHash();
+        String expected = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".jpg";
+        assertThat(photo.getFilename()).isEqualTo(expected);
+        assertThat(photo.getUrl()).isEqualTo("/uploads/" + expected);
+        assertThat(Files.exists(tempDir.resolve(expected))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait déplacer une photo stockée à plat et ses miniatures dans les sous-dossiers")
+    void shouldRelocateFlatPhoto() throws IOException {
+        // GIVEN - photo antérieure à la répartition, miniature de 640 = original
+        PhotoService sharded = new PhotoService(photoRepository, eventPublisher, new LocalPhotoStorage(tempDir),
+                10 * 1024 * 1024, new UploadLayout(1), contentLock);
+        String name = "3f2a_photo.png";
+        Files.writeString(tempDir.resolve(name), "original");
+        Files.createDirectories(tempDir.resolve("thumbnails/320"));
+        Files.writeString(tempDir.resolve("thumbnails/320/3f2a_photo.jpg"), "mini");
+        Photo photo = new Photo(name, "photo.png", "/uploads/" + name, alice);
+        ReflectionTestUtils.setField(photo, "id", 5L);
+        photo.setThumbnailUrl("/uploads/thumbnails/320/3f2a_photo.jpg");
+        photo.setLargeThumbnailUrl("/uploads/" + name);
+
+        // WHEN
+        boolean moved = sharded.relocate(photo);
+
+        // THEN
+        assertThat(moved).isTrue();
+        assertThat(Files.readString(tempDir.resolve("3f/" + name))).isEqualTo("original");
+        assertThat(Files.readString(tempDir.resolve("thumbnails/320/3f/3f2a_photo.jpg"))).isEqualTo("mini");
+        assertThat(Files.exists(tempDir.resolve(name))).isFalse();
+        verify(photoRepository).relocate(5L, "3f/" + name, "/uploads/3f/" + name,
+                "/uploads/thumbnails/320/3f/3f2a_photo.jpg", "/uploads/3f/" + name);
+
+        // Déjà dans la répartition : rien à faire
+        photo.setFilename("3f/" + name);
+        assertThat(sharded.relocate(photo)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer le fichier déplacé d'une photo lue avant sa migration")
+    void shouldDeleteRelocatedFile_FromStaleUrl() throws IOException {
+        // GIVEN
+        PhotoService sharded = new PhotoService(photoRepository, eventPublisher, new LocalPhotoStorage(tempDir),
+                10 * 1024 * 1024, new UploadLayout(1), contentLock);
+        Files.createDirectories(tempDir.resolve("3f"));
+        Files.writeString(tempDir.resolve("3f/3f2a_photo.png"), "original");
+        Photo stale = new Photo("3f2a_photo.png", "photo.png", "/uploads/3f2a_photo.png", alice);
+
+        // WHEN
+        sharded.deletePhoto(stale);
+
+        // THEN
+        assertThat(Files.exists(tempDir.resolve("3f/3f2a_photo.png"))).isFalse();
     }
 
     // ========== Tests savePhoto - Cas d'erreur ==========
@@ -290,6 +517,44 @@ class PhotoServiceTest {
         verify(photoRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Devrait rejeter une image SVG")
+    void shouldRejectSvgFile() {
+        // GIVEN - SVG : document actif servi depuis l'origine des photos
+        MockMultipartFile svgFile = new MockMultipartFile(
+                "file",
+                "image.svg",
+                "image/svg+xml",
+                "<svg></svg>".getBytes()
+        );
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> photoService.savePhoto(svgFile, alice))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Le fichier n'est pas une image.");
+
+        verify(photoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter un type d'image inconnu, quel que soit le nom du fichier")
+    void shouldRejectUnknownImageType() {
+        // GIVEN - l'extension du nom d'origine n'est pas reprise
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "page.html",
+                "image/x-unknown",
+                "<html></html>".getBytes()
+        );
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> photoService.savePhoto(file, alice))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Le fichier n'est pas une image.");
+
+        verify(photoRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Devrait gérer les noms de fichiers avec caractères spéciaux")
     void shouldHandleSpecialCharactersInFilename() throws IOException {
@@ -310,8 +575,8 @@ class PhotoServiceTest {
         // THEN
         assertThat(result).isNotNull();
         assertThat(result.getOriginalFilename()).isEqualTo("photo été 2024 (1).jpg");
-        // Le nom de fichier généré doit être un UUID, pas le nom original
-        assertThat(result.getFilename()).matches("^[0-9a-f-]+\\.jpg$");
+        // Le nom de fichier généré est l'empreinte du contenu, pas le nom original
+        assertThat(result.getFilename()).matches("^[0-9a-f]{64}\\.jpg$");
 
         verify(photoRepository, times(1)).save(any(Photo.class));
     }
@@ -325,7 +590,7 @@ class PhotoServiceTest {
                 {"image/png", "png"},
                 {"image/gif", "gif"},
                 {"image/webp", "webp"},
-                {"image/svg+xml", "svg"}
+                {"image/bmp", "bmp"}
         };
 
         when(photoRepository.save(any(Photo.class)))
@@ -346,4 +611,91 @@ class PhotoServiceTest {
 
         verify(photoRepository, times(imageTypes.length)).save(any(Photo.class));
     }
-}
\ No newline at end of file
+
+    // ========== Tests savePhoto - Envoi en flux ==========
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    private static byte[] png(int size) {
+        byte[] content = new byte[size];
+        System.arraycopy(PNG_HEADER, 0, content, 0, PNG_HEADER.length);
+        return content;
+    }
+
+    @Test
+    @DisplayName("Devrait stocker une image envoyée en flux d'après sa signature")
+    void shouldStoreStreamedImage_UsingSniffedType() throws IOException {
+        // GIVEN - extension du nom d'origine trompeuse, contenu PNG sur plusieurs blocs
+        byte[] content = png(200_000);
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Photo result = photoService.savePhoto(new ByteArrayInputStream(content), "photo.jpg", alice);
+
+        // THEN
+        assertThat(result.getFilename()).matches("^[0-9a-f]{64}\\.png$");
+        assertThat(result.getOriginalFilename()).isEqualTo("photo.jpg");
+        assertThat(Files.readAllBytes(tempDir.resolve(result.getFilename()))).isEqualTo(content);
+        // Seul le fichier final reste dans le dossier
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un flux qui n'est pas une image sans rien écrire")
+    void shouldRejectStreamedNonImage() throws IOException {
+        // GIVEN
+        byte[] content = "<html>pas une image</html>".getBytes();
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> photoService.savePhoto(new ByteArrayInputStream(content), "a.jpg", alice))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Le fichier n'est pas une image.");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un flux vide")
+    void shouldRejectEmptyStream() {
+        assertThatThrownBy(() -> photoService.savePhoto(new ByteArrayInputStream(new byte[0]), "a.png", alice))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Le fichier est vide.");
+    }
+
+    @Test
+    @DisplayName("Devrait interrompre un flux trop volumineux et supprimer le fichier partiel")
+    void shouldAbortStream_WhenTooLarge() throws IOException {
+        // GIVEN - limite à 100 Ko
+        PhotoService limited = new PhotoService(photoRepository, eventPublisher, new LocalPhotoStorage(tempDir),
+                100 * 1024, new UploadLayout(0), contentLock);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> limited.savePhoto(new ByteArrayInputStream(png(300_000)), "a.png", alice))
+                .isInstanceOf(PhotoTooLargeException.class);
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait reconnaître les formats d'image par leurs premiers octets")
+    void shouldSniffImageFormats() {
+        byte[] bmp = new byte[18];
+        bmp[0] = 'B';
+        bmp[1] = 'M';
+        bmp[14] = 40;
+
+        assertThat(PhotoService.sniffExtension(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0}, 4)).isEqualTo("jpg");
+        assertThat(PhotoService.sniffExtension(PNG_HEADER, PNG_HEADER.length)).isEqualTo("png");
+        assertThat(PhotoService.sniffExtension("GIF89a".getBytes(), 6)).isEqualTo("gif");
+        assertThat(PhotoService.sniffExtension("RIFF0000WEBP".getBytes(), 12)).isEqualTo("webp");
+        assertThat(PhotoService.sniffExtension(bmp, bmp.length)).isEqualTo("bmp");
+        assertThat(PhotoService.sniffExtension("BM texte".getBytes(), 8)).isNull();
+        assertThat(PhotoService.sniffExtension("<svg></svg>".getBytes(), 11)).isNull();
+    }
+}
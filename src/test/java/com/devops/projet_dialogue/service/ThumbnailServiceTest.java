@@ -0,0 +1,191 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.event.PhotoUploadedEvent;
+import com.devops.projet_dialogue.repository.MessageRepository;
+import com.devops.projet_dialogue.repository.PhotoRepository;
+import com.devops.projet_dialogue.storage.LocalPhotoStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ThumbnailService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ThumbnailService")
+class ThumbnailServiceTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageTailCache tailCache;
+
+    @Mock
+    private PhotoContentLock contentLock;
+
+    @TempDir
+    Path uploadDir;
+
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Verrou du contenu : l'action s'exécute directement
+        lenient().when(contentLock.call(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<PhotoContentLock.Action<?>>getArgument(1).run());
+        lenient().when(photoRepository.existsById(anyLong())).thenReturn(true);
+        // Exécution immédiate dans le thread du test
+        thumbnailService = new ThumbnailService(photoRepository, messageRepository, tailCache,
+                new LocalPhotoStorage(uploadDir), contentLock, Runnable::run);
+    }
+
+    private void writeImage(String filename, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        ImageIO.write(image, "png", uploadDir.resolve(filename).toFile());
+    }
+
+    @Test
+    @DisplayName("Devrait générer les deux miniatures et les enregistrer sur la photo")
+    void shouldGenerateAndRecordThumbnails() throws IOException {
+        // GIVEN
+        writeImage("uuid_photo.png", 1600, 1200);
+        when(messageRepository.findConversationIdsByPhotoId(7L)).thenReturn(List.of(10L));
+
+        // WHEN
+        thumbnailService.onPhotoUploaded(new PhotoUploadedEvent(7L, "uuid_photo.png", "hash"));
+
+        // THEN
+        verify(contentLock).call(eq("hash"), any());
+        verify(photoRepository).recordThumbnails(7L,
+                "/uploads/thumbnails/320/uuid_photo.jpg",
+                "/uploads/thumbnails/640/uuid_photo.jpg");
+        BufferedImage small = ImageIO.read(uploadDir.resolve("thumbnails/320/uuid_photo.jpg").toFile());
+        BufferedImage large = ImageIO.read(uploadDir.resolve("thumbnails/640/uuid_photo.jpg").toFile());
+        assertThat(small.getWidth()).isEqualTo(320);
+        assertThat(small.getHeight()).isEqualTo(240);
+        assertThat(large.getWidth()).isEqualTo(640);
+        assertThat(large.getHeight()).isEqualTo(480);
+        // La première page en cache affichait la photo sans miniature
+        verify(tailCache).evict(10L);
+    }
+
+    @Test
+    @DisplayName("Devrait garder l'original comme miniature d'une image déjà étroite")
+    void shouldKeepOriginal_WhenImageNarrowerThanThumbnail() throws IOException {
+        // GIVEN
+        writeImage("uuid_small.png", 400, 300);
+
+        // WHEN
+        thumbnailService.generate(8L, "uuid_small.png", "hash");
+
+        // THEN
+        verify(photoRepository).recordThumbnails(8L,
+                "/uploads/thumbnails/320/uuid_small.jpg",
+                "/uploads/uuid_small.png");
+        assertThat(Files.exists(uploadDir.resolve("thumbnails/640"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait ranger les miniatures dans les mêmes sous-dossiers que l'original")
+    void shouldShardThumbnails_LikeOriginal() throws IOException {
+        // GIVEN
+        Files.createDirectories(uploadDir.resolve("ab/cd"));
+        writeImage("ab/cd/abcd_photo.png", 1600, 1200);
+
+        // WHEN
+        thumbnailService.generate(7L, "ab/cd/abcd_photo.png", "hash");
+
+        // THEN
+        verify(photoRepository).recordThumbnails(7L,
+                "/uploads/thumbnails/320/ab/cd/abcd_photo.jpg",
+                "/uploads/thumbnails/640/ab/cd/abcd_photo.jpg");
+        assertThat(Files.exists(uploadDir.resolve("thumbnails/320/ab/cd/abcd_photo.jpg"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien enregistrer si le fichier n'est pas une image lisible")
+    void shouldNotRecord_WhenImageUnreadable() throws IOException {
+        // GIVEN
+        Files.writeString(uploadDir.resolve("uuid_fake.jpg"), "pas une image");
+
+        // WHEN
+        thumbnailService.generate(9L, "uuid_fake.jpg", "hash");
+
+        // THEN
+        verify(photoRepository, never()).recordThumbnails(anyLong(), any(), any());
+        verifyNoInteractions(tailCache);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien déposer si la photo a été supprimée pendant la génération")
+    void shouldDiscardThumbnails_WhenPhotoDeleted() throws IOException {
+        // GIVEN
+        writeImage("uuid_photo.png", 1600, 1200);
+        when(photoRepository.existsById(7L)).thenReturn(false);
+
+        // WHEN
+        thumbnailService.generate(7L, "uuid_photo.png", "hash");
+
+        // THEN - ni miniature déposée, ni fichier temporaire laissé
+        verify(photoRepository, never()).recordThumbnails(anyLong(), any(), any());
+        verifyNoInteractions(tailCache);
+        assertThat(Files.exists(uploadDir.resolve("thumbnails"))).isFalse();
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertThat(files).containsExactly(uploadDir.resolve("uuid_photo.png"));
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer une photo si la file de génération est pleine")
+    void shouldIgnorePhoto_WhenQueueFull() {
+        // GIVEN
+        ThumbnailService saturated = new ThumbnailService(photoRepository, messageRepository, tailCache,
+                new LocalPhotoStorage(uploadDir), contentLock, task -> {
+                    throw new TaskRejectedException("File pleine");
+                });
+
+        // WHEN & THEN
+        assertThatCode(() -> saturated.onPhotoUploaded(new PhotoUploadedEvent(7L, "uuid_photo.png", "hash")))
+                .doesNotThrowAnyException();
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait conserver les proportions lors de la réduction")
+    void shouldKeepAspectRatio_WhenScaling() {
+        // GIVEN
+        BufferedImage portrait = new BufferedImage(1000, 3000, BufferedImage.TYPE_INT_RGB);
+
+        // WHEN
+        BufferedImage scaled = ThumbnailService.scale(portrait, 320);
+
+        // THEN
+        assertThat(scaled.getWidth()).isEqualTo(320);
+        assertThat(scaled.getHeight()).isEqualTo(960);
+    }
+}
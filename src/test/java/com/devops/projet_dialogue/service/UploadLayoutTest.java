@@ -0,0 +1,54 @@
+package com.devops.projet_dialogue.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour UploadLayout
+ */
+@DisplayName("Tests de UploadLayout")
+class UploadLayoutTest {
+
+    private static final String HASH = "abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789";
+
+    @Test
+    @DisplayName("Devrait répartir un nom hexadécimal d'après ses premiers caractères")
+    void shouldShardByHexPrefix() {
+        assertThat(new UploadLayout(2).path(HASH + ".jpg")).isEqualTo("ab/cd/" + HASH + ".jpg");
+        assertThat(new UploadLayout(1).path(HASH + ".jpg")).isEqualTo("ab/" + HASH + ".jpg");
+        assertThat(new UploadLayout(0).path(HASH + ".jpg")).isEqualTo(HASH + ".jpg");
+    }
+
+    @Test
+    @DisplayName("Devrait répartir un autre nom d'après son empreinte, de façon stable")
+    void shouldShardOtherNamesByDigest() {
+        UploadLayout layout = new UploadLayout(2);
+
+        String path = layout.path("photo été.png");
+
+        assertThat(path).matches("^[0-9a-f]{2}/[0-9a-f]{2}/photo été\\.png$");
+        assertThat(layout.path("photo été.png")).isEqualTo(path);
+    }
+
+    @Test
+    @DisplayName("Devrait déplacer un chemin à plat en conservant son dossier parent")
+    void shouldRelocateKeepingParent() {
+        UploadLayout layout = new UploadLayout(2);
+
+        assertThat(layout.relocate("thumbnails/320/" + HASH + ".jpg"))
+                .isEqualTo("thumbnails/320/ab/cd/" + HASH + ".jpg");
+        assertThat(layout.relocate("ab/cd/" + HASH + ".jpg")).isEqualTo("ab/cd/" + HASH + ".jpg");
+        assertThat(layout.isLaidOut("thumbnails/320/ab/cd/" + HASH + ".jpg")).isTrue();
+        assertThat(layout.isLaidOut(HASH + ".jpg")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une profondeur hors limites")
+    void shouldRejectInvalidDepth() {
+        assertThatThrownBy(() -> new UploadLayout(5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new UploadLayout(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
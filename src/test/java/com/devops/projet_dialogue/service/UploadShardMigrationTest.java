@@ -0,0 +1,102 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.model.Photo;
+import com.devops.projet_dialogue.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour UploadShardMigration
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de UploadShardMigration")
+class UploadShardMigrationTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private PhotoService photoService;
+
+    private UploadShardMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new UploadShardMigration(photoRepository, photoService, new UploadLayout(2),
+                true, 2, Duration.ZERO);
+    }
+
+    private static Photo photo(long id) {
+        Photo photo = new Photo("uuid_" + id + ".jpg", id + ".jpg", "/uploads/uuid_" + id + ".jpg", null);
+        ReflectionTestUtils.setField(photo, "id", id);
+        return photo;
+    }
+
+    @Test
+    @DisplayName("Devrait déplacer les photos à plat lot par lot")
+    void shouldMigrateInBatches() throws IOException {
+        // GIVEN
+        Photo p1 = photo(1);
+        Photo p2 = photo(2);
+        Photo p3 = photo(3);
+        when(photoRepository.findFlatAfter(0L, Limit.of(2))).thenReturn(List.of(p1, p2));
+        when(photoRepository.findFlatAfter(2L, Limit.of(2))).thenReturn(List.of(p3));
+        when(photoRepository.findFlatAfter(3L, Limit.of(2))).thenReturn(List.of());
+        when(photoService.relocate(any())).thenReturn(true);
+
+        // WHEN
+        int moved = migration.migrate();
+
+        // THEN
+        assertThat(moved).isEqualTo(3);
+        verify(photoService).relocate(p1);
+        verify(photoService).relocate(p2);
+        verify(photoService).relocate(p3);
+    }
+
+    @Test
+    @DisplayName("Devrait continuer après une photo en échec")
+    void shouldSkipFailedPhoto() throws IOException {
+        // GIVEN
+        Photo p1 = photo(1);
+        Photo p2 = photo(2);
+        when(photoRepository.findFlatAfter(0L, Limit.of(2))).thenReturn(List.of(p1, p2));
+        when(photoRepository.findFlatAfter(2L, Limit.of(2))).thenReturn(List.of());
+        when(photoService.relocate(p1)).thenThrow(new IOException("disque plein"));
+        when(photoService.relocate(p2)).thenReturn(true);
+
+        // WHEN
+        int moved = migration.migrate();
+
+        // THEN
+        assertThat(moved).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien lancer si les uploads sont stockés à plat")
+    void shouldNotStart_WhenLayoutIsFlat() {
+        // GIVEN
+        UploadShardMigration flat = new UploadShardMigration(photoRepository, photoService, new UploadLayout(0),
+                true, 2, Duration.ZERO);
+
+        // WHEN
+        flat.run(null);
+
+        // THEN
+        verifyNoInteractions(photoRepository, photoService);
+    }
+}
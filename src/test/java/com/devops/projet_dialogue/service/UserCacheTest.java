@@ -0,0 +1,128 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.event.UserChangedEvent;
+import com.devops.projet_dialogue.model.User;
+import com.devops.projet_dialogue.security.UserSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour UserCache
+ */
+@DisplayName("Tests du UserCache")
+class UserCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache(2, Duration.ofMinutes(10), now::get);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, "$2a$10$hashedPassword", "ROLE_USER");
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Devrait partager l'entrée entre les index par id et par username")
+    void shouldShareEntryBetweenIndexes() {
+        // GIVEN
+        cache.put(user(1L, "alice"), cache.stamp());
+
+        // WHEN
+        Optional<User> byId = cache.getById(1L);
+        Optional<User> byUsername = cache.getByUsername("alice");
+
+        // THEN
+        assertThat(byId).map(User::getUsername).contains("alice");
+        assertThat(byUsername).map(User::getId).contains(1L);
+        assertThat(cache.stats().size()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait rendre une copie que l'appelant peut modifier sans altérer le cache")
+    void shouldReturnDetachedCopy() {
+        // GIVEN
+        cache.put(user(1L, "alice"), cache.stamp());
+
+        // WHEN
+        cache.getById(1L).orElseThrow().setRole("ROLE_ADMIN");
+
+        // THEN
+        assertThat(cache.getById(1L)).map(User::getRole).contains("ROLE_USER");
+    }
+
+    @Test
+    @DisplayName("Devrait évincer l'utilisateur le moins récemment lu des deux index")
+    void shouldEvictLeastRecentlyUsedFromBothIndexes() {
+        // GIVEN
+        cache.put(user(1L, "alice"), cache.stamp());
+        cache.put(user(2L, "bob"), cache.stamp());
+        cache.getByUsername("alice");
+
+        // WHEN
+        cache.put(user(3L, "charlie"), cache.stamp());
+
+        // THEN
+        assertThat(cache.getByUsername("bob")).isEmpty();
+        assertThat(cache.getById(2L)).isEmpty();
+        assertThat(cache.getById(1L)).isPresent();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait expirer les entrées après le TTL")
+    void shouldExpireEntriesAfterTtl() {
+        // GIVEN
+        cache.put(user(1L, "alice"), cache.stamp());
+
+        // WHEN
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        // THEN
+        assertThat(cache.getByUsername("alice")).isEmpty();
+        assertThat(cache.getById(1L)).isEmpty();
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait retirer l'ancien username à l'invalidation d'un utilisateur renommé")
+    void shouldRemoveOldUsername_WhenInvalidated() {
+        // GIVEN
+        cache.put(user(1L, "alice"), cache.stamp());
+
+        // WHEN
+        cache.onUserChanged(new UserChangedEvent(new UserSnapshot(1L, "alicia", "ROLE_USER")));
+
+        // THEN
+        assertThat(cache.getByUsername("alice")).isEmpty();
+        assertThat(cache.getById(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer un chargement commencé avant une invalidation")
+    void shouldIgnorePut_WhenInvalidatedSinceStamp() {
+        // GIVEN
+        long stamp = cache.stamp();
+        cache.invalidate(1L, "alice");
+
+        // WHEN
+        cache.put(user(1L, "alice"), stamp);
+
+        // THEN
+        assertThat(cache.getById(1L)).isEmpty();
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+}
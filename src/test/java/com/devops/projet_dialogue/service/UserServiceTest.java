@@ -1,7 +1,11 @@
 package com.devops.projet_dialogue.service;
 
+import com.devops.projet_dialogue.dto.UserPage;
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.event.UserChangedEvent;
 import com.devops.projet_dialogue.model.User;
 import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.security.UserSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,12 +13,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +37,15 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private UsernameIndex usernameIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -78,6 +96,51 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByUsername("inconnu");
     }
 
+    @Test
+    @DisplayName("Devrait servir un utilisateur par username depuis le cache sans requête")
+    void shouldServeUsernameFromCache() {
+        // GIVEN
+        when(userCache.getByUsername("alice")).thenReturn(Optional.of(testUser));
+
+        // WHEN
+        Optional<User> result = userService.findByUsername("alice");
+
+        // THEN
+        assertThat(result).contains(testUser);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait mettre en cache un utilisateur chargé depuis la base")
+    void shouldCacheUserLoadedFromRepository() {
+        // GIVEN
+        when(userCache.stamp()).thenReturn(7L);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(testUser));
+
+        // WHEN
+        userService.findByUsername("alice");
+
+        // THEN
+        verify(userCache).put(testUser, 7L);
+    }
+
+    @Test
+    @DisplayName("Devrait lire en base, sans passer par le cache, l'utilisateur qui se connecte")
+    void shouldReadCredentialsFromRepository_ForAuthentication() {
+        // GIVEN - le cache de ce nœud ignore un changement de mot de passe fait ailleurs
+        User fresh = new User("alice", "$2a$10$newHashedPassword", "ROLE_USER");
+        when(userCache.stamp()).thenReturn(7L);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(fresh));
+
+        // WHEN
+        Optional<User> result = userService.findForAuthentication("alice");
+
+        // THEN
+        assertThat(result).contains(fresh);
+        verify(userCache, never()).getByUsername(anyString());
+        verify(userCache).put(fresh, 7L);
+    }
+
     // ========== Tests findById ==========
 
     @Test
@@ -111,6 +174,104 @@ class UserServiceTest {
         // THEN
         assertThat(result).isEmpty();
         verify(userRepository, times(1)).findById(unknownId);
+        verify(userCache, never()).put(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Devrait servir un utilisateur par ID depuis le cache sans requête")
+    void shouldServeIdFromCache() {
+        // GIVEN
+        when(userCache.getById(1L)).thenReturn(Optional.of(testUser));
+
+        // WHEN
+        Optional<User> result = userService.findById(1L);
+
+        // THEN
+        assertThat(result).contains(testUser);
+        verifyNoInteractions(userRepository);
+    }
+
+    // ========== Tests directory ==========
+
+    @Test
+    @DisplayName("Devrait retourner la dernière page de l'annuaire sans curseur suivant")
+    void shouldReturnLastDirectoryPage_WithoutCursor() {
+        // GIVEN
+        List<UserSummary> users = List.of(new UserSummary(2L, "bob"));
+        when(userRepository.findDirectory(1L, Limit.of(UserService.DIRECTORY_PAGE_SIZE + 1))).thenReturn(users);
+
+        // WHEN
+        UserPage page = userService.directory(1L, null);
+
+        // THEN
+        assertThat(page.users()).isEqualTo(users);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer le username du dernier utilisateur affiché comme curseur")
+    void shouldReturnCursor_WhenMoreUsers() {
+        // GIVEN - Une page pleine plus un utilisateur
+        List<UserSummary> users = LongStream.rangeClosed(2, UserService.DIRECTORY_PAGE_SIZE + 2)
+                .mapToObj(id -> new UserSummary(id, String.format("user%03d", id)))
+                .toList();
+        when(userRepository.findDirectoryAfter(1L, "bob", Limit.of(UserService.DIRECTORY_PAGE_SIZE + 1)))
+                .thenReturn(users);
+
+        // WHEN
+        UserPage page = userService.directory(1L, "bob");
+
+        // THEN
+        assertThat(page.users()).hasSize(UserService.DIRECTORY_PAGE_SIZE);
+        assertThat(page.nextCursor()).isEqualTo(page.users().get(UserService.DIRECTORY_PAGE_SIZE - 1).username());
+        verify(userRepository, never()).findDirectory(anyLong(), any());
+    }
+
+    // ========== Tests search ==========
+
+    @Test
+    @DisplayName("Devrait chercher par préfixe dans l'index mémoire une fois chargé")
+    void shouldSearchPrefixInIndex_WhenLoaded() {
+        // GIVEN
+        List<UserSummary> users = List.of(new UserSummary(2L, "bob"));
+        when(usernameIndex.isLoaded()).thenReturn(true);
+        when(usernameIndex.search("bo", 1L, UserService.SEARCH_LIMIT)).thenReturn(users);
+
+        // WHEN
+        List<UserSummary> result = userService.search(" bo ", false, 1L);
+
+        // THEN
+        assertThat(result).isEqualTo(users);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait chercher par préfixe en base tant que l'index n'est pas chargé")
+    void shouldSearchPrefixInDatabase_WhenIndexNotLoaded() {
+        // WHEN
+        userService.search("Bo", false, 1L);
+
+        // THEN
+        verify(userRepository).searchByUsername(1L, "bo%", Limit.of(UserService.SEARCH_LIMIT));
+    }
+
+    @Test
+    @DisplayName("Devrait chercher par sous-chaîne en base en échappant les jokers LIKE")
+    void shouldSearchSubstringInDatabase_EscapingWildcards() {
+        // WHEN
+        userService.search("a_%", true, 1L);
+
+        // THEN
+        verify(userRepository).searchByUsername(1L, "%a\\_\\%%", Limit.of(UserService.SEARCH_LIMIT));
+        verifyNoInteractions(usernameIndex);
+    }
+
+    @Test
+    @DisplayName("Devrait retourner une liste vide pour une recherche vide")
+    void shouldReturnEmpty_WhenQueryBlank() {
+        // WHEN & THEN
+        assertThat(userService.search("  ", false, 1L)).isEmpty();
+        verifyNoInteractions(userRepository, usernameIndex);
     }
 
     // ========== Tests save ==========
@@ -150,6 +311,21 @@ class UserServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getPassword()).isEqualTo("$2a$10$newHashedPassword");
         verify(userRepository, times(1)).save(testUser);
+        verify(eventPublisher, times(1)).publishEvent(new UserChangedEvent(UserSnapshot.of(testUser)));
+    }
+
+    @Test
+    @DisplayName("Devrait invalider le cache à la sauvegarde")
+    void shouldInvalidateCache_WhenSaving() {
+        // GIVEN
+        testUser.setId(1L);
+        when(userRepository.save(testUser)).thenReturn(testUser);
+
+        // WHEN
+        userService.save(testUser);
+
+        // THEN
+        verify(userCache).invalidate(1L, "alice");
     }
 
     @Test
@@ -0,0 +1,113 @@
+package com.devops.projet_dialogue.service;
+
+import com.devops.projet_dialogue.dto.UserSummary;
+import com.devops.projet_dialogue.event.UserChangedEvent;
+import com.devops.projet_dialogue.repository.UserRepository;
+import com.devops.projet_dialogue.security.UserSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour UsernameIndex
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du UsernameIndex")
+class UsernameIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UsernameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findAllSummaries()).thenReturn(List.of(
+                new UserSummary(1L, "alice"),
+                new UserSummary(2L, "Albert"),
+                new UserSummary(3L, "bob"),
+                new UserSummary(4L, "alfred"),
+                new UserSummary(5L, "charlie")
+        ));
+    }
+
+    @Test
+    @DisplayName("Devrait trouver les usernames par préfixe sans tenir compte de la casse")
+    void shouldFindByPrefix_IgnoringCase() {
+        // GIVEN
+        index.load();
+
+        // WHEN
+        List<UserSummary> result = index.search("AL", null, 10);
+
+        // THEN
+        assertThat(result).extracting(UserSummary::username)
+                .containsExactly("Albert", "alfred", "alice");
+    }
+
+    @Test
+    @DisplayName("Devrait limiter le nombre de résultats et exclure l'appelant")
+    void shouldLimitResults_AndExcludeCaller() {
+        // GIVEN
+        index.load();
+
+        // WHEN
+        List<UserSummary> result = index.search("al", 2L, 2);
+
+        // THEN
+        assertThat(result).extracting(UserSummary::id).containsExactly(4L, 1L);
+    }
+
+    @Test
+    @DisplayName("Devrait retourner une liste vide si aucun username ne correspond")
+    void shouldReturnEmpty_WhenNoMatch() {
+        // GIVEN
+        index.load();
+
+        // WHEN & THEN
+        assertThat(index.search("zoe", null, 10)).isEmpty();
+        assertThat(index.search("charlies", null, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait ajouter un utilisateur inscrit et déplacer un utilisateur renommé")
+    void shouldAddRegisteredUser_AndMoveRenamedUser() {
+        // GIVEN
+        index.load();
+
+        // WHEN
+        index.onUserChanged(new UserChangedEvent(new UserSnapshot(6L, "alan", "ROLE_USER")));
+        index.onUserChanged(new UserChangedEvent(new UserSnapshot(3L, "alberto", "ROLE_USER")));
+
+        // THEN
+        assertThat(index.search("al", null, 10)).extracting(UserSummary::username)
+                .containsExactly("alan", "Albert", "alberto", "alfred", "alice");
+        assertThat(index.search("bob", null, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer les inscriptions reçues avant la fin du chargement")
+    void shouldReplayChanges_ReceivedBeforeLoad() {
+        // GIVEN
+        index.put(6L, "alan");
+        assertThat(index.isLoaded()).isFalse();
+
+        // WHEN
+        index.load();
+
+        // THEN
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.search("alan", null, 10)).containsExactly(new UserSummary(6L, "alan"));
+    }
+}
@@ -0,0 +1,15 @@
+package com.devops.projet_dialogue.storage;
+
+import org.junit.jupiter.api.DisplayName;
+
+/**
+ * Tests unitaires pour InMemoryPhotoStorage
+ */
+@DisplayName("Tests de InMemoryPhotoStorage")
+class InMemoryPhotoStorageTest extends PhotoStorageContractTest {
+
+    @Override
+    protected PhotoStorage createStorage() {
+        return new InMemoryPhotoStorage();
+    }
+}
@@ -0,0 +1,58 @@
+package com.devops.projet_dialogue.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour LocalPhotoStorage
+ */
+@DisplayName("Tests de LocalPhotoStorage")
+class LocalPhotoStorageTest extends PhotoStorageContractTest {
+
+    @TempDir
+    Path root;
+
+    @Override
+    protected PhotoStorage createStorage() {
+        return new LocalPhotoStorage(root);
+    }
+
+    @Test
+    @DisplayName("Devrait créer le fichier temporaire dans le dossier, pour un renommage atomique")
+    void shouldStageInsideRoot() throws IOException {
+        Path staged = storage.newStagingFile();
+
+        assertThat(staged.getParent()).isEqualTo(root.toAbsolutePath().normalize());
+        assertThat(staged.getFileName().toString()).startsWith(".upload-");
+    }
+
+    @Test
+    @DisplayName("Devrait exposer le fichier local d'un objet (sendfile)")
+    void shouldExposeLocalPath() throws IOException {
+        // GIVEN
+        put("ab/photo.jpg", new byte[]{1});
+
+        // WHEN & THEN
+        assertThat(storage.localPath("ab/photo.jpg")).hasValue(root.resolve("ab/photo.jpg"));
+        assertThat(storage.localPath("absent.jpg")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas sortir du dossier racine")
+    void shouldRejectPathTraversal() throws IOException {
+        // GIVEN
+        Files.writeString(root.resolveSibling("secret.txt"), "secret");
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> PhotoStorage.await(storage.get("../secret.txt")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
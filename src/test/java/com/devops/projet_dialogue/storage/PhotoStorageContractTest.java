@@ -0,0 +1,118 @@
+package com.devops.projet_dialogue.storage;
+
+import com.devops.projet_dialogue.storage.PhotoStorage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static com.devops.projet_dialogue.storage.PhotoStorage.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comportement commun à toutes les implémentations de PhotoStorage
+ */
+abstract class PhotoStorageContractTest {
+
+    protected PhotoStorage storage;
+
+    protected abstract PhotoStorage createStorage() throws IOException;
+
+    @BeforeEach
+    void setUpStorage() throws IOException {
+        storage = createStorage();
+    }
+
+    protected void put(String key, byte[] content) throws IOException {
+        Path staged = storage.newStagingFile();
+        Files.write(staged, content);
+        await(storage.put(key, staged));
+    }
+
+    @Test
+    @DisplayName("Devrait relire un objet déposé et consommer le fichier temporaire")
+    void shouldPutAndGet() throws IOException {
+        // GIVEN
+        Path staged = storage.newStagingFile();
+        Files.writeString(staged, "contenu");
+
+        // WHEN
+        await(storage.put("ab/cd/photo.jpg", staged));
+
+        // THEN
+        assertThat(Files.exists(staged)).isFalse();
+        assertThat(await(storage.get("ab/cd/photo.jpg")))
+                .hasValueSatisfying(content -> assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo("contenu"));
+        Optional<StoredObject> head = await(storage.head("ab/cd/photo.jpg"));
+        assertThat(head).isPresent();
+        assertThat(head.get().size()).isEqualTo(7);
+        assertThat(head.get().lastModified()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Devrait retourner un résultat vide pour une clé absente")
+    void shouldReturnEmpty_WhenMissing() throws IOException {
+        assertThat(await(storage.head("absent.jpg"))).isEmpty();
+        assertThat(await(storage.get("absent.jpg"))).isEmpty();
+        assertThat(await(storage.stream("absent.jpg", 0, 10))).isEmpty();
+        assertThat(await(storage.move("absent.jpg", "ailleurs.jpg"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait lire une plage d'octets en flux")
+    void shouldStreamRange() throws IOException {
+        // GIVEN
+        put("photo.jpg", "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        Optional<InputStream> stream = await(storage.stream("photo.jpg", 3, 6));
+
+        // THEN
+        assertThat(stream).isPresent();
+        try (InputStream in = stream.get()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("3456");
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait déplacer un objet, ou supprimer la source si la cible existe déjà")
+    void shouldMove() throws IOException {
+        // GIVEN
+        put("a.jpg", "a".getBytes(StandardCharsets.UTF_8));
+        put("b.jpg", "b".getBytes(StandardCharsets.UTF_8));
+        put("ab/b.jpg", "b".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        boolean movedA = await(storage.move("a.jpg", "ab/a.jpg"));
+        boolean movedB = await(storage.move("b.jpg", "ab/b.jpg"));
+
+        // THEN
+        assertThat(movedA).isTrue();
+        assertThat(movedB).isTrue();
+        assertThat(await(storage.head("a.jpg"))).isEmpty();
+        assertThat(await(storage.head("b.jpg"))).isEmpty();
+        assertThat(await(storage.get("ab/a.jpg")))
+                .hasValueSatisfying(content -> assertThat(content).isEqualTo("a".getBytes(StandardCharsets.UTF_8)));
+        assertThat(await(storage.head("ab/b.jpg"))).isPresent();
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer un objet, sans erreur s'il n'existe pas")
+    void shouldDelete() throws IOException {
+        // GIVEN
+        put("photo.jpg", new byte[]{1, 2, 3});
+
+        // WHEN
+        await(storage.delete("photo.jpg"));
+        await(storage.delete("photo.jpg"));
+
+        // THEN
+        assertThat(await(storage.head("photo.jpg"))).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.devops.projet_dialogue.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+import static com.devops.projet_dialogue.storage.PhotoStorage.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests d'intégration pour S3PhotoStorage, contre un serveur MinIO (ignorés sans Docker)
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Tests de S3PhotoStorage")
+class S3PhotoStorageTest extends PhotoStorageContractTest {
+
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+
+    @Container
+    static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    private static S3AsyncClient client;
+
+    @BeforeAll
+    static void setUpClient() {
+        // Même configuration que PhotoStorageConfig : multipart au-delà d'une partie
+        client = S3AsyncClient.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .forcePathStyle(true)
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(PART_SIZE)
+                        .minimumPartSizeInBytes(PART_SIZE)
+                        .build())
+                .build();
+    }
+
+    @AfterAll
+    static void closeClient() {
+        client.close();
+    }
+
+    @Override
+    protected PhotoStorage createStorage() {
+        // Un bucket par test : aucun objet partagé entre les tests
+        String bucket = "photos-" + UUID.randomUUID();
+        client.createBucket(request -> request.bucket(bucket)).join();
+        return new S3PhotoStorage(client, bucket);
+    }
+
+    @Test
+    @DisplayName("Devrait envoyer un gros objet en plusieurs parties et le relire à l'identique")
+    void shouldUploadLargeObjectInParts() throws IOException {
+        // GIVEN - trois parties
+        byte[] content = new byte[(int) (2 * PART_SIZE + 1024)];
+        new Random(42).nextBytes(content);
+        Path staged = storage.newStagingFile();
+        Files.write(staged, content);
+
+        // WHEN
+        await(storage.put("ab/cd/large.jpg", staged));
+
+        // THEN
+        assertThat(Files.exists(staged)).isFalse();
+        assertThat(await(storage.head("ab/cd/large.jpg"))).hasValueSatisfying(
+                object -> assertThat(object.size()).isEqualTo(content.length));
+        assertThat(await(storage.get("ab/cd/large.jpg"))).hasValueSatisfying(
+                stored -> assertThat(stored).isEqualTo(content));
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas exposer de fichier local")
+    void shouldNotExposeLocalPath() throws IOException {
+        put("photo.jpg", new byte[]{1});
+
+        assertThat(storage.localPath("photo.jpg")).isEmpty();
+    }
+}